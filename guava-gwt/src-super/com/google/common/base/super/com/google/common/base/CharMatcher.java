@@ -441,6 +441,27 @@ public abstract class CharMatcher implements Predicate<Character> {
         return c == match;
       }
 
+      @Override public int indexIn(CharSequence sequence) {
+        // the JDK scans strings for a character in bulk
+        return (sequence instanceof String)
+            ? ((String) sequence).indexOf(match)
+            : super.indexIn(sequence);
+      }
+
+      @Override public int indexIn(CharSequence sequence, int start) {
+        if (sequence instanceof String) {
+          Preconditions.checkPositionIndex(start, sequence.length());
+          return ((String) sequence).indexOf(match, start);
+        }
+        return super.indexIn(sequence, start);
+      }
+
+      @Override public int lastIndexIn(CharSequence sequence) {
+        return (sequence instanceof String)
+            ? ((String) sequence).lastIndexOf(match)
+            : super.lastIndexIn(sequence);
+      }
+
       @Override public String replaceFrom(CharSequence sequence, char replacement) {
         return sequence.toString().replace(match, replacement);
       }
@@ -17,7 +17,9 @@
 package com.google.common.base;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 
 import com.google.common.annotations.Beta;
 import com.google.common.annotations.GwtCompatible;
@@ -340,10 +342,95 @@ public final class Splitter {
     };
   }
 
-  private Iterator<String> splittingIterator(CharSequence sequence) {
+  private SplittingIterator splittingIterator(CharSequence sequence) {
     return strategy.iterator(this, sequence);
   }
 
+  /**
+   * Splits {@code sequence} into components, like {@link #split(CharSequence)},
+   * but returns them as views of {@code sequence} instead of copying them into
+   * new strings. The iterator returns the <i>same</i> {@code CharSequence}
+   * instance every time, pointed to the next component, so iterating doesn't
+   * allocate any object for each component.
+   *
+   * <p>Each view is only valid until the next call to {@code hasNext()} or
+   * {@code next()} on the iterator that returned it, and reflects any changes
+   * to {@code sequence}. Call {@code toString()} on a view to keep a copy of
+   * it.
+   *
+   * @param sequence the sequence of characters to split
+   * @return an iteration over views of the segments split from the parameter
+   * @since 19.0
+   */
+  @Beta
+  public Iterable<CharSequence> splitAsViews(final CharSequence sequence) {
+    checkNotNull(sequence);
+
+    return new Iterable<CharSequence>() {
+      @Override public Iterator<CharSequence> iterator() {
+        final SplittingIterator parts = splittingIterator(sequence);
+        final SubSequence view = new SubSequence(sequence);
+        return new AbstractIterator<CharSequence>() {
+          @Override protected CharSequence computeNext() {
+            if (!parts.findNext()) {
+              return endOfData();
+            }
+            view.start = parts.partStart;
+            view.end = parts.partEnd;
+            return view;
+          }
+        };
+      }
+      @Override public String toString() {
+        return Joiner.on(", ")
+            .appendTo(new StringBuilder().append('['), this)
+            .append(']')
+            .toString();
+      }
+    };
+  }
+
+  /**
+   * Splits {@code sequence} into components, like {@link #split(CharSequence)},
+   * and passes the bounds of each component in {@code sequence}, in order, to
+   * a separate call to {@link RangeProcessor#processRange}, until there are no
+   * more components or until the processor returns {@code false}. No object is
+   * allocated for each component.
+   *
+   * @param sequence the sequence of characters to split
+   * @return the result of the processor
+   * @since 19.0
+   */
+  @Beta
+  public <T> T split(CharSequence sequence, RangeProcessor<T> processor) {
+    checkNotNull(processor);
+    SplittingIterator parts = splittingIterator(checkNotNull(sequence));
+    while (parts.findNext()) {
+      if (!processor.processRange(sequence, parts.partStart, parts.partEnd)) {
+        break;
+      }
+    }
+    return processor.getResult();
+  }
+
+  /**
+   * A callback that receives the bounds of the components of a sequence, as
+   * they are split by {@link Splitter#split(CharSequence, RangeProcessor)}.
+   *
+   * @since 19.0
+   */
+  @Beta
+  public interface RangeProcessor<T> {
+    /**
+     * Processes the component {@code sequence.subSequence(start, end)}, after
+     * trimming, and returns {@code false} to stop splitting.
+     */
+    boolean processRange(CharSequence sequence, int start, int end);
+
+    /** Returns the result of processing all the components. */
+    T getResult();
+  }
+
   /**
    * Splits {@code sequence} into string components and returns them as
    * an immutable list. If you want an {@link Iterable} which may be lazily
@@ -455,16 +542,115 @@ public final class Splitter {
       }
       return Collections.unmodifiableMap(map);
     }
+
+    /**
+     * Splits {@code sequence} into entries, like {@link #split(CharSequence)},
+     * and passes the bounds of the key and the value of each entry in {@code
+     * sequence}, in order, to a separate call to {@link
+     * EntryProcessor#processEntry}, until there are no more entries or until
+     * the processor returns {@code false}. No object is allocated for each
+     * entry, and unlike {@link #split(CharSequence)}, duplicate keys are not
+     * detected.
+     *
+     * @return the result of the processor
+     * @throws IllegalArgumentException if the specified sequence does not split
+     *         into valid map entries; the entries before the invalid one have
+     *         been processed
+     * @since 19.0
+     */
+    public <T> T split(CharSequence sequence, EntryProcessor<T> processor) {
+      checkNotNull(processor);
+      SplittingIterator entries =
+          outerSplitter.splittingIterator(checkNotNull(sequence));
+      SubSequence entry = new SubSequence(sequence);
+      SplittingIterator entryFields = null;
+      while (entries.findNext()) {
+        entry.start = entries.partStart;
+        entry.end = entries.partEnd;
+        entryFields = (entryFields == null)
+            ? entrySplitter.splittingIterator(entry)
+            : entryFields.reset(entry);
+
+        checkArgument(entryFields.findNext(), INVALID_ENTRY_MESSAGE, entry);
+        int keyStart = entry.start + entryFields.partStart;
+        int keyEnd = entry.start + entryFields.partEnd;
+
+        checkArgument(entryFields.findNext(), INVALID_ENTRY_MESSAGE, entry);
+        int valueStart = entry.start + entryFields.partStart;
+        int valueEnd = entry.start + entryFields.partEnd;
+
+        checkArgument(!entryFields.findNext(), INVALID_ENTRY_MESSAGE, entry);
+        if (!processor.processEntry(
+            sequence, keyStart, keyEnd, valueStart, valueEnd)) {
+          break;
+        }
+      }
+      return processor.getResult();
+    }
+
+    /**
+     * A callback that receives the bounds of the keys and values of the
+     * entries of a sequence, as they are split by {@link
+     * MapSplitter#split(CharSequence, EntryProcessor)}.
+     *
+     * @since 19.0
+     */
+    @Beta
+    public interface EntryProcessor<T> {
+      /**
+       * Processes the entry whose key is {@code sequence.subSequence(keyStart,
+       * keyEnd)} and whose value is {@code sequence.subSequence(valueStart,
+       * valueEnd)}, and returns {@code false} to stop splitting.
+       */
+      boolean processEntry(CharSequence sequence,
+          int keyStart, int keyEnd, int valueStart, int valueEnd);
+
+      /** Returns the result of processing all the entries. */
+      T getResult();
+    }
   }
 
   private interface Strategy {
-    Iterator<String> iterator(Splitter splitter, CharSequence toSplit);
+    SplittingIterator iterator(Splitter splitter, CharSequence toSplit);
+  }
+
+  /**
+   * A view of the range of a sequence from {@code start} to {@code end}, which
+   * can be moved to another range.
+   */
+  private static final class SubSequence implements CharSequence {
+    final CharSequence sequence;
+    int start;
+    int end;
+
+    SubSequence(CharSequence sequence) {
+      this.sequence = sequence;
+    }
+
+    @Override public int length() {
+      return end - start;
+    }
+
+    @Override public char charAt(int index) {
+      checkElementIndex(index, end - start);
+      return sequence.charAt(start + index);
+    }
+
+    @Override public CharSequence subSequence(int start, int end) {
+      checkPositionIndexes(start, end, this.end - this.start);
+      return sequence.subSequence(this.start + start, this.start + end);
+    }
+
+    @Override public String toString() {
+      return sequence.subSequence(start, end).toString();
+    }
   }
 
   private abstract static class SplittingIterator extends AbstractIterator<String> {
-    final CharSequence toSplit;
+    CharSequence toSplit;
     final CharMatcher trimmer;
     final boolean omitEmptyStrings;
+    final int initialLimit;
 
     /**
      * Returns the first index in {@code toSplit} at or after {@code start}
@@ -482,26 +668,96 @@ public final class Splitter {
     int offset = 0;
     int limit;
 
+    /**
+     * The start of the next component, which is only behind {@code offset}
+     * while {@link #findNext} waits for more input.
+     */
+    int nextStart = 0;
+
+    /**
+     * Whether {@code toSplit} holds all of the input. If it doesn't, {@link
+     * #findNext} stops at the first separator or component that more input
+     * could change, and sets {@code needsInput}.
+     */
+    boolean endOfInput = true;
+    boolean needsInput;
+
+    /** The bounds of the last component found by {@link #findNext}. */
+    int partStart;
+    int partEnd;
+
     protected SplittingIterator(Splitter splitter, CharSequence toSplit) {
       this.trimmer = splitter.trimmer;
       this.omitEmptyStrings = splitter.omitEmptyStrings;
+      this.initialLimit = splitter.limit;
       this.limit = splitter.limit;
       this.toSplit = toSplit;
     }
 
+    /**
+     * Restarts splitting from the beginning of {@code toSplit}, for the
+     * callers of {@link #findNext}, so that this iterator can be reused.
+     */
+    SplittingIterator reset(CharSequence toSplit) {
+      this.toSplit = toSplit;
+      this.offset = 0;
+      this.nextStart = 0;
+      this.limit = initialLimit;
+      return this;
+    }
+
+    /**
+     * Returns whether the last call to {@link #separatorStart} looked at the
+     * end of {@code toSplit}, so that more input could change its result.
+     */
+    boolean hitEnd() {
+      return false;
+    }
+
+    /**
+     * Shifts the positions of this iterator after the first {@code count}
+     * characters have been removed from {@code toSplit}.
+     */
+    void discard(int count) {
+      offset -= count;
+      nextStart -= count;
+    }
+
     @Override protected String computeNext() {
+      return findNext()
+          ? toSplit.subSequence(partStart, partEnd).toString()
+          : endOfData();
+    }
+
+    /**
+     * Finds the next component, and stores its bounds in {@code partStart} and
+     * {@code partEnd}. Returns {@code false} if there are no more components,
+     * or if more input is needed to find the next one.
+     */
+    final boolean findNext() {
+      needsInput = false;
+      if (limit == 1 && !endOfInput) {
+        // the last component extends to the end of the input
+        needsInput = true;
+        return false;
+      }
       /*
        * The returned string will be from the end of the last match to the
        * beginning of the next one. nextStart is the start position of the
        * returned substring, while offset is the place to start looking for a
        * separator.
        */
-      int nextStart = offset;
+      int nextStart = this.nextStart;
       while (offset != -1) {
         int start = nextStart;
         int end;
 
         int separatorPosition = separatorStart(offset);
+        if (!endOfInput && (separatorPosition == -1 || hitEnd())) {
+          this.nextStart = nextStart;
+          needsInput = true;
+          return false;
+        }
         if (separatorPosition == -1) {
           end = toSplit.length();
           offset = -1;
@@ -519,6 +775,11 @@ public final class Splitter {
            */
           offset++;
           if (offset >= toSplit.length()) {
+            if (!endOfInput) {
+              this.nextStart = nextStart;
+              needsInput = true;
+              return false;
+            }
             offset = -1;
           }
           continue;
@@ -551,9 +812,12 @@ public final class Splitter {
           limit--;
         }
 
-        return toSplit.subSequence(start, end).toString();
+        partStart = start;
+        partEnd = end;
+        this.nextStart = offset;
+        return true;
       }
-      return endOfData();
+      return false;
     }
   }
 }
@@ -16,8 +16,10 @@ package com.google.common.io;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.io.GwtWorkarounds.appendableOutput;
 import static com.google.common.io.GwtWorkarounds.asCharInput;
 import static com.google.common.io.GwtWorkarounds.stringBuilderOutput;
 import static com.google.common.math.IntMath.divide;
@@ -123,8 +125,6 @@ import javax.annotation.Nullable;
 @Beta
 @GwtCompatible(emulated = true)
 public abstract class BaseEncoding {
-  // TODO(user): consider adding encodeTo(Appendable, byte[], [int, int])
-
   BaseEncoding() {}
 
   /**
@@ -170,6 +170,35 @@ public abstract class BaseEncoding {
     return result.toString();
   }
 
+  /**
+   * Encodes the specified byte array, and appends the encoded characters to {@code target}.
+   *
+   * @throws IOException if an I/O error occurs in the process of appending to {@code target}
+   * @since 19.0
+   */
+  public final void encodeTo(byte[] bytes, Appendable target) throws IOException {
+    encodeTo(checkNotNull(bytes), 0, bytes.length, target);
+  }
+
+  /**
+   * Encodes the specified range of the specified byte array, and appends the encoded characters
+   * to {@code target}. Unlike {@link #encode(byte[], int, int)}, no intermediate {@code String} is
+   * created, so large arrays can be encoded straight into a {@code StringBuilder}.
+   *
+   * @throws IOException if an I/O error occurs in the process of appending to {@code target}
+   * @since 19.0
+   */
+  public final void encodeTo(byte[] bytes, int off, int len, Appendable target)
+      throws IOException {
+    checkNotNull(bytes);
+    checkPositionIndexes(off, off + len, bytes.length);
+    ByteOutput byteOutput = encodingStream(appendableOutput(target));
+    for (int i = 0; i < len; i++) {
+      byteOutput.write(bytes[off + i]);
+    }
+    byteOutput.close();
+  }
+
   // TODO(user): document the extent of leniency, probably after adding ignore(CharMatcher)
 
   private static byte[] extract(byte[] result, int length) {
@@ -221,6 +250,33 @@ public abstract class BaseEncoding {
     return extract(tmp, index);
   }
 
+  /**
+   * Decodes the specified character sequence into {@code target}, starting at {@code
+   * target[off]}, and returns the number of bytes written. If the input is invalid, the contents
+   * of {@code target} after {@code off} are unspecified.
+   *
+   * @throws IllegalArgumentException if the input is not a valid encoded string according to this
+   *         encoding.
+   * @throws IndexOutOfBoundsException if the decoded bytes don't fit in {@code target} after
+   *         {@code off}
+   * @since 19.0
+   */
+  public final int decodeTo(CharSequence chars, byte[] target, int off) {
+    checkNotNull(target);
+    checkPositionIndex(off, target.length);
+    byte[] decoded;
+    try {
+      // invalid input is reported before a target that's too small, as on the JVM
+      decoded = decodeChecked(chars);
+    } catch (DecodingException badInput) {
+      throw new IllegalArgumentException(badInput);
+    }
+    // GWT arrays don't check their bounds
+    checkPositionIndexes(off, off + decoded.length, target.length);
+    System.arraycopy(decoded, 0, target, off, decoded.length);
+    return decoded.length;
+  }
+
   // Implementations for encoding/decoding
 
   abstract int maxEncodedSize(int bytes);
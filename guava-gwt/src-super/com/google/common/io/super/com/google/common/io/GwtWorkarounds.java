@@ -89,6 +89,25 @@ final class GwtWorkarounds {
     void close() throws IOException;
   }
 
+  /**
+   * Views an {@code Appendable} as a {@code CharOutput}.
+   */
+  static CharOutput appendableOutput(final Appendable target) {
+    checkNotNull(target);
+    return new CharOutput() {
+      @Override
+      public void write(char c) throws IOException {
+        target.append(c);
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    };
+  }
+
   /**
    * Returns a {@code CharOutput} whose {@code toString()} method can be used
    * to get the combined output.
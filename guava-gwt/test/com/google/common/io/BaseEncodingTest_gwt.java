@@ -113,6 +113,21 @@ public void testBase64OmitPadding() throws Exception {
   testCase.testBase64OmitPadding();
 }
 
+public void testDecodeToInvalidInputBeforeTargetTooSmall() throws Exception {
+  com.google.common.io.BaseEncodingTest testCase = new com.google.common.io.BaseEncodingTest();
+  testCase.testDecodeToInvalidInputBeforeTargetTooSmall();
+}
+
+public void testDecodeToTargetTooSmall() throws Exception {
+  com.google.common.io.BaseEncodingTest testCase = new com.google.common.io.BaseEncodingTest();
+  testCase.testDecodeToTargetTooSmall();
+}
+
+public void testEncodeToRange() throws Exception {
+  com.google.common.io.BaseEncodingTest testCase = new com.google.common.io.BaseEncodingTest();
+  testCase.testEncodeToRange();
+}
+
 public void testSeparatorSameAsPadChar() throws Exception {
   com.google.common.io.BaseEncodingTest testCase = new com.google.common.io.BaseEncodingTest();
   testCase.testSeparatorSameAsPadChar();
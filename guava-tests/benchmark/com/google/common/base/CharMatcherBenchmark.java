@@ -65,6 +65,9 @@ public class CharMatcherBenchmark {
   // Use web-derived sampler.
   @Param("false") boolean web;
 
+  // Whether to let the matcher scan strings in blocks, rather than one character at a time
+  @Param("true") boolean blocks;
+
   private CharMatcher matcher;
   private String string;
 
@@ -77,6 +80,9 @@ public class CharMatcherBenchmark {
       int matchedCharCount = tmp.cardinality();
       this.matcher = SmallCharMatcher.from(tmp, "");
     }
+    if (!blocks) {
+      this.matcher = perCharacter(matcher);
+    }
     this.string = checkString(length, percent, config.matchingChars,
         new Random(), forceSlow, web);
   }
@@ -91,6 +97,30 @@ public class CharMatcherBenchmark {
     return dummy;
   }
 
+  @Benchmark int indexInString(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += matcher.indexIn(string);
+    }
+    return dummy;
+  }
+
+  @Benchmark int countInString(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += matcher.countIn(string);
+    }
+    return dummy;
+  }
+
+  @Benchmark int collapseFromString(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += matcher.collapseFrom(string, '!').length();
+    }
+    return dummy;
+  }
+
   @Benchmark int matches(int reps) {
     int dummy = 0;
     for (int i = 0; i < reps; i++) {
@@ -99,6 +129,15 @@ public class CharMatcherBenchmark {
     return dummy;
   }
 
+  /** Returns a matcher that only overrides {@link CharMatcher#matches}. */
+  private static CharMatcher perCharacter(final CharMatcher matcher) {
+    return new CharMatcher() {
+      @Override public boolean matches(char c) {
+        return matcher.matches(c);
+      }
+    };
+  }
+
   private static final String NONMATCHING_CHARS =
       "abcdefghijklmnopqrstuvwxyz0123456789";
 
@@ -22,7 +22,9 @@ import com.google.caliper.Param;
 import com.google.common.collect.Iterables;
 
 /**
- * Microbenchmark for {@link Splitter#on} with char vs String with length == 1.
+ * Microbenchmark for {@link Splitter#on} with char vs String with length == 1, and for the
+ * splitting modes that don't allocate a string per part. Run it with caliper's allocation
+ * instrument ({@code -i allocation}) to compare the number of objects allocated per split.
  *
  * @author Paul Lindner
  */
@@ -33,12 +35,50 @@ public class SplitterBenchmark {
   @Param({"xxxx", "xxXx", "xXxX", "XXXX"}) String text;
 
   private String input;
+  // length distinct entries such as "1x99", for the map splitter
+  private String mapInput;
 
   private static final Splitter CHAR_SPLITTER = Splitter.on('X');
   private static final Splitter STRING_SPLITTER = Splitter.on("X");
+  private static final Splitter.MapSplitter MAP_SPLITTER =
+      Splitter.on('X').withKeyValueSeparator('x');
+
+  private static final Splitter.RangeProcessor<Integer> RANGE_COUNTER =
+      new Splitter.RangeProcessor<Integer>() {
+        int count;
+
+        @Override public boolean processRange(CharSequence sequence, int start, int end) {
+          count += end - start;
+          return true;
+        }
+
+        @Override public Integer getResult() {
+          return count;
+        }
+      };
+
+  private static final Splitter.MapSplitter.EntryProcessor<Integer> ENTRY_COUNTER =
+      new Splitter.MapSplitter.EntryProcessor<Integer>() {
+        int count;
+
+        @Override public boolean processEntry(CharSequence sequence,
+            int keyStart, int keyEnd, int valueStart, int valueEnd) {
+          count += valueEnd - keyStart;
+          return true;
+        }
+
+        @Override public Integer getResult() {
+          return count;
+        }
+      };
 
   @BeforeExperiment void setUp() {
     input = Strings.repeat(text, length);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      builder.append(i == 0 ? "" : "X").append(i).append('x').append(length - i);
+    }
+    mapInput = builder.toString();
   }
 
   @Benchmark void charSplitter(int reps) {
@@ -56,4 +96,48 @@ public class SplitterBenchmark {
      total += Iterables.size(STRING_SPLITTER.split(input));
     }
   }
+
+  @Benchmark int charSplitterStrings(int reps) {
+    int total = 0;
+    for (int i = 0; i < reps; i++) {
+      for (String part : CHAR_SPLITTER.split(input)) {
+        total += part.length();
+      }
+    }
+    return total;
+  }
+
+  @Benchmark int charSplitterViews(int reps) {
+    int total = 0;
+    for (int i = 0; i < reps; i++) {
+      for (CharSequence part : CHAR_SPLITTER.splitAsViews(input)) {
+        total += part.length();
+      }
+    }
+    return total;
+  }
+
+  @Benchmark int charSplitterRanges(int reps) {
+    int total = 0;
+    for (int i = 0; i < reps; i++) {
+      total += CHAR_SPLITTER.split(input, RANGE_COUNTER);
+    }
+    return total;
+  }
+
+  @Benchmark int mapSplitter(int reps) {
+    int total = 0;
+    for (int i = 0; i < reps; i++) {
+      total += MAP_SPLITTER.split(mapInput).size();
+    }
+    return total;
+  }
+
+  @Benchmark int mapSplitterEntries(int reps) {
+    int total = 0;
+    for (int i = 0; i < reps; i++) {
+      total += MAP_SPLITTER.split(mapInput, ENTRY_COUNTER);
+    }
+    return total;
+  }
 }
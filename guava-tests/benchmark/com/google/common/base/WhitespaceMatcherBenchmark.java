@@ -109,7 +109,7 @@ public class WhitespaceMatcherBenchmark {
     int remaining = (int) ((100 - percentMatching) * result.length / 100.0 + 0.5);
     while (remaining > 0) {
       final char c = (char) random.nextInt();
-      if (bitSet.get(c)) {
+      if (!bitSet.get(c)) {
         final int pos = random.nextInt(result.length);
         if (bitSet.get(result[pos])) {
           result[pos] = c;
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.cache;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded benchmark for {@link LoadingCache}, measuring the throughput and hit rate of
+ * concurrent lookups that mostly hit. See also {@link LoadingCacheSingleThreadBenchmark}.
+ */
+public class LoadingCacheMultiThreadBenchmark {
+  @Param({"1", "4", "16", "32"}) int threads;
+  @Param({"1000", "2000"}) int maximumSize;
+  @Param("5000") int distinctKeys;
+  @Param("4") int segments;
+  @Param EvictionPolicy evictionPolicy;
+
+  // 1 means uniform likelihood of keys; higher means some keys are more popular
+  // tweak this to control hit rate
+  @Param("2.5") double concentration;
+
+  // the keys are drawn up front, so that the threads don't contend on a Random
+  private static final int KEY_COUNT = 1 << 16;
+  private static final int KEY_MASK = KEY_COUNT - 1;
+
+  Integer[] keys;
+
+  LoadingCache<Integer, Integer> cache;
+
+  ExecutorService threadPool;
+
+  static AtomicLong requests = new AtomicLong(0);
+  static AtomicLong misses = new AtomicLong(0);
+
+  @BeforeExperiment void setUp() {
+    // random integers will be generated in this range, then raised to the
+    // power of (1/concentration) and floor()ed
+    int max = Ints.checkedCast((long) Math.pow(distinctKeys, concentration));
+    Random random = new Random();
+    keys = new Integer[KEY_COUNT];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      keys[i] = (int) Math.pow(random.nextInt(max), 1.0 / concentration);
+    }
+
+    cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(segments)
+        .maximumSize(maximumSize)
+        .evictionPolicy(evictionPolicy)
+        .build(
+            new CacheLoader<Integer, Integer>() {
+              @Override public Integer load(Integer from) {
+                return (int) misses.incrementAndGet();
+              }
+            });
+
+    // To start, fill up the cache (see LoadingCacheSingleThreadBenchmark).
+    for (int i = 0; cache.getUnchecked(keys[i & KEY_MASK]) < maximumSize; i++) {}
+
+    requests.set(0);
+    misses.set(0);
+    threadPool =
+        Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true).build());
+  }
+
+  @Benchmark long get(final int reps) throws ExecutionException, InterruptedException {
+    List<Future<Long>> futures = Lists.newArrayListWithCapacity(threads);
+    for (int t = 0; t < threads; t++) {
+      final int start = t * (KEY_COUNT / threads);
+      futures.add(threadPool.submit(
+          new Callable<Long>() {
+            @Override public Long call() {
+              long dummy = 0;
+              for (int i = 0; i < reps; i++) {
+                dummy += cache.getUnchecked(keys[(start + i) & KEY_MASK]);
+              }
+              return dummy;
+            }
+          }));
+    }
+    long dummy = 0;
+    for (Future<Long> future : futures) {
+      dummy += future.get();
+    }
+    requests.addAndGet((long) reps * threads);
+    return dummy;
+  }
+
+  @AfterExperiment void tearDown() {
+    threadPool.shutdown();
+    double req = requests.get();
+    double hit = req - misses.get();
+    System.out.println("hit rate: " + hit / req);
+  }
+}
@@ -64,6 +64,34 @@ public class ChecksumBenchmark {
     return result;
   }
 
+  // CRC32C
+
+  @Benchmark byte crc32cHashFunction(int reps) {
+    return runHashFunction(reps, Hashing.crc32c());
+  }
+
+  /** The pure-Java fallback, which reads eight bytes at a time. */
+  @Benchmark byte crc32cSlicingBy8(int reps) {
+    byte result = 0x01;
+    for (int i = 0; i < reps; i++) {
+      result ^= new Crc32cHashFunction.Crc32cHasher().putBytes(testBytes).hash().asBytes()[0];
+    }
+    return result;
+  }
+
+  /** The lookup of one byte at a time that the fallback used to be limited to. */
+  @Benchmark byte crc32cByteAtATime(int reps) {
+    byte result = 0x01;
+    for (int i = 0; i < reps; i++) {
+      Hasher hasher = new Crc32cHashFunction.Crc32cHasher();
+      for (byte b : testBytes) {
+        hasher.putByte(b);
+      }
+      result ^= hasher.hash().asBytes()[0];
+    }
+    return result;
+  }
+
   // Adler32
 
   @Benchmark byte adler32HashFunction(int reps) {
@@ -87,6 +115,7 @@ public class ChecksumBenchmark {
     // Trick the JVM to prevent it from using the hash function non-polymorphically
     result ^= Hashing.crc32().hashInt(reps).asBytes()[0];
     result ^= Hashing.adler32().hashInt(reps).asBytes()[0];
+    result ^= Hashing.crc32c().hashInt(reps).asBytes()[0];
     for (int i = 0; i < reps; i++) {
       result ^= hashFunction.hashBytes(testBytes).asBytes()[0];
     }
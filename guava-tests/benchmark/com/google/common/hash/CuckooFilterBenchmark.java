@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+
+import java.util.Random;
+
+/**
+ * Benchmarks comparing the throughput of {@link CuckooFilter} with that of {@link BloomFilter}.
+ * The number of bits per element of each filter is printed when it is created.
+ *
+ * <p>Parameters for the benchmark are:
+ * <ul>
+ * <li>expectedInsertions: The number of elements each filter is sized for, and holds.
+ * <li>fpp: The false positive probability each filter is sized for.
+ * <li>filter: The kind of filter.
+ * </ul>
+ */
+public class CuckooFilterBenchmark {
+  private static final int SAMPLE_SIZE = 0x1000;
+  private static final int SAMPLE_MASK = SAMPLE_SIZE - 1;
+
+  @Param({"10000", "1000000"}) int expectedInsertions;
+  @Param({"0.03", "0.001"}) double fpp;
+  @Param FilterType filter;
+
+  enum FilterType {
+    BLOOM {
+      @Override MembershipFilter create(int expectedInsertions, double fpp) {
+        final BloomFilter<Long> bf =
+            BloomFilter.create(Funnels.longFunnel(), expectedInsertions, fpp);
+        return new MembershipFilter() {
+          @Override boolean put(long element) {
+            return bf.put(element);
+          }
+
+          @Override boolean mightContain(long element) {
+            return bf.mightContain(element);
+          }
+
+          @Override long bitSize() {
+            return bf.bitSize();
+          }
+        };
+      }
+    },
+    CUCKOO {
+      @Override MembershipFilter create(int expectedInsertions, double fpp) {
+        final CuckooFilter<Long> cf =
+            CuckooFilter.create(Funnels.longFunnel(), expectedInsertions, fpp);
+        return new MembershipFilter() {
+          @Override boolean put(long element) {
+            return cf.put(element);
+          }
+
+          @Override boolean mightContain(long element) {
+            return cf.mightContain(element);
+          }
+
+          @Override long bitSize() {
+            return cf.bitSize();
+          }
+        };
+      }
+    };
+
+    abstract MembershipFilter create(int expectedInsertions, double fpp);
+  }
+
+  abstract static class MembershipFilter {
+    abstract boolean put(long element);
+
+    abstract boolean mightContain(long element);
+
+    abstract long bitSize();
+  }
+
+  private MembershipFilter fullFilter;
+  private final long[] present = new long[SAMPLE_SIZE];
+  private final long[] absent = new long[SAMPLE_SIZE];
+
+  @BeforeExperiment void setUp() {
+    Random random = new Random(42);
+    fullFilter = filter.create(expectedInsertions, fpp);
+    for (int i = 0; i < expectedInsertions; i++) {
+      long element = random.nextLong();
+      fullFilter.put(element);
+      if (i < SAMPLE_SIZE) {
+        present[i] = element;
+      }
+    }
+    for (int i = 0; i < SAMPLE_SIZE; i++) {
+      absent[i] = random.nextLong();
+    }
+    System.out.println(filter + ": "
+        + (double) fullFilter.bitSize() / expectedInsertions + " bits per element");
+  }
+
+  @Benchmark int put(int reps) {
+    Random random = new Random(42);
+    int dummy = 0;
+    MembershipFilter emptyFilter = filter.create(expectedInsertions, fpp);
+    for (int i = 0, size = 0; i < reps; i++, size++) {
+      if (size == expectedInsertions) {
+        emptyFilter = filter.create(expectedInsertions, fpp);
+        size = 0;
+      }
+      dummy += emptyFilter.put(random.nextLong()) ? 1 : 0;
+    }
+    return dummy;
+  }
+
+  @Benchmark int mightContain_present(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += fullFilter.mightContain(present[i & SAMPLE_MASK]) ? 1 : 0;
+    }
+    return dummy;
+  }
+
+  @Benchmark int mightContain_absent(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += fullFilter.mightContain(absent[i & SAMPLE_MASK]) ? 1 : 0;
+    }
+    return dummy;
+  }
+}
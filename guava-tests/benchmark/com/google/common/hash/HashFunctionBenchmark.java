@@ -19,11 +19,14 @@ package com.google.common.hash;
 import com.google.caliper.BeforeExperiment;
 import com.google.caliper.Benchmark;
 import com.google.caliper.Param;
+import com.google.common.primitives.Longs;
 
 import java.util.Random;
 
 /**
- * Benchmarks for comparing the various {@link HashFunction functions} that we provide.
+ * Benchmarks for comparing the various {@link HashFunction functions} that we provide. Each rep
+ * hashes {@code size} bytes, so the throughput of a function in bytes per second is {@code size}
+ * divided by the time per rep.
  *
  * <p>Parameters for the benchmark are:
  * <ul>
@@ -38,16 +41,25 @@ public class HashFunctionBenchmark {
   // Use a statically configured random instance for all of the benchmarks
   private static final Random random = new Random(42);
 
+  private static final int CHUNK_SIZE = 4096;
+
   @Param({"10", "1000", "100000", "1000000"})
   private int size;
 
   @Param HashFunctionEnum hashFunctionEnum;
 
   private byte[] testBytes;
+  private long[] testLongs;
+  private long[] longHashes;
 
   @BeforeExperiment void setUp() {
     testBytes = new byte[size];
     random.nextBytes(testBytes);
+    testLongs = new long[Math.max(1, size / Longs.BYTES)];
+    for (int i = 0; i < testLongs.length; i++) {
+      testLongs[i] = random.nextLong();
+    }
+    longHashes = new long[testLongs.length];
   }
 
   @Benchmark int hashFunction(int reps) {
@@ -67,4 +79,41 @@ public class HashFunctionBenchmark {
     }
     return result;
   }
+
+  /** Hashes the bytes through a {@link Hasher}, in chunks as they would be read from a stream. */
+  @Benchmark int hasherInChunks(int reps) {
+    HashFunction hashFunction = hashFunctionEnum.getHashFunction();
+    int result = 37;
+    for (int i = 0; i < reps; i++) {
+      Hasher hasher = hashFunction.newHasher();
+      for (int off = 0; off < testBytes.length; off += CHUNK_SIZE) {
+        hasher.putBytes(testBytes, off, Math.min(CHUNK_SIZE, testBytes.length - off));
+      }
+      result ^= hasher.hash().asBytes()[0];
+    }
+    return result;
+  }
+
+  /** Hashes {@code size / 8} longs one at a time, as separate keys. */
+  @Benchmark long hashLong(int reps) {
+    HashFunction hashFunction = hashFunctionEnum.getHashFunction();
+    long result = 37;
+    for (int i = 0; i < reps; i++) {
+      for (long value : testLongs) {
+        result ^= hashFunction.hashLong(value).padToLong();
+      }
+    }
+    return result;
+  }
+
+  /** Hashes {@code size / 8} longs in bulk, as separate keys. */
+  @Benchmark long hashLongs(int reps) {
+    HashFunction hashFunction = hashFunctionEnum.getHashFunction();
+    long result = 37;
+    for (int i = 0; i < reps; i++) {
+      hashFunction.hashLongs(testLongs, longHashes);
+      result ^= longHashes[i % longHashes.length];
+    }
+    return result;
+  }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks comparing the lookup latency of the {@link ShardRouter} strategies with that of
+ * {@link Hashing#consistentHash(HashCode, int)}. When each router is created, the fraction of the
+ * keys routed to a different node after removing the last node, and after removing the first one,
+ * is printed; {@code consistentHash} can only remove the first node by renumbering the others.
+ *
+ * <p>Parameters for the benchmark are:
+ * <ul>
+ * <li>nodeCount: The number of nodes keys are routed to.
+ * <li>router: The routing strategy.
+ * </ul>
+ */
+public class ShardRouterBenchmark {
+  private static final int SAMPLE_SIZE = 0x1000;
+  private static final int SAMPLE_MASK = SAMPLE_SIZE - 1;
+  private static final int REMAP_SAMPLE_SIZE = 100000;
+
+  @Param({"10", "100", "1000"}) int nodeCount;
+  @Param RouterType router;
+
+  enum RouterType {
+    CONSISTENT_HASH {
+      @Override Router create(final int nodeCount) {
+        return new Router() {
+          @Override int route(long key) {
+            return Hashing.consistentHash(HASH_FUNCTION.hashLong(key), nodeCount);
+          }
+        };
+      }
+    },
+    RENDEZVOUS {
+      @Override Router create(int nodeCount) {
+        final ShardRouter<Long, Integer> router =
+            ShardRouter.rendezvous(Funnels.longFunnel(), Funnels.integerFunnel(), nodes(nodeCount));
+        return new Router() {
+          @Override int route(long key) {
+            return router.route(key);
+          }
+        };
+      }
+    },
+    MAGLEV {
+      @Override Router create(int nodeCount) {
+        final ShardRouter<Long, Integer> router =
+            ShardRouter.maglev(Funnels.longFunnel(), Funnels.integerFunnel(), nodes(nodeCount));
+        return new Router() {
+          @Override int route(long key) {
+            return router.route(key);
+          }
+        };
+      }
+    };
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /** Creates a router to the nodes {@code [0, nodeCount)}. */
+    abstract Router create(int nodeCount);
+
+    /**
+     * Returns the fraction of the keys not routed to the removed node that are routed to a
+     * different node once it's removed. Removing the first node from a {@code consistentHash}
+     * router renumbers the others, which is simulated by adding 1 to its routes.
+     */
+    double remappedFraction(int nodeCount, boolean removeFirst) {
+      Router before = create(nodeCount);
+      Router after;
+      if (!removeFirst) {
+        after = create(nodeCount - 1);
+      } else if (this == CONSISTENT_HASH) {
+        final Router renumbered = create(nodeCount - 1);
+        after = new Router() {
+          @Override int route(long key) {
+            return renumbered.route(key) + 1;
+          }
+        };
+      } else {
+        after = createWithoutFirst(nodeCount);
+      }
+      int removed = removeFirst ? 0 : nodeCount - 1;
+      Random random = new Random(42);
+      int kept = 0;
+      int remapped = 0;
+      for (int i = 0; i < REMAP_SAMPLE_SIZE; i++) {
+        long key = random.nextLong();
+        int node = before.route(key);
+        if (node != removed) {
+          kept++;
+          remapped += (node == after.route(key)) ? 0 : 1;
+        }
+      }
+      return (double) remapped / kept;
+    }
+
+    private Router createWithoutFirst(int nodeCount) {
+      List<Integer> nodes = nodes(nodeCount).subList(1, nodeCount);
+      final ShardRouter<Long, Integer> router = (this == RENDEZVOUS)
+          ? ShardRouter.rendezvous(Funnels.longFunnel(), Funnels.integerFunnel(), nodes)
+          : ShardRouter.maglev(Funnels.longFunnel(), Funnels.integerFunnel(), nodes);
+      return new Router() {
+        @Override int route(long key) {
+          return router.route(key);
+        }
+      };
+    }
+
+    private static List<Integer> nodes(int nodeCount) {
+      return ContiguousSet.create(Range.closedOpen(0, nodeCount), DiscreteDomain.integers())
+          .asList();
+    }
+  }
+
+  abstract static class Router {
+    abstract int route(long key);
+  }
+
+  private Router fullRouter;
+  private final long[] keys = new long[SAMPLE_SIZE];
+
+  @BeforeExperiment void setUp() {
+    fullRouter = router.create(nodeCount);
+    Random random = new Random(42);
+    for (int i = 0; i < SAMPLE_SIZE; i++) {
+      keys[i] = random.nextLong();
+    }
+    System.out.println(router + ": " + router.remappedFraction(nodeCount, false)
+        + " remapped removing the last node, " + router.remappedFraction(nodeCount, true)
+        + " removing the first node");
+  }
+
+  @Benchmark int route(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += fullRouter.route(keys[i & SAMPLE_MASK]);
+    }
+    return dummy;
+  }
+}
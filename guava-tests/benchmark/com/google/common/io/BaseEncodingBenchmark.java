@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.io.GwtWorkarounds.asCharInput;
+import static com.google.common.io.GwtWorkarounds.stringBuilderOutput;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.common.io.GwtWorkarounds.ByteInput;
+import com.google.common.io.GwtWorkarounds.ByteOutput;
+import com.google.common.io.GwtWorkarounds.CharOutput;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Benchmarks {@link BaseEncoding}, comparing the block-based {@code encode} and {@code decode}
+ * with the character at a time streams they used to go through.
+ *
+ * <p>Parameters for the benchmark are:
+ * <ul>
+ * <li>encoding: The encoding to benchmark.
+ * <li>size: The number of bytes to encode, or to decode from their encoding.
+ * </ul>
+ */
+public class BaseEncodingBenchmark {
+  @Param EncodingOption encoding;
+  @Param({"10", "1000", "1000000"}) int size;
+
+  enum EncodingOption {
+    BASE64(BaseEncoding.base64()),
+    BASE64_URL(BaseEncoding.base64Url()),
+    BASE32(BaseEncoding.base32()),
+    BASE16(BaseEncoding.base16()),
+    BASE64_WITH_SEPARATOR(BaseEncoding.base64().withSeparator("\r\n", 76));
+
+    final BaseEncoding encoding;
+
+    EncodingOption(BaseEncoding encoding) {
+      this.encoding = encoding;
+    }
+  }
+
+  private byte[] bytes;
+  private String encoded;
+  private byte[] target;
+
+  @BeforeExperiment void setUp() {
+    bytes = new byte[size];
+    new Random(42).nextBytes(bytes);
+    encoded = encoding.encoding.encode(bytes);
+    target = new byte[size];
+  }
+
+  @Benchmark int encode(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += encoding.encoding.encode(bytes).length();
+    }
+    return dummy;
+  }
+
+  @Benchmark int encodeTo(int reps) throws IOException {
+    StringBuilder builder = new StringBuilder(encoded.length());
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      builder.setLength(0);
+      encoding.encoding.encodeTo(bytes, builder);
+      dummy += builder.length();
+    }
+    return dummy;
+  }
+
+  @Benchmark int encodeStreaming(int reps) throws IOException {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      CharOutput result = stringBuilderOutput(encoding.encoding.maxEncodedSize(size));
+      ByteOutput byteOutput = encoding.encoding.encodingStream(result);
+      for (byte b : bytes) {
+        byteOutput.write(b);
+      }
+      byteOutput.close();
+      dummy += result.toString().length();
+    }
+    return dummy;
+  }
+
+  @Benchmark int decode(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += encoding.encoding.decode(encoded).length;
+    }
+    return dummy;
+  }
+
+  @Benchmark int decodeTo(int reps) {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += encoding.encoding.decodeTo(encoded, target, 0);
+    }
+    return dummy;
+  }
+
+  @Benchmark int decodeStreaming(int reps) throws IOException {
+    int dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      CharSequence chars = encoding.encoding.padding().trimTrailingFrom(encoded);
+      ByteInput decodedInput = encoding.encoding.decodingStream(asCharInput(chars));
+      byte[] tmp = new byte[encoding.encoding.maxDecodedSize(chars.length())];
+      int index = 0;
+      for (int b = decodedInput.read(); b != -1; b = decodedInput.read()) {
+        tmp[index++] = (byte) b;
+      }
+      dummy += index;
+    }
+    return dummy;
+  }
+}
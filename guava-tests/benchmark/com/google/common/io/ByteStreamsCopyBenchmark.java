@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.io;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * Benchmarks copying a file to another file, with and without {@link FileChannel#transferTo}. The
+ * throughput is the file size divided by the time of each copy.
+ *
+ * <p>Parameters for the benchmark are:
+ * <ul>
+ * <li>sizeInMegabytes: The size of the file to copy.
+ * <li>strategy: How the file is copied.
+ * </ul>
+ */
+public class ByteStreamsCopyBenchmark {
+  private static final int MEGABYTE = 1024 * 1024;
+
+  @Param({"1", "64", "1024"}) int sizeInMegabytes;
+  @Param CopyStrategy strategy;
+
+  enum CopyStrategy {
+    /** The loop through a 4K heap array that streams were copied with before. */
+    STREAM_LOOP {
+      @Override long copy(File from, File to) throws IOException {
+        Closer closer = Closer.create();
+        try {
+          InputStream in = closer.register(new FileInputStream(from));
+          OutputStream out = closer.register(new FileOutputStream(to));
+          byte[] buf = new byte[0x1000];
+          long total = 0;
+          int r;
+          while ((r = in.read(buf)) != -1) {
+            out.write(buf, 0, r);
+            total += r;
+          }
+          return total;
+        } catch (Throwable e) {
+          throw closer.rethrow(e);
+        } finally {
+          closer.close();
+        }
+      }
+    },
+    /** The loop through a 4K heap buffer that channels were copied with before. */
+    CHANNEL_LOOP {
+      @Override long copy(File from, File to) throws IOException {
+        Closer closer = Closer.create();
+        try {
+          FileChannel in = closer.register(new FileInputStream(from)).getChannel();
+          FileChannel out = closer.register(new FileOutputStream(to)).getChannel();
+          ByteBuffer buf = ByteBuffer.allocate(0x1000);
+          long total = 0;
+          while (in.read(buf) != -1) {
+            buf.flip();
+            while (buf.hasRemaining()) {
+              total += out.write(buf);
+            }
+            buf.clear();
+          }
+          return total;
+        } catch (Throwable e) {
+          throw closer.rethrow(e);
+        } finally {
+          closer.close();
+        }
+      }
+    },
+    BYTE_STREAMS_COPY {
+      @Override long copy(File from, File to) throws IOException {
+        Closer closer = Closer.create();
+        try {
+          InputStream in = closer.register(new FileInputStream(from));
+          OutputStream out = closer.register(new FileOutputStream(to));
+          return ByteStreams.copy(in, out);
+        } catch (Throwable e) {
+          throw closer.rethrow(e);
+        } finally {
+          closer.close();
+        }
+      }
+    },
+    BYTE_SOURCE_COPY_TO {
+      @Override long copy(File from, File to) throws IOException {
+        return Files.asByteSource(from).copyTo(Files.asByteSink(to));
+      }
+    };
+
+    abstract long copy(File from, File to) throws IOException;
+  }
+
+  private File from;
+  private File to;
+
+  @BeforeExperiment void setUp() throws IOException {
+    from = File.createTempFile("ByteStreamsCopyBenchmark", ".from");
+    to = File.createTempFile("ByteStreamsCopyBenchmark", ".to");
+    byte[] megabyte = new byte[MEGABYTE];
+    new Random(42).nextBytes(megabyte);
+    RandomAccessFile file = new RandomAccessFile(from, "rw");
+    try {
+      for (int i = 0; i < sizeInMegabytes; i++) {
+        file.write(megabyte);
+      }
+    } finally {
+      file.close();
+    }
+  }
+
+  @AfterExperiment void tearDown() {
+    from.delete();
+    to.delete();
+  }
+
+  @Benchmark long copy(int reps) throws IOException {
+    long dummy = 0;
+    for (int i = 0; i < reps; i++) {
+      dummy += strategy.copy(from, to);
+    }
+    return dummy;
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.util.concurrent;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.caliper.api.Footprint;
+import com.google.caliper.api.VmOptions;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Benchmarks for {@link AbstractFuture}, comparing the lock-free implementation against the
+ * previous one built on an {@link AbstractQueuedSynchronizer} and an {@link ExecutionList}.
+ */
+@VmOptions({"-Xms3g", "-Xmx3g"})
+public class AbstractFutureBenchmark {
+
+  // simple interface to wrap our two implementations.
+  interface Facade<T> extends ListenableFuture<T> {
+    boolean set(T t);
+    boolean setException(Throwable t);
+  }
+
+  enum Impl {
+    NEW {
+      @Override <T> Facade<T> newFacade() {
+        return new NewFacade<T>();
+      }
+    },
+    OLD {
+      @Override <T> Facade<T> newFacade() {
+        return new OldFacade<T>();
+      }
+    };
+
+    abstract <T> Facade<T> newFacade();
+  }
+
+  private static final class NewFacade<T> extends AbstractFuture<T> implements Facade<T> {
+    @Override public boolean set(T t) {
+      return super.set(t);
+    }
+
+    @Override public boolean setException(Throwable t) {
+      return super.setException(t);
+    }
+  }
+
+  private static final class OldFacade<T> extends OldAbstractFuture<T> implements Facade<T> {
+    @Override public boolean set(T t) {
+      return super.set(t);
+    }
+
+    @Override public boolean setException(Throwable t) {
+      return super.setException(t);
+    }
+  }
+
+  @Param Impl impl;
+  @Param({"0", "1", "5"}) int numListeners;
+
+  private final Runnable listener = new Runnable() {
+    @Override public void run() {}
+  };
+
+  private final Exception exception = new Exception();
+
+  private ExecutorService blockingGetExecutor;
+
+  @BeforeExperiment void setUp() throws Exception {
+    blockingGetExecutor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterExperiment void tearDown() throws Exception {
+    blockingGetExecutor.shutdown();
+  }
+
+  @Footprint(exclude = {Runnable.class, Executor.class})
+  public Object measureSize() {
+    Facade<Object> future = impl.newFacade();
+    for (int i = 0; i < numListeners; i++) {
+      future.addListener(listener, directExecutor());
+    }
+    return future;
+  }
+
+  @Benchmark long createAddListenersSetAndGet(int reps) throws Exception {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      Facade<Integer> future = impl.newFacade();
+      for (int j = 0; j < numListeners; j++) {
+        future.addListener(listener, directExecutor());
+      }
+      future.set(i);
+      result += future.get();
+    }
+    return result;
+  }
+
+  @Benchmark long createSetExceptionAndGet(int reps) throws Exception {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      Facade<Integer> future = impl.newFacade();
+      for (int j = 0; j < numListeners; j++) {
+        future.addListener(listener, directExecutor());
+      }
+      future.setException(exception);
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        result += e.hashCode();
+      }
+    }
+    return result;
+  }
+
+  @Benchmark long createCancelAndGet(int reps) throws Exception {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      Facade<Integer> future = impl.newFacade();
+      for (int j = 0; j < numListeners; j++) {
+        future.addListener(listener, directExecutor());
+      }
+      future.cancel(false);
+      try {
+        future.get();
+      } catch (CancellationException e) {
+        result += e.hashCode();
+      }
+    }
+    return result;
+  }
+
+  @Benchmark long blockingGet(int reps) throws Exception {
+    long result = 0;
+    for (int i = 0; i < reps; i++) {
+      final Facade<Integer> future = impl.newFacade();
+      Future<Integer> waiter = blockingGetExecutor.submit(new Callable<Integer>() {
+        @Override public Integer call() throws Exception {
+          return future.get();
+        }
+      });
+      future.set(i);
+      result += waiter.get();
+    }
+    return result;
+  }
+
+  /**
+   * The previous implementation of {@link AbstractFuture}, which holds its state in a separate
+   * {@link AbstractQueuedSynchronizer} and its listeners in a separate {@link ExecutionList}.
+   */
+  private abstract static class OldAbstractFuture<V> implements ListenableFuture<V> {
+    private final Sync<V> sync = new Sync<V>();
+    private final ExecutionList executionList = new ExecutionList();
+
+    @Override public V get(long timeout, TimeUnit unit)
+        throws InterruptedException, TimeoutException, ExecutionException {
+      return sync.get(unit.toNanos(timeout));
+    }
+
+    @Override public V get() throws InterruptedException, ExecutionException {
+      return sync.get();
+    }
+
+    @Override public boolean isDone() {
+      return sync.isDone();
+    }
+
+    @Override public boolean isCancelled() {
+      return sync.isCancelled();
+    }
+
+    @Override public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!sync.cancel(mayInterruptIfRunning)) {
+        return false;
+      }
+      executionList.execute();
+      return true;
+    }
+
+    @Override public void addListener(Runnable listener, Executor exec) {
+      executionList.add(listener, exec);
+    }
+
+    protected boolean set(@Nullable V value) {
+      boolean result = sync.set(value);
+      if (result) {
+        executionList.execute();
+      }
+      return result;
+    }
+
+    protected boolean setException(Throwable throwable) {
+      boolean result = sync.setException(throwable);
+      if (result) {
+        executionList.execute();
+      }
+      return result;
+    }
+
+    static final class Sync<V> extends AbstractQueuedSynchronizer {
+      static final int RUNNING = 0;
+      static final int COMPLETING = 1;
+      static final int COMPLETED = 2;
+      static final int CANCELLED = 4;
+      static final int INTERRUPTED = 8;
+
+      private V value;
+      private Throwable exception;
+
+      @Override protected int tryAcquireShared(int ignored) {
+        return isDone() ? 1 : -1;
+      }
+
+      @Override protected boolean tryReleaseShared(int finalState) {
+        setState(finalState);
+        return true;
+      }
+
+      V get(long nanos) throws TimeoutException, ExecutionException, InterruptedException {
+        if (!tryAcquireSharedNanos(-1, nanos)) {
+          throw new TimeoutException("Timeout waiting for task.");
+        }
+        return getValue();
+      }
+
+      V get() throws ExecutionException, InterruptedException {
+        acquireSharedInterruptibly(-1);
+        return getValue();
+      }
+
+      private V getValue() throws ExecutionException {
+        int state = getState();
+        switch (state) {
+          case COMPLETED:
+            if (exception != null) {
+              throw new ExecutionException(exception);
+            } else {
+              return value;
+            }
+          case CANCELLED:
+          case INTERRUPTED:
+            throw AbstractFuture.cancellationExceptionWithCause(
+                "Task was cancelled.", exception);
+          default:
+            throw new IllegalStateException(
+                "Error, synchronizer in invalid state: " + state);
+        }
+      }
+
+      boolean isDone() {
+        return (getState() & (COMPLETED | CANCELLED | INTERRUPTED)) != 0;
+      }
+
+      boolean isCancelled() {
+        return (getState() & (CANCELLED | INTERRUPTED)) != 0;
+      }
+
+      boolean set(@Nullable V v) {
+        return complete(v, null, COMPLETED);
+      }
+
+      boolean setException(Throwable t) {
+        return complete(null, t, COMPLETED);
+      }
+
+      boolean cancel(boolean interrupt) {
+        return complete(null, null, interrupt ? INTERRUPTED : CANCELLED);
+      }
+
+      private boolean complete(@Nullable V v, @Nullable Throwable t, int finalState) {
+        boolean doCompletion = compareAndSetState(RUNNING, COMPLETING);
+        if (doCompletion) {
+          this.value = v;
+          this.exception = ((finalState & (CANCELLED | INTERRUPTED)) != 0)
+              ? new CancellationException("Future.cancel() was called.") : t;
+          releaseShared(finalState);
+        } else if (getState() == COMPLETING) {
+          acquireShared(-1);
+        }
+        return doCompletion;
+      }
+    }
+  }
+}
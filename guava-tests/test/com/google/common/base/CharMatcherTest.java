@@ -715,6 +715,57 @@ public class CharMatcherTest extends TestCase {
     }
   }
 
+  @GwtIncompatible("java.util.Random")
+  public void testLongStrings() {
+    // long strings are scanned in blocks by these matchers
+    CharMatcher[] matchers = {
+        is('a'), isNot('a'), anyOf("ab"), anyOf("abc"), anyOf("abcde"), inRange('a', 'c'),
+        CharMatcher.ASCII, WHITESPACE, inRange('b', 'd').negate(), anyOf("a\u3000").negate()};
+    String alphabet = "abcdef \t\u00e9\u3000";
+    Random rand = new Random(1234);
+    for (CharMatcher matcher : matchers) {
+      for (int testCase = 0; testCase < 100; testCase++) {
+        // the same characters are often repeated, so that both matches and groups are common
+        StringBuilder builder = new StringBuilder();
+        int length = rand.nextInt(300);
+        int distinct = rand.nextInt(alphabet.length()) + 1;
+        for (int i = 0; i < length; i++) {
+          builder.append(alphabet.charAt(rand.nextInt(distinct)));
+        }
+        String s = builder.toString();
+        doTestLongString(matcher, s, rand);
+        doTestLongString(matcher.negate(), s, rand);
+      }
+    }
+  }
+
+  private static void doTestLongString(final CharMatcher matcher, String s, Random rand) {
+    CharMatcher expected = new CharMatcher() {
+      @Override public boolean matches(char c) {
+        return matcher.matches(c);
+      }
+    };
+    int start = rand.nextInt(s.length() + 1);
+    char replacement = "a -".charAt(rand.nextInt(3));
+    assertEquals(expected.indexIn(s), matcher.indexIn(s));
+    assertEquals(expected.indexIn(s, start), matcher.indexIn(s, start));
+    assertEquals(expected.lastIndexIn(s), matcher.lastIndexIn(s));
+    assertEquals(expected.countIn(s), matcher.countIn(s));
+    assertEquals(expected.matchesAllOf(s), matcher.matchesAllOf(s));
+    assertEquals(expected.matchesNoneOf(s), matcher.matchesNoneOf(s));
+    assertEquals(expected.removeFrom(s), matcher.removeFrom(s));
+    assertEquals(expected.retainFrom(s), matcher.retainFrom(s));
+    assertEquals(expected.trimFrom(s), matcher.trimFrom(s));
+    assertEquals(expected.trimAndCollapseFrom(s, replacement),
+        matcher.trimAndCollapseFrom(s, replacement));
+    String collapsed = expected.collapseFrom(s, replacement);
+    if (collapsed.equals(s)) {
+      assertSame(s, matcher.collapseFrom(s, replacement));
+    } else {
+      assertEquals(collapsed, matcher.collapseFrom(s, replacement));
+    }
+  }
+
   static void checkExactMatches(CharMatcher m, char[] chars) {
     Set<Character> positive = Sets.newHashSetWithExpectedSize(chars.length);
     for (int i = 0; i < chars.length; i++) {
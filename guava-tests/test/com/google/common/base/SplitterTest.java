@@ -22,10 +22,16 @@ import com.google.common.annotations.GwtCompatible;
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.testing.NullPointerTester;
 
 import junit.framework.TestCase;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -768,4 +774,222 @@ public class SplitterTest extends TestCase {
     } catch (IllegalArgumentException expected) {
     }
   }
+
+  private static final ImmutableList<Splitter> VIEW_SPLITTERS = ImmutableList.of(
+      COMMA_SPLITTER,
+      COMMA_SPLITTER.trimResults(),
+      COMMA_SPLITTER.omitEmptyStrings(),
+      COMMA_SPLITTER.trimResults().omitEmptyStrings().limit(2),
+      Splitter.on(", ").limit(3),
+      Splitter.fixedLength(2).trimResults());
+
+  private static final ImmutableList<String> VIEW_INPUTS = ImmutableList.of(
+      "", ",", "a", "a,b,c", " a , ,b,, c ,", ",,a, b ,c,d,, e", "a, b, c,d, e");
+
+  public void testSplitAsViews() {
+    for (Splitter splitter : VIEW_SPLITTERS) {
+      for (String input : VIEW_INPUTS) {
+        assertEquals(
+            ImmutableList.copyOf(splitter.split(input)), splitAsViews(splitter, input));
+      }
+    }
+  }
+
+  @GwtIncompatible("Splitter.onPattern")
+  public void testSplitAsViews_pattern() {
+    Splitter splitter = Splitter.onPattern("\\s*,\\s*").omitEmptyStrings();
+    for (String input : VIEW_INPUTS) {
+      assertEquals(
+          ImmutableList.copyOf(splitter.split(input)), splitAsViews(splitter, input));
+    }
+  }
+
+  public void testSplitAsViews_reusesView() {
+    Iterator<CharSequence> views = COMMA_SPLITTER.splitAsViews("ab,c").iterator();
+    CharSequence first = views.next();
+    assertEquals(2, first.length());
+    assertEquals('b', first.charAt(1));
+    assertEquals("b", first.subSequence(1, 2).toString());
+    try {
+      first.charAt(2);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+    assertSame(first, views.next());
+    assertEquals("c", first.toString());
+    assertFalse(views.hasNext());
+    assertEquals("[ab, c]", COMMA_SPLITTER.splitAsViews("ab,c").toString());
+  }
+
+  private static List<String> splitAsViews(Splitter splitter, String input) {
+    ImmutableList.Builder<String> parts = ImmutableList.builder();
+    for (CharSequence part : splitter.splitAsViews(input)) {
+      parts.add(part.toString());
+    }
+    return parts.build();
+  }
+
+  public void testSplitRanges() {
+    for (Splitter splitter : VIEW_SPLITTERS) {
+      for (String input : VIEW_INPUTS) {
+        assertEquals(ImmutableList.copyOf(splitter.split(input)),
+            splitter.split(input, new PartCollector(Integer.MAX_VALUE)));
+      }
+    }
+  }
+
+  public void testSplitRanges_stopEarly() {
+    assertEquals(ImmutableList.of("a", "b"),
+        COMMA_SPLITTER.split("a,b,c,d", new PartCollector(2)));
+  }
+
+  private static final class PartCollector
+      implements Splitter.RangeProcessor<List<String>> {
+    private final int maxParts;
+    private final ImmutableList.Builder<String> parts = ImmutableList.builder();
+    private int count;
+
+    PartCollector(int maxParts) {
+      this.maxParts = maxParts;
+    }
+
+    @Override public boolean processRange(CharSequence sequence, int start, int end) {
+      parts.add(sequence.subSequence(start, end).toString());
+      return ++count < maxParts;
+    }
+
+    @Override public List<String> getResult() {
+      return parts.build();
+    }
+  }
+
+  public void testMapSplitter_entryProcessor() {
+    String input = " boy:tom , girl: tina , cat :kitty , dog:  tommy ";
+    for (Splitter.MapSplitter mapSplitter : ImmutableList.of(
+        COMMA_SPLITTER.withKeyValueSeparator(":"),
+        COMMA_SPLITTER.trimResults().withKeyValueSeparator(':'),
+        COMMA_SPLITTER.withKeyValueSeparator(Splitter.on(':').trimResults()))) {
+      assertEquals(ImmutableList.copyOf(mapSplitter.split(input).entrySet()),
+          mapSplitter.split(input, new EntryCollector()));
+    }
+  }
+
+  @GwtIncompatible("Splitter.onPattern")
+  public void testMapSplitter_entryProcessorPattern() {
+    Splitter.MapSplitter mapSplitter =
+        COMMA_SPLITTER.withKeyValueSeparator(Splitter.onPattern("\\s*=\\s*"));
+    String input = "a = 1,bb=22,ccc  =333";
+    assertEquals(ImmutableList.copyOf(mapSplitter.split(input).entrySet()),
+        mapSplitter.split(input, new EntryCollector()));
+  }
+
+  public void testMapSplitter_entryProcessorMalformedEntry() {
+    try {
+      COMMA_SPLITTER.withKeyValueSeparator("=").split("a=1,b,c=2", new EntryCollector());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      COMMA_SPLITTER.withKeyValueSeparator("=").split("a=1,b=2=3", new EntryCollector());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private static final class EntryCollector
+      implements Splitter.MapSplitter.EntryProcessor<List<Map.Entry<String, String>>> {
+    private final ImmutableList.Builder<Map.Entry<String, String>> entries =
+        ImmutableList.builder();
+
+    @Override public boolean processEntry(CharSequence sequence,
+        int keyStart, int keyEnd, int valueStart, int valueEnd) {
+      entries.add(Maps.immutableEntry(
+          sequence.subSequence(keyStart, keyEnd).toString(),
+          sequence.subSequence(valueStart, valueEnd).toString()));
+      return true;
+    }
+
+    @Override public List<Map.Entry<String, String>> getResult() {
+      return entries.build();
+    }
+  }
+
+  @GwtIncompatible("Readable")
+  public void testSplitReadable() throws IOException {
+    List<Splitter> splitters = Lists.newArrayList(VIEW_SPLITTERS);
+    splitters.add(COMMA_SPLITTER.limit(1));
+    splitters.add(COMMA_SPLITTER.omitEmptyStrings().limit(2));
+    splitters.add(Splitter.on(CharMatcher.anyOf(", ")).omitEmptyStrings());
+    splitters.add(Splitter.fixedLength(3));
+    splitters.add(Splitter.onPattern("\\s*,\\s*"));
+    splitters.add(Splitter.onPattern(",(?! )"));
+    splitters.add(Splitter.onPattern("(?<=a),").trimResults());
+    splitters.add(Splitter.onPattern("\\b"));
+    for (Splitter splitter : splitters) {
+      for (String input : VIEW_INPUTS) {
+        for (int chunkSize = 1; chunkSize <= 4; chunkSize++) {
+          assertEquals(splitter.splitToList(input),
+              splitReadable(splitter, input, chunkSize));
+        }
+      }
+    }
+  }
+
+  @GwtIncompatible("Readable")
+  public void testSplitReadable_longInput() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      builder.append(i).append(i % 7 == 0 ? " , " : ",");
+    }
+    builder.append(Strings.repeat("x", 100000)).append(",,end");
+    String input = builder.toString();
+    for (Splitter splitter : ImmutableList.of(COMMA_SPLITTER,
+        Splitter.on(" , ").omitEmptyStrings(),
+        Splitter.onPattern("\\s*,\\s*"),
+        Splitter.fixedLength(1000))) {
+      for (int chunkSize : new int[] {1, 100, 10000}) {
+        assertEquals(splitter.splitToList(input),
+            splitReadable(splitter, input, chunkSize));
+      }
+    }
+  }
+
+  @GwtIncompatible("Readable")
+  public void testSplitReadable_separatorsAcrossReads() throws IOException {
+    // the first read ends somewhere in these separators
+    for (int length = 4085; length < 4100; length++) {
+      String input = Strings.repeat("a", length) + "a ,  , ,,b , c";
+      for (Splitter splitter : ImmutableList.of(Splitter.on(" , "),
+          Splitter.onPattern("\\s*,\\s*"),
+          Splitter.onPattern(",(?! )"),
+          Splitter.onPattern("a(?= )"),
+          Splitter.on(',').trimResults().omitEmptyStrings())) {
+        assertEquals(splitter.splitToList(input), splitReadable(splitter, input, 1));
+      }
+    }
+  }
+
+  @GwtIncompatible("Readable")
+  public void testSplitReadable_stopEarly() throws IOException {
+    assertEquals(ImmutableList.of("a", "b"), COMMA_SPLITTER.split(
+        new StringReader("a,b,c,d"), new PartCollector(2)));
+  }
+
+  /** Splits {@code input}, read at most {@code chunkSize} characters at a time. */
+  @GwtIncompatible("Readable")
+  private static List<String> splitReadable(
+      Splitter splitter, String input, final int chunkSize) throws IOException {
+    final Reader reader = new StringReader(input);
+    Readable readable = new Readable() {
+      @Override public int read(CharBuffer buffer) throws IOException {
+        char[] chunk = new char[Math.min(chunkSize, buffer.remaining())];
+        int read = reader.read(chunk);
+        if (read > 0) {
+          buffer.put(chunk, 0, read);
+        }
+        return read;
+      }
+    };
+    return splitter.split(readable, new PartCollector(Integer.MAX_VALUE));
+  }
 }
@@ -22,6 +22,8 @@ import static com.google.common.cache.TestingRemovalListeners.countingRemovalLis
 import static com.google.common.cache.TestingRemovalListeners.nullRemovalListener;
 import static com.google.common.cache.TestingRemovalListeners.queuingRemovalListener;
 import static com.google.common.cache.TestingWeighers.constantWeigher;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -163,6 +165,69 @@ public class CacheBuilderTest extends TestCase {
     } catch (IllegalStateException expected) {}
   }
 
+  @GwtIncompatible("refreshExecutor")
+  public void testRefreshExecutor_setTwice() {
+    CacheBuilder<Object, Object> builder = new CacheBuilder<Object, Object>()
+        .refreshExecutor(directExecutor());
+    try {
+      builder.refreshExecutor(directExecutor());
+      fail();
+    } catch (IllegalStateException expected) {}
+  }
+
+  @GwtIncompatible("refreshExecutor")
+  public void testRefreshExecutor_withoutRefresh() {
+    CacheBuilder<Object, Object> builder = new CacheBuilder<Object, Object>()
+        .refreshExecutor(directExecutor());
+    try {
+      builder.build(identityLoader());
+      fail();
+    } catch (IllegalStateException expected) {}
+  }
+
+  @GwtIncompatible("refreshBatchWindow")
+  public void testRefreshBatchWindow() {
+    CacheBuilder<Object, Object> builder = new CacheBuilder<Object, Object>()
+        .refreshAfterWrite(1, SECONDS);
+    try {
+      builder.refreshBatchWindow(-1, MILLISECONDS);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    builder.refreshBatchWindow(10, MILLISECONDS);
+    try {
+      builder.refreshBatchWindow(10, MILLISECONDS);
+      fail();
+    } catch (IllegalStateException expected) {}
+    try {
+      // requires a refresh executor
+      builder.build(identityLoader());
+      fail();
+    } catch (IllegalStateException expected) {}
+    builder.refreshExecutor(directExecutor()).build(identityLoader());
+  }
+
+  @GwtIncompatible("evictionPolicy")
+  public void testEvictionPolicy_setTwice() {
+    CacheBuilder<Object, Object> builder = new CacheBuilder<Object, Object>()
+        .maximumSize(16)
+        .evictionPolicy(EvictionPolicy.WINDOW_TINY_LFU);
+    try {
+      // even to the same value is not allowed
+      builder.evictionPolicy(EvictionPolicy.WINDOW_TINY_LFU);
+      fail();
+    } catch (IllegalStateException expected) {}
+  }
+
+  @GwtIncompatible("evictionPolicy")
+  public void testEvictionPolicy_withoutMaximum() {
+    CacheBuilder<Object, Object> builder = new CacheBuilder<Object, Object>()
+        .evictionPolicy(EvictionPolicy.WINDOW_TINY_LFU);
+    try {
+      builder.build();
+      fail();
+    } catch (IllegalStateException expected) {}
+  }
+
   @GwtIncompatible("maximumWeight")
   public void testMaximumSize_andWeight() {
     CacheBuilder<Object, Object> builder = new CacheBuilder<Object, Object>().maximumSize(16);
@@ -300,6 +300,57 @@ public class CacheEvictionTest extends TestCase {
     assertThat(keySet).containsExactly(5, 6, 7, 8, 9, 10, 11, 12);
   }
 
+  public void testEviction_windowTinyLfu_scanResistant() {
+    // frequently used entries survive a scan of entries that are each used only once
+    IdentityLoader<Integer> loader = identityLoader();
+    CountingRemovalListener<Integer, Integer> removalListener = countingRemovalListener();
+    LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumSize(MAX_SIZE)
+        .evictionPolicy(EvictionPolicy.WINDOW_TINY_LFU)
+        .removalListener(removalListener)
+        .recordStats()
+        .build(loader);
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < MAX_SIZE / 2; i++) {
+        cache.getUnchecked(i);
+        CacheTesting.drainRecencyQueues(cache);
+      }
+    }
+    for (int i = MAX_SIZE; i < 10 * MAX_SIZE; i++) {
+      cache.getUnchecked(i);
+      CacheTesting.drainRecencyQueues(cache);
+      assertTrue(cache.size() <= MAX_SIZE);
+    }
+    CacheTesting.checkValidState(cache);
+    Set<Integer> keySet = cache.asMap().keySet();
+    for (int i = 0; i < MAX_SIZE / 2; i++) {
+      assertTrue(keySet.contains(i));
+    }
+    assertEquals(MAX_SIZE, cache.size());
+    assertEquals(9 * MAX_SIZE - MAX_SIZE / 2, removalListener.getCount());
+    assertTrue(cache.stats().admissionRejectionCount() > 0);
+  }
+
+  public void testEviction_windowTinyLfu_maxWeight() {
+    IdentityLoader<Integer> loader = identityLoader();
+    LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumWeight(2 * MAX_SIZE)
+        .weigher(constantWeigher(2))
+        .evictionPolicy(EvictionPolicy.WINDOW_TINY_LFU)
+        .build(loader);
+    for (int i = 0; i < 3 * MAX_SIZE; i++) {
+      cache.getUnchecked(i);
+      assertTrue(cache.size() <= MAX_SIZE);
+    }
+    assertEquals(MAX_SIZE, cache.size());
+    CacheTesting.checkValidState(cache);
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+    CacheTesting.checkValidState(cache);
+  }
+
   private void getAll(LoadingCache<Integer, Integer> cache, List<Integer> keys) {
     for (int i : keys) {
       cache.getUnchecked(i);
@@ -20,6 +20,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static java.util.Arrays.asList;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import com.google.common.cache.LocalCache.ReferenceEntry;
+import com.google.common.cache.LocalCache.Segment;
 import com.google.common.cache.TestingCacheLoaders.IdentityLoader;
 import com.google.common.cache.TestingRemovalListeners.CountingRemovalListener;
 import com.google.common.collect.Iterators;
@@ -29,6 +31,7 @@ import com.google.common.util.concurrent.Callables;
 import junit.framework.TestCase;
 
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -298,6 +301,41 @@ public class CacheExpirationTest extends TestCase {
     assertThat(keySet).containsExactly(0, 1, 2, 5, 7, 9);
   }
 
+  public void testExpirationOrder_windowTinyLfu() {
+    // entries moved between regions without being accessed must still expire on time
+    FakeTicker ticker = new FakeTicker();
+    IdentityLoader<Integer> loader = identityLoader();
+    LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumSize(100)
+        .evictionPolicy(EvictionPolicy.WINDOW_TINY_LFU)
+        .expireAfterAccess(1000, MILLISECONDS)
+        .ticker(ticker)
+        .build(loader);
+    LocalCache<Integer, Integer> map = CacheTesting.toLocalCache(cache);
+    Random random = new Random(0);
+    for (int i = 0; i < 8000; i++) {
+      if (i < 5000) {
+        // too many popular keys for the protected region, so that some of them get demoted
+        cache.getUnchecked(random.nextInt(random.nextBoolean() ? 300 : 1000));
+      } else {
+        // then only a few keys are used, and all the others expire
+        cache.getUnchecked(random.nextInt(10));
+      }
+      ticker.advance(1, MILLISECONDS);
+      CacheTesting.drainRecencyQueues(cache);
+      cache.cleanUp();
+      long now = ticker.read();
+      for (Segment<Integer, Integer> segment : map.segments) {
+        for (ReferenceEntry<Integer, Integer> entry : segment.accessQueue) {
+          assertFalse(map.isExpired(entry, now));
+        }
+      }
+    }
+    assertEquals(10, cache.size());
+    CacheTesting.checkValidState(cache);
+  }
+
   public void testExpirationOrder_write() throws ExecutionException {
     // test lru within a single segment
     FakeTicker ticker = new FakeTicker();
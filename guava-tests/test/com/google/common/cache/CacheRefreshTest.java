@@ -18,10 +18,19 @@ import static com.google.common.cache.TestingCacheLoaders.incrementingLoader;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import com.google.common.cache.TestingCacheLoaders.IncrementingLoader;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.testing.FakeTicker;
 
 import junit.framework.TestCase;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Tests relating to automatic cache refreshing.
  *
@@ -97,4 +106,153 @@ public class CacheRefreshTest extends TestCase {
     assertEquals(expectedLoads, loader.getLoadCount());
     assertEquals(expectedReloads, loader.getReloadCount());
   }
+
+  public void testAutoRefresh_executorBatchesLoadAll() {
+    FakeTicker ticker = new FakeTicker();
+    QueuingExecutor executor = new QueuingExecutor();
+    BatchingLoader loader = new BatchingLoader();
+    LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(3, MILLISECONDS)
+        .refreshExecutor(executor)
+        .ticker(ticker)
+        .build(loader);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Integer.valueOf(i), cache.getUnchecked(i));
+    }
+    assertEquals(3, loader.loadCount);
+
+    // stale reads schedule refreshes, and keep returning the old values
+    ticker.advance(4, MILLISECONDS);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Integer.valueOf(i), cache.getUnchecked(i));
+      assertEquals(Integer.valueOf(i), cache.getUnchecked(i));
+    }
+    assertTrue(loader.batches.isEmpty());
+    assertEquals(1, executor.tasks.size());
+
+    executor.runAll();
+    assertEquals(1, loader.batches.size());
+    assertEquals(ImmutableSet.of(0, 1, 2), loader.batches.get(0));
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Integer.valueOf(i + 100), cache.getUnchecked(i));
+    }
+    assertEquals(3, loader.loadCount);
+    assertEquals(0, loader.reloadCount);
+    assertTrue(executor.tasks.isEmpty());
+  }
+
+  public void testAutoRefresh_executorFallsBackToReload() {
+    FakeTicker ticker = new FakeTicker();
+    QueuingExecutor executor = new QueuingExecutor();
+    IncrementingLoader loader = incrementingLoader();
+    LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(3, MILLISECONDS)
+        .refreshExecutor(executor)
+        .refreshBatchWindow(0, MILLISECONDS)
+        .ticker(ticker)
+        .build(loader);
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(1), cache.getUnchecked(1));
+
+    ticker.advance(4, MILLISECONDS);
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(1), cache.getUnchecked(1));
+    assertEquals(0, loader.getReloadCount());
+
+    executor.runAll();
+    assertEquals(2, loader.getReloadCount());
+    assertEquals(Integer.valueOf(1), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(2), cache.getUnchecked(1));
+  }
+
+  public void testAutoRefresh_executorLoadAllFails() {
+    FakeTicker ticker = new FakeTicker();
+    QueuingExecutor executor = new QueuingExecutor();
+    BatchingLoader loader = new BatchingLoader();
+    LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(3, MILLISECONDS)
+        .refreshExecutor(executor)
+        .recordStats()
+        .ticker(ticker)
+        .build(loader);
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(1), cache.getUnchecked(1));
+
+    ticker.advance(4, MILLISECONDS);
+    loader.failLoadAll = true;
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(1), cache.getUnchecked(1));
+    executor.runAll();
+    assertEquals(1, loader.batches.size());
+    assertEquals(2, cache.stats().loadExceptionCount());
+
+    // the old values were retained, and may be refreshed again
+    loader.failLoadAll = false;
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(1), cache.getUnchecked(1));
+    executor.runAll();
+    assertEquals(2, loader.batches.size());
+    assertEquals(Integer.valueOf(100), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(101), cache.getUnchecked(1));
+  }
+
+  public void testAutoRefresh_executorRejects() {
+    FakeTicker ticker = new FakeTicker();
+    BatchingLoader loader = new BatchingLoader();
+    LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(3, MILLISECONDS)
+        .refreshExecutor(new Executor() {
+          @Override public void execute(Runnable command) {
+            throw new RejectedExecutionException();
+          }
+        })
+        .ticker(ticker)
+        .build(loader);
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+
+    ticker.advance(4, MILLISECONDS);
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+    assertEquals(Integer.valueOf(0), cache.getUnchecked(0));
+    assertTrue(loader.batches.isEmpty());
+  }
+
+  /** An executor that runs its tasks only when asked to. */
+  private static final class QueuingExecutor implements Executor {
+    final List<Runnable> tasks = Lists.newArrayList();
+
+    @Override public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        tasks.remove(0).run();
+      }
+    }
+  }
+
+  /** Loads {@code key}, and reloads all keys at once as {@code key + 100}. */
+  private static final class BatchingLoader extends CacheLoader<Integer, Integer> {
+    final List<Set<Integer>> batches = Lists.newArrayList();
+    int loadCount;
+    int reloadCount;
+    boolean failLoadAll;
+
+    @Override public Integer load(Integer key) {
+      loadCount++;
+      return key;
+    }
+
+    @Override public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys) {
+      batches.add(ImmutableSet.copyOf(keys));
+      if (failLoadAll) {
+        throw new IllegalStateException();
+      }
+      Map<Integer, Integer> result = Maps.newHashMap();
+      for (Integer key : keys) {
+        result.put(key, key + 100);
+      }
+      return result;
+    }
+  }
 }
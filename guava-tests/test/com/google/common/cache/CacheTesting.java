@@ -28,6 +28,7 @@ import com.google.common.cache.LocalCache.LocalLoadingCache;
 import com.google.common.cache.LocalCache.ReferenceEntry;
 import com.google.common.cache.LocalCache.Segment;
 import com.google.common.cache.LocalCache.ValueReference;
+import com.google.common.cache.LocalCache.WindowTinyLfuQueue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -41,6 +42,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -248,21 +250,23 @@ class CacheTesting {
       if (cchm.usesAccessQueue()) {
         Set<ReferenceEntry<?, ?>> entries = Sets.newIdentityHashSet();
 
-        ReferenceEntry<?, ?> prev = null;
-        for (ReferenceEntry<?, ?> current : segment.accessQueue) {
-          assertTrue(entries.add(current));
-          if (prev != null) {
-            assertSame(prev, current.getPreviousInAccessQueue());
-            assertSame(prev.getNextInAccessQueue(), current);
-            // read accesses may be slightly misordered
-            assertTrue(prev.getAccessTime() <= current.getAccessTime()
-                || prev.getAccessTime() - current.getAccessTime() < 1000);
-          }
-          Object key = current.getKey();
-          if (key != null) {
-            assertSame(current, segment.getEntry(key, current.getHash()));
+        for (Queue<? extends ReferenceEntry<?, ?>> accessQueue : accessQueues(segment)) {
+          ReferenceEntry<?, ?> prev = null;
+          for (ReferenceEntry<?, ?> current : accessQueue) {
+            assertTrue(entries.add(current));
+            if (prev != null) {
+              assertSame(prev, current.getPreviousInAccessQueue());
+              assertSame(prev.getNextInAccessQueue(), current);
+              // read accesses may be slightly misordered
+              assertTrue(prev.getAccessTime() <= current.getAccessTime()
+                  || prev.getAccessTime() - current.getAccessTime() < 1000);
+            }
+            Object key = current.getKey();
+            if (key != null) {
+              assertSame(current, segment.getEntry(key, current.getHash()));
+            }
+            prev = current;
           }
-          prev = current;
         }
         assertEquals(segment.count, entries.size());
       } else {
@@ -289,17 +293,19 @@ class CacheTesting {
         assertEquals(0, segment.recencyQueue.size());
         assertEquals(0, segment.readCount.get());
 
-        ReferenceEntry<?, ?> prev = null;
-        for (ReferenceEntry<?, ?> current : segment.accessQueue) {
-          if (prev != null) {
-            assertSame(prev, current.getPreviousInAccessQueue());
-            assertSame(prev.getNextInAccessQueue(), current);
+        for (Queue<? extends ReferenceEntry<?, ?>> accessQueue : accessQueues(segment)) {
+          ReferenceEntry<?, ?> prev = null;
+          for (ReferenceEntry<?, ?> current : accessQueue) {
+            if (prev != null) {
+              assertSame(prev, current.getPreviousInAccessQueue());
+              assertSame(prev.getNextInAccessQueue(), current);
+            }
+            Object key = current.getKey();
+            if (key != null) {
+              assertSame(current, segment.getEntry(key, current.getHash()));
+            }
+            prev = current;
           }
-          Object key = current.getKey();
-          if (key != null) {
-            assertSame(current, segment.getEntry(key, current.getHash()));
-          }
-          prev = current;
         }
       }
     } else {
@@ -309,6 +315,19 @@ class CacheTesting {
     }
   }
 
+  /**
+   * Returns the linked, access-ordered queues of {@code segment}: the regions of its {@link
+   * WindowTinyLfuQueue}, or else its access queue.
+   */
+  private static <K, V> List<Queue<ReferenceEntry<K, V>>> accessQueues(Segment<K, V> segment) {
+    if (segment.accessQueue instanceof WindowTinyLfuQueue) {
+      WindowTinyLfuQueue<K, V> queue = (WindowTinyLfuQueue<K, V>) segment.accessQueue;
+      return ImmutableList.<Queue<ReferenceEntry<K, V>>>of(
+          queue.window, queue.probation, queue.demoted, queue.protectedQueue);
+    }
+    return ImmutableList.of(segment.accessQueue);
+  }
+
   static int segmentSize(Segment<?, ?> segment) {
     Map<?, ?> map = segmentTable(segment);
     return map.size();
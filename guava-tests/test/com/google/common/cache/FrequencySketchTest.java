@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.cache;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link FrequencySketch}.
+ */
+public class FrequencySketchTest extends TestCase {
+
+  public void testCapacity() {
+    assertEquals(1, new FrequencySketch(0).capacity());
+    assertEquals(1, new FrequencySketch(1).capacity());
+    assertEquals(64, new FrequencySketch(64).capacity());
+    assertEquals(128, new FrequencySketch(65).capacity());
+  }
+
+  public void testEnsureCapacity() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    sketch.increment(1);
+    sketch.ensureCapacity(32);
+    assertEquals(64, sketch.capacity());
+    assertEquals(1, sketch.frequency(1));
+
+    sketch.ensureCapacity(100);
+    assertEquals(128, sketch.capacity());
+    assertEquals(0, sketch.frequency(1));
+  }
+
+  public void testEnsureCapacity_negative() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    try {
+      sketch.ensureCapacity(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  public void testIncrement() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 1; i <= 10; i++) {
+      sketch.increment(42);
+      assertEquals(i, sketch.frequency(42));
+    }
+  }
+
+  public void testIncrement_saturates() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(42);
+    }
+    assertEquals(15, sketch.frequency(42));
+  }
+
+  public void testIncrement_distinctHashes() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment(1);
+    }
+    sketch.increment(2);
+    assertEquals(5, sketch.frequency(1));
+    assertEquals(1, sketch.frequency(2));
+    assertEquals(0, sketch.frequency(3));
+  }
+
+  public void testReset() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment(42);
+    }
+    sketch.reset();
+    assertEquals(5, sketch.frequency(42));
+  }
+
+  public void testReset_afterSamplePeriod() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    for (int i = 0; i < 15; i++) {
+      sketch.increment(-1);
+    }
+    for (int i = 0; i < 10 * sketch.capacity(); i++) {
+      sketch.increment(i);
+    }
+    assertTrue(sketch.frequency(-1) < 15);
+  }
+}
@@ -1963,7 +1963,8 @@ public class LocalCacheTest extends TestCase {
       Iterator<ReferenceEntry<Object, Object>> i = readOrder.iterator();
       while (i.hasNext()) {
         ReferenceEntry<Object, Object> entry = i.next();
-        if (random.nextBoolean()) {
+        // the recency queue is bounded, so don't record more reads than it can hold undrained
+        if (random.nextBoolean() && reads.size() <= DRAIN_THRESHOLD) {
           segment.recordRead(entry, map.ticker.read());
           reads.add(entry);
           i.remove();
@@ -2621,6 +2622,18 @@ public class LocalCacheTest extends TestCase {
       this.accessTime = time;
     }
 
+    private int accessRegion;
+
+    @Override
+    public int getAccessRegion() {
+      return accessRegion;
+    }
+
+    @Override
+    public void setAccessRegion(int region) {
+      this.accessRegion = region;
+    }
+
     private ReferenceEntry<K, V> nextAccess = nullEntry();
 
     @Override
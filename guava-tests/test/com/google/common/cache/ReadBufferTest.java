@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.cache;
+
+import static com.google.common.cache.ReadBuffer.RING_SIZE;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link ReadBuffer}.
+ */
+public class ReadBufferTest extends TestCase {
+
+  public void testEmpty() {
+    ReadBuffer<Integer> buffer = new ReadBuffer<Integer>();
+    assertTrue(buffer.isEmpty());
+    assertEquals(0, buffer.size());
+    assertNull(buffer.peek());
+    assertNull(buffer.poll());
+    assertThat(buffer).isEmpty();
+  }
+
+  public void testRingSize() {
+    assertEquals(1, Integer.bitCount(RING_SIZE));
+    assertTrue(RING_SIZE > LocalCache.DRAIN_THRESHOLD);
+  }
+
+  public void testOffer_null() {
+    ReadBuffer<Integer> buffer = new ReadBuffer<Integer>();
+    try {
+      buffer.offer(null);
+      fail();
+    } catch (NullPointerException expected) {}
+  }
+
+  public void testOfferPoll_singleThreadIsFifo() {
+    ReadBuffer<Integer> buffer = new ReadBuffer<Integer>();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(buffer.offer(i));
+    }
+    assertEquals(10, buffer.size());
+    assertEquals(0, (int) buffer.peek());
+    assertThat(buffer).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).inOrder();
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, (int) buffer.poll());
+    }
+    assertNull(buffer.poll());
+    assertTrue(buffer.isEmpty());
+  }
+
+  public void testOffer_dropsWhenFull() {
+    ReadBuffer<Integer> buffer = new ReadBuffer<Integer>();
+    for (int i = 0; i < RING_SIZE; i++) {
+      assertTrue(buffer.offer(i));
+    }
+    assertFalse(buffer.offer(RING_SIZE));
+    assertEquals(RING_SIZE, buffer.size());
+
+    // draining makes room again, and the ring wraps around
+    assertEquals(0, (int) buffer.poll());
+    assertTrue(buffer.offer(RING_SIZE));
+    List<Integer> drained = Lists.newArrayList();
+    for (Integer e; (e = buffer.poll()) != null; ) {
+      drained.add(e);
+    }
+    assertEquals(RING_SIZE, drained.size());
+    assertEquals(1, (int) drained.get(0));
+    assertEquals(RING_SIZE, (int) drained.get(RING_SIZE - 1));
+  }
+
+  public void testClear() {
+    ReadBuffer<Integer> buffer = new ReadBuffer<Integer>();
+    buffer.addAll(ImmutableList.of(1, 2, 3));
+    buffer.clear();
+    assertTrue(buffer.isEmpty());
+    assertTrue(buffer.offer(4));
+    assertEquals(4, (int) buffer.poll());
+  }
+
+  public void testOffer_concurrent() throws InterruptedException {
+    final ReadBuffer<Integer> buffer = new ReadBuffer<Integer>();
+    final int threadCount = 8;
+    final AtomicInteger accepted = new AtomicInteger();
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    List<Thread> threads = Lists.newArrayList();
+    for (int t = 0; t < threadCount; t++) {
+      Thread thread = new Thread() {
+        @Override public void run() {
+          try {
+            startSignal.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          for (int i = 0; i < 2 * RING_SIZE; i++) {
+            if (buffer.offer(i)) {
+              accepted.incrementAndGet();
+            }
+          }
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    startSignal.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // every accepted element is drained exactly once, and nothing else is
+    int drained = 0;
+    while (buffer.poll() != null) {
+      drained++;
+    }
+    assertEquals(accepted.get(), drained);
+    assertTrue(drained <= threadCount * RING_SIZE);
+    assertTrue(buffer.isEmpty());
+  }
+}
@@ -18,8 +18,11 @@ package com.google.common.hash;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.hash.BloomFilterStrategies.BitArray;
+import static com.google.common.hash.BloomFilterStrategies.LockFreeBitArray;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import com.google.common.math.LongMath;
 import com.google.common.primitives.Ints;
 import com.google.common.testing.EqualsTester;
@@ -30,8 +33,20 @@ import junit.framework.TestCase;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.math.RoundingMode;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 
 import javax.annotation.Nullable;
 
@@ -45,7 +60,7 @@ public class BloomFilterTest extends TestCase {
     long numBits = Integer.MAX_VALUE;
     numBits++;
 
-    BitArray bitArray = new BitArray(numBits);
+    BitArray bitArray = new LockFreeBitArray(numBits);
     assertTrue(
         "BitArray.bitSize() must return a positive number, but was " + bitArray.bitSize(),
         bitArray.bitSize() > 0);
@@ -54,6 +69,17 @@ public class BloomFilterTest extends TestCase {
     // BloomFilter.create(Funnels.unencodedCharsFunnel(), 244412641, 1e-11);
   }
 
+  public void testBitArrayEquals() {
+    long[] data = {1, -1, 0, Long.MIN_VALUE};
+    BitArray bitArray = new LockFreeBitArray(data.clone());
+    new EqualsTester()
+        .addEqualityGroup(bitArray, new LockFreeBitArray(data.clone()))
+        .addEqualityGroup(new LockFreeBitArray(new long[] {1, -1, 0, 0}))
+        .addEqualityGroup(new LockFreeBitArray(new long[] {1, -1, 0}))
+        .testEquals();
+    assertEquals(Arrays.hashCode(data), bitArray.hashCode());
+  }
+
   public void testCreateAndCheckMitz32BloomFilterWithKnownFalsePositives() {
     int numInsertions = 1000000;
     BloomFilter<String> bf = BloomFilter.create(
@@ -136,6 +162,46 @@ public class BloomFilterTest extends TestCase {
     assertEquals(actualFpp, expectedFpp, 0.00033);
   }
 
+  public void testCreateAndCheckBlockedBloomFilterWithKnownFalsePositives() {
+    int numInsertions = 1000000;
+    BloomFilter<String> bf = BloomFilter.create(
+        Funnels.unencodedCharsFunnel(), numInsertions, 0.03, BloomFilter.Layout.BLOCKED);
+
+    // Insert "numInsertions" even numbers into the BF.
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      bf.put(Integer.toString(i));
+    }
+
+    // Assert that the BF "might" have all of the even numbers.
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      assertTrue(bf.mightContain(Integer.toString(i)));
+    }
+
+    // Now we check for known false positives using a set of known false positives.
+    // (These are all of the false positives under 900.)
+    ImmutableSet<Integer> falsePositives = ImmutableSet.of(
+        97, 251, 263, 271, 295, 313, 609, 631, 649, 699, 719, 773, 783, 863);
+    for (int i = 1; i < 900; i += 2) {
+      if (!falsePositives.contains(i)) {
+        assertFalse("BF should not contain " + i, bf.mightContain(Integer.toString(i)));
+      }
+    }
+
+    // Check that there are exactly 31939 false positives for this BF.
+    int knownNumberOfFalsePositives = 31939;
+    int numFpp = 0;
+    for (int i = 1; i < numInsertions * 2; i += 2) {
+      if (bf.mightContain(Integer.toString(i))) {
+        numFpp++;
+      }
+    }
+    assertEquals(knownNumberOfFalsePositives, numFpp);
+    // Blocking costs some accuracy, so the actual fpp is a little above the expected one.
+    double actualFpp = (double) knownNumberOfFalsePositives / numInsertions;
+    double expectedFpp = bf.expectedFpp();
+    assertEquals(actualFpp, expectedFpp, 0.003);
+  }
+
   public void testCreateAndCheckBloomFilterWithKnownUtf8FalsePositives64() {
     int numInsertions = 1000000;
     BloomFilter<String> bf = BloomFilter.create(
@@ -308,6 +374,19 @@ public class BloomFilterTest extends TestCase {
     }
   }
 
+  public void testBitSize_blocked() {
+    double fpp = 0.03;
+    for (int i = 1; i < 10000; i++) {
+      long numBits = BloomFilter.optimalNumOfBits(i, fpp);
+      long blocks =
+          LongMath.divide(numBits, BloomFilterStrategies.BLOCK_BITS, RoundingMode.CEILING);
+      assertEquals(
+          blocks * BloomFilterStrategies.BLOCK_BITS,
+          BloomFilter.create(Funnels.unencodedCharsFunnel(), i, fpp, BloomFilter.Layout.BLOCKED)
+              .bitSize());
+    }
+  }
+
   public void testEquals_empty() {
     new EqualsTester()
         .addEqualityGroup(BloomFilter.create(Funnels.byteArrayFunnel(), 100, 0.01))
@@ -401,6 +480,33 @@ public class BloomFilterTest extends TestCase {
     assertTrue(bf2.mightContain(element2));
   }
 
+  public void testPutAll_blocked() {
+    BloomFilter<Integer> bf1 =
+        BloomFilter.create(Funnels.integerFunnel(), 100, 0.03, BloomFilter.Layout.BLOCKED);
+    bf1.put(1);
+    BloomFilter<Integer> bf2 =
+        BloomFilter.create(Funnels.integerFunnel(), 100, 0.03, BloomFilter.Layout.BLOCKED);
+    bf2.put(2);
+
+    assertTrue(bf1.isCompatible(bf2));
+    bf1.putAll(bf2);
+    assertTrue(bf1.mightContain(1));
+    assertTrue(bf1.mightContain(2));
+  }
+
+  public void testPutAllDifferentLayouts() {
+    BloomFilter<Integer> standard =
+        BloomFilter.create(Funnels.integerFunnel(), 1000, 0.03, BloomFilter.Layout.STANDARD);
+    BloomFilter<Integer> blocked =
+        BloomFilter.create(Funnels.integerFunnel(), 1000, 0.03, BloomFilter.Layout.BLOCKED);
+    assertFalse(standard.isCompatible(blocked));
+    try {
+      standard.putAll(blocked);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   public void testPutAllDifferentSizes() {
     BloomFilter<Integer> bf1 = BloomFilter.create(Funnels.integerFunnel(), 1);
     BloomFilter<Integer> bf2 = BloomFilter.create(Funnels.integerFunnel(), 10);
@@ -430,6 +536,64 @@ public class BloomFilterTest extends TestCase {
     }
   }
 
+  public void testPut_concurrent() throws InterruptedException {
+    assertConcurrentPuts(BloomFilter.create(Funnels.integerFunnel(), 100000, 0.01));
+  }
+
+  /**
+   * Puts elements into {@code bf} from several threads, which also race to put the same elements,
+   * and checks that no element or bit count was lost.
+   */
+  private static void assertConcurrentPuts(final BloomFilter<Integer> bf)
+      throws InterruptedException {
+    final int threadCount = 4;
+    final int perThread = 10000;
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    List<Thread> threads = Lists.newArrayList();
+    for (int t = 0; t < threadCount; t++) {
+      final int first = t * perThread;
+      Thread thread = new Thread() {
+        @Override public void run() {
+          try {
+            startSignal.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          for (int i = first; i < first + perThread; i++) {
+            bf.put(i);
+            // every thread also adds the same elements, so that they race on the same bits
+            bf.put(-i % perThread);
+          }
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    startSignal.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (int i = 0; i < threadCount * perThread; i++) {
+      assertTrue(bf.mightContain(i));
+      assertTrue(bf.mightContain(-i % perThread));
+    }
+    // no bit was counted twice or lost
+    BloomFilter<Integer> recounted = bf.copy();
+    assertEquals(recounted.expectedFpp(), bf.expectedFpp());
+  }
+
+  public void testPutAll_updatesBitCount() {
+    BloomFilter<Integer> bf1 = BloomFilter.create(Funnels.integerFunnel(), 100);
+    BloomFilter<Integer> bf2 = BloomFilter.create(Funnels.integerFunnel(), 100);
+    for (int i = 0; i < 50; i++) {
+      bf1.put(i);
+      bf2.put(i + 25);
+    }
+    bf1.putAll(bf2);
+    assertEquals(bf1.copy().expectedFpp(), bf1.expectedFpp());
+  }
+
   public void testJavaSerialization() {
     BloomFilter<byte[]> bf = BloomFilter.create(Funnels.byteArrayFunnel(), 100);
     for (int i = 0; i < 10; i++) {
@@ -458,13 +622,169 @@ public class BloomFilterTest extends TestCase {
     assertEquals(bf, BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()), funnel));
   }
 
+  public void testSerialization_blocked() throws Exception {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    BloomFilter<byte[]> bf = BloomFilter.create(funnel, 100, 0.03, BloomFilter.Layout.BLOCKED);
+    for (int i = 0; i < 100; i++) {
+      bf.put(Ints.toByteArray(i));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bf.writeTo(out);
+    assertEquals(bf, BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()), funnel));
+    SerializableTester.reserializeAndAssert(bf);
+  }
+
+  public void testReadFrom_blockedWithPartialBlock() throws Exception {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    BloomFilter<byte[]> bf = BloomFilter.create(funnel, 100, 0.03, BloomFilter.Layout.BLOCKED);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bf.writeTo(out);
+    byte[] bytes = out.toByteArray();
+    bytes[5]--; // one long fewer than a whole number of blocks
+    try {
+      BloomFilter.readFrom(new ByteArrayInputStream(bytes, 0, bytes.length - 8), funnel);
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testMap() throws Exception {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    BloomFilter<byte[]> bf = BloomFilter.create(funnel, 1000);
+    for (int i = 0; i < 100; i++) {
+      bf.put(Ints.toByteArray(i));
+    }
+    File file = writeToTempFile(bf);
+    try {
+      BloomFilter<byte[]> mapped = BloomFilter.map(file, funnel, MapMode.READ_WRITE);
+      assertEquals(bf, mapped);
+      assertEquals(bf.expectedFpp(), mapped.expectedFpp());
+      for (int i = 0; i < 100; i++) {
+        assertTrue(mapped.mightContain(Ints.toByteArray(i)));
+      }
+
+      // updates are made to the file in place
+      for (int i = 100; i < 200; i++) {
+        assertEquals(bf.put(Ints.toByteArray(i)), mapped.put(Ints.toByteArray(i)));
+      }
+      assertEquals(bf, mapped);
+      assertEquals(bf.expectedFpp(), mapped.expectedFpp());
+      assertEquals(bf, readFrom(file, funnel));
+
+      // a mapped filter can be copied, merged and serialized like any other
+      assertEquals(bf, mapped.copy());
+      assertEquals(bf, SerializableTester.reserialize(mapped));
+      BloomFilter<byte[]> other = BloomFilter.create(funnel, 1000);
+      other.put(Ints.toByteArray(1000));
+      mapped.putAll(other);
+      assertTrue(mapped.mightContain(Ints.toByteArray(1000)));
+      assertTrue(readFrom(file, funnel).mightContain(Ints.toByteArray(1000)));
+    } finally {
+      file.delete();
+    }
+  }
+
+  public void testMap_readOnly() throws Exception {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    BloomFilter<byte[]> bf = BloomFilter.create(funnel, 1000);
+    bf.put(Ints.toByteArray(1));
+    File file = writeToTempFile(bf);
+    try {
+      BloomFilter<byte[]> mapped = BloomFilter.map(file, funnel, MapMode.READ_ONLY);
+      assertEquals(bf, mapped);
+      assertFalse(mapped.put(Ints.toByteArray(1)));
+      try {
+        mapped.put(Ints.toByteArray(2));
+        fail();
+      } catch (ReadOnlyBufferException expected) {
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  public void testMap_chunked() throws Exception {
+    Funnel<Integer> funnel = Funnels.integerFunnel();
+    BloomFilter<Integer> bf =
+        BloomFilter.create(funnel, 1000, 0.03, BloomFilter.Layout.BLOCKED);
+    File file = writeToTempFile(bf);
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      // chunks of 4 longs, so that most bits of the filter are in a later chunk
+      BloomFilter<Integer> mapped =
+          BloomFilter.map(raf.getChannel(), funnel, MapMode.READ_WRITE, 4);
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(bf.put(i), mapped.put(i));
+      }
+      assertEquals(bf, mapped);
+      assertEquals(bf.expectedFpp(), mapped.expectedFpp());
+      raf.close();
+      assertEquals(bf, readFrom(file, funnel));
+    } finally {
+      raf.close();
+      file.delete();
+    }
+  }
+
+  public void testMap_concurrent() throws Exception {
+    Funnel<Integer> funnel = Funnels.integerFunnel();
+    File file = writeToTempFile(BloomFilter.create(funnel, 100000, 0.01));
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      // small chunks, so that the threads update several of them
+      assertConcurrentPuts(BloomFilter.map(raf.getChannel(), funnel, MapMode.READ_WRITE, 64));
+    } finally {
+      raf.close();
+      file.delete();
+    }
+  }
+
+  public void testMap_wrongSize() throws Exception {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    File file = writeToTempFile(BloomFilter.create(funnel, 1000));
+    try {
+      Files.append("x", file, UTF_8);
+      long size = file.length();
+      try {
+        BloomFilter.map(file, funnel, MapMode.READ_WRITE);
+        fail();
+      } catch (IOException expected) {
+      }
+      assertEquals(size, file.length());
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static File writeToTempFile(BloomFilter<?> bf) throws IOException {
+    File file = File.createTempFile("BloomFilterTest", "");
+    OutputStream out = new FileOutputStream(file);
+    try {
+      bf.writeTo(out);
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static <T> BloomFilter<T> readFrom(File file, Funnel<T> funnel) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      return BloomFilter.readFrom(in, funnel);
+    } finally {
+      in.close();
+    }
+  }
+
   /**
    * This test will fail whenever someone updates/reorders the BloomFilterStrategies constants.
    * Only appending a new constant is allowed.
    */
   public void testBloomFilterStrategies() {
-    assertEquals(2, BloomFilterStrategies.values().length);
+    assertEquals(3, BloomFilterStrategies.values().length);
     assertEquals(BloomFilterStrategies.MURMUR128_MITZ_32, BloomFilterStrategies.values()[0]);
     assertEquals(BloomFilterStrategies.MURMUR128_MITZ_64, BloomFilterStrategies.values()[1]);
+    assertEquals(BloomFilterStrategies.MURMUR128_BLOCKED_512, BloomFilterStrategies.values()[2]);
   }
 }
@@ -19,6 +19,7 @@ import static com.google.common.base.Charsets.UTF_8;
 import junit.framework.TestCase;
 
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Unit tests for {@link Crc32c}. Known test values are from RFC 3720, Section B.4.
@@ -86,6 +87,55 @@ public class Crc32cHashFunctionTest extends TestCase {
     assertCrc(0xBFE92A83, "23456789".getBytes(UTF_8));
   }
 
+  public void testSlicingBy8_matchesByteAtATime() {
+    byte[] bytes = new byte[100];
+    new Random(0).nextBytes(bytes);
+    for (int off = 0; off < 9; off++) {
+      for (int len = 0; len <= bytes.length - off; len++) {
+        Hasher byteAtATime = new Crc32cHashFunction.Crc32cHasher();
+        for (int i = off; i < off + len; i++) {
+          byteAtATime.putByte(bytes[i]);
+        }
+        Hasher sliced = new Crc32cHashFunction.Crc32cHasher().putBytes(bytes, off, len);
+        assertEquals(byteAtATime.hash(), sliced.hash());
+      }
+    }
+  }
+
+  public void testSlicingBy8_continuesAcrossCalls() {
+    byte[] bytes = "The quick brown fox jumps over the lazy dog".getBytes(UTF_8);
+    Hasher hasher = new Crc32cHashFunction.Crc32cHasher()
+        .putBytes(bytes, 0, 11)
+        .putByte(bytes[11])
+        .putBytes(bytes, 12, bytes.length - 12);
+    assertEquals(0x22620404, hasher.hash().asInt());
+  }
+
+  public void testUsesJdkCrc32cWhereAvailable() {
+    boolean available;
+    try {
+      Class.forName("java.util.zip.CRC32C");
+      available = true;
+    } catch (ClassNotFoundException e) {
+      available = false;
+    }
+    assertEquals(available, Crc32cHashFunction.usesJdkCrc32c());
+  }
+
+  public void testSlicingTables() {
+    int[][] tables = Crc32cHashFunction.Crc32cHasher.SLICING_TABLES;
+    assertEquals(8, tables.length);
+    assertSame(Crc32cHashFunction.Crc32cHasher.CRC_TABLE, tables[0]);
+    for (int b = 0; b < 256; b++) {
+      // byte b followed by seven zero bytes, starting from a zero register
+      int crc = b;
+      for (int i = 0; i < 8; i++) {
+        crc = (crc >>> 8) ^ tables[0][crc & 0xFF];
+      }
+      assertEquals(crc, tables[7][b]);
+    }
+  }
+
   /**
    * Verfies that the crc of an array of byte data matches the expected value.
    *
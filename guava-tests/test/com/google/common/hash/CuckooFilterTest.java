@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.NullPointerTester;
+import com.google.common.testing.SerializableTester;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link CuckooFilter}.
+ */
+public class CuckooFilterTest extends TestCase {
+
+  public void testCreateAndCheckFpp() {
+    int numInsertions = 1000000;
+    double fpp = 0.001;
+    CuckooFilter<String> cf =
+        CuckooFilter.create(Funnels.unencodedCharsFunnel(), numInsertions, fpp);
+
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      assertTrue(cf.put(Integer.toString(i)));
+    }
+    assertEquals(numInsertions, cf.size());
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      assertTrue(cf.mightContain(Integer.toString(i)));
+    }
+
+    int numFpp = 0;
+    for (int i = 1; i < numInsertions * 2; i += 2) {
+      if (cf.mightContain(Integer.toString(i))) {
+        numFpp++;
+      }
+    }
+    double actualFpp = (double) numFpp / numInsertions;
+    assertTrue("actual fpp: " + actualFpp, actualFpp < fpp);
+    // The normal order of (expected, actual) is reversed here on purpose.
+    assertEquals(actualFpp, cf.expectedFpp(), 0.0001);
+  }
+
+  public void testOptimalFingerprintBits() {
+    assertEquals(9, CuckooFilter.optimalFingerprintBits(0.03));
+    assertEquals(13, CuckooFilter.optimalFingerprintBits(0.001));
+    assertEquals(4, CuckooFilter.optimalFingerprintBits(0.9));
+    assertEquals(30, CuckooFilter.optimalFingerprintBits(1e-8));
+  }
+
+  public void testBitSize() {
+    // 1000 / (4 * 0.955) rounds up to 512 buckets of 4 fingerprints of 9 bits
+    CuckooFilter<Integer> cf = CuckooFilter.create(Funnels.integerFunnel(), 1000, 0.03);
+    assertEquals(512 * 4 * 9, cf.bitSize());
+  }
+
+  public void testRemove() {
+    CuckooFilter<Integer> cf = CuckooFilter.create(Funnels.integerFunnel(), 1000, 0.001);
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(cf.put(i));
+    }
+    for (int i = 0; i < 1000; i += 2) {
+      assertTrue(cf.remove(i));
+    }
+    assertEquals(500, cf.size());
+    for (int i = 1; i < 1000; i += 2) {
+      assertTrue(cf.mightContain(i));
+    }
+    int stillThere = 0;
+    for (int i = 0; i < 1000; i += 2) {
+      if (cf.mightContain(i)) {
+        stillThere++;
+      }
+    }
+    assertTrue(stillThere < 5);
+    assertFalse(cf.remove(-1));
+  }
+
+  public void testPutTwice_removeOnce() {
+    CuckooFilter<String> cf = CuckooFilter.create(Funnels.unencodedCharsFunnel(), 100, 0.001);
+    assertTrue(cf.put("a"));
+    assertTrue(cf.put("a"));
+    assertEquals(2, cf.size());
+    assertTrue(cf.remove("a"));
+    assertTrue(cf.mightContain("a"));
+    assertTrue(cf.remove("a"));
+    assertFalse(cf.mightContain("a"));
+    assertEquals(0, cf.size());
+  }
+
+  public void testPut_full() {
+    CuckooFilter<Integer> cf = CuckooFilter.create(Funnels.integerFunnel(), 1000, 0.03);
+    int capacity = (int) (cf.bitSize() / 9);
+    int added = 0;
+    while (cf.put(added)) {
+      added++;
+      assertTrue(added <= capacity);
+    }
+    // nearly every slot is used before the filter gives up
+    assertTrue(added > 0.9 * capacity);
+    assertEquals(added, cf.size());
+    for (int i = 0; i < added; i++) {
+      assertTrue(cf.mightContain(i));
+    }
+
+    // removing an element makes room again
+    assertTrue(cf.remove(0));
+    assertTrue(cf.put(added));
+    for (int i = 1; i <= added; i++) {
+      assertTrue(cf.mightContain(i));
+    }
+  }
+
+  public void testPreconditions() {
+    try {
+      CuckooFilter.create(Funnels.unencodedCharsFunnel(), 0, 0.03);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      CuckooFilter.create(Funnels.unencodedCharsFunnel(), 1, 1e-9);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      CuckooFilter.create(Funnels.unencodedCharsFunnel(), 1, 1.0);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  public void testNullPointers() {
+    NullPointerTester tester = new NullPointerTester();
+    tester.testAllPublicInstanceMethods(
+        CuckooFilter.create(Funnels.unencodedCharsFunnel(), 100, 0.03));
+    tester.testAllPublicStaticMethods(CuckooFilter.class);
+  }
+
+  public void testEquals() {
+    CuckooFilter<Integer> cf1 = CuckooFilter.create(Funnels.integerFunnel(), 100, 0.03);
+    cf1.put(1);
+    CuckooFilter<Integer> cf2 = CuckooFilter.create(Funnels.integerFunnel(), 100, 0.03);
+    cf2.put(1);
+    new EqualsTester()
+        .addEqualityGroup(cf1, cf2)
+        .addEqualityGroup(CuckooFilter.create(Funnels.integerFunnel(), 100, 0.03))
+        .addEqualityGroup(CuckooFilter.create(Funnels.integerFunnel(), 100, 0.001))
+        .addEqualityGroup(CuckooFilter.create(Funnels.integerFunnel(), 10000, 0.03))
+        .addEqualityGroup(CuckooFilter.create(Funnels.unencodedCharsFunnel(), 100, 0.03))
+        .testEquals();
+  }
+
+  public void testCopy() {
+    CuckooFilter<Integer> original = CuckooFilter.create(Funnels.integerFunnel(), 100, 0.03);
+    original.put(1);
+    CuckooFilter<Integer> copy = original.copy();
+    assertNotSame(original, copy);
+    assertEquals(original, copy);
+    assertEquals(original.hashCode(), copy.hashCode());
+
+    copy.remove(1);
+    assertFalse(original.equals(copy));
+    assertTrue(original.mightContain(1));
+  }
+
+  public void testJavaSerialization() {
+    CuckooFilter<Integer> cf = CuckooFilter.create(Funnels.integerFunnel(), 100, 0.03);
+    for (int i = 0; i < 50; i++) {
+      cf.put(i);
+    }
+    CuckooFilter<Integer> copy = SerializableTester.reserializeAndAssert(cf);
+    assertEquals(cf.expectedFpp(), copy.expectedFpp());
+    for (int i = 0; i < 50; i++) {
+      assertTrue(copy.remove(i));
+    }
+    assertEquals(0, copy.size());
+  }
+}
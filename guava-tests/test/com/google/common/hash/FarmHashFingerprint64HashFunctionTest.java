@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import com.google.common.base.Strings;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link FarmHashFingerprint64HashFunction}.
+ */
+public class FarmHashFingerprint64HashFunctionTest extends TestCase {
+
+  private static final HashFunction HASH_FN = Hashing.farmHashFingerprint64();
+
+  public void testReallySimpleFingerprints() {
+    assertEquals(8581389452482819506L, fingerprint("test".getBytes(UTF_8)));
+    // 32 characters long
+    assertEquals(-4196240717365766262L, fingerprint(Strings.repeat("test", 8).getBytes(UTF_8)));
+    // 256 characters long
+    assertEquals(3500507768004279527L, fingerprint(Strings.repeat("test", 64).getBytes(UTF_8)));
+  }
+
+  public void testEmpty() {
+    // the k2 constant of FarmHash
+    assertEquals(0x9ae16a3b2f90404fL, fingerprint(new byte[0]));
+  }
+
+  /**
+   * The streaming hasher holds back the last 64 bytes it was given, so it has to give the same
+   * results however the input is split, around every multiple of 64 bytes.
+   */
+  public void testStreamingMatchesOneShot() {
+    Random random = new Random(0);
+    byte[] input = new byte[400];
+    random.nextBytes(input);
+    for (int length = 0; length <= input.length; length++) {
+      long expected = HASH_FN.hashBytes(input, 0, length).asLong();
+
+      Hasher byteByByte = HASH_FN.newHasher();
+      for (int i = 0; i < length; i++) {
+        byteByByte.putByte(input[i]);
+      }
+      assertEquals("length " + length, expected, byteByByte.hash().asLong());
+
+      int split = random.nextInt(length + 1);
+      Hasher twoChunks = HASH_FN.newHasher()
+          .putBytes(input, 0, split)
+          .putBytes(input, split, length - split);
+      assertEquals("length " + length, expected, twoChunks.hash().asLong());
+
+      Hasher chunks = HASH_FN.newHasher();
+      for (int off = 0; off < length; ) {
+        int len = Math.min(random.nextInt(130), length - off);
+        chunks.putBytes(input, off, len);
+        off += len;
+      }
+      assertEquals("length " + length, expected, chunks.hash().asLong());
+    }
+  }
+
+  private static long fingerprint(byte[] bytes) {
+    long oneShot = HASH_FN.hashBytes(bytes).asLong();
+    assertEquals(oneShot, HASH_FN.newHasher().putBytes(bytes).hash().asLong());
+    return oneShot;
+  }
+}
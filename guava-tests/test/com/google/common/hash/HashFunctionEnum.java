@@ -24,6 +24,7 @@ package com.google.common.hash;
 enum HashFunctionEnum {
   ADLER32(Hashing.adler32()),
   CRC32(Hashing.crc32()),
+  FARMHASH_FINGERPRINT_64(Hashing.farmHashFingerprint64()),
   GOOD_FAST_HASH_32(Hashing.goodFastHash(32)),
   GOOD_FAST_HASH_64(Hashing.goodFastHash(64)),
   GOOD_FAST_HASH_128(Hashing.goodFastHash(128)),
@@ -35,6 +36,7 @@ enum HashFunctionEnum {
   SHA256(Hashing.sha256()),
   SHA512(Hashing.sha512()),
   SIP_HASH24(Hashing.sipHash24()),
+  XX_HASH_64(Hashing.xxHash64()),
 
   // Hash functions found in //javatests for comparing against current implementation of CityHash.
   // These can probably be removed sooner or later.
@@ -26,6 +26,8 @@ import com.google.common.testing.EqualsTester;
 
 import org.junit.Assert;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Random;
@@ -172,6 +174,19 @@ final class HashTestUtils {
         }
       }
     },
+    PUT_BYTE_BUFFER() {
+      @Override void performAction(Random random, Iterable<? extends PrimitiveSink> sinks) {
+        byte[] value = new byte[random.nextInt(128)];
+        random.nextBytes(value);
+        int off = random.nextInt(value.length + 1);
+        int len = random.nextInt(value.length - off + 1);
+        ByteBuffer buffer = randomByteBuffer(random, value);
+        for (PrimitiveSink sink : sinks) {
+          buffer.limit(off + len).position(off);
+          sink.putBytes(buffer);
+        }
+      }
+    },
     PUT_STRING() {
       @Override void performAction(Random random, Iterable<? extends PrimitiveSink> sinks) {
         char[] value = new char[random.nextInt(128)];
@@ -427,6 +442,7 @@ final class HashTestUtils {
 
     assertHashBytesThrowsCorrectExceptions(hashFunction);
     assertIndependentHashers(hashFunction);
+    assertResetHashers(hashFunction);
     assertShortcutsAreEquivalent(hashFunction, 512);
   }
 
@@ -467,6 +483,39 @@ final class HashTestUtils {
     Assert.assertEquals(expected2, hasher2.hash());
   }
 
+  /**
+   * Checks that a hasher that supports {@link Hasher#reset} hashes its input like a new hasher
+   * after being reset, whether or not it has computed a hash code.
+   */
+  static void assertResetHashers(HashFunction hashFunction) {
+    int numActions = 100;
+    HashCode expected = randomHash(hashFunction, new Random(1L), numActions);
+    Hasher hasher = hashFunction.newHasher();
+    try {
+      hasher.reset();
+    } catch (UnsupportedOperationException e) {
+      return;
+    }
+    Random random = new Random(2L);
+    for (int i = 0; i < numActions; i++) {
+      RandomHasherAction.pickAtRandom(random).performAction(random, ImmutableSet.of(hasher));
+    }
+    hasher.reset();
+    random = new Random(1L);
+    for (int i = 0; i < numActions; i++) {
+      RandomHasherAction.pickAtRandom(random).performAction(random, ImmutableSet.of(hasher));
+    }
+    Assert.assertEquals(expected, hasher.hash());
+    Assert.assertEquals(hashFunction.newHasher().hash(), hasher.reset().hash());
+
+    hasher.reset();
+    random = new Random(1L);
+    for (int i = 0; i < numActions; i++) {
+      RandomHasherAction.pickAtRandom(random).performAction(random, ImmutableSet.of(hasher));
+    }
+    Assert.assertEquals(expected.padToLong(), hasher.hashToLong());
+  }
+
   static HashCode randomHash(HashFunction hashFunction, Random random, int numActions) {
     Hasher hasher = hashFunction.newHasher();
     for (int i = 0; i < numActions; i++) {
@@ -479,8 +528,12 @@ final class HashTestUtils {
     Random random = new Random(42085L);
     for (int i = 0; i < trials; i++) {
       assertHashBytesEquivalence(hashFunction, random);
+      assertHashByteBufferEquivalence(hashFunction, random);
       assertHashIntEquivalence(hashFunction, random);
       assertHashLongEquivalence(hashFunction, random);
+      assertHashToLongEquivalence(hashFunction, random);
+      assertHashIntsEquivalence(hashFunction, random);
+      assertHashLongsEquivalence(hashFunction, random);
       assertHashStringEquivalence(hashFunction, random);
       assertHashStringWithSurrogatesEquivalence(hashFunction, random);
     }
@@ -498,6 +551,78 @@ final class HashTestUtils {
         hashFunction.newHasher(size).putBytes(bytes, off, len).hash());
   }
 
+  private static void assertHashByteBufferEquivalence(HashFunction hashFunction, Random random) {
+    int size = random.nextInt(2048);
+    byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    int off = random.nextInt(size + 1);
+    int len = random.nextInt(size - off + 1);
+    ByteBuffer buffer = randomByteBuffer(random, bytes);
+    ByteOrder order = buffer.order();
+    buffer.limit(off + len).position(off);
+    assertEquals(hashFunction.hashBytes(bytes, off, len), hashFunction.hashBytes(buffer));
+    Assert.assertEquals(off + len, buffer.position());
+    Assert.assertEquals(order, buffer.order());
+    buffer.position(off);
+    assertEquals(hashFunction.hashBytes(bytes, off, len),
+        hashFunction.newHasher(size).putBytes(buffer).hash());
+    Assert.assertFalse(buffer.hasRemaining());
+  }
+
+  /** Returns a heap or direct buffer of either byte order holding {@code bytes}. */
+  static ByteBuffer randomByteBuffer(Random random, byte[] bytes) {
+    ByteBuffer buffer = random.nextBoolean()
+        ? ByteBuffer.wrap(bytes)
+        : (ByteBuffer) ByteBuffer.allocateDirect(bytes.length).put(bytes).clear();
+    return buffer.order(random.nextBoolean() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static void assertHashToLongEquivalence(HashFunction hashFunction, Random random) {
+    int size = random.nextInt(2048);
+    byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    int off = random.nextInt(size + 1);
+    int len = random.nextInt(size - off + 1);
+    HashCode expected = hashFunction.hashBytes(bytes, off, len);
+    Assert.assertEquals(expected.padToLong(), hashFunction.hashBytesToLong(bytes, off, len));
+    Assert.assertEquals(expected.padToLong(),
+        hashFunction.newHasher().putBytes(bytes, off, len).hashToLong());
+    Assert.assertEquals(expected.asInt(),
+        hashFunction.newHasher().putBytes(bytes, off, len).hashToInt());
+  }
+
+  private static void assertHashIntsEquivalence(HashFunction hashFunction, Random random) {
+    int[] input = new int[random.nextInt(16)];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = random.nextInt();
+    }
+    long[] output = new long[input.length + random.nextInt(2)];
+    hashFunction.hashInts(input, output);
+    for (int i = 0; i < input.length; i++) {
+      Assert.assertEquals(hashFunction.hashInt(input[i]).padToLong(), output[i]);
+    }
+    try {
+      hashFunction.hashInts(new int[input.length + 1], new long[input.length]);
+      Assert.fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  private static void assertHashLongsEquivalence(HashFunction hashFunction, Random random) {
+    long[] input = new long[random.nextInt(16)];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = random.nextLong();
+    }
+    long[] output = new long[input.length + random.nextInt(2)];
+    hashFunction.hashLongs(input, output);
+    for (int i = 0; i < input.length; i++) {
+      Assert.assertEquals(hashFunction.hashLong(input[i]).padToLong(), output[i]);
+    }
+    try {
+      hashFunction.hashLongs(new long[input.length + 1], new long[input.length]);
+      Assert.fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
   private static void assertHashIntEquivalence(HashFunction hashFunction, Random random) {
     int i = random.nextInt();
     assertEquals(hashFunction.hashInt(i),
@@ -115,6 +115,24 @@ public class HashingTest extends TestCase {
         Hashing.sipHash24().toString());
   }
 
+  public void testXxHash64() {
+    HashTestUtils.check2BitAvalanche(Hashing.xxHash64(), 250, 0.20);
+    HashTestUtils.checkAvalanche(Hashing.xxHash64(), 250, 0.17);
+    HashTestUtils.checkNo2BitCharacteristics(Hashing.xxHash64());
+    HashTestUtils.checkNoFunnels(Hashing.xxHash64());
+    HashTestUtils.assertInvariants(Hashing.xxHash64());
+    assertEquals("Hashing.xxHash64(0)", Hashing.xxHash64().toString());
+  }
+
+  public void testFarmHashFingerprint64() {
+    HashTestUtils.check2BitAvalanche(Hashing.farmHashFingerprint64(), 250, 0.20);
+    HashTestUtils.checkAvalanche(Hashing.farmHashFingerprint64(), 250, 0.17);
+    HashTestUtils.checkNo2BitCharacteristics(Hashing.farmHashFingerprint64());
+    HashTestUtils.checkNoFunnels(Hashing.farmHashFingerprint64());
+    HashTestUtils.assertInvariants(Hashing.farmHashFingerprint64());
+    assertEquals("Hashing.farmHashFingerprint64()", Hashing.farmHashFingerprint64().toString());
+  }
+
   public void testGoodFastHash() {
     for (int i = 1; i < 200; i += 17) {
       HashFunction hasher = Hashing.goodFastHash(i);
@@ -417,6 +435,12 @@ public class HashingTest extends TestCase {
           .put(Hashing.crc32c(), EMPTY_STRING, "00000000")
           .put(Hashing.crc32c(), TQBFJOTLD, "04046222")
           .put(Hashing.crc32c(), TQBFJOTLDP, "b3970019")
+          .put(Hashing.xxHash64(), EMPTY_STRING, "99e9d85137db46ef")
+          .put(Hashing.xxHash64(), TQBFJOTLD, "bc71da1f362d240b")
+          .put(Hashing.xxHash64(), TQBFJOTLDP, "73ad51577033ad44")
+          .put(Hashing.farmHashFingerprint64(), EMPTY_STRING, "4f40902f3b6ae19a")
+          .put(Hashing.farmHashFingerprint64(), TQBFJOTLD, "34511b3bf383beab")
+          .put(Hashing.farmHashFingerprint64(), TQBFJOTLDP, "737d7e5f8660653e")
           .build();
 
   public void testAllHashFunctionsHaveKnownHashes() throws Exception {
@@ -431,6 +455,22 @@ public class HashingTest extends TestCase {
     }
   }
 
+  public void testAllHashFunctionsSupportReset() throws Exception {
+    for (Method method : Hashing.class.getDeclaredMethods()) {
+      if (method.getReturnType().equals(HashFunction.class)
+          && Modifier.isPublic(method.getModifiers())
+          && method.getParameterTypes().length == 0) {
+        HashFunction hashFunction = (HashFunction) method.invoke(Hashing.class);
+        try {
+          hashFunction.newHasher().reset();
+        } catch (UnsupportedOperationException e) {
+          fail("Can't reset the hashers of " + hashFunction);
+        }
+        HashTestUtils.assertResetHashers(hashFunction);
+      }
+    }
+  }
+
   public void testKnownUtf8Hashing() {
     for (Cell<HashFunction, String, String> cell : KNOWN_HASHES.cellSet()) {
       HashFunction func = cell.getRowKey();
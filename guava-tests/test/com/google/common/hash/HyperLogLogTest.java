@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.NullPointerTester;
+import com.google.common.testing.SerializableTester;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link HyperLogLog}.
+ */
+public class HyperLogLogTest extends TestCase {
+
+  public void testCardinality_small() {
+    HyperLogLog<Integer> hll = HyperLogLog.create(Funnels.integerFunnel());
+    assertEquals(0, hll.cardinality());
+    for (int i = 0; i < 1000; i++) {
+      hll.put(i);
+      hll.put(i);
+    }
+    // the sparse encoding is exact in practice for small cardinalities
+    assertTrue(hll.isSparse());
+    assertEquals(1000, hll.cardinality());
+  }
+
+  public void testCardinality_large() {
+    for (int precision : new int[] {10, 14}) {
+      HyperLogLog<Integer> hll = HyperLogLog.create(Funnels.integerFunnel(), precision);
+      double error = 1.04 / Math.sqrt(1 << precision);
+      int next = 0;
+      for (int cardinality : new int[] {3000, 10000, 30000, 100000, 1000000}) {
+        for (; next < cardinality; next++) {
+          hll.put(next);
+        }
+        double relativeError = Math.abs(hll.cardinality() - cardinality) / (double) cardinality;
+        assertTrue(precision + ": " + cardinality + " estimated as " + hll.cardinality(),
+            relativeError < 3 * error);
+      }
+      assertFalse(hll.isSparse());
+    }
+  }
+
+  public void testCardinality_sparseAndDenseAgree() {
+    HyperLogLog<Integer> sparse = HyperLogLog.create(Funnels.integerFunnel(), 12);
+    HyperLogLog<Integer> dense = HyperLogLog.create(Funnels.integerFunnel(), 12);
+    for (int i = 0; i < 5000; i++) {
+      dense.put(-i);
+    }
+    assertFalse(dense.isSparse());
+    HyperLogLog<Integer> empty = dense.copy();
+    for (int i = 0; i < 500; i++) {
+      sparse.put(i);
+    }
+    assertTrue(sparse.isSparse());
+
+    // merging the sparse sketch into a dense one converts its entries to registers
+    dense.merge(sparse);
+    HyperLogLog<Integer> direct = empty;
+    for (int i = 0; i < 500; i++) {
+      direct.put(i);
+    }
+    assertEquals(direct, dense);
+  }
+
+  public void testMerge() {
+    HyperLogLog<Integer> a = HyperLogLog.create(Funnels.integerFunnel(), 12);
+    HyperLogLog<Integer> b = HyperLogLog.create(Funnels.integerFunnel(), 12);
+    HyperLogLog<Integer> union = HyperLogLog.create(Funnels.integerFunnel(), 12);
+    for (int i = 0; i < 100000; i++) {
+      (i % 3 == 0 ? a : b).put(i);
+      union.put(i);
+    }
+    a.merge(b);
+    assertEquals(union, a);
+  }
+
+  public void testMerge_sparse() {
+    HyperLogLog<Integer> a = HyperLogLog.create(Funnels.integerFunnel());
+    HyperLogLog<Integer> b = HyperLogLog.create(Funnels.integerFunnel());
+    for (int i = 0; i < 300; i++) {
+      a.put(i);
+      b.put(i + 200);
+    }
+    a.merge(b);
+    assertTrue(a.isSparse());
+    assertEquals(500, a.cardinality());
+    assertEquals(300, b.cardinality());
+  }
+
+  public void testMerge_incompatible() {
+    HyperLogLog<Integer> hll = HyperLogLog.create(Funnels.integerFunnel(), 12);
+    try {
+      hll.merge(hll);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      hll.merge(HyperLogLog.create(Funnels.integerFunnel(), 13));
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    assertTrue(hll.isCompatible(HyperLogLog.create(Funnels.integerFunnel(), 12)));
+    assertFalse(hll.isCompatible(HyperLogLog.create(Funnels.integerFunnel(), 13)));
+  }
+
+  public void testPreconditions() {
+    try {
+      HyperLogLog.create(Funnels.integerFunnel(), HyperLogLog.MIN_PRECISION - 1);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      HyperLogLog.create(Funnels.integerFunnel(), HyperLogLog.MAX_PRECISION + 1);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  public void testNullPointers() {
+    NullPointerTester tester = new NullPointerTester();
+    tester.testAllPublicInstanceMethods(HyperLogLog.create(Funnels.unencodedCharsFunnel()));
+    tester.testAllPublicStaticMethods(HyperLogLog.class);
+  }
+
+  public void testEquals() {
+    HyperLogLog<Integer> hll1 = HyperLogLog.create(Funnels.integerFunnel(), 10);
+    hll1.put(1);
+    HyperLogLog<Integer> hll2 = HyperLogLog.create(Funnels.integerFunnel(), 10);
+    hll2.put(1);
+    new EqualsTester()
+        .addEqualityGroup(hll1, hll2)
+        .addEqualityGroup(HyperLogLog.create(Funnels.integerFunnel(), 10))
+        .addEqualityGroup(HyperLogLog.create(Funnels.integerFunnel(), 12))
+        .addEqualityGroup(HyperLogLog.create(Funnels.unencodedCharsFunnel(), 10))
+        .testEquals();
+  }
+
+  public void testEquals_doesNotFlush() {
+    // with precision 4, flushing more than 4 buffered entries switches to the dense encoding
+    HyperLogLog<Integer> buffered = HyperLogLog.create(Funnels.integerFunnel(), 4);
+    for (int i = 0; i < 10; i++) {
+      buffered.put(i);
+    }
+    HyperLogLog<Integer> copy = buffered.copy();
+    assertFalse(copy.isSparse());
+    assertTrue(buffered.isSparse());
+    assertEquals(copy, buffered);
+    assertEquals(buffered, copy);
+    assertEquals(copy.hashCode(), buffered.hashCode());
+    assertTrue(buffered.isSparse());
+  }
+
+  public void testCopy() {
+    HyperLogLog<Integer> original = HyperLogLog.create(Funnels.integerFunnel(), 10);
+    original.put(1);
+    HyperLogLog<Integer> copy = original.copy();
+    assertNotSame(original, copy);
+    assertEquals(original, copy);
+    assertEquals(original.hashCode(), copy.hashCode());
+
+    copy.put(2);
+    assertFalse(original.equals(copy));
+    assertEquals(1, original.cardinality());
+  }
+
+  public void testJavaSerialization() {
+    HyperLogLog<Integer> sparse = HyperLogLog.create(Funnels.integerFunnel(), 10);
+    for (int i = 0; i < 100; i++) {
+      sparse.put(i);
+    }
+    SerializableTester.reserializeAndAssert(sparse);
+
+    HyperLogLog<Integer> dense = HyperLogLog.create(Funnels.integerFunnel(), 10);
+    for (int i = 0; i < 10000; i++) {
+      dense.put(i);
+    }
+    HyperLogLog<Integer> copy = SerializableTester.reserializeAndAssert(dense);
+    assertEquals(dense.cardinality(), copy.cardinality());
+  }
+
+  public void testCustomSerialization() throws IOException {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    HyperLogLog<byte[]> hll = HyperLogLog.create(funnel, 10);
+    for (int i = 0; i < 100; i++) {
+      hll.put(new byte[] {(byte) i});
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    hll.writeTo(out);
+    assertEquals(hll, HyperLogLog.readFrom(new ByteArrayInputStream(out.toByteArray()), funnel));
+    // sorted entries are delta encoded, in less than 4 bytes each
+    assertTrue(out.size() < 1 + 1 + 4 + 100 * 4);
+
+    for (int i = 0; i < 10000; i++) {
+      hll.put(new byte[] {(byte) i, (byte) (i >> 8)});
+    }
+    out.reset();
+    hll.writeTo(out);
+    assertEquals(hll, HyperLogLog.readFrom(new ByteArrayInputStream(out.toByteArray()), funnel));
+    // 1024 registers of 6 bits
+    assertEquals(1 + 1 + 768, out.size());
+  }
+
+  public void testCustomSerialization_stable() throws IOException {
+    HyperLogLog<Integer> hll = HyperLogLog.create(Funnels.integerFunnel(), 4);
+    for (int i = 0; i < 3; i++) {
+      hll.put(i);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    hll.writeTo(out);
+    HyperLogLog<Integer> copy = HyperLogLog.readFrom(
+        new ByteArrayInputStream(out.toByteArray()), Funnels.integerFunnel());
+    ByteArrayOutputStream copyOut = new ByteArrayOutputStream();
+    copy.writeTo(copyOut);
+    assertTrue(Arrays.equals(out.toByteArray(), copyOut.toByteArray()));
+  }
+
+  public void testReadFrom_truncated() throws IOException {
+    Funnel<Integer> funnel = Funnels.integerFunnel();
+    HyperLogLog<Integer> hll = HyperLogLog.create(funnel, 10);
+    for (int i = 0; i < 10000; i++) {
+      hll.put(i);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    hll.writeTo(out);
+    byte[] bytes = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+    try {
+      HyperLogLog.readFrom(new ByteArrayInputStream(bytes), funnel);
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testReadFrom_invalidPrecision() {
+    byte[] bytes = {1, 40};
+    try {
+      HyperLogLog.readFrom(new ByteArrayInputStream(bytes), Funnels.integerFunnel());
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+}
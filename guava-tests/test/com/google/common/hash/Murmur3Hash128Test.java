@@ -79,6 +79,17 @@ public class Murmur3Hash128Test extends TestCase {
     HashTestUtils.verifyHashFunction(hf, 128, 0x6384BA69);
   }
 
+  public void testHashLongs_seeded() {
+    long[] input = {0, 1, -1, Long.MIN_VALUE, 0x0123456789abcdefL};
+    long[] output = new long[input.length];
+    for (int seed : new int[] {1, -1, Integer.MIN_VALUE}) {
+      murmur3_128(seed).hashLongs(input, output);
+      for (int i = 0; i < input.length; i++) {
+        assertEquals(murmur3_128(seed).newHasher().putLong(input[i]).hash().asLong(), output[i]);
+      }
+    }
+  }
+
   public void testInvariants() {
     HashTestUtils.assertInvariants(murmur3_128());
   }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for {@link RollingHash}.
+ */
+public class RollingHashTest extends TestCase {
+  private static final ImmutableList<Integer> WINDOW_SIZES = ImmutableList.of(1, 7, 48, 64, 100);
+
+  public void testBuzhash_rollEqualsAppend() {
+    for (int windowSize : WINDOW_SIZES) {
+      if (windowSize <= 64) {
+        assertRollEqualsAppend(RollingHash.buzhash(windowSize), RollingHash.buzhash(windowSize));
+      }
+    }
+  }
+
+  public void testRabinKarp_rollEqualsAppend() {
+    for (int windowSize : WINDOW_SIZES) {
+      assertRollEqualsAppend(RollingHash.rabinKarp(windowSize), RollingHash.rabinKarp(windowSize));
+    }
+  }
+
+  public void testBuzhash_knownValues() {
+    RollingHash hash = RollingHash.buzhash(2);
+    long a = hash.append((byte) 'a');
+    long ab = hash.append((byte) 'b');
+    assertEquals(Long.rotateLeft(a, 1) ^ RollingHash.buzhash(1).append((byte) 'b'), ab);
+    // a window of one byte is the byte's value, whatever its position in the stream
+    RollingHash single = RollingHash.buzhash(1);
+    assertEquals(a, single.append((byte) 'a'));
+    assertEquals(a, single.roll((byte) 'a', (byte) 'a'));
+    assertEquals(0L, RollingHash.buzhash(3).hash());
+  }
+
+  public void testDistinctWindows() {
+    for (RollingHash hash : ImmutableList.of(RollingHash.buzhash(4), RollingHash.rabinKarp(4))) {
+      // every window of 2 distinct bytes hashes differently
+      Set<Long> hashes = new HashSet<Long>();
+      for (int i = 0; i < 256; i++) {
+        for (int j = 0; j < 256; j++) {
+          hash.reset();
+          hash.append((byte) 0);
+          hash.append((byte) 0);
+          hash.append((byte) i);
+          assertTrue(hashes.add(hash.append((byte) j)));
+        }
+      }
+    }
+  }
+
+  public void testReset() {
+    RollingHash hash = RollingHash.rabinKarp(3);
+    long expected = hash.append((byte) 1);
+    hash.append((byte) 2);
+    hash.reset();
+    assertEquals(0L, hash.hash());
+    assertEquals(expected, hash.append((byte) 1));
+  }
+
+  public void testWindowSize() {
+    assertEquals(48, RollingHash.buzhash(48).windowSize());
+    assertEquals(1, RollingHash.rabinKarp(1).windowSize());
+    try {
+      RollingHash.buzhash(0);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    assertEquals(64, RollingHash.buzhash(64).windowSize());
+    try {
+      // equal bytes 64 positions apart would cancel out
+      RollingHash.buzhash(65);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      RollingHash.rabinKarp(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  public void testToString() {
+    assertEquals("RollingHash.buzhash(48)", RollingHash.buzhash(48).toString());
+    assertEquals("RollingHash.rabinKarp(16)", RollingHash.rabinKarp(16).toString());
+  }
+
+  /**
+   * Rolls {@code rolling} over random bytes, checking that each hash equals the one of the same
+   * window appended to {@code fresh} after a reset.
+   */
+  private static void assertRollEqualsAppend(RollingHash rolling, RollingHash fresh) {
+    int windowSize = rolling.windowSize();
+    byte[] bytes = new byte[windowSize + 1000];
+    new Random(windowSize).nextBytes(bytes);
+    for (int i = 0; i < windowSize; i++) {
+      rolling.append(bytes[i]);
+    }
+    for (int i = windowSize; i <= bytes.length; i++) {
+      fresh.reset();
+      long expected = 0;
+      for (int j = i - windowSize; j < i; j++) {
+        expected = fresh.append(bytes[j]);
+      }
+      assertEquals(expected, rolling.hash());
+      if (i < bytes.length) {
+        assertEquals(rolling.roll(bytes[i - windowSize], bytes[i]), rolling.hash());
+      }
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.NullPointerTester;
+import com.google.common.testing.SerializableTester;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link ScalableBloomFilter}.
+ */
+public class ScalableBloomFilterTest extends TestCase {
+
+  public void testGrowth_keepsFpp() {
+    double fpp = 0.01;
+    ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 1000, fpp);
+    assertEquals(1, sbf.filterCount());
+
+    // 100 times more elements than the first filter was sized for
+    int numInsertions = 100000;
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      sbf.put(i);
+    }
+    for (int i = 0; i < numInsertions * 2; i += 2) {
+      assertTrue(sbf.mightContain(i));
+    }
+
+    // 1000 * (1 + 2 + ... + 64) >= 100000, give or take the elements rejected as duplicates
+    assertEquals(7, sbf.filterCount());
+    assertTrue(sbf.expectedFpp() < fpp);
+
+    int numFpp = 0;
+    for (int i = 1; i < numInsertions * 2; i += 2) {
+      if (sbf.mightContain(i)) {
+        numFpp++;
+      }
+    }
+    double actualFpp = (double) numFpp / numInsertions;
+    assertTrue("actual fpp: " + actualFpp, actualFpp < fpp);
+    assertEquals(sbf.expectedFpp(), actualFpp, 0.002);
+  }
+
+  public void testGrowth_parameters() {
+    ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.03, 4, 0.5);
+    for (int i = 0; i < 100 + 400 + 1600; i++) {
+      sbf.put(i);
+    }
+    assertTrue(sbf.filterCount() <= 4);
+    assertTrue(sbf.expectedFpp() < 0.03);
+  }
+
+  public void testGrowth_fastTightening() {
+    // without a lower bound, the filters would soon need more than 255 hash functions
+    ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 1, 0.5, 2, 1e-9);
+    for (int i = 0; i < 2000; i++) {
+      sbf.put(i);
+    }
+    for (int i = 0; i < 2000; i++) {
+      assertTrue(sbf.mightContain(i));
+    }
+    assertTrue(sbf.filterCount() > 10);
+  }
+
+  public void testPutReturnValue() {
+    ScalableBloomFilter<String> sbf =
+        ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 10, 0.03);
+    for (int i = 0; i < 100; i++) {
+      String object = Integer.toString(i);
+      boolean mightContain = sbf.mightContain(object);
+      assertEquals(!mightContain, sbf.put(object));
+      assertFalse(sbf.put(object));
+    }
+  }
+
+  public void testPreconditions() {
+    try {
+      ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 0, 0.03);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 1, 0.0);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 1, 1.0);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 1, 0.03, 0, 0.5);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 1, 0.03, 1, 0.5);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 1, 0.03, 256, 0.5);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 1, 0.03, 2, 1.0);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  public void testNullPointers() {
+    NullPointerTester tester = new NullPointerTester();
+    tester.testAllPublicInstanceMethods(
+        ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 100, 0.03));
+    tester.testAllPublicStaticMethods(ScalableBloomFilter.class);
+  }
+
+  public void testEquals() {
+    ScalableBloomFilter<Integer> sbf1 =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.03);
+    sbf1.put(1);
+    ScalableBloomFilter<Integer> sbf2 =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.03);
+    sbf2.put(1);
+    new EqualsTester()
+        .addEqualityGroup(sbf1, sbf2)
+        .addEqualityGroup(ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.03))
+        .addEqualityGroup(ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.001))
+        .addEqualityGroup(ScalableBloomFilter.create(Funnels.integerFunnel(), 10000, 0.03))
+        .addEqualityGroup(ScalableBloomFilter.create(Funnels.integerFunnel(), 100, 0.03, 4, 0.5))
+        .addEqualityGroup(ScalableBloomFilter.create(Funnels.unencodedCharsFunnel(), 100, 0.03))
+        .testEquals();
+  }
+
+  public void testCopy() {
+    ScalableBloomFilter<Integer> original =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 10, 0.03);
+    for (int i = 0; i < 100; i++) {
+      original.put(i);
+    }
+    ScalableBloomFilter<Integer> copy = original.copy();
+    assertNotSame(original, copy);
+    assertEquals(original, copy);
+
+    copy.put(1000);
+    assertFalse(original.equals(copy));
+  }
+
+  public void testJavaSerialization() {
+    ScalableBloomFilter<Integer> sbf =
+        ScalableBloomFilter.create(Funnels.integerFunnel(), 10, 0.03);
+    for (int i = 0; i < 100; i++) {
+      sbf.put(i);
+    }
+    ScalableBloomFilter<Integer> copy = SerializableTester.reserializeAndAssert(sbf);
+    assertEquals(sbf.filterCount(), copy.filterCount());
+    assertEquals(sbf.expectedFpp(), copy.expectedFpp());
+
+    // the copy goes on growing from where the original was
+    for (int i = 100; i < 1000; i++) {
+      assertEquals(sbf.put(i), copy.put(i));
+    }
+    assertEquals(sbf, copy);
+  }
+
+  public void testCustomSerialization() throws IOException {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    ScalableBloomFilter<byte[]> sbf = ScalableBloomFilter.create(funnel, 10, 0.03);
+    for (int i = 0; i < 100; i++) {
+      sbf.put(new byte[] {(byte) i});
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sbf.writeTo(out);
+    ScalableBloomFilter<byte[]> copy =
+        ScalableBloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()), funnel);
+    assertEquals(sbf, copy);
+
+    // the chain is written as compactly as its filters
+    int filterBytes = 0;
+    for (int i = 0; i < sbf.filterCount(); i++) {
+      ByteArrayOutputStream filterOut = new ByteArrayOutputStream();
+      BloomFilter.create(funnel, 10 << i, 0.03 * 0.2 * Math.pow(0.8, i)).writeTo(filterOut);
+      filterBytes += filterOut.size();
+    }
+    assertEquals(filterBytes + 8 + 1 + 8 + 4 + 8 + 4, out.size());
+  }
+
+  public void testReadFrom_truncated() throws IOException {
+    Funnel<byte[]> funnel = Funnels.byteArrayFunnel();
+    ScalableBloomFilter<byte[]> sbf = ScalableBloomFilter.create(funnel, 10, 0.03);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sbf.writeTo(out);
+    byte[] bytes = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+    try {
+      ScalableBloomFilter.readFrom(new ByteArrayInputStream(bytes), funnel);
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.testing.NullPointerTester;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link ShardRouter}.
+ */
+public class ShardRouterTest extends TestCase {
+  private static final int KEY_COUNT = 100000;
+  private static final Funnel<Integer> KEY_FUNNEL = Funnels.integerFunnel();
+  private static final Funnel<CharSequence> NODE_FUNNEL = Funnels.stringFunnel(Charsets.UTF_8);
+  private static final List<String> NODES = ImmutableList.of("a", "b", "c", "d", "e");
+
+  public void testRendezvous_balanced() {
+    assertBalanced(ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, NODES), 0.05);
+  }
+
+  public void testMaglev_balanced() {
+    assertBalanced(ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, NODES), 0.05);
+  }
+
+  public void testRendezvous_weighted() {
+    assertWeighted(ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL,
+        ImmutableMap.of("a", 1.0, "b", 2.0, "c", 3.0, "d", 0.5)));
+  }
+
+  public void testMaglev_weighted() {
+    assertWeighted(ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL,
+        ImmutableMap.of("a", 1.0, "b", 2.0, "c", 3.0, "d", 0.5)));
+  }
+
+  public void testRendezvous_removeNode() {
+    ShardRouter<Integer, String> router = ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, NODES);
+    ShardRouter<Integer, String> removed = ShardRouter.rendezvous(
+        KEY_FUNNEL, NODE_FUNNEL, ImmutableList.of("a", "b", "d", "e"));
+    // only the keys routed to the removed node move
+    assertEquals(0.0, remappedFraction(router, removed, "c"));
+  }
+
+  public void testMaglev_removeNode() {
+    ShardRouter<Integer, String> router = ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, NODES);
+    ShardRouter<Integer, String> removed = ShardRouter.maglev(
+        KEY_FUNNEL, NODE_FUNNEL, ImmutableList.of("a", "b", "d", "e"));
+    assertTrue(remappedFraction(router, removed, "c") < 0.05);
+  }
+
+  public void testRendezvous_addNode() {
+    ShardRouter<Integer, String> router = ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, NODES);
+    ShardRouter<Integer, String> added = ShardRouter.rendezvous(
+        KEY_FUNNEL, NODE_FUNNEL, ImmutableList.of("a", "b", "f", "c", "d", "e"));
+    for (int key = 0; key < KEY_COUNT; key++) {
+      String node = added.route(key);
+      assertTrue(node.equals("f") || node.equals(router.route(key)));
+    }
+  }
+
+  public void testRoute_independentOfNodeOrder() {
+    List<String> reversed = ImmutableList.copyOf(NODES).reverse();
+    assertSameRoutes(ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, NODES),
+        ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, reversed));
+    assertSameRoutes(ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, NODES),
+        ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, reversed));
+    ImmutableMap<String, Double> weights =
+        ImmutableMap.of("a", 1.0, "b", 2.0, "c", 3.0, "d", 0.5);
+    ImmutableMap<String, Double> reorderedWeights =
+        ImmutableMap.of("c", 3.0, "a", 1.0, "d", 0.5, "b", 2.0);
+    assertSameRoutes(ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, weights),
+        ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, reorderedWeights));
+    assertSameRoutes(ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, weights),
+        ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, reorderedWeights));
+  }
+
+  public void testNodeWeights() {
+    ImmutableMap<String, Double> weights = ImmutableMap.of("b", 2.0, "a", 1.0);
+    assertEquals(weights, ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, weights).nodeWeights());
+    assertEquals(ImmutableMap.of("a", 1.0, "b", 1.0), ShardRouter.rendezvous(
+        KEY_FUNNEL, NODE_FUNNEL, ImmutableList.of("a", "b")).nodeWeights());
+  }
+
+  public void testSingleNode() {
+    ShardRouter<Integer, String> router =
+        ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, ImmutableList.of("a"));
+    for (int key = 0; key < 1000; key++) {
+      assertEquals("a", router.route(key));
+    }
+  }
+
+  public void testMaglevTableSize() {
+    assertEquals(65537, ShardRouter.maglevTableSize(1));
+    assertEquals(65537, ShardRouter.maglevTableSize(655));
+    assertEquals(655373, ShardRouter.maglevTableSize(656));
+    assertEquals(6553621, ShardRouter.maglevTableSize(65536));
+    try {
+      ShardRouter.maglevTableSize(65537);
+      fail();
+    } catch (IllegalArgumentException expected) {}
+  }
+
+  public void testPreconditions() {
+    try {
+      ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, ImmutableList.<String>of());
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    try {
+      ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, Arrays.asList("a", "a"));
+      fail();
+    } catch (IllegalArgumentException expected) {}
+    for (double weight : new double[] {0, -1, Double.NaN, Double.POSITIVE_INFINITY}) {
+      try {
+        ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, ImmutableMap.of("a", weight));
+        fail();
+      } catch (IllegalArgumentException expected) {}
+    }
+  }
+
+  public void testNullPointers() {
+    NullPointerTester tester = new NullPointerTester();
+    tester.testAllPublicInstanceMethods(ShardRouter.rendezvous(KEY_FUNNEL, NODE_FUNNEL, NODES));
+    tester.testAllPublicInstanceMethods(ShardRouter.maglev(KEY_FUNNEL, NODE_FUNNEL, NODES));
+    tester.testAllPublicStaticMethods(ShardRouter.class);
+  }
+
+  private static void assertBalanced(ShardRouter<Integer, String> router, double tolerance) {
+    Multiset<String> counts = route(router);
+    double expected = (double) KEY_COUNT / NODES.size();
+    for (String node : NODES) {
+      assertEquals(node, expected, counts.count(node), expected * tolerance);
+    }
+  }
+
+  private static void assertWeighted(ShardRouter<Integer, String> router) {
+    Multiset<String> counts = route(router);
+    double totalWeight = 0;
+    for (double weight : router.nodeWeights().values()) {
+      totalWeight += weight;
+    }
+    for (String node : router.nodeWeights().keySet()) {
+      double expected = KEY_COUNT * router.nodeWeights().get(node) / totalWeight;
+      assertEquals(node, expected, counts.count(node), expected * 0.05);
+    }
+  }
+
+  private static void assertSameRoutes(
+      ShardRouter<Integer, String> expected, ShardRouter<Integer, String> actual) {
+    for (int key = 0; key < KEY_COUNT; key++) {
+      assertEquals(expected.route(key), actual.route(key));
+    }
+  }
+
+  private static Multiset<String> route(ShardRouter<Integer, String> router) {
+    ImmutableMultiset.Builder<String> counts = ImmutableMultiset.builder();
+    for (int key = 0; key < KEY_COUNT; key++) {
+      counts.add(router.route(key));
+    }
+    return counts.build();
+  }
+
+  /**
+   * Returns the fraction of the keys not routed to {@code removedNode} by {@code before} that
+   * {@code after} routes to a different node.
+   */
+  private static double remappedFraction(ShardRouter<Integer, String> before,
+      ShardRouter<Integer, String> after, String removedNode) {
+    int kept = 0;
+    int remapped = 0;
+    for (int key = 0; key < KEY_COUNT; key++) {
+      String node = before.route(key);
+      if (!node.equals(removedNode)) {
+        kept++;
+        remapped += node.equals(after.route(key)) ? 0 : 1;
+      }
+    }
+    return (double) remapped / kept;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.hash;
+
+import com.google.common.testing.EqualsTester;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link XxHash64HashFunction}.
+ */
+public class XxHash64HashFunctionTest extends TestCase {
+
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+
+  private static final int[] LENGTHS =
+      {0, 1, 3, 4, 7, 8, 12, 15, 16, 31, 32, 33, 63, 64, 100, 255};
+
+  // Computed with XXH64 from the reference implementation, for inputs of the above lengths made
+  // of the bytes 0, 1, 2, ..., using a seed of 0.
+  private static final long[] EXPECTED = {
+      0xef46db3751d8e999L,
+      0xe934a84adb052768L,
+      0xe5c7bb4533bc65ddL,
+      0xffced8604453cc1eL,
+      0x14cc643f630c72d2L,
+      0x884a173614b81b8dL,
+      0x424af23f1f08dca5L,
+      0xa948f5f0f6abac2dL,
+      0x44b6ef2fb84169f7L,
+      0xc346d2b59b4d8ee1L,
+      0xcbf59c5116ff32b4L,
+      0x0c535d1acafb8eadL,
+      0xe26aa9e2a95f8e4fL,
+      0xf7c67301db6713f0L,
+      0x6ac1e58032166597L,
+      0x0f7d97507caad693L
+  };
+
+  // As above, using a seed of SEED.
+  private static final long[] EXPECTED_SEEDED = {
+      0xc4349fc93c010000L,
+      0x126bb57a12364aa5L,
+      0x67bc6ed5f6c6e4baL,
+      0xd89842cd31e24e54L,
+      0xececf5faa8a7490eL,
+      0xd18b6d7a5a668732L,
+      0x132649ea1128bfa2L,
+      0x7804c1fcfe249577L,
+      0x1a1a343e4550d065L,
+      0xf3da6d05709c035dL,
+      0xa1c89217e9d50750L,
+      0xe6a3c00cd6e74075L,
+      0x26a0acd772de057eL,
+      0x2589245e62a1969bL,
+      0x3b97d91eba03e785L,
+      0x5352384c05c2f45eL
+  };
+
+  public void testVectors() {
+    for (int i = 0; i < LENGTHS.length; i++) {
+      byte[] input = new byte[LENGTHS[i]];
+      for (int j = 0; j < input.length; j++) {
+        input[j] = (byte) j;
+      }
+      assertHash(EXPECTED[i], Hashing.xxHash64(), input);
+      assertHash(EXPECTED_SEEDED[i], Hashing.xxHash64(SEED), input);
+    }
+  }
+
+  private static void assertHash(long expected, HashFunction function, byte[] input) {
+    assertEquals(expected, function.hashBytes(input).asLong());
+    assertEquals(expected, function.newHasher().putBytes(input).hash().asLong());
+    Hasher hasher = function.newHasher();
+    for (byte b : input) {
+      hasher.putByte(b);
+    }
+    assertEquals(expected, hasher.hash().asLong());
+  }
+
+  public void testEquals() {
+    new EqualsTester()
+        .addEqualityGroup(Hashing.xxHash64(), Hashing.xxHash64(0))
+        .addEqualityGroup(Hashing.xxHash64(SEED), Hashing.xxHash64(SEED))
+        .addEqualityGroup(Hashing.murmur3_128())
+        .testEquals();
+  }
+}
@@ -18,6 +18,7 @@ import static com.google.common.io.BaseEncoding.base16;
 import static com.google.common.io.BaseEncoding.base32;
 import static com.google.common.io.BaseEncoding.base32Hex;
 import static com.google.common.io.BaseEncoding.base64;
+import static com.google.common.io.GwtWorkarounds.stringBuilderOutput;
 
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.annotations.GwtIncompatible;
@@ -26,15 +27,22 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.BaseEncoding.DecodingException;
+import com.google.common.io.GwtWorkarounds.ByteOutput;
+import com.google.common.io.GwtWorkarounds.CharOutput;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.util.Random;
 
 /**
  * Tests for {@code BaseEncoding}.
@@ -340,6 +348,14 @@ public class BaseEncodingTest extends TestCase {
       throw new AssertionError();
     }
     assertEquals(encoded, encoding.encode(bytes));
+
+    StringBuilder builder = new StringBuilder("prefix");
+    try {
+      encoding.encodeTo(bytes, builder);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    assertEquals("prefix" + encoded, builder.toString());
   }
 
   private static void testDecodes(BaseEncoding encoding, String encoded, String decoded) {
@@ -351,6 +367,14 @@ public class BaseEncodingTest extends TestCase {
       throw new AssertionError();
     }
     assertEquals(bytes, encoding.decode(encoded));
+
+    byte[] target = new byte[bytes.length + 2];
+    assertEquals(bytes.length, encoding.decodeTo(encoded, target, 1));
+    assertEquals(0, target[0]);
+    for (int i = 0; i < bytes.length; i++) {
+      assertEquals(bytes[i], target[i + 1]);
+    }
+    assertEquals(0, target[bytes.length + 1]);
   }
 
   private static void assertFailsToDecode(BaseEncoding encoding, String cannotDecode) {
@@ -366,6 +390,12 @@ public class BaseEncodingTest extends TestCase {
     } catch (DecodingException expected) {
       // success
     }
+    try {
+      encoding.decodeTo(cannotDecode, new byte[cannotDecode.length()], 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // success
+    }
   }
 
   @GwtIncompatible("Reader/Writer")
@@ -432,6 +462,268 @@ public class BaseEncodingTest extends TestCase {
     decodingStream.close();
   }
 
+  public void testEncodeToRange() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    base64().encodeTo(new byte[] {0, 'f', 'o', 'o', 'b', 0}, 1, 4, builder);
+    assertEquals("Zm9vYg==", builder.toString());
+    try {
+      base64().encodeTo(new byte[3], 1, 3, builder);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException expected) {
+      // success
+    }
+  }
+
+  @GwtIncompatible("Writer")
+  public void testEncodeToSeparatedTargets() throws IOException {
+    // large enough to be encoded in several batches
+    byte[] bytes = new byte[20000];
+    new Random(0).nextBytes(bytes);
+    for (String separator : ImmutableList.of("\r\n", "-", "")) {
+      for (int afterEveryChars : new int[] {1, 3, 76}) {
+        String encoded = Joiner.on(separator)
+            .join(Splitter.fixedLength(afterEveryChars).split(base64().encode(bytes)));
+        BaseEncoding encoding = base64().withSeparator(separator, afterEveryChars);
+        assertEquals(encoded, encoding.encode(bytes));
+        StringWriter writer = new StringWriter();
+        encoding.encodeTo(bytes, writer);
+        assertEquals(encoded, writer.toString());
+        StringBuffer buffer = new StringBuffer("prefix");
+        encoding.encodeTo(bytes, buffer);
+        assertEquals("prefix" + encoded, buffer.toString());
+      }
+    }
+  }
+
+  public void testDecodeToTargetTooSmall() {
+    try {
+      base64().decodeTo("Zm9vYg==", new byte[4], 1);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException expected) {
+      // success
+    }
+    try {
+      base64().decodeTo("", new byte[4], 5);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException expected) {
+      // success
+    }
+    assertEquals(4, base64().decodeTo("Zm9vYg==", new byte[5], 1));
+  }
+
+  public void testDecodeToInvalidInputBeforeTargetTooSmall() {
+    try {
+      base64().decodeTo("Zm9v!g==", new byte[2], 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      assertTrue(expected.getCause() instanceof DecodingException);
+    }
+    try {
+      base64().decodeTo("Zm9vY", new byte[0], 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      assertTrue(expected.getCause() instanceof DecodingException);
+    }
+  }
+
+  @GwtIncompatible("decodeStreamingTo")
+  public void testBlocksMatchStreams() throws IOException {
+    ImmutableList<BaseEncoding> encodings = ImmutableList.of(
+        base64(), base64().omitPadding(), BaseEncoding.base64Url(), base32(),
+        base32Hex().lowerCase(), base32().omitPadding(), base16(), base16().lowerCase(),
+        base64().withSeparator("\r\n", 7), base32().withSeparator("-", 3),
+        new BaseEncoding.StandardBaseEncoding("base8()", "01234567", '='),
+        new BaseEncoding.StandardBaseEncoding("base2()", "01", null));
+    Random random = new Random(0);
+    for (BaseEncoding encoding : encodings) {
+      for (int length = 0; length < 50; length++) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        CharOutput output = stringBuilderOutput(encoding.maxEncodedSize(length));
+        ByteOutput encodingStream = encoding.encodingStream(output);
+        for (byte b : bytes) {
+          encodingStream.write(b);
+        }
+        encodingStream.close();
+        String encoded = output.toString();
+        assertEquals(encoded, encoding.encode(bytes));
+        assertEquals(bytes, encoding.decode(encoded));
+        byte[] streamed = new byte[length];
+        assertEquals(length, encoding.decodeStreamingTo(
+            streamed, 0, encoding.padding().trimTrailingFrom(encoded)));
+        assertEquals(bytes, streamed);
+
+        if (length > 0) {
+          int position = random.nextInt(encoded.length());
+          for (char invalid : new char[] {'!', '\u00e9', '\u0100'}) {
+            assertFailsToDecode(encoding,
+                encoded.substring(0, position) + invalid + encoded.substring(position + 1));
+          }
+        }
+      }
+    }
+  }
+
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public void testEncoderMatchesEncode() {
+    Random random = new Random(0);
+    for (BaseEncoding encoding : CODER_ENCODINGS) {
+      BaseEncoding.Encoder encoder = encoding.newEncoder();
+      for (int length = 0; length < 100; length += 1 + length / 4) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        String encoded = encoding.encode(bytes);
+        assertEquals(encoded, encodeWithEncoder(encoder.reset(), bytes, random, false));
+        assertEquals(encoded, encodeWithEncoder(encoder.reset(), bytes, random, true));
+      }
+    }
+  }
+
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public void testEncoderLargeInput() {
+    byte[] bytes = new byte[100000];
+    new Random(0).nextBytes(bytes);
+    BaseEncoding encoding = base64().withSeparator("\r\n", 76);
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+    CharBuffer out = CharBuffer.allocate(200000);
+    BaseEncoding.Encoder encoder = encoding.newEncoder();
+    assertEquals(CoderResult.UNDERFLOW, encoder.encode(in, out, true));
+    out.flip();
+    assertEquals(encoding.encode(bytes), out.toString());
+  }
+
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public void testDecoderMatchesDecode() throws DecodingException {
+    Random random = new Random(0);
+    for (BaseEncoding encoding : CODER_ENCODINGS) {
+      BaseEncoding.Decoder decoder = encoding.newDecoder();
+      for (int length = 0; length < 100; length += 1 + length / 4) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        String encoded = encoding.encode(bytes);
+        assertEquals(bytes, decodeWithDecoder(decoder.reset(), encoded, random, false));
+        assertEquals(bytes, decodeWithDecoder(decoder.reset(), encoded, random, true));
+      }
+    }
+  }
+
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public void testDecoderLargeInput() throws DecodingException {
+    byte[] bytes = new byte[100000];
+    new Random(0).nextBytes(bytes);
+    BaseEncoding encoding = base32().withSeparator("\n", 64);
+    CharBuffer in = CharBuffer.wrap(encoding.encode(bytes));
+    ByteBuffer out = ByteBuffer.allocate(100000);
+    BaseEncoding.Decoder decoder = encoding.newDecoder();
+    assertEquals(CoderResult.UNDERFLOW, decoder.decode(in, out, true));
+    assertEquals(bytes, out.array());
+  }
+
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public void testDecoderLenientPaddingAndSeparators() throws DecodingException {
+    Random random = new Random(0);
+    BaseEncoding.Decoder decoder = base64().withSeparator("\n", 3).newDecoder();
+    for (String encoded : ImmutableList.of("Zg", "Zg=", "Zg==", "Zg===", "Z\ng=\n=\n")) {
+      assertEquals(new byte[] {'f'}, decodeWithDecoder(decoder.reset(), encoded, random, false));
+    }
+  }
+
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public void testDecoderInvalidInput() throws IOException {
+    Random random = new Random(0);
+    for (String invalid : ImmutableList.of("\u007f", "Wf2!", "12345", "=", "Zg=a",
+        "Zm9vY\u00e9==", "Zm9vYmFy\u0100", "!", "Zm9!Yg", "Zm9vYmF!y")) {
+      String streamMessage = null;
+      InputStream decodingStream = base64().decodingStream(new StringReader(invalid));
+      try {
+        while (decodingStream.read() != -1) {}
+        fail("Expected DecodingException for " + invalid);
+      } catch (DecodingException expected) {
+        streamMessage = expected.getMessage();
+      }
+      try {
+        decodeWithDecoder(base64().newDecoder(), invalid, random, false);
+        fail("Expected DecodingException for " + invalid);
+      } catch (DecodingException expected) {
+        assertEquals(streamMessage, expected.getMessage());
+      }
+    }
+  }
+
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  private static final ImmutableList<BaseEncoding> CODER_ENCODINGS = ImmutableList.of(
+      base64(), base64().omitPadding(), base64().withSeparator("\r\n", 5), base32(),
+      base32().omitPadding().withSeparator("-", 3), base32Hex().lowerCase(), base16(),
+      base16().withSeparator(":", 2));
+
+  /**
+   * Encodes {@code bytes} with {@code encoder}, passing the input and receiving the output in
+   * small buffers of random sizes.
+   */
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  private static String encodeWithEncoder(
+      BaseEncoding.Encoder encoder, byte[] bytes, Random random, boolean asciiOutput) {
+    StringBuilder result = new StringBuilder();
+    for (int off = 0; ; ) {
+      int len = Math.min(random.nextInt(10), bytes.length - off);
+      ByteBuffer in = ByteBuffer.wrap(bytes, off, len);
+      off += len;
+      boolean endOfInput = off == bytes.length;
+      CoderResult coderResult;
+      do {
+        int outSize = 1 + random.nextInt(10);
+        if (asciiOutput) {
+          ByteBuffer out = ByteBuffer.allocate(outSize);
+          coderResult = encoder.encode(in, out, endOfInput);
+          for (int i = 0; i < out.position(); i++) {
+            result.append((char) out.get(i));
+          }
+        } else {
+          CharBuffer out = CharBuffer.allocate(outSize);
+          coderResult = encoder.encode(in, out, endOfInput);
+          out.flip();
+          result.append(out);
+        }
+      } while (coderResult.isOverflow());
+      assertFalse(in.hasRemaining());
+      if (endOfInput) {
+        return result.toString();
+      }
+    }
+  }
+
+  /**
+   * Decodes {@code chars} with {@code decoder}, passing the input and receiving the output in
+   * small buffers of random sizes.
+   */
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  private static byte[] decodeWithDecoder(BaseEncoding.Decoder decoder, String chars,
+      Random random, boolean asciiInput) throws DecodingException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    for (int off = 0; ; ) {
+      int len = Math.min(random.nextInt(10), chars.length() - off);
+      CharBuffer charIn = CharBuffer.wrap(chars, off, off + len);
+      ByteBuffer asciiIn = ByteBuffer.allocate(len);
+      for (int i = 0; i < len; i++) {
+        asciiIn.put(i, (byte) chars.charAt(off + i));
+      }
+      off += len;
+      boolean endOfInput = off == chars.length();
+      CoderResult coderResult;
+      do {
+        ByteBuffer out = ByteBuffer.allocate(1 + random.nextInt(10));
+        coderResult = asciiInput
+            ? decoder.decode(asciiIn, out, endOfInput)
+            : decoder.decode(charIn, out, endOfInput);
+        result.write(out.array(), 0, out.position());
+      } while (coderResult.isOverflow());
+      assertFalse(asciiInput ? asciiIn.hasRemaining() : charIn.hasRemaining());
+      if (endOfInput) {
+        return result.toByteArray();
+      }
+    }
+  }
+
   public void testToString() {
     assertEquals("BaseEncoding.base64().withPadChar(=)", BaseEncoding.base64().toString());
     assertEquals("BaseEncoding.base32Hex().omitPadding()",
@@ -29,17 +29,23 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.testing.TestLogHandler;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import junit.framework.TestSuite;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Tests for the default implementations of {@code ByteSource} methods.
@@ -170,6 +176,97 @@ public class ByteSourceTest extends IoTestCase {
     assertEquals("cfa0c5002275c90508338a5cdb2a9781", byteSource.hash(Hashing.md5()).toString());
   }
 
+  public void testChunkedHash_threadPool() throws IOException {
+    HashCode expected = source.chunkedHash(Hashing.md5(), 1000, MoreExecutors.directExecutor());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertEquals(expected, source.chunkedHash(Hashing.md5(), 1000, executor));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testChunkedHash_sizeUnderReported() throws IOException {
+    HashCode expected = ByteSource.wrap(bytes).chunkedHash(
+        Hashing.md5(), 1000, MoreExecutors.directExecutor());
+    for (final long size : new long[] {0, 1, 999, 1000, 5500, 9000}) {
+      ByteSource underReported = new ByteSource() {
+        @Override
+        public InputStream openStream() {
+          return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public long size() {
+          return size;
+        }
+      };
+      assertEquals(expected,
+          underReported.chunkedHash(Hashing.md5(), 1000, MoreExecutors.directExecutor()));
+    }
+  }
+
+  public void testChunkedHash_sizeOverReported() throws IOException {
+    for (int length : new int[] {0, 1, 999, 1000, 2500, 5000}) {
+      final byte[] content = Arrays.copyOf(bytes, length);
+      HashCode expected = ByteSource.wrap(content).chunkedHash(
+          Hashing.md5(), 1000, MoreExecutors.directExecutor());
+      for (final long size : new long[] {length + 1, length + 1000, 2 * length + 2000}) {
+        ByteSource overReported = new ByteSource() {
+          @Override
+          public InputStream openStream() {
+            return new ByteArrayInputStream(content);
+          }
+
+          @Override
+          public long size() {
+            return size;
+          }
+        };
+        assertEquals(expected,
+            overReported.chunkedHash(Hashing.md5(), 1000, MoreExecutors.directExecutor()));
+      }
+    }
+  }
+
+  public void testChunkedHash_shortChunk() throws IOException {
+    HashCode expected = ByteSource.wrap(bytes).chunkedHash(
+        Hashing.md5(), 1000, MoreExecutors.directExecutor());
+    // the second chunk is short the first time it is read, but the third one isn't
+    ByteSource truncatedOnce = new ByteSource() {
+      int opened;
+
+      @Override
+      public InputStream openStream() {
+        return new ByteArrayInputStream(bytes, 0, (++opened == 2) ? 1500 : bytes.length);
+      }
+
+      @Override
+      public long size() {
+        return bytes.length;
+      }
+    };
+    assertEquals(expected,
+        truncatedOnce.chunkedHash(Hashing.md5(), 1000, MoreExecutors.directExecutor()));
+  }
+
+  public void testChunkedHash_readThrows() {
+    TestByteSource failSource = new TestByteSource(bytes, READ_THROWS);
+    try {
+      failSource.chunkedHash(Hashing.md5(), 1000, MoreExecutors.directExecutor());
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  public void testChunkedHash_illegalChunkSize() throws IOException {
+    try {
+      source.chunkedHash(Hashing.md5(), 0, MoreExecutors.directExecutor());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   public void testContentEquals() throws IOException {
     assertTrue(source.contentEquals(source));
     assertTrue(source.wasStreamOpened() && source.wasStreamClosed());
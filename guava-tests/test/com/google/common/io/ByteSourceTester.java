@@ -24,6 +24,7 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import junit.framework.TestSuite;
 
@@ -33,6 +34,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -190,6 +193,21 @@ public class ByteSourceTester extends SourceSinkTester<ByteSource, byte[], ByteS
     assertEquals(expectedHash, source.hash(Hashing.md5()));
   }
 
+  public void testChunkedHash() throws IOException {
+    for (int chunkSize : new int[] {7, 1000, Integer.MAX_VALUE}) {
+      List<HashCode> chunkHashes = new ArrayList<HashCode>();
+      int offset = 0;
+      do {
+        int length = Math.min(chunkSize, expected.length - offset);
+        chunkHashes.add(Hashing.md5().hashBytes(expected, offset, length));
+        offset += length;
+      } while (offset < expected.length);
+      HashCode expectedHash = Hashing.combineOrdered(chunkHashes);
+      assertEquals(expectedHash,
+          source.chunkedHash(Hashing.md5(), chunkSize, MoreExecutors.directExecutor()));
+    }
+  }
+
   public void testSlice_illegalArguments() {
     try {
       source.slice(-1, 0);
@@ -21,11 +21,15 @@ import com.google.common.base.Charsets;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
@@ -48,6 +52,64 @@ public class ByteStreamsTest extends IoTestCase {
     assertEquals(expected, out.toByteArray());
   }
 
+  public void testCopyFileChannel() throws IOException {
+    byte[] expected = newPreFilledByteArray(100000);
+    File file = createTempFile();
+    Files.write(expected, file);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FileInputStream in = new FileInputStream(file);
+    try {
+      // the copy starts at the channel's position, and moves it to the end
+      FileChannel inChannel = in.getChannel();
+      inChannel.position(10);
+      assertEquals(expected.length - 10, ByteStreams.copy(inChannel, Channels.newChannel(out)));
+      assertEquals(expected.length, inChannel.position());
+      assertEquals(-1, in.read());
+    } finally {
+      in.close();
+    }
+    assertEquals(Arrays.copyOfRange(expected, 10, expected.length), out.toByteArray());
+  }
+
+  public void testCopyFileStreams() throws IOException {
+    byte[] expected = newPreFilledByteArray(100000);
+    File from = createTempFile();
+    File to = createTempFile();
+    Files.write(expected, from);
+    FileInputStream in = new FileInputStream(from);
+    FileOutputStream out = new FileOutputStream(to);
+    try {
+      assertEquals(0, in.read());
+      out.write(42);
+      assertEquals(expected.length - 1, ByteStreams.copy(in, out));
+      assertEquals(-1, in.read());
+      out.write(43);
+    } finally {
+      in.close();
+      out.close();
+    }
+    byte[] copied = Files.toByteArray(to);
+    assertEquals(expected.length + 1, copied.length);
+    assertEquals(42, copied[0]);
+    assertEquals(Arrays.copyOfRange(expected, 1, expected.length),
+        Arrays.copyOfRange(copied, 1, expected.length));
+    assertEquals(43, copied[expected.length]);
+  }
+
+  public void testCopyFileStreams_emptyFile() throws IOException {
+    File from = createTempFile();
+    File to = createTempFile();
+    FileInputStream in = new FileInputStream(from);
+    FileOutputStream out = new FileOutputStream(to);
+    try {
+      assertEquals(0, ByteStreams.copy(in, out));
+    } finally {
+      in.close();
+      out.close();
+    }
+    assertEquals(0, to.length());
+  }
+
   public void testReadFully() throws IOException {
     byte[] b = new byte[10];
 
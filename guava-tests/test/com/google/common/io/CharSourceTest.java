@@ -21,6 +21,7 @@ import static com.google.common.io.TestOption.OPEN_THROWS;
 import static com.google.common.io.TestOption.READ_THROWS;
 import static com.google.common.io.TestOption.WRITE_THROWS;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -160,6 +161,50 @@ public class CharSourceTest extends IoTestCase {
     assertTrue(lines.wasStreamOpened() && lines.wasStreamClosed());
   }
 
+  public void testSplit_withProcessor() throws IOException {
+    TestCharSource fields = new TestCharSource("foo;bar;;baz");
+    assertEquals(ImmutableList.of("foo", "bar", "", "baz"),
+        fields.split(Splitter.on(';'), new FieldCollector(Integer.MAX_VALUE)));
+    assertTrue(fields.wasStreamOpened() && fields.wasStreamClosed());
+  }
+
+  public void testSplit_withProcessor_stopsOnFalse() throws IOException {
+    TestCharSource fields = new TestCharSource("foo;bar;;baz");
+    assertEquals(ImmutableList.of("foo"),
+        fields.split(Splitter.on(';'), new FieldCollector(1)));
+    assertTrue(fields.wasStreamOpened() && fields.wasStreamClosed());
+  }
+
+  public void testClosesOnErrors_whenSplitReadThrows() {
+    TestCharSource failSource = new TestCharSource(STRING, READ_THROWS);
+    try {
+      failSource.split(Splitter.on(' '), new FieldCollector(Integer.MAX_VALUE));
+      fail();
+    } catch (IOException expected) {
+    }
+    assertTrue(failSource.wasStreamClosed());
+  }
+
+  private static final class FieldCollector implements Splitter.RangeProcessor<List<String>> {
+    private final int maxFields;
+    private final List<String> list = Lists.newArrayList();
+
+    FieldCollector(int maxFields) {
+      this.maxFields = maxFields;
+    }
+
+    @Override
+    public boolean processRange(CharSequence sequence, int start, int end) {
+      list.add(sequence.subSequence(start, end).toString());
+      return list.size() < maxFields;
+    }
+
+    @Override
+    public List<String> getResult() {
+      return list;
+    }
+  }
+
   public void testCopyToAppendable_doesNotCloseIfWriter() throws IOException {
     TestWriter writer = new TestWriter();
     assertFalse(writer.closed());
@@ -18,6 +18,7 @@ package com.google.common.io;
 
 import static com.google.common.io.SourceSinkFactory.CharSourceFactory;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
@@ -184,6 +185,26 @@ public class CharSourceTester extends SourceSinkTester<CharSource, String, CharS
     }
   }
 
+  public void testSplit_withProcessor() throws IOException {
+    Splitter splitter = Splitter.on(' ');
+    List<String> list = source.split(splitter, new Splitter.RangeProcessor<List<String>>() {
+      List<String> list = Lists.newArrayList();
+
+      @Override
+      public boolean processRange(CharSequence sequence, int start, int end) {
+        list.add(sequence.subSequence(start, end).toString());
+        return true;
+      }
+
+      @Override
+      public List<String> getResult() {
+        return list;
+      }
+    });
+
+    assertEquals(splitter.splitToList(expected), list);
+  }
+
   private void assertExpectedString(String string) {
     assertEquals(expected, string);
   }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.io.TestOption.READ_THROWS;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Bytes;
+import com.google.common.testing.NullPointerTester;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for {@link ContentDefinedChunker}.
+ */
+public class ContentDefinedChunkerTest extends TestCase {
+  private static final ContentDefinedChunker CHUNKER = ContentDefinedChunker.create(64, 256, 1024);
+  private static final byte[] BYTES = newRandomBytes(100000);
+
+  public void testChunkSizes() throws IOException {
+    List<byte[]> chunks = chunk(CHUNKER, ByteSource.wrap(BYTES));
+    assertEquals(BYTES.length, totalLength(chunks));
+    for (int i = 0; i < chunks.size() - 1; i++) {
+      int length = chunks.get(i).length;
+      assertTrue(length >= 64 && length <= 1024);
+    }
+    double average = (double) BYTES.length / chunks.size();
+    assertTrue(String.valueOf(average), average > 200 && average < 300);
+  }
+
+  public void testConcatenation() throws IOException {
+    List<byte[]> chunks = chunk(CHUNKER, ByteSource.wrap(BYTES));
+    assertTrue(Arrays.equals(BYTES, Bytes.concat(chunks.toArray(new byte[0][]))));
+  }
+
+  public void testIndependentOfReads() throws IOException {
+    // the stream returns fewer bytes than requested, in random amounts
+    ByteSource source = new ByteSource() {
+      @Override public InputStream openStream() {
+        return new RandomAmountInputStream(new ByteArrayInputStream(BYTES), new Random(0));
+      }
+    };
+    assertChunksEqual(chunk(CHUNKER, ByteSource.wrap(BYTES)), chunk(CHUNKER, source));
+  }
+
+  public void testEdit_onlyChangesNearbyChunks() throws IOException {
+    // replaces 10 bytes in the middle with 3 others
+    byte[] edited = Bytes.concat(Arrays.copyOf(BYTES, 50000), new byte[] {1, 2, 3},
+        Arrays.copyOfRange(BYTES, 50010, BYTES.length));
+    Set<String> original = new HashSet<String>();
+    for (byte[] chunk : chunk(CHUNKER, ByteSource.wrap(BYTES))) {
+      original.add(Arrays.toString(chunk));
+    }
+    List<byte[]> editedChunks = chunk(CHUNKER, ByteSource.wrap(edited));
+    int changed = 0;
+    for (byte[] chunk : editedChunks) {
+      changed += original.contains(Arrays.toString(chunk)) ? 0 : 1;
+    }
+    assertTrue(String.valueOf(changed), changed >= 1 && changed <= 3);
+  }
+
+  public void testMaxChunkSize() throws IOException {
+    // a constant stream has no boundaries but the forced ones
+    List<byte[]> chunks = chunk(CHUNKER, ByteSource.wrap(new byte[5000]));
+    assertEquals(5, chunks.size());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(1024, chunks.get(i).length);
+    }
+    assertEquals(904, chunks.get(4).length);
+  }
+
+  public void testSmallSources() throws IOException {
+    assertTrue(chunk(CHUNKER, ByteSource.empty()).isEmpty());
+    List<byte[]> chunks = chunk(CHUNKER, ByteSource.wrap(new byte[] {1, 2, 3}));
+    assertEquals(1, chunks.size());
+    assertTrue(Arrays.equals(new byte[] {1, 2, 3}, chunks.get(0)));
+  }
+
+  public void testMinChunkSizeSmallerThanWindow() throws IOException {
+    ContentDefinedChunker chunker = ContentDefinedChunker.create(1, 16, 64);
+    List<byte[]> chunks = chunk(chunker, ByteSource.wrap(BYTES));
+    assertEquals(BYTES.length, totalLength(chunks));
+    assertTrue(chunks.size() > BYTES.length / 64);
+  }
+
+  public void testProcessorStops() throws IOException {
+    final List<Integer> lengths = new ArrayList<Integer>();
+    Integer result = CHUNKER.read(ByteSource.wrap(BYTES), new ByteProcessor<Integer>() {
+      @Override public boolean processBytes(byte[] buf, int off, int len) {
+        lengths.add(len);
+        return lengths.size() < 3;
+      }
+
+      @Override public Integer getResult() {
+        return lengths.size();
+      }
+    });
+    assertEquals(3, (int) result);
+  }
+
+  public void testReadThrows() {
+    TestByteSource source = new TestByteSource(BYTES, READ_THROWS);
+    try {
+      chunk(CHUNKER, source);
+      fail();
+    } catch (IOException expected) {}
+    assertTrue(source.wasStreamClosed());
+  }
+
+  public void testCreate_illegalSizes() {
+    for (int[] sizes : new int[][] {{0, 16, 64}, {16, 16, 64}, {16, 64, 32}}) {
+      try {
+        ContentDefinedChunker.create(sizes[0], sizes[1], sizes[2]);
+        fail(Arrays.toString(sizes));
+      } catch (IllegalArgumentException expected) {}
+    }
+  }
+
+  public void testToString() {
+    assertEquals("ContentDefinedChunker.create(64, 256, 1024)", CHUNKER.toString());
+  }
+
+  public void testNullPointers() {
+    new NullPointerTester().testAllPublicInstanceMethods(CHUNKER);
+  }
+
+  private static List<byte[]> chunk(ContentDefinedChunker chunker, ByteSource source)
+      throws IOException {
+    return chunker.read(source, new ByteProcessor<List<byte[]>>() {
+      final ImmutableList.Builder<byte[]> chunks = ImmutableList.builder();
+
+      @Override public boolean processBytes(byte[] buf, int off, int len) {
+        chunks.add(Arrays.copyOfRange(buf, off, off + len));
+        return true;
+      }
+
+      @Override public List<byte[]> getResult() {
+        return chunks.build();
+      }
+    });
+  }
+
+  private static void assertChunksEqual(List<byte[]> expected, List<byte[]> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertTrue(Arrays.equals(expected.get(i), actual.get(i)));
+    }
+  }
+
+  private static int totalLength(List<byte[]> chunks) {
+    int length = 0;
+    for (byte[] chunk : chunks) {
+      length += chunk.length;
+    }
+    return length;
+  }
+
+  private static byte[] newRandomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(42).nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -56,6 +56,8 @@ public class FilesTest extends IoTestCase {
     TestSuite suite = new TestSuite();
     suite.addTest(ByteSourceTester.tests("Files.asByteSource[File]",
         SourceSinkFactories.fileByteSourceFactory(), true));
+    suite.addTest(ByteSourceTester.tests("Files.asMappedByteSource[File]",
+        SourceSinkFactories.mappedFileByteSourceFactory(), true));
     suite.addTest(ByteSinkTester.tests("Files.asByteSink[File]",
         SourceSinkFactories.fileByteSinkFactory()));
     suite.addTest(ByteSinkTester.tests("Files.asByteSink[File, APPEND]",
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.io.SourceSinkFactories.mappedFileByteSourceFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link MappedFileByteSource}, mapping files in small windows so that reads cross them.
+ */
+public class MappedFileByteSourceTest extends IoTestCase {
+
+  public static TestSuite suite() {
+    TestSuite suite = new TestSuite();
+    suite.addTest(ByteSourceTester.tests("MappedFileByteSource[File, 7]",
+        mappedFileByteSourceFactory(7), true));
+    suite.addTestSuite(MappedFileByteSourceTest.class);
+    return suite;
+  }
+
+  private static final byte[] BYTES = newPreFilledByteArray(1000);
+
+  private File file;
+  private ByteSource source;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    file = createTempFile();
+    Files.write(BYTES, file);
+    source = new MappedFileByteSource(file, 64);
+  }
+
+  public void testRead_acrossWindows() throws IOException {
+    assertTrue(Arrays.equals(BYTES, source.read()));
+    assertTrue(Arrays.equals(
+        Arrays.copyOfRange(BYTES, 60, 200), source.slice(60, 140).read()));
+  }
+
+  public void testSlice_ofSlice() throws IOException {
+    ByteSource slice = source.slice(100, 500).slice(50, 1000);
+    assertEquals(450, slice.size());
+    assertTrue(Arrays.equals(Arrays.copyOfRange(BYTES, 150, 600), slice.read()));
+    assertTrue(source.slice(100, 500).slice(500, 10).isEmpty());
+    assertTrue(source.slice(2000, 10).isEmpty());
+  }
+
+  public void testOpenStream_skipAndMark() throws IOException {
+    InputStream in = source.openStream();
+    assertEquals(100, in.skip(100));
+    assertEquals(BYTES[100] & 0xFF, in.read());
+    in.mark(0);
+    byte[] b = new byte[100];
+    assertEquals(27, in.read(b, 0, 100)); // up to the end of the window
+    in.reset();
+    assertEquals(BYTES[101] & 0xFF, in.read());
+    assertEquals(898, in.available());
+    assertEquals(898, in.skip(1000));
+    assertEquals(-1, in.read());
+    assertEquals(-1, in.read(b, 0, 100));
+    in.close();
+  }
+
+  public void testHash_acrossWindows() throws IOException {
+    assertEquals(Hashing.sha1().hashBytes(BYTES), source.hash(Hashing.sha1()));
+    assertEquals(Hashing.murmur3_128().hashBytes(BYTES, 10, 40),
+        source.slice(10, 40).hash(Hashing.murmur3_128()));
+  }
+
+  public void testContentEquals_mappedSources() throws IOException {
+    File copy = createTempFile();
+    Files.write(BYTES, copy);
+    ByteSource other = new MappedFileByteSource(copy, 100);
+    assertTrue(source.contentEquals(other));
+    assertTrue(source.slice(10, 300).contentEquals(other.slice(10, 300)));
+    assertFalse(source.slice(10, 300).contentEquals(other.slice(11, 300)));
+    assertFalse(source.contentEquals(other.slice(0, 999)));
+    assertTrue(source.contentEquals(ByteSource.wrap(BYTES)));
+  }
+
+  public void testSize_readOnce() throws IOException {
+    assertEquals(1000, source.size());
+    Files.append("more", file, Charsets.UTF_8);
+    assertEquals(1000, source.size());
+    assertTrue(Arrays.equals(BYTES, source.read()));
+  }
+
+  public void testFileNotFound() throws IOException {
+    ByteSource missing = Files.asMappedByteSource(new File(getTempDir(), "missing"));
+    try {
+      missing.size();
+      fail();
+    } catch (FileNotFoundException expected) {}
+  }
+
+  public void testToString() {
+    assertEquals("Files.asMappedByteSource(" + file + ")", source.toString());
+    assertEquals("Files.asMappedByteSource(" + file + ").slice(1, 2)",
+        source.slice(1, 2).toString());
+  }
+}
@@ -70,6 +70,18 @@ public class SourceSinkFactories {
     return new FileByteSourceFactory();
   }
 
+  public static ByteSourceFactory mappedFileByteSourceFactory() {
+    return new MappedFileByteSourceFactory(null);
+  }
+
+  /**
+   * Returns a factory of sources mapping their file in windows of {@code windowSize} bytes, so that
+   * small files span several windows.
+   */
+  public static ByteSourceFactory mappedFileByteSourceFactory(int windowSize) {
+    return new MappedFileByteSourceFactory(windowSize);
+  }
+
   public static ByteSinkFactory fileByteSinkFactory() {
     return new FileByteSinkFactory(null);
   }
@@ -286,6 +298,31 @@ public class SourceSinkFactories {
     }
   }
 
+  private static class MappedFileByteSourceFactory extends FileFactory
+      implements ByteSourceFactory {
+
+    @Nullable private final Integer windowSize;
+
+    private MappedFileByteSourceFactory(@Nullable Integer windowSize) {
+      this.windowSize = windowSize;
+    }
+
+    @Override
+    public ByteSource createSource(byte[] bytes) throws IOException {
+      checkNotNull(bytes);
+      File file = createFile();
+      Files.write(bytes, file);
+      return (windowSize == null)
+          ? Files.asMappedByteSource(file)
+          : new MappedFileByteSource(file, windowSize);
+    }
+
+    @Override
+    public byte[] getExpected(byte[] bytes) {
+      return checkNotNull(bytes);
+    }
+  }
+
   private static class FileByteSinkFactory extends FileFactory implements ByteSinkFactory {
 
     private final byte[] initialBytes;
@@ -17,14 +17,21 @@
 package com.google.common.util.concurrent;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.collect.Lists;
 
 import junit.framework.AssertionFailedError;
 import junit.framework.TestCase;
 
+import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -105,6 +112,121 @@ public class AbstractFutureTest extends TestCase {
     assertTrue(future.isDone());
   }
 
+  public void testSetNull() throws Exception {
+    AbstractFuture<String> future = new AbstractFuture<String>() {
+      {
+        set(null);
+      }
+    };
+    assertTrue(future.isDone());
+    assertFalse(future.isCancelled());
+    assertNull(future.get());
+    assertNull(future.get(0, TimeUnit.SECONDS));
+  }
+
+  public void testListenersRunInOrderAdded() {
+    final List<Integer> order = Lists.newArrayList();
+    TestedFuture<String> future = new TestedFuture<String>();
+    for (int i = 0; i < 5; i++) {
+      final int listenerNumber = i;
+      future.addListener(new Runnable() {
+        @Override public void run() {
+          order.add(listenerNumber);
+        }
+      }, directExecutor());
+    }
+    assertTrue(order.isEmpty());
+    future.set("foo");
+    assertThat(order).containsExactly(0, 1, 2, 3, 4).inOrder();
+
+    // Listeners added after completion run immediately.
+    future.addListener(new Runnable() {
+      @Override public void run() {
+        order.add(5);
+      }
+    }, directExecutor());
+    assertThat(order).containsExactly(0, 1, 2, 3, 4, 5).inOrder();
+  }
+
+  public void testTimedGet_timesOut() throws Exception {
+    TestedFuture<String> future = new TestedFuture<String>();
+    try {
+      future.get(10, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException expected) {
+    }
+    try {
+      future.get(0, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException expected) {
+    }
+    assertTrue(future.set("foo"));
+    assertEquals("foo", future.get(0, TimeUnit.MILLISECONDS));
+  }
+
+  public void testGet_releasesAllWaiters() throws Exception {
+    final TestedFuture<String> future = new TestedFuture<String>();
+    int numWaiters = 10;
+    final CountDownLatch started = new CountDownLatch(numWaiters);
+    final CountDownLatch finished = new CountDownLatch(numWaiters);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    for (int i = 0; i < numWaiters; i++) {
+      final boolean timed = i % 2 == 0;
+      new Thread() {
+        @Override public void run() {
+          started.countDown();
+          try {
+            String result = timed ? future.get(1, TimeUnit.MINUTES) : future.get();
+            assertEquals("foo", result);
+          } catch (Throwable t) {
+            failure.set(t);
+          }
+          finished.countDown();
+        }
+      }.start();
+    }
+    started.await();
+    assertTrue(future.set("foo"));
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+    assertNull(failure.get());
+  }
+
+  public void testGet_interrupted() throws Exception {
+    final TestedFuture<String> future = new TestedFuture<String>();
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+    Thread waiter = new Thread() {
+      @Override public void run() {
+        try {
+          future.get();
+        } catch (Throwable t) {
+          thrown.set(t);
+        }
+        done.countDown();
+      }
+    };
+    waiter.start();
+    waiter.interrupt();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertThat(thrown.get()).isInstanceOf(InterruptedException.class);
+
+    // The abandoned waiter must not prevent normal completion.
+    assertTrue(future.set("foo"));
+    assertEquals("foo", future.get());
+  }
+
+  public void testGet_interruptedWhenAlreadyDone() throws Exception {
+    TestedFuture<String> future = new TestedFuture<String>();
+    future.set("foo");
+    Thread.currentThread().interrupt();
+    try {
+      future.get();
+      fail();
+    } catch (InterruptedException expected) {
+    }
+    assertFalse(Thread.interrupted());
+  }
+
   public void testCompletionFinishesWithDone() {
     ExecutorService executor = Executors.newFixedThreadPool(10);
     for (int i = 0; i < 50000; i++) {
@@ -190,6 +312,12 @@ public class AbstractFutureTest extends TestCase {
     return null;
   }
 
+  private static final class TestedFuture<V> extends AbstractFuture<V> {
+    @Override public boolean set(V value) {
+      return super.set(value);
+    }
+  }
+
   private static final class InterruptibleFuture
       extends AbstractFuture<String> {
     boolean interruptTaskWasCalled;
@@ -1627,7 +1627,7 @@ public class FuturesTest extends TestCase {
       throws Exception {
     /*
      * The IllegalStateException that we're testing for is caught by
-     * ExecutionList and logged rather than allowed to propagate. We need to
+     * AbstractFuture and logged rather than allowed to propagate. We need to
      * turn that back into a failure.
      */
     Handler throwingHandler = new Handler() {
@@ -1642,11 +1642,11 @@ public class FuturesTest extends TestCase {
       @Override public void close() {}
     };
 
-    ExecutionList.log.addHandler(throwingHandler);
+    AbstractFuture.log.addHandler(throwingHandler);
     try {
       doTestSuccessfulAsList_resultCancelledRacingInputDone();
     } finally {
-      ExecutionList.log.removeHandler(throwingHandler);
+      AbstractFuture.log.removeHandler(throwingHandler);
     }
   }
 
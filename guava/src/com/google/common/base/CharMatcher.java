@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.BitSet;
 
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
 
 /**
  * Determines a true or false value for any Java {@code char} value, just as {@link Predicate} does
@@ -102,6 +103,22 @@ public abstract class CharMatcher implements Predicate<Character> {
     public boolean matches(char c) {
       return c <= '\u007f';
     }
+
+    @GwtIncompatible("block scanning")
+    @Override
+    boolean scansBlocks() {
+      return true;
+    }
+
+    @GwtIncompatible("block scanning")
+    @Override
+    int matchMask(char[] chars, int offset, int length) {
+      int mask = 0;
+      for (int i = offset + length - 1; i >= offset; i--) {
+        mask = (mask << 1) | ((chars[i] - 0x80) >>> 31);
+      }
+      return mask;
+    }
   };
 
   private static class RangesMatcher extends CharMatcher {
@@ -443,6 +460,27 @@ public abstract class CharMatcher implements Predicate<Character> {
         return c == match;
       }
 
+      @Override public int indexIn(CharSequence sequence) {
+        // the JDK scans strings for a character in bulk
+        return (sequence instanceof String)
+            ? ((String) sequence).indexOf(match)
+            : super.indexIn(sequence);
+      }
+
+      @Override public int indexIn(CharSequence sequence, int start) {
+        if (sequence instanceof String) {
+          Preconditions.checkPositionIndex(start, sequence.length());
+          return ((String) sequence).indexOf(match, start);
+        }
+        return super.indexIn(sequence, start);
+      }
+
+      @Override public int lastIndexIn(CharSequence sequence) {
+        return (sequence instanceof String)
+            ? ((String) sequence).lastIndexOf(match)
+            : super.lastIndexIn(sequence);
+      }
+
       @Override public String replaceFrom(CharSequence sequence, char replacement) {
         return sequence.toString().replace(match, replacement);
       }
@@ -465,6 +503,20 @@ public abstract class CharMatcher implements Predicate<Character> {
         table.set(match);
       }
 
+      @GwtIncompatible("block scanning")
+      @Override boolean scansBlocks() {
+        return true;
+      }
+
+      @GwtIncompatible("block scanning")
+      @Override int matchMask(char[] chars, int offset, int length) {
+        int mask = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+          mask = (mask << 1) | equalBit(chars[i], match);
+        }
+        return mask;
+      }
+
       @Override public String toString() {
         return "CharMatcher.is('" + showCharacter(match) + "')";
       }
@@ -497,6 +549,20 @@ public abstract class CharMatcher implements Predicate<Character> {
         table.set(match + 1, Character.MAX_VALUE + 1);
       }
 
+      @GwtIncompatible("block scanning")
+      @Override boolean scansBlocks() {
+        return true;
+      }
+
+      @GwtIncompatible("block scanning")
+      @Override int matchMask(char[] chars, int offset, int length) {
+        int mask = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+          mask = (mask << 1) | (equalBit(chars[i], match) ^ 1);
+        }
+        return mask;
+      }
+
       @Override public CharMatcher negate() {
         return is(match);
       }
@@ -538,6 +604,26 @@ public abstract class CharMatcher implements Predicate<Character> {
         }
       }
 
+      @GwtIncompatible("block scanning")
+      @Override boolean scansBlocks() {
+        // comparing each character with every one of a larger set is slower than searching it
+        return chars.length <= MAX_SCANNED_SET_SIZE;
+      }
+
+      @GwtIncompatible("block scanning")
+      @Override int matchMask(char[] block, int offset, int length) {
+        int mask = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+          char c = block[i];
+          int bit = 0;
+          for (char match : chars) {
+            bit |= equalBit(c, match);
+          }
+          mask = (mask << 1) | bit;
+        }
+        return mask;
+      }
+
       @Override public String toString() {
         StringBuilder description = new StringBuilder("CharMatcher.anyOf(\"");
         for (char c : chars) {
@@ -563,6 +649,21 @@ public abstract class CharMatcher implements Predicate<Character> {
         table.set(match2);
       }
 
+      @GwtIncompatible("block scanning")
+      @Override boolean scansBlocks() {
+        return true;
+      }
+
+      @GwtIncompatible("block scanning")
+      @Override int matchMask(char[] chars, int offset, int length) {
+        int mask = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+          char c = chars[i];
+          mask = (mask << 1) | equalBit(c, match1) | equalBit(c, match2);
+        }
+        return mask;
+      }
+
       @Override public String toString() {
         return "CharMatcher.anyOf(\"" + showCharacter(match1) + showCharacter(match2) + "\")";
       }
@@ -596,6 +697,22 @@ public abstract class CharMatcher implements Predicate<Character> {
         table.set(startInclusive, endInclusive + 1);
       }
 
+      @GwtIncompatible("block scanning")
+      @Override boolean scansBlocks() {
+        return true;
+      }
+
+      @GwtIncompatible("block scanning")
+      @Override int matchMask(char[] chars, int offset, int length) {
+        int mask = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+          // the distance from the start is out of the range if it's negative, as a char
+          int distance = (chars[i] - startInclusive) & 0xFFFF;
+          mask = (mask << 1) | (((endInclusive - startInclusive - distance) >>> 31) ^ 1);
+        }
+        return mask;
+      }
+
       @Override public String toString() {
         return "CharMatcher.inRange('" + showCharacter(startInclusive)
             + "', '" + showCharacter(endInclusive) + "')";
@@ -680,6 +797,18 @@ public abstract class CharMatcher implements Predicate<Character> {
       table.or(tmp);
     }
 
+    @GwtIncompatible("block scanning")
+    @Override
+    boolean scansBlocks() {
+      return original.scansBlocks();
+    }
+
+    @GwtIncompatible("block scanning")
+    @Override
+    int matchMask(char[] chars, int offset, int length) {
+      return ~original.matchMask(chars, offset, length) & (-1 >>> (BLOCK_SIZE - length));
+    }
+
     @Override public CharMatcher negate() {
       return original;
     }
@@ -914,6 +1043,133 @@ public abstract class CharMatcher implements Predicate<Character> {
     }
   }
 
+  // Block scanning
+
+  /** The number of characters whose matches {@link #matchMask} computes at once. */
+  @GwtIncompatible("block scanning")
+  static final int BLOCK_SIZE = Integer.SIZE;
+
+  /** The number of characters copied at a time from a string that is scanned in blocks. */
+  @GwtIncompatible("block scanning")
+  private static final int CHUNK_SIZE = 8 * BLOCK_SIZE;
+
+  /** Strings shorter than this are scanned one character at a time. */
+  @GwtIncompatible("block scanning")
+  private static final int MIN_BLOCK_SCAN_LENGTH = 16;
+
+  /** The size of the largest {@link #anyOf} set whose matches are computed in blocks. */
+  @GwtIncompatible("block scanning")
+  private static final int MAX_SCANNED_SET_SIZE = 4;
+
+  /**
+   * Returns whether this matcher overrides {@link #matchMask} to compute the matches of a block of
+   * characters without branching or calling {@link #matches} for each of them. Long strings are
+   * counted and collapsed in blocks with such matchers, using bitwise operations on the masks
+   * instead of a branch for each character, which the processor can't predict when matching and
+   * non-matching characters are mixed.
+   */
+  @GwtIncompatible("block scanning")
+  boolean scansBlocks() {
+    return false;
+  }
+
+  /**
+   * Returns the matches of the {@code 0 < length <= BLOCK_SIZE} characters starting at {@code
+   * chars[offset]}: bit {@code i} of the result is set if {@code chars[offset + i]} matches, and
+   * the bits from {@code length} up are clear.
+   */
+  @GwtIncompatible("block scanning")
+  int matchMask(char[] chars, int offset, int length) {
+    int mask = 0;
+    for (int i = offset + length - 1; i >= offset; i--) {
+      mask <<= 1;
+      if (matches(chars[i])) {
+        mask |= 1;
+      }
+    }
+    return mask;
+  }
+
+  /** Returns 1 if {@code c == match}, or 0 otherwise, without branching. */
+  @GwtIncompatible("block scanning")
+  static int equalBit(char c, char match) {
+    return ((c ^ match) - 1) >>> 31;
+  }
+
+  /** Returns whether {@code sequence} should be scanned in blocks by this matcher. */
+  @GwtIncompatible("block scanning")
+  private boolean scansBlocksOf(CharSequence sequence) {
+    return sequence instanceof String
+        && sequence.length() >= MIN_BLOCK_SCAN_LENGTH
+        && scansBlocks();
+  }
+
+  /** Returns the number of matching characters of {@code string} from {@code start} on. */
+  @GwtIncompatible("block scanning")
+  private int countInBlocks(String string, int start) {
+    int length = string.length();
+    char[] chunk = new char[CHUNK_SIZE];
+    int count = 0;
+    for (int chunkStart = start; chunkStart < length; chunkStart += CHUNK_SIZE) {
+      int chunkLength = Math.min(CHUNK_SIZE, length - chunkStart);
+      string.getChars(chunkStart, chunkStart + chunkLength, chunk, 0);
+      for (int offset = 0; offset < chunkLength; offset += BLOCK_SIZE) {
+        int mask = matchMask(chunk, offset, Math.min(BLOCK_SIZE, chunkLength - offset));
+        count += Integer.bitCount(mask);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the characters of {@code chars} from {@code first} to {@code end}, with each group of
+   * consecutive matching characters from {@code start} on replaced by {@code replacement}, or
+   * {@code unchanged} if that doesn't change them. The contents of {@code chars} are overwritten.
+   */
+  @GwtIncompatible("block scanning")
+  private String collapseInBlocks(char[] chars, int first, int start, int end, char replacement,
+      @Nullable String unchanged) {
+    int length = start;
+    int previous = 0; // 1 if the character before the current block matches
+    int changed = 0;
+    for (int offset = start; offset < end; offset += BLOCK_SIZE) {
+      int blockLength = Math.min(BLOCK_SIZE, end - offset);
+      int mask = matchMask(chars, offset, blockLength);
+      if (mask == 0) {
+        System.arraycopy(chars, offset, chars, length, blockLength);
+        length += blockLength;
+        previous = 0;
+        continue;
+      }
+      // only the first character of each group of matching characters is kept
+      int following = mask & (mask << 1 | previous);
+      changed |= following;
+      if (Integer.bitCount(following) < BLOCK_SIZE / 2) {
+        // most characters are kept: copies each one, but only keeps those that don't follow
+        for (int i = 0; i < blockLength; i++) {
+          char c = chars[offset + i];
+          char replaced = (char) (c ^ ((c ^ replacement) & -((mask >>> i) & 1)));
+          changed |= c ^ replaced;
+          chars[length] = replaced;
+          length += ~(following >>> i) & 1;
+        }
+      } else {
+        for (int kept = ~following & (-1 >>> (BLOCK_SIZE - blockLength)); kept != 0;
+            kept &= kept - 1) {
+          int i = Integer.numberOfTrailingZeros(kept);
+          char c = chars[offset + i];
+          char replaced = (char) (c ^ ((c ^ replacement) & -((mask >>> i) & 1)));
+          changed |= c ^ replaced;
+          chars[length++] = replaced;
+        }
+      }
+      previous = (mask >>> (blockLength - 1)) & 1;
+    }
+    return (changed != 0 || unchanged == null)
+        ? new String(chars, first, length - first)
+        : unchanged;
+  }
+
   // Text processing routines
 
   /**
@@ -1034,6 +1290,10 @@ public abstract class CharMatcher implements Predicate<Character> {
    * Returns the number of matching characters found in a character sequence.
    */
   public int countIn(CharSequence sequence) {
+    if (scansBlocksOf(sequence)) {
+      int first = indexIn(sequence);
+      return (first == -1) ? 0 : countInBlocks((String) sequence, first);
+    }
     int count = 0;
     for (int i = 0; i < sequence.length(); i++) {
       if (matches(sequence.charAt(i))) {
@@ -1266,6 +1526,13 @@ public abstract class CharMatcher implements Predicate<Character> {
    */
   @CheckReturnValue
   public String collapseFrom(CharSequence sequence, char replacement) {
+    if (scansBlocksOf(sequence)) {
+      String string = (String) sequence;
+      int first = indexIn(string);
+      return (first == -1)
+          ? string
+          : collapseInBlocks(string.toCharArray(), 0, first, string.length(), replacement, string);
+    }
     // This implementation avoids unnecessary allocation.
     int len = sequence.length();
     for (int i = 0; i < len; i++) {
@@ -1302,8 +1569,12 @@ public abstract class CharMatcher implements Predicate<Character> {
     for (first = 0; first < len && matches(sequence.charAt(first)); first++) {}
     for (last = len - 1; last > first && matches(sequence.charAt(last)); last--) {}
 
-    return (first == 0 && last == len - 1)
-        ? collapseFrom(sequence, replacement)
+    if (first == 0 && last == len - 1) {
+      return collapseFrom(sequence, replacement);
+    }
+    return scansBlocksOf(sequence)
+        ? collapseInBlocks(
+              sequence.toString().toCharArray(), first, first, last + 1, replacement, null)
         : finishCollapseFrom(
               sequence, first, last + 1, replacement,
               new StringBuilder(last + 1 - first),
@@ -1379,5 +1650,23 @@ public abstract class CharMatcher implements Predicate<Character> {
         table.set(WHITESPACE_TABLE.charAt(i));
       }
     }
+
+    @GwtIncompatible("block scanning")
+    @Override
+    boolean scansBlocks() {
+      return true;
+    }
+
+    @GwtIncompatible("block scanning")
+    @Override
+    int matchMask(char[] chars, int offset, int length) {
+      int mask = 0;
+      for (int i = offset + length - 1; i >= offset; i--) {
+        char c = chars[i];
+        char candidate = WHITESPACE_TABLE.charAt((WHITESPACE_MULTIPLIER * c) >>> WHITESPACE_SHIFT);
+        mask = (mask << 1) | equalBit(candidate, c);
+      }
+      return mask;
+    }
   };
 }
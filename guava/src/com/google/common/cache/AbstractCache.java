@@ -212,6 +212,7 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     private final LongAddable loadExceptionCount = LongAddables.create();
     private final LongAddable totalLoadTime = LongAddables.create();
     private final LongAddable evictionCount = LongAddables.create();
+    private final LongAddable admissionRejectionCount = LongAddables.create();
 
     /**
      * Constructs an instance with all counts initialized to zero.
@@ -251,6 +252,18 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
       evictionCount.increment();
     }
 
+    /**
+     * Records that a newly added entry was evicted because the cache's {@linkplain
+     * EvictionPolicy#WINDOW_TINY_LFU eviction policy} declined to admit it. This is always called
+     * in addition to {@link #recordEviction} for the same entry. It is not part of {@link
+     * StatsCounter}, so that existing implementations of that interface don't have to provide it.
+     *
+     * @since 19.0
+     */
+    public void recordAdmissionRejection() {
+      admissionRejectionCount.increment();
+    }
+
     @Override
     public CacheStats snapshot() {
       return new CacheStats(
@@ -259,7 +272,8 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
           loadSuccessCount.sum(),
           loadExceptionCount.sum(),
           totalLoadTime.sum(),
-          evictionCount.sum());
+          evictionCount.sum(),
+          admissionRejectionCount.sum());
     }
 
     /**
@@ -273,6 +287,7 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
       loadExceptionCount.add(otherStats.loadExceptionCount());
       totalLoadTime.add(otherStats.totalLoadTime());
       evictionCount.add(otherStats.evictionCount());
+      admissionRejectionCount.add(otherStats.admissionRejectionCount());
     }
   }
 }
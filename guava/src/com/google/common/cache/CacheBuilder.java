@@ -37,6 +37,7 @@ import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.util.ConcurrentModificationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -49,7 +50,7 @@ import javax.annotation.CheckReturnValue;
  *
  * <ul>
  * <li>automatic loading of entries into the cache
- * <li>least-recently-used eviction when a maximum size is exceeded
+ * <li>least-recently-used or frequency-based eviction when a maximum size is exceeded
  * <li>time-based expiration of entries, measured since last access or last write
  * <li>keys automatically wrapped in {@linkplain WeakReference weak} references
  * <li>values automatically wrapped in {@linkplain WeakReference weak} or
@@ -221,6 +222,7 @@ public final class CacheBuilder<K, V> {
   long maximumSize = UNSET_INT;
   long maximumWeight = UNSET_INT;
   Weigher<? super K, ? super V> weigher;
+  EvictionPolicy evictionPolicy;
 
   Strength keyStrength;
   Strength valueStrength;
@@ -228,6 +230,8 @@ public final class CacheBuilder<K, V> {
   long expireAfterWriteNanos = UNSET_INT;
   long expireAfterAccessNanos = UNSET_INT;
   long refreshNanos = UNSET_INT;
+  Executor refreshExecutor;
+  long refreshBatchNanos = UNSET_INT;
 
   Equivalence<Object> keyEquivalence;
   Equivalence<Object> valueEquivalence;
@@ -500,6 +504,30 @@ public final class CacheBuilder<K, V> {
     return (Weigher<K1, V1>) MoreObjects.firstNonNull(weigher, OneWeigher.INSTANCE);
   }
 
+  /**
+   * Specifies the algorithm used to choose which entry to evict when the cache exceeds its
+   * {@linkplain #maximumSize maximum size} or {@linkplain #maximumWeight maximum weight}. By
+   * default, {@link EvictionPolicy#LRU} is used.
+   *
+   * <p>Use of this method requires a corresponding call to {@link #maximumSize} or {@link
+   * #maximumWeight} prior to calling {@link #build}.
+   *
+   * @param policy the eviction policy to use
+   * @throws IllegalStateException if an eviction policy was already set
+   * @since 19.0
+   */
+  @Beta
+  @GwtIncompatible("To be supported")
+  public CacheBuilder<K, V> evictionPolicy(EvictionPolicy policy) {
+    checkState(evictionPolicy == null, "eviction policy was already set to %s", evictionPolicy);
+    evictionPolicy = checkNotNull(policy);
+    return this;
+  }
+
+  EvictionPolicy getEvictionPolicy() {
+    return MoreObjects.firstNonNull(evictionPolicy, EvictionPolicy.LRU);
+  }
+
   /**
    * Specifies that each key (not value) stored in the cache should be wrapped in a {@link
    * WeakReference} (by default, strong references are used).
@@ -663,7 +691,8 @@ public final class CacheBuilder<K, V> {
    * <p>Currently automatic refreshes are performed when the first stale request for an entry
    * occurs. The request triggering refresh will make a blocking call to {@link CacheLoader#reload}
    * and immediately return the new value if the returned future is complete, and the old value
-   * otherwise.
+   * otherwise. Alternatively, {@link #refreshExecutor} hands automatic refreshes off to an
+   * executor, which can reload many entries with a single {@link CacheLoader#loadAll} call.
    *
    * <p><b>Note:</b> <i>all exceptions thrown during refresh will be logged and then swallowed</i>.
    *
@@ -688,6 +717,68 @@ public final class CacheBuilder<K, V> {
     return (refreshNanos == UNSET_INT) ? DEFAULT_REFRESH_NANOS : refreshNanos;
   }
 
+  /**
+   * Specifies that automatic refreshes (see {@link #refreshAfterWrite}) are to be performed
+   * asynchronously by {@code executor}. The request that finds an entry stale only schedules its
+   * refresh, and it and all further requests keep returning the old value until the new one has
+   * been loaded.
+   *
+   * <p>Entries that become due for refresh around the same time are reloaded together by a single
+   * call to {@link CacheLoader#loadAll}; use {@link #refreshBatchWindow} to control how long a
+   * refresh waits for others to join it. If {@code loadAll} is not implemented, each entry is
+   * refreshed by calling {@link CacheLoader#reload} on the executor instead. Values returned by
+   * {@code loadAll} for keys that were not being refreshed are ignored.
+   *
+   * <p><b>Note:</b> <i>all exceptions thrown during refresh will be logged and then swallowed</i>,
+   * and the old value is retained. If {@code executor} rejects a refresh, it is abandoned in the
+   * same way.
+   *
+   * @param executor the executor that loads refreshed values
+   * @throws IllegalStateException if a refresh executor was already set
+   * @since 19.0
+   */
+  @Beta
+  @GwtIncompatible("To be supported")
+  public CacheBuilder<K, V> refreshExecutor(Executor executor) {
+    checkState(refreshExecutor == null, "refresh executor was already set to %s", refreshExecutor);
+    this.refreshExecutor = checkNotNull(executor);
+    return this;
+  }
+
+  Executor getRefreshExecutor() {
+    return refreshExecutor;
+  }
+
+  /**
+   * Specifies how long an asynchronous refresh (see {@link #refreshExecutor}) waits for other
+   * entries to become due for refresh, so that they can all be reloaded by a single call to {@link
+   * CacheLoader#loadAll}. The window starts when the executor starts running the refresh. By
+   * default, the batch holds whichever refreshes were scheduled by the time the executor got to
+   * it.
+   *
+   * <p>A refresh waits by sleeping on its executor thread, so the executor should allow for that.
+   *
+   * @param duration the length of time to wait for further refreshes
+   * @param unit the unit that {@code duration} is expressed in
+   * @throws IllegalArgumentException if {@code duration} is negative
+   * @throws IllegalStateException if the batch window was already set
+   * @since 19.0
+   */
+  @Beta
+  @GwtIncompatible("To be supported")
+  public CacheBuilder<K, V> refreshBatchWindow(long duration, TimeUnit unit) {
+    checkNotNull(unit);
+    checkState(refreshBatchNanos == UNSET_INT,
+        "refresh batch window was already set to %s ns", refreshBatchNanos);
+    checkArgument(duration >= 0, "duration cannot be negative: %s %s", duration, unit);
+    this.refreshBatchNanos = unit.toNanos(duration);
+    return this;
+  }
+
+  long getRefreshBatchNanos() {
+    return (refreshBatchNanos == UNSET_INT) ? 0 : refreshBatchNanos;
+  }
+
   /**
    * Specifies a nanosecond-precision time source for this cache. By default,
    * {@link System#nanoTime} is used.
@@ -786,6 +877,8 @@ public final class CacheBuilder<K, V> {
   public <K1 extends K, V1 extends V> LoadingCache<K1, V1> build(
       CacheLoader<? super K1, V1> loader) {
     checkWeightWithWeigher();
+    checkEvictionPolicy();
+    checkRefreshExecutor();
     return new LocalCache.LocalLoadingCache<K1, V1>(this, loader);
   }
 
@@ -803,6 +896,8 @@ public final class CacheBuilder<K, V> {
    */
   public <K1 extends K, V1 extends V> Cache<K1, V1> build() {
     checkWeightWithWeigher();
+    checkEvictionPolicy();
+    checkRefreshExecutor();
     checkNonLoadingCache();
     return new LocalCache.LocalManualCache<K1, V1>(this);
   }
@@ -811,6 +906,15 @@ public final class CacheBuilder<K, V> {
     checkState(refreshNanos == UNSET_INT, "refreshAfterWrite requires a LoadingCache");
   }
 
+  private void checkRefreshExecutor() {
+    if (refreshExecutor != null) {
+      checkState(refreshNanos != UNSET_INT, "refreshExecutor requires refreshAfterWrite");
+    }
+    if (refreshBatchNanos != UNSET_INT) {
+      checkState(refreshExecutor != null, "refreshBatchWindow requires refreshExecutor");
+    }
+  }
+
   private void checkWeightWithWeigher() {
     if (weigher == null) {
       checkState(maximumWeight == UNSET_INT, "maximumWeight requires weigher");
@@ -825,6 +929,13 @@ public final class CacheBuilder<K, V> {
     }
   }
 
+  private void checkEvictionPolicy() {
+    if (evictionPolicy != null) {
+      checkState(maximumSize != UNSET_INT || maximumWeight != UNSET_INT,
+          "evictionPolicy requires maximumSize or maximumWeight");
+    }
+  }
+
   /**
    * Returns a string representation for this CacheBuilder instance. The exact form of the returned
    * string is not specified.
@@ -844,6 +955,9 @@ public final class CacheBuilder<K, V> {
     if (maximumWeight != UNSET_INT) {
       s.add("maximumWeight", maximumWeight);
     }
+    if (evictionPolicy != null) {
+      s.add("evictionPolicy", evictionPolicy);
+    }
     if (expireAfterWriteNanos != UNSET_INT) {
       s.add("expireAfterWrite", expireAfterWriteNanos + "ns");
     }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.cache;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * The algorithm a size-bounded cache uses to decide which entry to evict once it exceeds its
+ * {@linkplain CacheBuilder#maximumSize maximum size} or {@linkplain CacheBuilder#maximumWeight
+ * maximum weight}. Like the bound itself, the policy is applied independently to each segment of
+ * the cache.
+ *
+ * @since 19.0
+ */
+@Beta
+public enum EvictionPolicy {
+  /**
+   * Evicts the least recently used entry. This is the default policy. It adapts quickly to changes
+   * in the working set, but a single scan over many distinct keys can flush out the entries that
+   * are used most often.
+   */
+  LRU,
+
+  /**
+   * Admits new entries through a small LRU window, and then only keeps them if they have been
+   * requested more often than the entry they would displace (the "Window TinyLFU" policy).
+   *
+   * <p>Access frequencies are estimated with a compact count-min sketch that is periodically aged,
+   * so the policy still adapts to changes in popularity. This usually yields a noticeably higher
+   * hit rate than {@link #LRU} for workloads that mix frequently used keys with scans or
+   * one-off lookups. Candidates rejected by the frequency filter are evicted like any other entry,
+   * and are additionally counted by {@link CacheStats#admissionRejectionCount}.
+   */
+  WINDOW_TINY_LFU
+}
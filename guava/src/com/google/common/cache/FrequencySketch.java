@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A count-min sketch estimating how often each hash code was recently seen, used as the admission
+ * filter of {@link EvictionPolicy#WINDOW_TINY_LFU}.
+ *
+ * <p>Each slot of the table packs sixteen 4-bit counters, so an estimate saturates at 15; an
+ * entry only needs to be compared against another entry, so this is plenty. A hash code is
+ * counted in four counters, each chosen from a different slot and from a different quarter of
+ * that slot, and its frequency is the minimum of the four. To keep the estimates recent, all
+ * counters are halved once the number of increments reaches ten times the capacity.
+ *
+ * <p>This class is not thread-safe; {@link LocalCache} only uses it under the segment lock.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private long[] table;
+  private int tableMask;
+  private int sampleSize;
+  private int size;
+
+  /**
+   * Creates a sketch sized for {@code expectedSize} distinct hash codes.
+   */
+  FrequencySketch(int expectedSize) {
+    ensureCapacity(expectedSize);
+  }
+
+  /**
+   * Grows the sketch, if necessary, so that it can accurately track {@code expectedSize} distinct
+   * hash codes. Growing discards all frequencies recorded so far.
+   */
+  void ensureCapacity(int expectedSize) {
+    checkArgument(expectedSize >= 0);
+    int capacity = Math.min(Math.max(expectedSize, 1), MAXIMUM_CAPACITY);
+    if (table != null && table.length >= capacity) {
+      return;
+    }
+    int length = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    table = new long[length];
+    tableMask = length - 1;
+    sampleSize = (capacity > Integer.MAX_VALUE / 10) ? Integer.MAX_VALUE : 10 * capacity;
+    size = 0;
+  }
+
+  /** Returns the number of distinct hash codes this sketch can currently track accurately. */
+  int capacity() {
+    return table.length;
+  }
+
+  /**
+   * Returns the estimated number of times {@code hash} was recently {@linkplain #increment
+   * incremented}, up to a maximum of 15.
+   */
+  int frequency(int hash) {
+    hash = spread(hash);
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int offset = (start + i) << 2;
+      int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Increments the estimated frequency of {@code hash}, and ages all frequencies if the sample
+   * period has elapsed.
+   */
+  void increment(int hash) {
+    hash = spread(hash);
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  /** Increments the {@code j}th counter of slot {@code i} unless it is saturated. */
+  private boolean incrementAt(int i, int j) {
+    int offset = j << 2;
+    long mask = 0xfL << offset;
+    if ((table[i] & mask) != mask) {
+      table[i] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /** Halves every counter, and adjusts the size for the odd counters that were rounded down. */
+  @VisibleForTesting
+  void reset() {
+    int oddCounters = 0;
+    for (int i = 0; i < table.length; i++) {
+      oddCounters += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (oddCounters >>> 2);
+  }
+
+  /** Returns the slot of the {@code i}th counter of {@code hash}. */
+  private int indexOf(int hash, int i) {
+    long index = (hash + SEEDS[i]) * SEEDS[i];
+    index += index >>> 32;
+    return ((int) index) & tableMask;
+  }
+
+  /**
+   * Applies a supplemental hash. Within a segment, the entry hashes all share their upper bits,
+   * so those alone would make poor slot indexes.
+   */
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
@@ -40,6 +40,8 @@ import com.google.common.cache.CacheLoader.UnsupportedLoadingOperationException;
 import com.google.common.collect.AbstractSequentialIterator;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
@@ -63,6 +65,7 @@ import java.util.AbstractQueue;
 import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
@@ -72,7 +75,9 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
@@ -119,6 +124,13 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
    * rate, and ability to be implemented with O(1) time complexity. The initial LRU implementation
    * operates per-segment rather than globally for increased implementation simplicity. We expect
    * the cache hit rate to be similar to that of a global LRU algorithm.
+   *
+   * Optionally, the Window TinyLFU algorithm may be used instead. It splits each segment's access
+   * queue into a small LRU admission window and a segmented LRU main region, and only moves an
+   * entry from the window into the main region if a frequency sketch estimates that it is more
+   * popular than the main region's eviction victim. It is driven by the same batched recency
+   * mementos as LRU, and is also O(1): each of its queues only receives entries at the tail, in
+   * access order.
    */
 
   // Constants
@@ -192,6 +204,9 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
   /** Weigher to weigh cache entries. */
   final Weigher<K, V> weigher;
 
+  /** The algorithm used to choose which entry to evict when a segment is over its maximum. */
+  final EvictionPolicy evictionPolicy;
+
   /** How long after the last access to an entry the map will retain that entry. */
   final long expireAfterAccessNanos;
 
@@ -201,6 +216,13 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
   /** How long after the last write an entry becomes a candidate for refresh. */
   final long refreshNanos;
 
+  /**
+   * Performs automatic refreshes on the refresh executor, or null if they are performed by the
+   * requesting thread.
+   */
+  @Nullable
+  final RefreshBatcher refreshBatcher;
+
   /** Entries waiting to be consumed by the removal listener. */
   // TODO(fry): define a new type which creates event objects and automates the clear logic
   final Queue<RemovalNotification<K, V>> removalNotificationQueue;
@@ -244,9 +266,13 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
 
     maxWeight = builder.getMaximumWeight();
     weigher = builder.getWeigher();
+    evictionPolicy = builder.getEvictionPolicy();
     expireAfterAccessNanos = builder.getExpireAfterAccessNanos();
     expireAfterWriteNanos = builder.getExpireAfterWriteNanos();
     refreshNanos = builder.getRefreshNanos();
+    refreshBatcher = (builder.getRefreshExecutor() == null)
+        ? null
+        : new RefreshBatcher(builder.getRefreshExecutor(), builder.getRefreshBatchNanos());
 
     removalListener = builder.getRemovalListener();
     removalNotificationQueue = (removalListener == NullListener.INSTANCE)
@@ -317,6 +343,10 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     return weigher != OneWeigher.INSTANCE;
   }
 
+  boolean usesWindowTinyLfu() {
+    return evictsBySize() && evictionPolicy == EvictionPolicy.WINDOW_TINY_LFU;
+  }
+
   boolean expires() {
     return expiresAfterWrite() || expiresAfterAccess();
   }
@@ -599,6 +629,7 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
       // TODO(fry): when we link values instead of entries this method can go
       // away, as can connectAccessOrder, nullifyAccessOrder.
       newEntry.setAccessTime(original.getAccessTime());
+      newEntry.setAccessRegion(original.getAccessRegion());
 
       connectAccessOrder(original.getPreviousInAccessQueue(), newEntry);
       connectAccessOrder(newEntry, original.getNextInAccessQueue());
@@ -811,6 +842,17 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
      */
     void setPreviousInAccessQueue(ReferenceEntry<K, V> previous);
 
+    /**
+     * Returns the region of the access queue that holds this entry. This is only meaningful for
+     * the regions of a {@link WindowTinyLfuQueue}.
+     */
+    int getAccessRegion();
+
+    /**
+     * Sets the region of the access queue that holds this entry.
+     */
+    void setAccessRegion(int region);
+
     /*
      * Implemented by entries that use write order. Write entries are maintained in a
      * doubly-linked list. New entries are added at the tail of the list at write time and stale
@@ -898,6 +940,14 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     @Override
     public void setPreviousInAccessQueue(ReferenceEntry<Object, Object> previous) {}
 
+    @Override
+    public int getAccessRegion() {
+      return 0;
+    }
+
+    @Override
+    public void setAccessRegion(int region) {}
+
     @Override
     public long getWriteTime() {
       return 0;
@@ -979,6 +1029,16 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int getAccessRegion() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setAccessRegion(int region) {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     public long getWriteTime() {
       throw new UnsupportedOperationException();
@@ -1146,6 +1206,19 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     public void setPreviousInAccessQueue(ReferenceEntry<K, V> previous) {
       this.previousAccess = previous;
     }
+
+    // Guarded By Segment.this
+    int accessRegion;
+
+    @Override
+    public int getAccessRegion() {
+      return accessRegion;
+    }
+
+    @Override
+    public void setAccessRegion(int region) {
+      this.accessRegion = region;
+    }
   }
 
   static final class StrongWriteEntry<K, V> extends StrongEntry<K, V> {
@@ -1239,6 +1312,19 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
       this.previousAccess = previous;
     }
 
+    // Guarded By Segment.this
+    int accessRegion;
+
+    @Override
+    public int getAccessRegion() {
+      return accessRegion;
+    }
+
+    @Override
+    public void setAccessRegion(int region) {
+      this.accessRegion = region;
+    }
+
     // The code below is exactly the same for each write entry type.
 
     volatile long writeTime = Long.MAX_VALUE;
@@ -1332,6 +1418,16 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int getAccessRegion() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setAccessRegion(int region) {
+      throw new UnsupportedOperationException();
+    }
+
     // null write
 
     @Override
@@ -1436,6 +1532,19 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     public void setPreviousInAccessQueue(ReferenceEntry<K, V> previous) {
       this.previousAccess = previous;
     }
+
+    // Guarded By Segment.this
+    int accessRegion;
+
+    @Override
+    public int getAccessRegion() {
+      return accessRegion;
+    }
+
+    @Override
+    public void setAccessRegion(int region) {
+      this.accessRegion = region;
+    }
   }
 
   static final class WeakWriteEntry<K, V> extends WeakEntry<K, V> {
@@ -1531,6 +1640,19 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
       this.previousAccess = previous;
     }
 
+    // Guarded By Segment.this
+    int accessRegion;
+
+    @Override
+    public int getAccessRegion() {
+      return accessRegion;
+    }
+
+    @Override
+    public void setAccessRegion(int region) {
+      this.accessRegion = region;
+    }
+
     // The code below is exactly the same for each write entry type.
 
     volatile long writeTime = Long.MAX_VALUE;
@@ -2059,7 +2181,8 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     /**
      * The recency queue is used to record which entries were accessed for updating the access
      * list's ordering. It is drained as a batch operation when either the DRAIN_THRESHOLD is
-     * crossed or a write occurs on the segment.
+     * crossed or a write occurs on the segment. It is a lossy {@link ReadBuffer}, so that reads
+     * neither allocate nor contend on a shared queue node.
      */
     final Queue<ReferenceEntry<K, V>> recencyQueue;
 
@@ -2078,7 +2201,9 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
 
     /**
      * A queue of elements currently in the map, ordered by access time. Elements are added to the
-     * tail of the queue on access (note that writes count as accesses).
+     * tail of the queue on access (note that writes count as accesses). When the Window TinyLFU
+     * eviction policy is used, this is a {@link WindowTinyLfuQueue}, whose regions are each ordered
+     * by access time, and whose {@code peek} returns the least recently accessed entry.
      */
     @GuardedBy("this")
     final Queue<ReferenceEntry<K, V>> accessQueue;
@@ -2100,16 +2225,25 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
            ? new ReferenceQueue<V>() : null;
 
       recencyQueue = map.usesAccessQueue()
-          ? new ConcurrentLinkedQueue<ReferenceEntry<K, V>>()
+          ? new ReadBuffer<ReferenceEntry<K, V>>()
           : LocalCache.<ReferenceEntry<K, V>>discardingQueue();
 
       writeQueue = map.usesWriteQueue()
           ? new WriteQueue<K, V>()
           : LocalCache.<ReferenceEntry<K, V>>discardingQueue();
 
-      accessQueue = map.usesAccessQueue()
-          ? new AccessQueue<K, V>()
-          : LocalCache.<ReferenceEntry<K, V>>discardingQueue();
+      if (map.usesWindowTinyLfu()) {
+        // without a custom weigher the number of entries is known; growing the sketch later would
+        // discard the frequencies it has recorded
+        int expectedSize = map.customWeigher()
+            ? initialCapacity
+            : (int) Math.min(maxSegmentWeight, MAXIMUM_CAPACITY);
+        accessQueue = new WindowTinyLfuQueue<K, V>(expectedSize);
+      } else {
+        accessQueue = map.usesAccessQueue()
+            ? new AccessQueue<K, V>()
+            : LocalCache.<ReferenceEntry<K, V>>discardingQueue();
+      }
     }
 
     AtomicReferenceArray<ReferenceEntry<K, V>> newEntryArray(int size) {
@@ -2364,6 +2498,14 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
         CacheLoader<? super K, V> loader) {
       if (map.refreshes() && (now - entry.getWriteTime() > map.refreshNanos)
           && !entry.getValueReference().isLoading()) {
+        if (map.refreshBatcher != null) {
+          LoadingValueReference<K, V> loadingValueReference =
+              insertLoadingValueReference(key, hash, true);
+          if (loadingValueReference != null) {
+            map.refreshBatcher.schedule(this, key, hash, loadingValueReference, loader);
+          }
+          return oldValue;
+        }
         V newValue = refresh(key, hash, loader, true);
         if (newValue != null) {
           return newValue;
@@ -2533,7 +2675,8 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     /**
      * Records the relative order in which this read was performed by adding {@code entry} to the
      * recency queue. At write-time, or when the queue is full past the threshold, the queue will
-     * be drained and the entries therein processed.
+     * be drained and the entries therein processed. Under contention the read may be dropped, in
+     * which case only its access time is recorded.
      *
      * <p>Note: locked reads should use {@link #recordLockedRead}.
      */
@@ -2541,7 +2684,7 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
       if (map.recordsAccess()) {
         entry.setAccessTime(now);
       }
-      recencyQueue.add(entry);
+      recencyQueue.offer(entry);
     }
 
     /**
@@ -2675,6 +2818,9 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     // TODO(fry): instead implement this with an eviction head
     @GuardedBy("this")
     ReferenceEntry<K, V> getNextEvictable() {
+      if (map.usesWindowTinyLfu()) {
+        return ((WindowTinyLfuQueue<K, V>) accessQueue).nextEvictable(statsCounter);
+      }
       for (ReferenceEntry<K, V> e : accessQueue) {
         int weight = e.getValueReference().getWeight();
         if (weight > 0) {
@@ -3578,6 +3724,147 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     }
   }
 
+  /**
+   * Collects the automatic refreshes scheduled by readers, and performs them in batches on the
+   * refresh executor (see {@link CacheBuilder#refreshExecutor}). Refreshes that use the same
+   * loader are reloaded by a single call to {@link CacheLoader#loadAll}, falling back to one {@link
+   * CacheLoader#reload} call each if the loader doesn't implement {@code loadAll}.
+   */
+  final class RefreshBatcher implements Runnable {
+    final Executor executor;
+    final long batchNanos;
+
+    final Queue<PendingRefresh<K, V>> pending = new ConcurrentLinkedQueue<PendingRefresh<K, V>>();
+
+    /** Whether a task has been submitted that has not started collecting {@link #pending} yet. */
+    final AtomicBoolean scheduled = new AtomicBoolean();
+
+    RefreshBatcher(Executor executor, long batchNanos) {
+      this.executor = checkNotNull(executor);
+      this.batchNanos = batchNanos;
+    }
+
+    /**
+     * Schedules the refresh of {@code key}, whose entry has just been given the new {@code
+     * loadingValueReference}.
+     */
+    void schedule(Segment<K, V> segment, K key, int hash,
+        LoadingValueReference<K, V> loadingValueReference, CacheLoader<? super K, V> loader) {
+      pending.add(new PendingRefresh<K, V>(segment, key, hash, loadingValueReference, loader));
+      if (scheduled.compareAndSet(false, true)) {
+        try {
+          executor.execute(this);
+        } catch (RuntimeException e) {
+          // typically a RejectedExecutionException; abandon the refreshes rather than run them here
+          scheduled.set(false);
+          for (PendingRefresh<K, V> refresh; (refresh = pending.poll()) != null; ) {
+            refresh.complete(Futures.<V>immediateFailedFuture(e));
+          }
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      if (batchNanos > 0) {
+        Uninterruptibles.sleepUninterruptibly(batchNanos, NANOSECONDS);
+      }
+      // refreshes scheduled from now on need another task, unless this one happens to collect them
+      scheduled.set(false);
+
+      Map<CacheLoader<? super K, V>, List<PendingRefresh<K, V>>> batches = Maps.newLinkedHashMap();
+      for (PendingRefresh<K, V> refresh; (refresh = pending.poll()) != null; ) {
+        List<PendingRefresh<K, V>> batch = batches.get(refresh.loader);
+        if (batch == null) {
+          batch = Lists.newArrayList();
+          batches.put(refresh.loader, batch);
+        }
+        batch.add(refresh);
+      }
+      for (Map.Entry<CacheLoader<? super K, V>, List<PendingRefresh<K, V>>> batch
+          : batches.entrySet()) {
+        reload(batch.getKey(), batch.getValue());
+      }
+    }
+
+    void reload(CacheLoader<? super K, V> loader, List<PendingRefresh<K, V>> batch) {
+      Set<K> keys = Sets.newLinkedHashSet();
+      for (PendingRefresh<K, V> refresh : batch) {
+        keys.add(refresh.key);
+        refresh.loadingValueReference.stopwatch.start();
+      }
+
+      Map<K, V> result;
+      try {
+        @SuppressWarnings("unchecked") // safe since all keys extend K
+        Map<K, V> map = (Map<K, V>) loader.loadAll(keys);
+        result = map;
+      } catch (UnsupportedLoadingOperationException e) {
+        for (PendingRefresh<K, V> refresh : batch) {
+          refresh.loadingValueReference.stopwatch.reset();
+          refresh.segment.loadAsync(
+              refresh.key, refresh.hash, refresh.loadingValueReference, refresh.loader);
+        }
+        return;
+      } catch (Throwable t) {
+        if (t instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        for (PendingRefresh<K, V> refresh : batch) {
+          refresh.complete(Futures.<V>immediateFailedFuture(t));
+        }
+        return;
+      }
+
+      if (result == null) {
+        Throwable t = new InvalidCacheLoadException(loader + " returned null map from loadAll");
+        for (PendingRefresh<K, V> refresh : batch) {
+          refresh.complete(Futures.<V>immediateFailedFuture(t));
+        }
+        return;
+      }
+      for (PendingRefresh<K, V> refresh : batch) {
+        V newValue = result.get(refresh.key);
+        if (newValue != null) {
+          // as in loadFuture, set the value before storing it
+          refresh.loadingValueReference.set(newValue);
+        }
+        refresh.complete(Futures.immediateFuture(newValue));
+      }
+    }
+  }
+
+  /** A refresh that was scheduled on a {@link RefreshBatcher}. */
+  static final class PendingRefresh<K, V> {
+    final Segment<K, V> segment;
+    final K key;
+    final int hash;
+    final LoadingValueReference<K, V> loadingValueReference;
+    final CacheLoader<? super K, V> loader;
+
+    PendingRefresh(Segment<K, V> segment, K key, int hash,
+        LoadingValueReference<K, V> loadingValueReference, CacheLoader<? super K, V> loader) {
+      this.segment = segment;
+      this.key = key;
+      this.hash = hash;
+      this.loadingValueReference = loadingValueReference;
+      this.loader = loader;
+    }
+
+    /**
+     * Stores the refreshed value, or restores the old value if the refresh failed. As with other
+     * refreshes, a failure is logged and swallowed.
+     */
+    void complete(ListenableFuture<V> newValue) {
+      try {
+        segment.getAndRecordStats(key, hash, loadingValueReference, newValue);
+      } catch (Throwable t) {
+        logger.log(Level.WARNING, "Exception thrown during refresh", t);
+        loadingValueReference.setException(t);
+      }
+    }
+  }
+
   // Queues
 
   /**
@@ -3854,6 +4141,243 @@ class LocalCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>
     }
   }
 
+  /**
+   * An access queue implementing the Window TinyLFU eviction policy (see {@link
+   * EvictionPolicy#WINDOW_TINY_LFU}). Each entry is kept in one of three regions, each ordered by
+   * access time:
+   *
+   * <ul>
+   * <li>the <i>window</i>, which every new entry enters, and which is kept to about 1% of the
+   *     entries once the segment has to evict;
+   * <li>the <i>probation</i> region, which holds entries admitted from the window, as well as
+   *     entries demoted from the protected region, in two queues;
+   * <li>the <i>protected</i> region, which holds entries that were accessed while on probation,
+   *     and which is bounded to 80% of the entries outside the window.
+   * </ul>
+   *
+   * <p>When the segment is over its maximum weight, the least recently used entry of the window
+   * competes against the least recently used entry of the probation region, and whichever the
+   * {@link FrequencySketch} estimates to be less popular is evicted.
+   *
+   * <p>Every entry is appended to the tail of its queue, and each queue stays ordered by access
+   * time: the window and the protected region only receive entries as they are accessed, and the
+   * entries admitted into the probation region (or demoted into it) are the least recently used
+   * entries of the window (or of the protected region), whose access times never decrease. So the
+   * oldest queue head is the least recently accessed entry, and all the operations are O(1).
+   * Viewed as a {@code Queue}, {@link #offer} records an access to an entry (adding it to the
+   * window if it is new) and {@link #peek} returns that oldest head, so the segment can use the
+   * queue in place of an {@link AccessQueue} for expiration and bookkeeping.
+   */
+  static final class WindowTinyLfuQueue<K, V> extends AbstractQueue<ReferenceEntry<K, V>> {
+    static final int WINDOW = 0;
+    static final int PROBATION = 1;
+    static final int PROTECTED = 2;
+    /** The probation region's entries that were demoted from the protected region. */
+    static final int DEMOTED = 3;
+
+    final AccessQueue<K, V> window = new AccessQueue<K, V>();
+    final AccessQueue<K, V> probation = new AccessQueue<K, V>();
+    final AccessQueue<K, V> demoted = new AccessQueue<K, V>();
+    final AccessQueue<K, V> protectedQueue = new AccessQueue<K, V>();
+
+    final FrequencySketch sketch;
+
+    int windowSize;
+    int probationSize;
+    int protectedSize;
+
+    WindowTinyLfuQueue(int initialCapacity) {
+      this.sketch = new FrequencySketch(initialCapacity);
+    }
+
+    /**
+     * Returns the entry to evict next, promoting window entries into the probation region as a
+     * side effect. Rejected window entries are reported to {@code statsCounter}, if it is a {@link
+     * SimpleStatsCounter}.
+     */
+    ReferenceEntry<K, V> nextEvictable(StatsCounter statsCounter) {
+      // the segment is over its maximum by (at least) the entry that was just added
+      int maxWindowSize = Math.max(1, size() / 100);
+      int maxMainSize = size() - 1 - maxWindowSize;
+      while (true) {
+        ReferenceEntry<K, V> candidate =
+            (windowSize > maxWindowSize) ? firstEvictable(window) : null;
+        ReferenceEntry<K, V> victim = older(firstEvictable(probation), firstEvictable(demoted));
+        if (victim == null) {
+          victim = firstEvictable(protectedQueue);
+        }
+
+        if (candidate == null) {
+          if (victim == null) {
+            victim = firstEvictable(window);
+            if (victim == null) {
+              throw new AssertionError();
+            }
+          }
+          return victim;
+        } else if (victim == null || probationSize + protectedSize < maxMainSize) {
+          // the main regions have not filled up yet, so admit the candidate unconditionally
+          moveToRegion(candidate, PROBATION);
+        } else if (sketch.frequency(candidate.getHash()) > sketch.frequency(victim.getHash())) {
+          moveToRegion(candidate, PROBATION);
+          return victim;
+        } else {
+          if (statsCounter instanceof SimpleStatsCounter) {
+            ((SimpleStatsCounter) statsCounter).recordAdmissionRejection();
+          }
+          return candidate;
+        }
+      }
+    }
+
+    /** Returns the least recently used entry of {@code region} that may be evicted by size. */
+    @Nullable
+    static <K, V> ReferenceEntry<K, V> firstEvictable(AccessQueue<K, V> region) {
+      for (ReferenceEntry<K, V> e : region) {
+        if (e.getValueReference().getWeight() > 0) {
+          return e;
+        }
+      }
+      return null;
+    }
+
+    /** Returns whichever of two entries, either of which may be null, was accessed first. */
+    @Nullable
+    static <K, V> ReferenceEntry<K, V> older(
+        @Nullable ReferenceEntry<K, V> first, @Nullable ReferenceEntry<K, V> second) {
+      if (first == null || (second != null && second.getAccessTime() < first.getAccessTime())) {
+        return second;
+      }
+      return first;
+    }
+
+    AccessQueue<K, V> region(int region) {
+      switch (region) {
+        case WINDOW:
+          return window;
+        case PROBATION:
+          return probation;
+        case DEMOTED:
+          return demoted;
+        case PROTECTED:
+          return protectedQueue;
+        default:
+          throw new AssertionError();
+      }
+    }
+
+    void adjustSize(int region, int delta) {
+      switch (region) {
+        case WINDOW:
+          windowSize += delta;
+          break;
+        case PROBATION:
+        case DEMOTED:
+          probationSize += delta;
+          break;
+        case PROTECTED:
+          protectedSize += delta;
+          break;
+        default:
+          throw new AssertionError();
+      }
+    }
+
+    /**
+     * Moves {@code entry}, which must be in this queue, to the tail of {@code newRegion}.
+     */
+    void moveToRegion(ReferenceEntry<K, V> entry, int newRegion) {
+      adjustSize(entry.getAccessRegion(), -1);
+      entry.setAccessRegion(newRegion);
+      region(newRegion).offer(entry);
+      adjustSize(newRegion, 1);
+    }
+
+    // implements Queue
+
+    @Override
+    public boolean offer(ReferenceEntry<K, V> entry) {
+      if (!contains(entry)) {
+        if (size() >= sketch.capacity()) {
+          sketch.ensureCapacity(size() + 1);
+        }
+        entry.setAccessRegion(WINDOW);
+        window.offer(entry);
+        windowSize++;
+      } else if (entry.getAccessRegion() == PROBATION || entry.getAccessRegion() == DEMOTED) {
+        moveToRegion(entry, PROTECTED);
+        int maxProtectedSize = (size() - windowSize) * 4 / 5;
+        while (protectedSize > maxProtectedSize) {
+          moveToRegion(protectedQueue.peek(), DEMOTED);
+        }
+      } else {
+        region(entry.getAccessRegion()).offer(entry);
+      }
+      sketch.increment(entry.getHash());
+      return true;
+    }
+
+    @Override
+    public ReferenceEntry<K, V> peek() {
+      return older(older(window.peek(), probation.peek()),
+          older(demoted.peek(), protectedQueue.peek()));
+    }
+
+    @Override
+    public ReferenceEntry<K, V> poll() {
+      ReferenceEntry<K, V> oldest = peek();
+      if (oldest != null) {
+        remove(oldest);
+      }
+      return oldest;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+      ReferenceEntry<K, V> e = (ReferenceEntry) o;
+      if (!contains(e)) {
+        return false;
+      }
+      adjustSize(e.getAccessRegion(), -1);
+      return region(e.getAccessRegion()).remove(e);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+      ReferenceEntry<K, V> e = (ReferenceEntry) o;
+      return e.getNextInAccessQueue() != NullEntry.INSTANCE;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    @Override
+    public int size() {
+      return windowSize + probationSize + protectedSize;
+    }
+
+    @Override
+    public void clear() {
+      window.clear();
+      probation.clear();
+      demoted.clear();
+      protectedQueue.clear();
+      windowSize = 0;
+      probationSize = 0;
+      protectedSize = 0;
+    }
+
+    @Override
+    public Iterator<ReferenceEntry<K, V>> iterator() {
+      return Iterators.concat(window.iterator(), probation.iterator(), demoted.iterator(),
+          protectedQueue.iterator());
+    }
+  }
+
   // Cache support
 
   public void cleanUp() {
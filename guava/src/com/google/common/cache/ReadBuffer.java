@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.AbstractIterator;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lossy buffer of the reads recorded by a {@link LocalCache} segment, waiting to be
+ * applied to the segment's access order under its lock.
+ *
+ * <p>The buffer is split into stripes, each of which is a fixed-size ring. A thread always offers
+ * to the same stripe, so the reads of a single thread are drained in the order they happened.
+ * Offering never blocks and, once a thread's stripe has been created, never allocates: if the
+ * stripe is full, or if another thread is concurrently offering to it, the element is simply
+ * dropped. Losing a few reads only makes the access order slightly less precise.
+ *
+ * <p>Any thread may {@linkplain #offer offer} elements, but only one thread at a time may {@link
+ * #poll} them; {@link LocalCache} polls only under the segment lock. The {@link #iterator} is
+ * weakly consistent and does not support removal.
+ */
+final class ReadBuffer<E> extends AbstractQueue<E> {
+  /** Number of CPUS, to place bounds on the number of stripes. */
+  static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+  /** The maximum number of stripes, which must be a power of two. */
+  static final int MAXIMUM_STRIPES =
+      Math.min(Integer.highestOneBit(Math.max(NCPU - 1, 1)) << 1, 64);
+
+  /**
+   * The number of elements each stripe can hold, which must be a power of two. This is the number
+   * of reads after which a segment attempts to drain the buffer, {@code DRAIN_THRESHOLD + 1},
+   * rounded up to a power of two, so that a single thread never loses a read.
+   */
+  static final int RING_SIZE = Integer.highestOneBit(Math.max(LocalCache.DRAIN_THRESHOLD, 1) << 1);
+
+  static final int RING_MASK = RING_SIZE - 1;
+
+  final AtomicReferenceArray<Ring<E>> stripes =
+      new AtomicReferenceArray<Ring<E>>(MAXIMUM_STRIPES);
+
+  @Override
+  public boolean offer(E e) {
+    checkNotNull(e);
+    int index = stripeIndex(Thread.currentThread()) & (MAXIMUM_STRIPES - 1);
+    Ring<E> ring = stripes.get(index);
+    if (ring == null) {
+      stripes.compareAndSet(index, null, new Ring<E>());
+      ring = stripes.get(index);
+    }
+    return ring.offer(e);
+  }
+
+  @Override
+  public E poll() {
+    for (int i = 0; i < MAXIMUM_STRIPES; i++) {
+      Ring<E> ring = stripes.get(i);
+      if (ring != null) {
+        E e = ring.poll();
+        if (e != null) {
+          return e;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public E peek() {
+    for (int i = 0; i < MAXIMUM_STRIPES; i++) {
+      Ring<E> ring = stripes.get(i);
+      if (ring != null) {
+        E e = ring.peek();
+        if (e != null) {
+          return e;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < MAXIMUM_STRIPES; i++) {
+      Ring<E> ring = stripes.get(i);
+      if (ring != null) {
+        size += ring.size();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new AbstractIterator<E>() {
+      int stripe = 0;
+      long position = -1;
+
+      @Override
+      protected E computeNext() {
+        for (; stripe < MAXIMUM_STRIPES; stripe++, position = -1) {
+          Ring<E> ring = stripes.get(stripe);
+          if (ring == null) {
+            continue;
+          }
+          if (position < 0) {
+            position = ring.readCounter.get();
+          }
+          if (position < ring.writeCounter.get()) {
+            E e = ring.buffer.get(ringIndex(position++));
+            if (e != null) {
+              return e;
+            }
+          }
+        }
+        return endOfData();
+      }
+    };
+  }
+
+  /**
+   * Returns the stripe used by {@code thread}. Thread ids are usually handed out sequentially, so
+   * a few threads are unlikely to share a stripe.
+   */
+  static int stripeIndex(Thread thread) {
+    long id = thread.getId();
+    return (int) (id ^ (id >>> 32));
+  }
+
+  static int ringIndex(long counter) {
+    return ((int) counter) & RING_MASK;
+  }
+
+  /**
+   * A single-consumer ring buffer. A producer claims a slot by advancing {@link #writeCounter}
+   * and then publishes its element into it; the consumer empties a slot before advancing {@link
+   * #readCounter}, so a claimed slot is always empty.
+   */
+  static final class Ring<E> {
+    final AtomicLong readCounter = new AtomicLong();
+    final AtomicLong writeCounter = new AtomicLong();
+    final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<E>(RING_SIZE);
+
+    boolean offer(E e) {
+      long head = readCounter.get();
+      long tail = writeCounter.get();
+      if (tail - head >= RING_SIZE) {
+        return false;
+      }
+      if (!writeCounter.compareAndSet(tail, tail + 1)) {
+        // another thread won the slot; rather than retry, drop the read
+        return false;
+      }
+      buffer.lazySet(ringIndex(tail), e);
+      return true;
+    }
+
+    /** Returns the next element, or null if it has not been published yet. */
+    E poll() {
+      long head = readCounter.get();
+      int index = ringIndex(head);
+      E e = buffer.get(index);
+      if (e == null) {
+        return null;
+      }
+      buffer.lazySet(index, null);
+      readCounter.lazySet(head + 1);
+      return e;
+    }
+
+    E peek() {
+      return buffer.get(ringIndex(readCounter.get()));
+    }
+
+    int size() {
+      long head = readCounter.get();
+      return (int) (writeCounter.get() - head);
+    }
+  }
+}
@@ -58,6 +58,21 @@ abstract class AbstractByteHasher extends AbstractHasher {
     }
   }
 
+  /**
+   * Updates this hasher with the remaining bytes of the given buffer, and leaves its position equal
+   * to its limit. The bytes of heap buffers are passed to {@link #update(byte[], int, int)}.
+   */
+  protected void update(ByteBuffer b) {
+    if (b.hasArray()) {
+      update(b.array(), b.arrayOffset() + b.position(), b.remaining());
+      b.position(b.limit());
+    } else {
+      for (int remaining = b.remaining(); remaining > 0; remaining--) {
+        update(b.get());
+      }
+    }
+  }
+
   @Override
   public Hasher putByte(byte b) {
     update(b);
@@ -78,6 +93,12 @@ abstract class AbstractByteHasher extends AbstractHasher {
     return this;
   }
 
+  @Override
+  public Hasher putBytes(ByteBuffer bytes) {
+    update(bytes);
+    return this;
+  }
+
   /**
    * Updates the sink with the given number of bytes from the buffer.
    */
@@ -18,6 +18,7 @@ package com.google.common.hash;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -73,6 +74,15 @@ abstract class AbstractCompositeHashFunction extends AbstractStreamingHashFuncti
         return this;
       }
 
+      @Override public Hasher putBytes(ByteBuffer bytes) {
+        int position = bytes.position();
+        for (Hasher hasher : hashers) {
+          bytes.position(position);
+          hasher.putBytes(bytes);
+        }
+        return this;
+      }
+
       @Override public Hasher putShort(short s) {
         for (Hasher hasher : hashers) {
           hasher.putShort(s);
@@ -146,6 +156,21 @@ abstract class AbstractCompositeHashFunction extends AbstractStreamingHashFuncti
       @Override public HashCode hash() {
         return makeHash(hashers);
       }
+
+      @Override public long hashToLong() {
+        return hash().padToLong();
+      }
+
+      @Override public int hashToInt() {
+        return hash().asInt();
+      }
+
+      @Override public Hasher reset() {
+        for (Hasher hasher : hashers) {
+          hasher.reset();
+        }
+        return this;
+      }
     };
   }
 
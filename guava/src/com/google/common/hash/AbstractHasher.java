@@ -14,6 +14,8 @@
 
 package com.google.common.hash;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
 /**
@@ -46,4 +48,38 @@ abstract class AbstractHasher implements Hasher {
   @Override public Hasher putString(CharSequence charSequence, Charset charset) {
     return putBytes(charSequence.toString().getBytes(charset));
   }
+
+  @Override public Hasher putBytes(ByteBuffer bytes) {
+    if (bytes.hasArray()) {
+      putBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+      bytes.position(bytes.limit());
+      return this;
+    }
+    ByteOrder order = bytes.order();
+    try {
+      // putLong writes little-endian bytes, so this puts the bytes in their order in the buffer
+      bytes.order(ByteOrder.LITTLE_ENDIAN);
+      while (bytes.remaining() >= 8) {
+        putLong(bytes.getLong());
+      }
+      while (bytes.hasRemaining()) {
+        putByte(bytes.get());
+      }
+    } finally {
+      bytes.order(order);
+    }
+    return this;
+  }
+
+  @Override public long hashToLong() {
+    return hash().padToLong();
+  }
+
+  @Override public int hashToInt() {
+    return hash().asInt();
+  }
+
+  @Override public Hasher reset() {
+    throw new UnsupportedOperationException();
+  }
 }
@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -66,10 +67,43 @@ abstract class AbstractNonStreamingHashFunction implements HashFunction {
     return newHasher(8).putLong(input).hash();
   }
 
+  @Override public void hashInts(int[] input, long[] output) {
+    Preconditions.checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hashInt(input[i]).padToLong();
+    }
+  }
+
+  @Override public void hashLongs(long[] input, long[] output) {
+    Preconditions.checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hashLong(input[i]).padToLong();
+    }
+  }
+
   @Override public HashCode hashBytes(byte[] input) {
     return hashBytes(input, 0, input.length);
   }
 
+  @Override public long hashBytesToLong(byte[] input, int off, int len) {
+    return hashBytes(input, off, len).padToLong();
+  }
+
+  @Override public HashCode hashBytes(ByteBuffer input) {
+    if (input.hasArray()) {
+      HashCode hashCode =
+          hashBytes(input.array(), input.arrayOffset() + input.position(), input.remaining());
+      input.position(input.limit());
+      return hashCode;
+    }
+    // the bytes of a direct buffer have to be gathered in an array for hashBytes
+    byte[] bytes = new byte[input.remaining()];
+    input.get(bytes);
+    return hashBytes(bytes);
+  }
+
   /**
    * In-memory stream-based implementation of Hasher.
    */
@@ -144,6 +178,17 @@ abstract class AbstractNonStreamingHashFunction implements HashFunction {
     public HashCode hash() {
       return hashBytes(stream.byteArray(), 0, stream.length());
     }
+
+    @Override
+    public long hashToLong() {
+      return hashBytesToLong(stream.byteArray(), 0, stream.length());
+    }
+
+    @Override
+    public Hasher reset() {
+      stream.reset();
+      return this;
+    }
   }
 
   // Just to access the byte[] without introducing an unnecessary copy
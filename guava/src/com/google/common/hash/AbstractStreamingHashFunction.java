@@ -53,6 +53,22 @@ abstract class AbstractStreamingHashFunction implements HashFunction {
     return newHasher().putLong(input).hash();
   }
 
+  @Override public void hashInts(int[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hashInt(input[i]).padToLong();
+    }
+  }
+
+  @Override public void hashLongs(long[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hashLong(input[i]).padToLong();
+    }
+  }
+
   @Override public HashCode hashBytes(byte[] input) {
     return newHasher().putBytes(input).hash();
   }
@@ -61,6 +77,14 @@ abstract class AbstractStreamingHashFunction implements HashFunction {
     return newHasher().putBytes(input, off, len).hash();
   }
 
+  @Override public HashCode hashBytes(ByteBuffer input) {
+    return newHasher().putBytes(input).hash();
+  }
+
+  @Override public long hashBytesToLong(byte[] input, int off, int len) {
+    return newHasher().putBytes(input, off, len).hashToLong();
+  }
+
   @Override public Hasher newHasher(int expectedInputSize) {
     Preconditions.checkArgument(expectedInputSize >= 0);
     return newHasher();
@@ -147,10 +171,22 @@ abstract class AbstractStreamingHashFunction implements HashFunction {
 
     @Override
     public final Hasher putBytes(byte[] bytes, int off, int len) {
-      return putBytes(ByteBuffer.wrap(bytes, off, len).order(ByteOrder.LITTLE_ENDIAN));
+      return putBytesLittleEndian(
+          ByteBuffer.wrap(bytes, off, len).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Override
+    public final Hasher putBytes(ByteBuffer bytes) {
+      // process() reads the chunks of direct and heap buffers alike in place
+      ByteOrder order = bytes.order();
+      try {
+        return putBytesLittleEndian(bytes.order(ByteOrder.LITTLE_ENDIAN));
+      } finally {
+        bytes.order(order);
+      }
     }
 
-    private Hasher putBytes(ByteBuffer readBuffer) {
+    private Hasher putBytesLittleEndian(ByteBuffer readBuffer) {
       // If we have room for all of it, this is easy
       if (readBuffer.remaining() <= buffer.remaining()) {
         buffer.put(readBuffer);
@@ -226,16 +262,47 @@ abstract class AbstractStreamingHashFunction implements HashFunction {
 
     @Override
     public final HashCode hash() {
+      processBuffered();
+      return makeHash();
+    }
+
+    @Override
+    public final long hashToLong() {
+      processBuffered();
+      return makeHashToLong();
+    }
+
+    @Override
+    public final int hashToInt() {
+      return (int) hashToLong();
+    }
+
+    private void processBuffered() {
       munch();
       buffer.flip();
       if (buffer.remaining() > 0) {
         processRemaining(buffer);
       }
-      return makeHash();
     }
 
     abstract HashCode makeHash();
 
+    /**
+     * Returns {@code makeHash().padToLong()}. Subclasses may override this to compute the result
+     * without creating a {@code HashCode}.
+     */
+    long makeHashToLong() {
+      return makeHash().padToLong();
+    }
+
+    /**
+     * Discards the buffered bytes not processed yet. Subclasses supporting {@link #reset} call this
+     * method, then reset their own state.
+     */
+    final void clearBuffer() {
+      buffer.clear();
+    }
+
     // Process pent-up data in chunks
     private void munchIfFull() {
       if (buffer.remaining() < 8) {
@@ -20,8 +20,14 @@ import com.google.common.math.LongMath;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 
+import java.io.IOException;
 import java.math.RoundingMode;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nullable;
 
 /**
  * Collections of strategies of generating the k * log(M) bits required for an element to
@@ -130,81 +136,446 @@ enum BloomFilterStrategies implements BloomFilter.Strategy {
           bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
     }
 
+    private /* static */ long upperEight(byte[] bytes) {
+      return Longs.fromBytes(
+          bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+    }
+  },
+  /**
+   * A blocked Bloom filter, as described in "Cache-, Hash- and Space-Efficient Bloom Filters" by
+   * Felix Putze, Peter Sanders and Johannes Singler. All the bits of an element are chosen within a
+   * single block of {@link #BLOCK_BITS} bits (a typical cache line), so each operation touches one
+   * cache line however many hash functions there are. The lower 64 bits of {@link
+   * Hashing#murmur3_128} choose the block, and successive 9-bit slices of the upper 64 bits choose
+   * the bits within it; once the slices run out, the upper bits are remixed.
+   *
+   * <p>This strategy requires the bit array to consist of whole blocks. For the same size and
+   * number of hash functions, its false positive probability is somewhat higher than that of the
+   * other strategies, because some blocks receive more elements than others.
+   */
+  MURMUR128_BLOCKED_512() {
+    @Override
+    public <T> boolean put(T object, Funnel<? super T> funnel,
+        int numHashFunctions, BitArray bits) {
+      byte[] bytes = Hashing.murmur3_128().hashObject(object, funnel).getBytesInternal();
+      long blockStart = blockStart(lowerEight(bytes), bits);
+      long hash = upperEight(bytes);
+
+      boolean bitsChanged = false;
+      long slices = hash;
+      for (int i = 0; i < numHashFunctions; i++) {
+        if (i % SLICES_PER_LONG == 0 && i > 0) {
+          hash = remix(hash);
+          slices = hash;
+        }
+        bitsChanged |= bits.set(blockStart + (slices & BLOCK_MASK));
+        slices >>>= SLICE_BITS;
+      }
+      return bitsChanged;
+    }
+
+    @Override
+    public <T> boolean mightContain(T object, Funnel<? super T> funnel,
+        int numHashFunctions, BitArray bits) {
+      byte[] bytes = Hashing.murmur3_128().hashObject(object, funnel).getBytesInternal();
+      long blockStart = blockStart(lowerEight(bytes), bits);
+      long hash = upperEight(bytes);
+
+      long slices = hash;
+      for (int i = 0; i < numHashFunctions; i++) {
+        if (i % SLICES_PER_LONG == 0 && i > 0) {
+          hash = remix(hash);
+          slices = hash;
+        }
+        if (!bits.get(blockStart + (slices & BLOCK_MASK))) {
+          return false;
+        }
+        slices >>>= SLICE_BITS;
+      }
+      return true;
+    }
+
+    private /* static */ long blockStart(long hash, BitArray bits) {
+      long numBlocks = bits.bitSize() / BLOCK_BITS;
+      return ((hash & Long.MAX_VALUE) % numBlocks) * BLOCK_BITS;
+    }
+
+    /** The finalization mix of {@link Murmur3_128HashFunction}. */
+    private /* static */ long remix(long k) {
+      k ^= k >>> 33;
+      k *= 0xff51afd7ed558ccdL;
+      k ^= k >>> 33;
+      k *= 0xc4ceb9fe1a85ec53L;
+      k ^= k >>> 33;
+      return k;
+    }
+
+    private /* static */ long lowerEight(byte[] bytes) {
+      return Longs.fromBytes(
+          bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+    }
+
     private /* static */ long upperEight(byte[] bytes) {
       return Longs.fromBytes(
           bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
     }
   };
 
-  // Note: We use this instead of java.util.BitSet because we need access to the long[] data field
-  static final class BitArray {
-    final long[] data;
-    long bitCount;
+  /** The number of bits in a block of {@link #MURMUR128_BLOCKED_512}. */
+  static final int BLOCK_BITS = 512;
+
+  private static final long BLOCK_MASK = BLOCK_BITS - 1;
+  private static final int SLICE_BITS = 9; // log2(BLOCK_BITS)
+  private static final int SLICES_PER_LONG = Long.SIZE / SLICE_BITS;
+
+  /**
+   * The bits of a Bloom filter, stored as an array of longs in which bit {@code i} is bit {@code i
+   * % 64} of long {@code i / 64}. Implementations may be read and updated by any number of
+   * threads without external synchronization; {@link #bitCount} may briefly lag behind concurrent
+   * updates.
+   */
+  abstract static class BitArray {
+    /** Returns true if the bit changed value. */
+    abstract boolean set(long index);
+
+    abstract boolean get(long index);
+
+    /** Number of longs */
+    abstract int dataLength();
+
+    /** Returns the long at {@code longIndex}. */
+    abstract long getLong(int longIndex);
+
+    /** Number of bits */
+    final long bitSize() {
+      return (long) dataLength() * Long.SIZE;
+    }
+
+    /** Number of set bits (1s) */
+    abstract long bitCount();
+
+    /** Combines the two BitArrays using bitwise OR. */
+    abstract void putAll(BitArray array);
+
+    /** Returns a heap copy of this array. */
+    final BitArray copy() {
+      return new LockFreeBitArray(toPlainArray());
+    }
+
+    /** Returns a snapshot of the bits of this array, one long at a time. */
+    final long[] toPlainArray() {
+      long[] array = new long[dataLength()];
+      for (int i = 0; i < array.length; ++i) {
+        array[i] = getLong(i);
+      }
+      return array;
+    }
+
+    final void checkSameLength(BitArray array) {
+      checkArgument(dataLength() == array.dataLength(),
+          "BitArrays must be of equal length (%s != %s)", dataLength(), array.dataLength());
+    }
+
+    @Override public final boolean equals(Object o) {
+      if (o instanceof BitArray) {
+        BitArray bitArray = (BitArray) o;
+        int length = dataLength();
+        if (length != bitArray.dataLength()) {
+          return false;
+        }
+        for (int i = 0; i < length; i++) {
+          if (getLong(i) != bitArray.getLong(i)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return false;
+    }
+
+    /** Returns the same hash code as {@link java.util.Arrays#hashCode(long[])} of the longs. */
+    @Override public final int hashCode() {
+      int result = 1;
+      for (int i = 0; i < dataLength(); i++) {
+        result = 31 * result + Longs.hashCode(getLong(i));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A count of the bits set in a bit array, split into cells so that concurrent updates rarely
+   * contend. An update goes to the cell picked by the index of the long it changed: as a Bloom
+   * filter sets bits at random positions, its threads update random cells.
+   */
+  static final class BitCounter {
+    /** The spacing of the cells, in longs, so that no two of them share a cache line. */
+    private static final int CELL_SPACING = 8;
+
+    /** The number of processors, rounded up to a power of two. */
+    private static final int MAX_CELLS =
+        Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    private final AtomicLongArray cells;
+    private final int cellMask;
 
-    BitArray(long bits) {
-      this(new long[Ints.checkedCast(LongMath.divide(bits, 64, RoundingMode.CEILING))]);
+    /** Creates a counter of {@code initialCount} for an array of {@code dataLength} longs. */
+    BitCounter(int dataLength, long initialCount) {
+      // there is no point in having more cells than longs
+      int cellCount = Math.min(MAX_CELLS, Integer.highestOneBit(dataLength));
+      this.cells = new AtomicLongArray(cellCount * CELL_SPACING);
+      this.cellMask = cellCount - 1;
+      cells.set(0, initialCount);
+    }
+
+    /** Adds {@code delta} bits set or cleared in the long at {@code longIndex}. */
+    void add(int longIndex, long delta) {
+      cells.addAndGet((longIndex & cellMask) * CELL_SPACING, delta);
+    }
+
+    /** Returns the count, which may miss the updates made while it is computed. */
+    long sum() {
+      long sum = 0;
+      for (int i = 0; i < cells.length(); i += CELL_SPACING) {
+        sum += cells.get(i);
+      }
+      return sum;
+    }
+  }
+
+  /**
+   * A bit array on the heap. Bits are set with compare-and-swap, so a concurrent {@link #set} is
+   * never lost and never blocks, and reads see every bit set before they started. The bit count
+   * is kept in a {@link BitCounter}.
+   */
+  static final class LockFreeBitArray extends BitArray {
+    final AtomicLongArray data;
+    private final BitCounter bitCount;
+
+    LockFreeBitArray(long bits) {
+      this(new AtomicLongArray(
+          Ints.checkedCast(LongMath.divide(bits, 64, RoundingMode.CEILING))), 0);
     }
 
     // Used by serialization
-    BitArray(long[] data) {
-      checkArgument(data.length > 0, "data length is zero!");
+    LockFreeBitArray(long[] data) {
+      this(new AtomicLongArray(data), countBits(data));
+    }
+
+    // We always use the atomic array, rather than a plain one for filters that are never shared,
+    // because a volatile read costs no more than a plain one on most processors.
+    private LockFreeBitArray(AtomicLongArray data, long bitCount) {
+      checkArgument(data.length() > 0, "data length is zero!");
       this.data = data;
+      this.bitCount = new BitCounter(data.length(), bitCount);
+    }
+
+    private static long countBits(long[] data) {
       long bitCount = 0;
       for (long value : data) {
         bitCount += Long.bitCount(value);
       }
-      this.bitCount = bitCount;
+      return bitCount;
     }
 
-    /** Returns true if the bit changed value. */
-    boolean set(long index) {
-      if (!get(index)) {
-        data[(int) (index >>> 6)] |= (1L << index);
-        bitCount++;
-        return true;
+    @Override boolean set(long index) {
+      if (get(index)) {
+        return false;
       }
-      return false;
+
+      int longIndex = (int) (index >>> 6);
+      long mask = 1L << index; // only cares about low 6 bits of index
+
+      long oldValue;
+      long newValue;
+      do {
+        oldValue = data.get(longIndex);
+        newValue = oldValue | mask;
+        if (oldValue == newValue) {
+          return false; // another thread set it first
+        }
+      } while (!data.compareAndSet(longIndex, oldValue, newValue));
+
+      bitCount.add(longIndex, 1);
+      return true;
     }
 
-    boolean get(long index) {
-      return (data[(int) (index >>> 6)] & (1L << index)) != 0;
+    @Override boolean get(long index) {
+      return (data.get((int) (index >>> 6)) & (1L << index)) != 0;
     }
 
-    /** Number of bits */
-    long bitSize() {
-      return (long) data.length * Long.SIZE;
+    @Override int dataLength() {
+      return data.length();
     }
 
-    /** Number of set bits (1s) */
-    long bitCount() {
-      return bitCount;
+    @Override long getLong(int longIndex) {
+      return data.get(longIndex);
     }
 
-    BitArray copy() {
-      return new BitArray(data.clone());
+    @Override long bitCount() {
+      return bitCount.sum();
     }
 
-    /** Combines the two BitArrays using bitwise OR. */
-    void putAll(BitArray array) {
-      checkArgument(data.length == array.data.length,
-          "BitArrays must be of equal length (%s != %s)", data.length, array.data.length);
-      bitCount = 0;
-      for (int i = 0; i < data.length; i++) {
-        data[i] |= array.data[i];
-        bitCount += Long.bitCount(data[i]);
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This is atomic for each long of the array, but not for the array as a whole.
+     */
+    @Override void putAll(BitArray array) {
+      checkSameLength(array);
+      for (int i = 0; i < data.length(); i++) {
+        long otherLong = array.getLong(i);
+
+        long ourLongOld;
+        long ourLongNew;
+        boolean changedAnyBits = true;
+        do {
+          ourLongOld = data.get(i);
+          ourLongNew = ourLongOld | otherLong;
+          if (ourLongOld == ourLongNew) {
+            changedAnyBits = false;
+            break;
+          }
+        } while (!data.compareAndSet(i, ourLongOld, ourLongNew));
+
+        if (changedAnyBits) {
+          bitCount.add(i, Long.bitCount(ourLongNew) - Long.bitCount(ourLongOld));
+        }
       }
     }
+  }
 
-    @Override public boolean equals(Object o) {
-      if (o instanceof BitArray) {
-        BitArray bitArray = (BitArray) o;
-        return Arrays.equals(data, bitArray.data);
+  /**
+   * A bit array in a memory-mapped file, in the layout of {@link BloomFilter#writeTo}: big-endian
+   * longs, starting at some offset in the file. The file is mapped in chunks, because a single
+   * mapping cannot exceed 2GB.
+   *
+   * <p>There is no compare-and-swap on a {@link ByteBuffer}, and its reads aren't volatile, so in
+   * a writable mapping, reads and updates of a long lock one of a few striped locks, picked by the
+   * index of the long. A read-only mapping can't change, so its reads take no lock. The bit count
+   * is only computed, by reading the whole file, the first time it is needed.
+   */
+  static final class MappedBitArray extends BitArray {
+    /** The number of longs in each chunk but the last. */
+    static final int LONGS_PER_CHUNK = 1 << 27; // 1GB
+
+    /** The number of locks of a writable mapping: a few per processor, as a power of two. */
+    private static final int LOCK_STRIPES =
+        Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4) * 2;
+
+    private final ByteBuffer[] chunks;
+    /** The locks guarding the longs of the mapping, or null if it is read-only. */
+    @Nullable private final Object[] locks;
+    private final int chunkShift;
+    private final int chunkMask;
+    private final int dataLength;
+    private final BitCounter bitsSetSinceMapped;
+    /** The number of bits set when mapped, or -1 if not yet counted. */
+    private volatile long initialBitCount = -1;
+
+    /**
+     * Maps {@code dataLength} longs of {@code channel}, starting at byte {@code offset}, in chunks
+     * of {@code longsPerChunk} longs, which must be a power of two.
+     */
+    MappedBitArray(FileChannel channel, MapMode mode, long offset, int dataLength,
+        int longsPerChunk) throws IOException {
+      checkArgument(dataLength > 0, "data length is zero!");
+      checkArgument(longsPerChunk > 0 && Integer.bitCount(longsPerChunk) == 1,
+          "longsPerChunk (%s) must be a power of two", longsPerChunk);
+      this.dataLength = dataLength;
+      this.bitsSetSinceMapped = new BitCounter(dataLength, 0);
+      if (mode == MapMode.READ_ONLY) {
+        this.locks = null;
+      } else {
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+          locks[i] = new Object();
+        }
+      }
+      this.chunkShift = Integer.numberOfTrailingZeros(longsPerChunk);
+      this.chunkMask = longsPerChunk - 1;
+      this.chunks = new ByteBuffer[(int) LongMath.divide(
+          dataLength, longsPerChunk, RoundingMode.CEILING)];
+      for (int i = 0; i < chunks.length; i++) {
+        long firstLong = (long) i * longsPerChunk;
+        long longs = Math.min(longsPerChunk, dataLength - firstLong);
+        chunks[i] = channel.map(mode, offset + firstLong * 8, longs * 8);
+      }
+    }
+
+    @Override boolean set(long index) {
+      int longIndex = (int) (index >>> 6);
+      long mask = 1L << index;
+      if (locks == null) {
+        // a read-only buffer throws if the bit isn't set yet
+        return setBits(longIndex, mask) != 0;
+      }
+      synchronized (locks[longIndex & (locks.length - 1)]) {
+        return setBits(longIndex, mask) != 0;
+      }
+    }
+
+    /**
+     * Sets the bits of {@code mask} in the long at {@code longIndex}, and returns those that were
+     * not set before. The caller must hold the lock of that long, if the mapping is writable.
+     */
+    private long setBits(int longIndex, long mask) {
+      ByteBuffer chunk = chunks[longIndex >>> chunkShift];
+      int position = (longIndex & chunkMask) << 3;
+      long oldValue = chunk.getLong(position);
+      long newBits = mask & ~oldValue;
+      if (newBits != 0) {
+        chunk.putLong(position, oldValue | mask);
+        bitsSetSinceMapped.add(longIndex, Long.bitCount(newBits));
+      }
+      return newBits;
+    }
+
+    @Override boolean get(long index) {
+      return (getLong((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    @Override int dataLength() {
+      return dataLength;
+    }
+
+    @Override long getLong(int longIndex) {
+      ByteBuffer chunk = chunks[longIndex >>> chunkShift];
+      int position = (longIndex & chunkMask) << 3;
+      if (locks == null) {
+        return chunk.getLong(position);
+      }
+      // the buffer isn't volatile, so reads take the lock too to see the bits set by other threads
+      synchronized (locks[longIndex & (locks.length - 1)]) {
+        return chunk.getLong(position);
       }
-      return false;
     }
 
-    @Override public int hashCode() {
-      return Arrays.hashCode(data);
+    @Override long bitCount() {
+      long initial = initialBitCount;
+      if (initial < 0) {
+        // A bit set while we count may be counted twice, which is within the lag we allow.
+        initial = -bitsSetSinceMapped.sum();
+        for (int i = 0; i < dataLength; i++) {
+          initial += Long.bitCount(getLong(i));
+        }
+        initialBitCount = initial;
+      }
+      return initial + bitsSetSinceMapped.sum();
+    }
+
+    @Override void putAll(BitArray array) {
+      checkSameLength(array);
+      for (int i = 0; i < dataLength; i++) {
+        long otherLong = array.getLong(i);
+        if (locks == null) {
+          setBits(i, otherLong);
+        } else {
+          synchronized (locks[i & (locks.length - 1)]) {
+            setBits(i, otherLong);
+          }
+        }
+      }
     }
   }
 }
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Supplier;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.zip.Checksum;
 
 /**
@@ -59,6 +60,7 @@ final class ChecksumHashFunction extends AbstractStreamingHashFunction implement
    * Hasher that updates a checksum.
    */
   private final class ChecksumHasher extends AbstractByteHasher {
+    private static final int DIRECT_CHUNK_SIZE = 4096;
 
     private final Checksum checksum;
 
@@ -76,6 +78,27 @@ final class ChecksumHashFunction extends AbstractStreamingHashFunction implement
       checksum.update(bytes, off, len);
     }
 
+    @Override
+    protected void update(ByteBuffer bytes) {
+      if (bytes.hasArray()) {
+        super.update(bytes);
+        return;
+      }
+      // Checksum only reads arrays, so direct buffers go through a bounded chunk
+      byte[] chunk = new byte[Math.min(bytes.remaining(), DIRECT_CHUNK_SIZE)];
+      while (bytes.hasRemaining()) {
+        int len = Math.min(bytes.remaining(), chunk.length);
+        bytes.get(chunk, 0, len);
+        checksum.update(chunk, 0, len);
+      }
+    }
+
+    @Override
+    public Hasher reset() {
+      checksum.reset();
+      return this;
+    }
+
     @Override
     public HashCode hash() {
       long value = checksum.getValue();
@@ -14,13 +14,68 @@
 
 package com.google.common.hash;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.zip.Checksum;
+
+import javax.annotation.Nullable;
+
 /**
  * This class generates a CRC32C checksum, defined by RFC 3720, Section 12.1.
  * The generator polynomial for this checksum is {@code 0x11EDC6F41}.
  *
+ * <p>When the runtime provides {@code java.util.zip.CRC32C} (Java 9 and later), which uses the
+ * CRC32 instructions of the processor where available, hashers delegate to it. Otherwise, they
+ * compute the checksum of eight bytes at a time, using the slicing-by-8 algorithm.
+ *
  * @author Kurt Alfred Kluever
  */
 final class Crc32cHashFunction extends AbstractStreamingHashFunction {
+  @Nullable private static final HashFunction JDK_CRC32C = jdkCrc32c();
+
+  /**
+   * Returns a hash function delegating to {@code java.util.zip.CRC32C}, or null if the runtime
+   * doesn't provide it.
+   */
+  @Nullable
+  private static HashFunction jdkCrc32c() {
+    final Constructor<? extends Checksum> constructor;
+    try {
+      constructor = Class.forName("java.util.zip.CRC32C").asSubclass(Checksum.class)
+          .getConstructor();
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (SecurityException e) {
+      return null;
+    }
+    Supplier<Checksum> supplier = new Supplier<Checksum>() {
+      @Override
+      public Checksum get() {
+        try {
+          return constructor.newInstance();
+        } catch (InstantiationException e) {
+          throw new AssertionError(e);
+        } catch (IllegalAccessException e) {
+          throw new AssertionError(e);
+        } catch (InvocationTargetException e) {
+          throw Throwables.propagate(e.getCause());
+        }
+      }
+    };
+    return new ChecksumHashFunction(supplier, 32, "Hashing.crc32c()");
+  }
+
+  /** Whether hashers delegate to {@code java.util.zip.CRC32C}. */
+  @VisibleForTesting
+  static boolean usesJdkCrc32c() {
+    return JDK_CRC32C != null;
+  }
 
   @Override
   public int bits() {
@@ -29,7 +84,7 @@ final class Crc32cHashFunction extends AbstractStreamingHashFunction {
 
   @Override
   public Hasher newHasher() {
-    return new Crc32cHasher();
+    return (JDK_CRC32C != null) ? JDK_CRC32C.newHasher() : new Crc32cHasher();
   }
 
   @Override
@@ -107,6 +162,25 @@ final class Crc32cHashFunction extends AbstractStreamingHashFunction {
       0xbe2da0a5, 0x4c4623a6, 0x5f16d052, 0xad7d5351
     };
 
+    /**
+     * The tables of the slicing-by-8 algorithm: {@code SLICING_TABLES[k][b]} is {@code
+     * CRC_TABLE[b]} carried over {@code k} more zero bytes, so that eight bytes can be looked up
+     * independently and combined.
+     */
+    static final int[][] SLICING_TABLES = new int[8][];
+
+    static {
+      SLICING_TABLES[0] = CRC_TABLE;
+      for (int k = 1; k < SLICING_TABLES.length; k++) {
+        int[] previous = SLICING_TABLES[k - 1];
+        int[] table = new int[256];
+        for (int b = 0; b < table.length; b++) {
+          table[b] = (previous[b] >>> 8) ^ CRC_TABLE[previous[b] & 0xFF];
+        }
+        SLICING_TABLES[k] = table;
+      }
+    }
+
     private int crc = 0;
 
     @Override
@@ -116,6 +190,45 @@ final class Crc32cHashFunction extends AbstractStreamingHashFunction {
       crc = ~((crc >>> 8) ^ CRC_TABLE[(crc ^ b) & 0xFF]);
     }
 
+    @Override
+    public void update(byte[] bytes, int off, int len) {
+      int[] t0 = CRC_TABLE;
+      int[] t1 = SLICING_TABLES[1];
+      int[] t2 = SLICING_TABLES[2];
+      int[] t3 = SLICING_TABLES[3];
+      int[] t4 = SLICING_TABLES[4];
+      int[] t5 = SLICING_TABLES[5];
+      int[] t6 = SLICING_TABLES[6];
+      int[] t7 = SLICING_TABLES[7];
+      int c = ~crc;
+      int end = off + len;
+      for (; off <= end - 8; off += 8) {
+        // the first four bytes are folded into the CRC, which then only remains to be shifted
+        c ^= (bytes[off] & 0xFF)
+            | (bytes[off + 1] & 0xFF) << 8
+            | (bytes[off + 2] & 0xFF) << 16
+            | (bytes[off + 3] & 0xFF) << 24;
+        c = t7[c & 0xFF]
+            ^ t6[(c >>> 8) & 0xFF]
+            ^ t5[(c >>> 16) & 0xFF]
+            ^ t4[c >>> 24]
+            ^ t3[bytes[off + 4] & 0xFF]
+            ^ t2[bytes[off + 5] & 0xFF]
+            ^ t1[bytes[off + 6] & 0xFF]
+            ^ t0[bytes[off + 7] & 0xFF];
+      }
+      for (; off < end; off++) {
+        c = (c >>> 8) ^ t0[(c ^ bytes[off]) & 0xFF];
+      }
+      crc = ~c;
+    }
+
+    @Override
+    public Hasher reset() {
+      crc = 0;
+      return this;
+    }
+
     @Override
     public HashCode hash() {
       return HashCode.fromInt(crc);
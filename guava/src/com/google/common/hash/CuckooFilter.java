@@ -0,0 +1,477 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.math.IntMath;
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+import java.io.Serializable;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * A cuckoo filter for instances of {@code T}, as described in "Cuckoo Filter: Practically Better
+ * Than Bloom" by Bin Fan, David G. Andersen, Michael Kaminsky and Michael D. Mitzenmacher. Like a
+ * {@link BloomFilter}, a cuckoo filter offers an approximate containment test with one-sided
+ * error: if it claims that an element is contained in it, this might be in error, but if it claims
+ * that an element is <i>not</i> contained in it, then this is definitely true. Unlike a Bloom
+ * filter, it also supports {@linkplain #remove removing} elements.
+ *
+ * <p>The filter stores a short fingerprint of each element in one of two buckets of {@value
+ * #BUCKET_SIZE} slots, both derived from the element's hash; when both buckets are full, the
+ * fingerprints already there are moved to their alternate buckets to make room. A query only
+ * looks at the two buckets. For false positive probabilities below a few percent, a cuckoo filter
+ * needs about as many bits per element as a Bloom filter, and fewer as the probability gets
+ * lower.
+ *
+ * <p>A cuckoo filter has a fixed capacity: once it is nearly full, {@link #put} fails and returns
+ * {@code false}. Putting the same element more than {@code 2 * BUCKET_SIZE} times also fills its
+ * buckets.
+ *
+ * <p>Cuckoo filters are thread-safe. Elements are hashed concurrently, but the filter is then
+ * locked to look them up or move fingerprints around.
+ *
+ * @param <T> the type of instances that the {@code CuckooFilter} accepts
+ * @since 19.0
+ */
+@Beta
+public final class CuckooFilter<T> implements Predicate<T>, Serializable {
+  /** The number of fingerprints in each bucket. */
+  @VisibleForTesting static final int BUCKET_SIZE = 4;
+
+  /** The fraction of slots that can be filled before insertions are likely to fail. */
+  private static final double MAX_LOAD_FACTOR = 0.955;
+
+  /** How many fingerprints an insertion may move before the filter is considered full. */
+  private static final int MAX_KICKS = 500;
+
+  private static final int MAX_FINGERPRINT_BITS = 32;
+
+  /** The fingerprints, {@code fingerprintBits} bits each; 0 marks an empty slot. */
+  private final long[] data;
+
+  /** The number of buckets, a power of two */
+  private final int numBuckets;
+
+  /** The number of bits of each fingerprint */
+  private final int fingerprintBits;
+
+  /** The funnel to translate Ts to bytes */
+  private final Funnel<? super T> funnel;
+
+  /** The number of fingerprints in the filter, including the victim */
+  private long size;
+
+  /**
+   * A fingerprint that could not be placed by the last insertion, or 0. While there is one, the
+   * filter is full.
+   */
+  private long victimFingerprint;
+
+  private int victimIndex;
+
+  /** The state of the generator that chooses which fingerprint to move. */
+  private long kickState = 0x9E3779B97F4A7C15L;
+
+  private CuckooFilter(long[] data, int numBuckets, int fingerprintBits,
+      Funnel<? super T> funnel, long size, long victimFingerprint, int victimIndex) {
+    this.data = data;
+    this.numBuckets = numBuckets;
+    this.fingerprintBits = fingerprintBits;
+    this.funnel = funnel;
+    this.size = size;
+    this.victimFingerprint = victimFingerprint;
+    this.victimIndex = victimIndex;
+  }
+
+  /**
+   * Creates a {@link CuckooFilter CuckooFilter<T>} with room for the expected number of insertions
+   * and the expected false positive probability.
+   *
+   * <p>The constructed {@code CuckooFilter<T>} will be serializable if the provided {@code
+   * Funnel<T>} is.
+   *
+   * @param funnel the funnel of T's that the constructed {@code CuckooFilter<T>} will use
+   * @param expectedInsertions the number of expected insertions to the constructed {@code
+   *     CuckooFilter<T>}; must be positive
+   * @param fpp the desired false positive probability (must be at least {@code 1e-8} and less
+   *     than 1.0)
+   */
+  public static <T> CuckooFilter<T> create(
+      Funnel<? super T> funnel, int expectedInsertions, double fpp) {
+    checkNotNull(funnel);
+    checkArgument(expectedInsertions > 0,
+        "Expected insertions (%s) must be > 0", expectedInsertions);
+    checkArgument(fpp >= 1e-8, "False positive probability (%s) must be >= 1e-8", fpp);
+    checkArgument(fpp < 1.0, "False positive probability (%s) must be < 1.0", fpp);
+
+    int fingerprintBits = optimalFingerprintBits(fpp);
+    long minBuckets = (long) Math.ceil(expectedInsertions / (BUCKET_SIZE * MAX_LOAD_FACTOR));
+    checkArgument(minBuckets <= 1 << 30,
+        "Expected insertions (%s) is too large", expectedInsertions);
+    int numBuckets = IntMath.checkedPow(2, IntMath.log2((int) minBuckets, RoundingMode.CEILING));
+    long bits = (long) numBuckets * BUCKET_SIZE * fingerprintBits;
+    long[] data;
+    try {
+      data = new long[Ints.checkedCast(LongMath.divide(bits, Long.SIZE, RoundingMode.CEILING))];
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Could not create CuckooFilter of " + bits + " bits", e);
+    }
+    return new CuckooFilter<T>(data, numBuckets, fingerprintBits, funnel, 0, 0, 0);
+  }
+
+  /**
+   * Computes the number of bits of the fingerprints needed to achieve the given false positive
+   * probability: a query compares {@code 2 * BUCKET_SIZE} fingerprints, each of which matches
+   * with probability {@code 2^-f}.
+   */
+  @VisibleForTesting
+  static int optimalFingerprintBits(double fpp) {
+    int bits = (int) Math.ceil(Math.log(2 * BUCKET_SIZE / fpp) / Math.log(2));
+    return Math.min(Math.max(bits, 4), MAX_FINGERPRINT_BITS);
+  }
+
+  /**
+   * Creates a new {@code CuckooFilter} that's a copy of this instance. The new instance is equal to
+   * this instance but shares no mutable state.
+   */
+  public synchronized CuckooFilter<T> copy() {
+    return new CuckooFilter<T>(data.clone(), numBuckets, fingerprintBits, funnel, size,
+        victimFingerprint, victimIndex);
+  }
+
+  /**
+   * Returns {@code true} if the element <i>might</i> have been put in this filter, {@code false}
+   * if this is <i>definitely</i> not the case.
+   */
+  public boolean mightContain(T object) {
+    return mightContainHash(hash(object));
+  }
+
+  private synchronized boolean mightContainHash(byte[] hash) {
+    long fingerprint = fingerprint(hash);
+    int index1 = index(hash);
+    int index2 = altIndex(index1, fingerprint);
+    return bucketContains(index1, fingerprint)
+        || bucketContains(index2, fingerprint)
+        || (victimFingerprint == fingerprint
+            && (victimIndex == index1 || victimIndex == index2));
+  }
+
+  /**
+   * @deprecated Provided only to satisfy the {@link Predicate} interface; use {@link #mightContain}
+   *     instead.
+   */
+  @Deprecated
+  @Override
+  public boolean apply(T input) {
+    return mightContain(input);
+  }
+
+  /**
+   * Puts an element into this filter. Ensures that subsequent invocations of {@link
+   * #mightContain(Object)} with the same element will return {@code true}, until the element is
+   * {@linkplain #remove removed}.
+   *
+   * <p>Unlike {@link BloomFilter#put}, this adds the element even if the filter might already
+   * contain it, so that it can be removed as many times as it was put.
+   *
+   * @return {@code true} if the element was added, {@code false} if the filter is full
+   */
+  public boolean put(T object) {
+    return putHash(hash(object));
+  }
+
+  private synchronized boolean putHash(byte[] hash) {
+    if (victimFingerprint != 0) {
+      return false;
+    }
+    long fingerprint = fingerprint(hash);
+    int index = index(hash);
+    if (!insertIntoBucket(index, fingerprint)
+        && !insertIntoBucket(altIndex(index, fingerprint), fingerprint)) {
+      kick(index, fingerprint);
+    }
+    size++;
+    return true;
+  }
+
+  /**
+   * Moves fingerprints to their alternate buckets until one of them finds a free slot. If none
+   * does, the last one becomes the victim, and the filter is full.
+   */
+  private void kick(int index, long fingerprint) {
+    for (int kicks = 0; kicks < MAX_KICKS; kicks++) {
+      if ((nextRandom() & 1) != 0) {
+        index = altIndex(index, fingerprint);
+      }
+      int slot = index * BUCKET_SIZE + (int) (nextRandom() & (BUCKET_SIZE - 1));
+      long evicted = getSlot(slot);
+      setSlot(slot, fingerprint);
+      fingerprint = evicted;
+      index = altIndex(index, fingerprint);
+      if (insertIntoBucket(index, fingerprint)) {
+        return;
+      }
+    }
+    victimFingerprint = fingerprint;
+    victimIndex = index;
+  }
+
+  /**
+   * Removes one occurrence of an element from this filter, if it might be present.
+   *
+   * <p><b>Warning:</b> only remove elements that were put into the filter. Removing any other
+   * element that the filter might contain removes the fingerprint of a different element, which
+   * is then no longer reported by {@link #mightContain}.
+   *
+   * @return {@code true} if a fingerprint of the element was found and removed
+   */
+  public boolean remove(T object) {
+    return removeHash(hash(object));
+  }
+
+  private synchronized boolean removeHash(byte[] hash) {
+    long fingerprint = fingerprint(hash);
+    int index1 = index(hash);
+    int index2 = altIndex(index1, fingerprint);
+    if (removeFromBucket(index1, fingerprint) || removeFromBucket(index2, fingerprint)) {
+      size--;
+      if (victimFingerprint != 0) {
+        // there is room again
+        long victim = victimFingerprint;
+        victimFingerprint = 0;
+        if (!insertIntoBucket(victimIndex, victim)) {
+          kick(victimIndex, victim);
+        }
+      }
+      return true;
+    }
+    if (victimFingerprint == fingerprint && (victimIndex == index1 || victimIndex == index2)) {
+      victimFingerprint = 0;
+      size--;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of elements in this filter: the number of successful puts minus the number
+   * of successful removals.
+   */
+  public synchronized long size() {
+    return size;
+  }
+
+  /**
+   * Returns the probability that {@link #mightContain(Object)} will erroneously return {@code
+   * true} for an object that has not actually been put in the filter. This grows with the number
+   * of elements in the filter.
+   */
+  public synchronized double expectedFpp() {
+    // each fingerprint in the two buckets of a query matches with probability 2^-f
+    double fingerprintsPerQuery = 2.0 * size / numBuckets;
+    return 1.0 - Math.pow(1.0 - Math.pow(2, -fingerprintBits), fingerprintsPerQuery);
+  }
+
+  /** Returns the number of bits in the underlying table. */
+  @VisibleForTesting long bitSize() {
+    return (long) data.length * Long.SIZE;
+  }
+
+  private byte[] hash(T object) {
+    return Hashing.murmur3_128().hashObject(object, funnel).getBytesInternal();
+  }
+
+  private long fingerprint(byte[] hash) {
+    long upper = Longs.fromBytes(
+        hash[15], hash[14], hash[13], hash[12], hash[11], hash[10], hash[9], hash[8]);
+    long fingerprint = upper >>> (Long.SIZE - fingerprintBits);
+    return fingerprint == 0 ? 1 : fingerprint; // 0 marks an empty slot
+  }
+
+  private int index(byte[] hash) {
+    int lower = Ints.fromBytes(hash[3], hash[2], hash[1], hash[0]);
+    return lower & (numBuckets - 1);
+  }
+
+  /**
+   * Returns the other bucket of a fingerprint in bucket {@code index}. Both buckets can be found
+   * from either one and the fingerprint alone, so that fingerprints can be moved without the
+   * element they came from.
+   */
+  private int altIndex(int index, long fingerprint) {
+    // the multiplication spreads the fingerprint over the bits of the index
+    int fingerprintHash = (int) (fingerprint * 0x5bd1e995L);
+    return (index ^ fingerprintHash) & (numBuckets - 1);
+  }
+
+  private boolean bucketContains(int index, long fingerprint) {
+    int slot = index * BUCKET_SIZE;
+    for (int i = 0; i < BUCKET_SIZE; i++) {
+      if (getSlot(slot + i) == fingerprint) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean insertIntoBucket(int index, long fingerprint) {
+    int slot = index * BUCKET_SIZE;
+    for (int i = 0; i < BUCKET_SIZE; i++) {
+      if (getSlot(slot + i) == 0) {
+        setSlot(slot + i, fingerprint);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean removeFromBucket(int index, long fingerprint) {
+    int slot = index * BUCKET_SIZE;
+    for (int i = 0; i < BUCKET_SIZE; i++) {
+      if (getSlot(slot + i) == fingerprint) {
+        setSlot(slot + i, 0);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private long getSlot(int slot) {
+    long bit = (long) slot * fingerprintBits;
+    int longIndex = (int) (bit >>> 6);
+    int shift = (int) (bit & 63);
+    long value = data[longIndex] >>> shift;
+    if (shift + fingerprintBits > Long.SIZE) {
+      value |= data[longIndex + 1] << (Long.SIZE - shift);
+    }
+    return value & fingerprintMask();
+  }
+
+  private void setSlot(int slot, long fingerprint) {
+    long bit = (long) slot * fingerprintBits;
+    int longIndex = (int) (bit >>> 6);
+    int shift = (int) (bit & 63);
+    long mask = fingerprintMask();
+    data[longIndex] = (data[longIndex] & ~(mask << shift)) | (fingerprint << shift);
+    if (shift + fingerprintBits > Long.SIZE) {
+      int highShift = Long.SIZE - shift;
+      data[longIndex + 1] =
+          (data[longIndex + 1] & ~(mask >>> highShift)) | (fingerprint >>> highShift);
+    }
+  }
+
+  private long fingerprintMask() {
+    return (1L << fingerprintBits) - 1;
+  }
+
+  /** A xorshift generator, which is all the randomness the choice of fingerprint to move needs. */
+  private long nextRandom() {
+    long x = kickState;
+    x ^= x << 13;
+    x ^= x >>> 7;
+    x ^= x << 17;
+    kickState = x;
+    return x;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (object instanceof CuckooFilter) {
+      CuckooFilter<?> that = (CuckooFilter<?>) object;
+      // takes both locks, always in the same order, so that comparisons can't deadlock
+      int thisHash = System.identityHashCode(this);
+      int thatHash = System.identityHashCode(that);
+      if (thisHash < thatHash) {
+        return equalsLockingBoth(this, that);
+      } else if (thisHash > thatHash) {
+        return equalsLockingBoth(that, this);
+      } else {
+        synchronized (TIE_LOCK) {
+          return equalsLockingBoth(this, that);
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Guards the comparisons of filters whose locks can't be ordered by identity hash code. */
+  private static final Object TIE_LOCK = new Object();
+
+  private static boolean equalsLockingBoth(CuckooFilter<?> first, CuckooFilter<?> second) {
+    synchronized (first) {
+      synchronized (second) {
+        return first.fingerprintBits == second.fingerprintBits
+            && first.numBuckets == second.numBuckets
+            && first.funnel.equals(second.funnel)
+            && first.size == second.size
+            && first.victimFingerprint == second.victimFingerprint
+            && (first.victimFingerprint == 0 || first.victimIndex == second.victimIndex)
+            && Arrays.equals(first.data, second.data);
+      }
+    }
+  }
+
+  @Override
+  public synchronized int hashCode() {
+    return Objects.hashCode(fingerprintBits, funnel, size, Arrays.hashCode(data));
+  }
+
+  private Object writeReplace() {
+    return new SerialForm<T>(this);
+  }
+
+  private static class SerialForm<T> implements Serializable {
+    final long[] data;
+    final int numBuckets;
+    final int fingerprintBits;
+    final Funnel<? super T> funnel;
+    final long size;
+    final long victimFingerprint;
+    final int victimIndex;
+
+    SerialForm(CuckooFilter<T> cf) {
+      synchronized (cf) {
+        this.data = cf.data.clone();
+        this.numBuckets = cf.numBuckets;
+        this.fingerprintBits = cf.fingerprintBits;
+        this.funnel = cf.funnel;
+        this.size = cf.size;
+        this.victimFingerprint = cf.victimFingerprint;
+        this.victimIndex = cf.victimIndex;
+      }
+    }
+    Object readResolve() {
+      return new CuckooFilter<T>(data, numBuckets, fingerprintBits, funnel, size,
+          victimFingerprint, victimIndex);
+    }
+    private static final long serialVersionUID = 1;
+  }
+}
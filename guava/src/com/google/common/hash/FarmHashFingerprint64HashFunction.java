@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+/*
+ * FarmHash was written by Geoff Pike, and is described at https://github.com/google/farmhash.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import java.io.Serializable;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link HashFunction} implementation of FarmHash's Fingerprint64, whose results are the same on
+ * every platform and will not change, unlike those of FarmHash's {@code Hash64}.
+ *
+ * <p>The exact C++ equivalent is the {@code util::Fingerprint64} function, which is {@code
+ * farmhashna::Hash64}.
+ */
+final class FarmHashFingerprint64HashFunction extends AbstractStreamingHashFunction
+    implements Serializable {
+  private static final long K0 = 0xc3a5c85c97cb3127L;
+  private static final long K1 = 0xb492b66fbe98f273L;
+  private static final long K2 = 0x9ae16a3b2f90404fL;
+
+  /** Inputs longer than this are consumed in blocks of this many bytes. */
+  private static final int BLOCK_SIZE = 64;
+
+  @Override public int bits() {
+    return 64;
+  }
+
+  @Override public Hasher newHasher() {
+    return new FarmHashFingerprint64Hasher();
+  }
+
+  @Override public HashCode hashBytes(byte[] input, int off, int len) {
+    return HashCode.fromLong(hashBytesToLong(input, off, len));
+  }
+
+  @Override public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    if (len <= BLOCK_SIZE) {
+      return hashShort(input, off, len);
+    }
+    FarmHashFingerprint64Hasher hasher = new FarmHashFingerprint64Hasher();
+    int end = off + len;
+    for (int blocksEnd = end - 1 - (len - 1) % BLOCK_SIZE; off < blocksEnd; off += BLOCK_SIZE) {
+      hasher.processBlock(input, off);
+    }
+    return hasher.finish(input, end - BLOCK_SIZE, len);
+  }
+
+  @Override
+  public String toString() {
+    return "Hashing.farmHashFingerprint64()";
+  }
+
+  /** Returns the fingerprint of {@code len <= 64} bytes. */
+  private static long hashShort(byte[] s, int off, int len) {
+    if (len <= 32) {
+      if (len <= 16) {
+        return hashLength0to16(s, off, len);
+      } else {
+        return hashLength17to32(s, off, len);
+      }
+    }
+    return hashLength33To64(s, off, len);
+  }
+
+  private static long hashLength16(long u, long v, long mul) {
+    long a = (u ^ v) * mul;
+    a ^= (a >>> 47);
+    long b = (v ^ a) * mul;
+    b ^= (b >>> 47);
+    b *= mul;
+    return b;
+  }
+
+  private static long shiftMix(long val) {
+    return val ^ (val >>> 47);
+  }
+
+  private static long hashLength0to16(byte[] s, int off, int len) {
+    if (len >= 8) {
+      long mul = K2 + len * 2;
+      long a = load64(s, off) + K2;
+      long b = load64(s, off + len - 8);
+      long c = Long.rotateRight(b, 37) * mul + a;
+      long d = (Long.rotateRight(a, 25) + b) * mul;
+      return hashLength16(c, d, mul);
+    }
+    if (len >= 4) {
+      long mul = K2 + len * 2;
+      long a = load32(s, off) & 0xFFFFFFFFL;
+      return hashLength16(len + (a << 3), load32(s, off + len - 4) & 0xFFFFFFFFL, mul);
+    }
+    if (len > 0) {
+      byte a = s[off];
+      byte b = s[off + (len >> 1)];
+      byte c = s[off + (len - 1)];
+      int y = (a & 0xFF) + ((b & 0xFF) << 8);
+      int z = len + ((c & 0xFF) << 2);
+      return shiftMix((y & 0xFFFFFFFFL) * K2 ^ (z & 0xFFFFFFFFL) * K0) * K2;
+    }
+    return K2;
+  }
+
+  private static long hashLength17to32(byte[] s, int off, int len) {
+    long mul = K2 + len * 2;
+    long a = load64(s, off) * K1;
+    long b = load64(s, off + 8);
+    long c = load64(s, off + len - 8) * mul;
+    long d = load64(s, off + len - 16) * K2;
+    return hashLength16(Long.rotateRight(a + b, 43) + Long.rotateRight(c, 30) + d,
+        a + Long.rotateRight(b + K2, 18) + c, mul);
+  }
+
+  private static long hashLength33To64(byte[] s, int off, int len) {
+    long mul = K2 + len * 2;
+    long a = load64(s, off) * K2;
+    long b = load64(s, off + 8);
+    long c = load64(s, off + len - 8) * mul;
+    long d = load64(s, off + len - 16) * K2;
+    long y = Long.rotateRight(a + b, 43) + Long.rotateRight(c, 30) + d;
+    long z = hashLength16(y, a + Long.rotateRight(b + K2, 18) + c, mul);
+    long e = load64(s, off + 16) * mul;
+    long f = load64(s, off + 24);
+    long g = (y + load64(s, off + len - 32)) * mul;
+    long h = (z + load64(s, off + len - 24)) * mul;
+    return hashLength16(Long.rotateRight(e + f, 43) + Long.rotateRight(g, 30) + h,
+        e + Long.rotateRight(f + a, 18) + g, mul);
+  }
+
+  private static long load64(byte[] s, int off) {
+    return (s[off] & 0xFFL)
+        | (s[off + 1] & 0xFFL) << 8
+        | (s[off + 2] & 0xFFL) << 16
+        | (s[off + 3] & 0xFFL) << 24
+        | (s[off + 4] & 0xFFL) << 32
+        | (s[off + 5] & 0xFFL) << 40
+        | (s[off + 6] & 0xFFL) << 48
+        | (s[off + 7] & 0xFFL) << 56;
+  }
+
+  private static int load32(byte[] s, int off) {
+    return (s[off] & 0xFF)
+        | (s[off + 1] & 0xFF) << 8
+        | (s[off + 2] & 0xFF) << 16
+        | (s[off + 3] & 0xFF) << 24;
+  }
+
+  /**
+   * Fingerprint64 reads the input backwards from its end, so it cannot be fed to an {@link
+   * AbstractStreamingHasher}: every 64-byte block except the last is mixed into the state, and the
+   * last 64 bytes of the input, which may overlap the previous block, are mixed in by {@link
+   * #finish}. This hasher holds back the block that was mixed in last, followed by up to 64 bytes
+   * not mixed in yet, until it knows whether more input follows them.
+   */
+  private static final class FarmHashFingerprint64Hasher extends AbstractByteHasher {
+    private static final long SEED = 81;
+
+    private long x;
+    private long y;
+    private long z;
+    private long v1;
+    private long v2;
+    private long w1;
+    private long w2;
+
+    /** Whether a block has been mixed into the state. */
+    private boolean started;
+
+    private long length;
+
+    /**
+     * The last block mixed into the state, followed by the {@code pending} bytes after it. It is
+     * only allocated if input has to be held back.
+     */
+    @Nullable private byte[] window;
+    private int pending;
+
+    FarmHashFingerprint64Hasher() {
+      reset();
+    }
+
+    @Override
+    public Hasher reset() {
+      x = SEED;
+      y = SEED * K1 + 113;
+      z = shiftMix(y * K2 + 113) * K2;
+      v1 = 0;
+      v2 = 0;
+      w1 = 0;
+      w2 = 0;
+      started = false;
+      length = 0;
+      pending = 0;
+      return this;
+    }
+
+    @Override
+    protected void update(byte b) {
+      if (pending == BLOCK_SIZE) {
+        processPending();
+      }
+      window()[BLOCK_SIZE + pending++] = b;
+      length++;
+    }
+
+    @Override
+    protected void update(byte[] b, int off, int len) {
+      length += len;
+      while (len > 0) {
+        if (pending == BLOCK_SIZE) {
+          processPending();
+        }
+        if (pending == 0 && len > BLOCK_SIZE) {
+          // mix the blocks in straight from the input, holding back at least one byte
+          int blocksLength = len - 1 - (len - 1) % BLOCK_SIZE;
+          for (int end = off + blocksLength; off < end; off += BLOCK_SIZE) {
+            processBlock(b, off);
+          }
+          System.arraycopy(b, off - BLOCK_SIZE, window(), 0, BLOCK_SIZE);
+          len -= blocksLength;
+        }
+        int n = Math.min(BLOCK_SIZE - pending, len);
+        System.arraycopy(b, off, window(), BLOCK_SIZE + pending, n);
+        pending += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    private byte[] window() {
+      if (window == null) {
+        window = new byte[2 * BLOCK_SIZE];
+      }
+      return window;
+    }
+
+    /** Mixes in the pending block, which more input follows, and keeps it as the last block. */
+    private void processPending() {
+      processBlock(window, BLOCK_SIZE);
+      System.arraycopy(window, BLOCK_SIZE, window, 0, BLOCK_SIZE);
+      pending = 0;
+    }
+
+    void processBlock(byte[] s, int off) {
+      if (!started) {
+        x = x * K2 + load64(s, off);
+        started = true;
+      }
+      x = Long.rotateRight(x + y + v1 + load64(s, off + 8), 37) * K1;
+      y = Long.rotateRight(y + v2 + load64(s, off + 48), 42) * K1;
+      x ^= w2;
+      y += v1 + load64(s, off + 40);
+      z = Long.rotateRight(z + w1, 33) * K1;
+      weakHashLength32WithSeedsIntoV(s, off, v2 * K1, x + w1);
+      weakHashLength32WithSeedsIntoW(s, off + 32, z + w2, y + load64(s, off + 16));
+      long tmp = x;
+      x = z;
+      z = tmp;
+    }
+
+    /**
+     * Mixes in the last 64 bytes of the input, starting at {@code s[off]}, and returns the
+     * fingerprint of the {@code len > 64} bytes of the input.
+     */
+    long finish(byte[] s, int off, long len) {
+      long mul = K1 + ((z & 0xFF) << 1);
+      w1 += ((len - 1) & 63);
+      v1 += w1;
+      w1 += v1;
+      x = Long.rotateRight(x + y + v1 + load64(s, off + 8), 37) * mul;
+      y = Long.rotateRight(y + v2 + load64(s, off + 48), 42) * mul;
+      x ^= w2 * 9;
+      y += v1 * 9 + load64(s, off + 40);
+      z = Long.rotateRight(z + w1, 33) * mul;
+      weakHashLength32WithSeedsIntoV(s, off, v2 * mul, x + w1);
+      weakHashLength32WithSeedsIntoW(s, off + 32, z + w2, y + load64(s, off + 16));
+      return hashLength16(hashLength16(v1, w1, mul) + shiftMix(y) * K0 + x,
+          hashLength16(v2, w2, mul) + z, mul);
+    }
+
+    private void weakHashLength32WithSeedsIntoV(byte[] s, int off, long a, long b) {
+      long part1 = load64(s, off);
+      long part2 = load64(s, off + 8);
+      long part3 = load64(s, off + 16);
+      long part4 = load64(s, off + 24);
+      a += part1;
+      b = Long.rotateRight(b + a + part4, 21);
+      long c = a;
+      a += part2;
+      a += part3;
+      b += Long.rotateRight(a, 44);
+      v1 = a + part4;
+      v2 = b + c;
+    }
+
+    private void weakHashLength32WithSeedsIntoW(byte[] s, int off, long a, long b) {
+      long part1 = load64(s, off);
+      long part2 = load64(s, off + 8);
+      long part3 = load64(s, off + 16);
+      long part4 = load64(s, off + 24);
+      a += part1;
+      b = Long.rotateRight(b + a + part4, 21);
+      long c = a;
+      a += part2;
+      a += part3;
+      b += Long.rotateRight(a, 44);
+      w1 = a + part4;
+      w2 = b + c;
+    }
+
+    @Override
+    public HashCode hash() {
+      return HashCode.fromLong(hashToLong());
+    }
+
+    @Override
+    public long hashToLong() {
+      if (!started) {
+        return hashShort(window(), BLOCK_SIZE, pending);
+      }
+      // the last 64 bytes of the input end the pending bytes, after the end of the last block
+      return finish(window, pending, length);
+    }
+  }
+
+  private static final long serialVersionUID = 0L;
+}
@@ -17,6 +17,7 @@ package com.google.common.hash;
 import com.google.common.annotations.Beta;
 import com.google.common.primitives.Ints;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -166,6 +167,30 @@ public interface HashFunction {
    */
   HashCode hashLong(long input);
 
+  /**
+   * Hashes each element of {@code input} like {@link #hashInt}, and stores the {@linkplain
+   * HashCode#padToLong first 64 bits} of its hash code at the same index of {@code output}. This
+   * is meant for hashing many keys at once: the implementation <i>might</i> compute the results
+   * without creating any {@code HashCode} instance, but should not perform worse than calling
+   * {@code hashInt} for each element.
+   *
+   * @throws IllegalArgumentException if {@code output} is shorter than {@code input}
+   * @since 19.0
+   */
+  void hashInts(int[] input, long[] output);
+
+  /**
+   * Hashes each element of {@code input} like {@link #hashLong}, and stores the {@linkplain
+   * HashCode#padToLong first 64 bits} of its hash code at the same index of {@code output}. This
+   * is meant for hashing many keys at once: the implementation <i>might</i> compute the results
+   * without creating any {@code HashCode} instance, but should not perform worse than calling
+   * {@code hashLong} for each element.
+   *
+   * @throws IllegalArgumentException if {@code output} is shorter than {@code input}
+   * @since 19.0
+   */
+  void hashLongs(long[] input, long[] output);
+
   /**
    * Shortcut for {@code newHasher().putBytes(input).hash()}. The implementation
    * <i>might</i> perform better than its longhand equivalent, but should not perform
@@ -183,6 +208,25 @@ public interface HashFunction {
    */
   HashCode hashBytes(byte[] input, int off, int len);
 
+  /**
+   * Shortcut for {@code newHasher().putBytes(input).hash()}, which hashes the remaining bytes of
+   * {@code input} and leaves its position equal to its limit. The implementation <i>might</i>
+   * perform better than its longhand equivalent, but should not perform worse.
+   *
+   * @since 19.0
+   */
+  HashCode hashBytes(ByteBuffer input);
+
+  /**
+   * Equivalent to {@code hashBytes(input, off, len).padToLong()}, but <i>might</i> compute the
+   * result without creating a {@link HashCode}.
+   *
+   * @throws IndexOutOfBoundsException if {@code off < 0} or {@code off + len > bytes.length}
+   *   or {@code len < 0}
+   * @since 19.0
+   */
+  long hashBytesToLong(byte[] input, int off, int len);
+
   /**
    * Shortcut for {@code newHasher().putUnencodedChars(input).hash()}. The implementation
    * <i>might</i> perform better than its longhand equivalent, but should not perform worse.
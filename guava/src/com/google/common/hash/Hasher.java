@@ -16,6 +16,7 @@ package com.google.common.hash;
 
 import com.google.common.annotations.Beta;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -23,7 +24,8 @@ import java.nio.charset.Charset;
  * translate all multibyte values ({@link #putInt(int)}, {@link #putLong(long)}, etc) to bytes
  * in little-endian order.
  *
- * <p><b>Warning:</b> The result of calling any methods after calling {@link #hash} is undefined.
+ * <p><b>Warning:</b> The result of calling any methods after calling {@link #hash}, or one of its
+ * variants, is undefined, except for {@link #reset}.
  *
  * <p><b>Warning:</b> Using a specific character encoding when hashing a {@link CharSequence} with
  * {@link #putString(CharSequence, Charset)} is generally only useful for cross-language
@@ -54,6 +56,11 @@ public interface Hasher extends PrimitiveSink {
   @Override Hasher putByte(byte b);
   @Override Hasher putBytes(byte[] bytes);
   @Override Hasher putBytes(byte[] bytes, int off, int len);
+
+  /**
+   * @since 19.0
+   */
+  @Override Hasher putBytes(ByteBuffer bytes);
   @Override Hasher putShort(short s);
   @Override Hasher putInt(int i);
   @Override Hasher putLong(long l);
@@ -97,4 +104,35 @@ public interface Hasher extends PrimitiveSink {
    * unspecified if this method is called more than once on the same instance.
    */
   HashCode hash();
+
+  /**
+   * Equivalent to {@code hash().padToLong()}, but <i>might</i> compute the result without creating
+   * a {@link HashCode}. Like {@link #hash}, this method must be called at most once, unless the
+   * hasher is {@linkplain #reset reset}.
+   *
+   * @since 19.0
+   */
+  long hashToLong();
+
+  /**
+   * Equivalent to {@code hash().asInt()}, but <i>might</i> compute the result without creating a
+   * {@link HashCode}. Like {@link #hash}, this method must be called at most once, unless the
+   * hasher is {@linkplain #reset reset}.
+   *
+   * @since 19.0
+   */
+  int hashToInt();
+
+  /**
+   * Discards the data that have been provided to this hasher, and returns it to the state it was
+   * created in by {@link HashFunction#newHasher()} (optional operation). A hasher can be reset
+   * after computing its hash code, so that a single instance hashes many inputs in turn.
+   *
+   * <p>The hashers of all the hash functions returned by {@link Hashing} support this operation.
+   *
+   * @return this instance
+   * @throws UnsupportedOperationException if this hasher can't be reset
+   * @since 19.0
+   */
+  Hasher reset();
 }
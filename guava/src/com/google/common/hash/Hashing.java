@@ -174,6 +174,59 @@ public final class Hashing {
     return new SipHashFunction(2, 4, k0, k1);
   }
 
+  /**
+   * Returns a hash function implementing the
+   * <a href="https://github.com/Cyan4973/xxHash">64-bit xxHash algorithm</a> (XXH64), using a seed
+   * value of zero. It is a fast non-cryptographic hash function, which consumes 32 bytes at a
+   * time.
+   *
+   * <p>The exact C equivalent is the {@code XXH64} function. Its result is returned by {@link
+   * HashCode#asLong()}.
+   *
+   * @since 19.0
+   */
+  public static HashFunction xxHash64() {
+    return XxHash64Holder.XX_HASH_64;
+  }
+
+  private static class XxHash64Holder {
+    static final HashFunction XX_HASH_64 = new XxHash64HashFunction(0);
+  }
+
+  /**
+   * Returns a hash function implementing the
+   * <a href="https://github.com/Cyan4973/xxHash">64-bit xxHash algorithm</a> (XXH64), using the
+   * given seed value.
+   *
+   * <p>The exact C equivalent is the {@code XXH64} function. Its result is returned by {@link
+   * HashCode#asLong()}.
+   *
+   * @since 19.0
+   */
+  public static HashFunction xxHash64(long seed) {
+    return new XxHash64HashFunction(seed);
+  }
+
+  /**
+   * Returns a hash function implementing FarmHash's
+   * <a href="https://github.com/google/farmhash">Fingerprint64</a> (64 hash bits), an
+   * open-source fingerprinting algorithm for strings. Unlike other FarmHash functions, its
+   * results will never change, so it is suitable for hash codes that are persisted or sent to
+   * other processes.
+   *
+   * <p>The exact C++ equivalent is the {@code util::Fingerprint64} function. Its result is returned
+   * by {@link HashCode#asLong()}.
+   *
+   * @since 19.0
+   */
+  public static HashFunction farmHashFingerprint64() {
+    return FarmHashFingerprint64Holder.FARMHASH_FINGERPRINT_64;
+  }
+
+  private static class FarmHashFingerprint64Holder {
+    static final HashFunction FARMHASH_FINGERPRINT_64 = new FarmHashFingerprint64HashFunction();
+  }
+
   /**
    * Returns a hash function implementing the MD5 hash algorithm (128 hash bits) by delegating to
    * the MD5 {@link MessageDigest}.
@@ -229,6 +282,8 @@ public final class Hashing {
    * Returns a hash function implementing the CRC32C checksum algorithm (32 hash bits) as described
    * by RFC 3720, Section 12.1.
    *
+   * <p>On Java 9 and later, this delegates to {@code java.util.zip.CRC32C}.
+   *
    * @since 18.0
    */
   public static HashFunction crc32c() {
@@ -0,0 +1,589 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * A HyperLogLog sketch, which estimates the number of distinct instances of {@code T} put into it
+ * in a small, fixed amount of memory. Sketches built separately, for instance on different
+ * machines, can be {@linkplain #merge merged} into a sketch of the union of their elements.
+ *
+ * <p>Elements are hashed with {@link Hashing#murmur3_128}. A sketch of precision {@code p} has
+ * {@code 2^p} registers, each recording the longest run of leading zeros among the hashes that
+ * fall into it, and estimates cardinalities with a relative standard error of about {@code
+ * 1.04 / sqrt(2^p)}; for instance 0.81% for the default precision of 14, using 12KB.
+ *
+ * <p>As in "HyperLogLog in Practice" by Stefan Heule, Marc Nunkesser and Alexander Hall, a sketch
+ * starts with a sparse encoding, which only records the registers in use with a higher precision,
+ * and which is exact in practice for small cardinalities. It switches to the dense array of
+ * registers once that is smaller. Cardinalities are estimated from the registers with the
+ * improved estimator of "New cardinality estimation algorithms for HyperLogLog sketches" by Otmar
+ * Ertl, which needs no empirical bias correction.
+ *
+ * <p>Putting an element allocates nothing: it is hashed with a hasher that the sketch reuses,
+ * registers are updated in place, and sparse entries are buffered in a fixed array, which is
+ * merged into the sorted sparse list when full. The sparse list grows by doubling, until the
+ * sketch switches to the dense encoding.
+ *
+ * <p>Sketches are serializable. They also support a more compact and stable serial representation
+ * via the {@link #writeTo} and {@link #readFrom} methods.
+ *
+ * <p>Sketches are not thread-safe.
+ *
+ * @param <T> the type of instances that the {@code HyperLogLog} accepts
+ * @since 19.0
+ */
+@Beta
+public final class HyperLogLog<T> implements Serializable {
+  /** The lowest supported precision. */
+  public static final int MIN_PRECISION = 4;
+
+  /** The highest supported precision. */
+  public static final int MAX_PRECISION = 18;
+
+  private static final int DEFAULT_PRECISION = 14;
+
+  /** The precision of the indexes of sparse entries. */
+  @VisibleForTesting static final int SPARSE_PRECISION = 25;
+
+  /** Sparse entries are {@code index << RHO_BITS | rho}. */
+  private static final int RHO_BITS = 6;
+  private static final int RHO_MASK = (1 << RHO_BITS) - 1;
+
+  /** The number of sparse entries buffered before they are merged into the sorted list. */
+  private static final int BUFFER_SIZE = 64;
+
+  private static final byte SPARSE_ENCODING = 0;
+  private static final byte DENSE_ENCODING = 1;
+
+  /** The funnel to translate Ts to bytes */
+  private final Funnel<? super T> funnel;
+
+  private final int precision;
+
+  /** The registers of the dense encoding, or null while sparse. */
+  @Nullable private byte[] registers;
+
+  /**
+   * The sparse entries, sorted by index, with at most one entry per index, or null once dense.
+   * Only the first {@code sparseSize} are used.
+   */
+  @Nullable private int[] sparse;
+  private int sparseSize;
+
+  /** Sparse entries not yet merged into {@link #sparse}, in no particular order. */
+  @Nullable private int[] buffer;
+  private int bufferSize;
+
+  /** The hasher that elements are hashed with, reset before each one. */
+  private final transient Hasher hasher = Hashing.murmur3_128().newHasher();
+
+  private HyperLogLog(Funnel<? super T> funnel, int precision, @Nullable byte[] registers,
+      @Nullable int[] sparse, int sparseSize) {
+    this.funnel = funnel;
+    this.precision = precision;
+    this.registers = registers;
+    this.sparse = sparse;
+    this.sparseSize = sparseSize;
+    this.buffer = (registers == null) ? new int[BUFFER_SIZE] : null;
+  }
+
+  /**
+   * Creates an empty {@link HyperLogLog HyperLogLog<T>} of the default precision, 14, whose
+   * estimates have a relative standard error of about 0.81%.
+   *
+   * @param funnel the funnel of T's that the constructed {@code HyperLogLog<T>} will use
+   */
+  public static <T> HyperLogLog<T> create(Funnel<? super T> funnel) {
+    return create(funnel, DEFAULT_PRECISION);
+  }
+
+  /**
+   * Creates an empty {@link HyperLogLog HyperLogLog<T>} of the given precision. Its estimates have
+   * a relative standard error of about {@code 1.04 / sqrt(2^precision)}, and once dense it uses
+   * {@code 2^precision} bytes.
+   *
+   * @param funnel the funnel of T's that the constructed {@code HyperLogLog<T>} will use
+   * @param precision the number of bits of the hash that select a register, between {@link
+   *     #MIN_PRECISION} and {@link #MAX_PRECISION}
+   */
+  public static <T> HyperLogLog<T> create(Funnel<? super T> funnel, int precision) {
+    checkNotNull(funnel);
+    checkPrecision(precision);
+    return new HyperLogLog<T>(funnel, precision, null, new int[BUFFER_SIZE], 0);
+  }
+
+  private static void checkPrecision(int precision) {
+    checkArgument(precision >= MIN_PRECISION && precision <= MAX_PRECISION,
+        "precision (%s) must be between %s and %s", precision, MIN_PRECISION, MAX_PRECISION);
+  }
+
+  /** Returns the precision of this sketch. */
+  public int precision() {
+    return precision;
+  }
+
+  /**
+   * Creates a new {@code HyperLogLog} that's a copy of this instance. The new instance is equal to
+   * this instance but shares no mutable state.
+   */
+  public HyperLogLog<T> copy() {
+    if (registers != null) {
+      return new HyperLogLog<T>(funnel, precision, registers.clone(), null, 0);
+    }
+    HyperLogLog<T> copy = new HyperLogLog<T>(funnel, precision, null, sparse.clone(), sparseSize);
+    System.arraycopy(buffer, 0, copy.buffer, 0, bufferSize);
+    copy.bufferSize = bufferSize;
+    copy.flushBuffer();
+    return copy;
+  }
+
+  /**
+   * Returns this sketch if it has no buffered entries, or else a copy of it with its buffer
+   * flushed, so that sketches can be compared without modifying them.
+   */
+  private HyperLogLog<T> flushed() {
+    return (bufferSize == 0) ? this : copy();
+  }
+
+  /** Puts an element into this sketch. */
+  public void put(T object) {
+    funnel.funnel(object, hasher.reset());
+    long hash = hasher.hashToLong();
+    if (registers != null) {
+      int index = (int) (hash >>> (Long.SIZE - precision));
+      int rho = rho(hash << precision, Long.SIZE - precision);
+      if (rho > registers[index]) {
+        registers[index] = (byte) rho;
+      }
+    } else {
+      int index = (int) (hash >>> (Long.SIZE - SPARSE_PRECISION));
+      int rho = rho(hash << SPARSE_PRECISION, Long.SIZE - SPARSE_PRECISION);
+      buffer[bufferSize++] = (index << RHO_BITS) | rho;
+      if (bufferSize == BUFFER_SIZE) {
+        flushBuffer();
+      }
+    }
+  }
+
+  /**
+   * Returns the position of the first 1 bit of the {@code bits} highest bits of {@code value},
+   * counting from 1, or {@code bits + 1} if they are all 0.
+   */
+  private static int rho(long value, int bits) {
+    return Math.min(Long.numberOfLeadingZeros(value), bits) + 1;
+  }
+
+  /** Merges the buffered entries into the sorted sparse list, switching to dense if it is full. */
+  private void flushBuffer() {
+    if (bufferSize == 0) {
+      return;
+    }
+    Arrays.sort(buffer, 0, bufferSize);
+    mergeSparse(buffer, bufferSize);
+    bufferSize = 0;
+    if (sparseSize > maxSparseSize()) {
+      convertToDense();
+    }
+  }
+
+  /**
+   * Merges {@code size} sorted entries into the sorted sparse list, keeping the highest rho of
+   * each index.
+   */
+  private void mergeSparse(int[] entries, int size) {
+    if (sparse.length < sparseSize + size) {
+      sparse = Arrays.copyOf(sparse, Math.max(sparse.length * 2, sparseSize + size));
+    }
+    // merge from the back, so that no entry is overwritten before it is read
+    int i = sparseSize - 1;
+    int j = size - 1;
+    for (int k = sparseSize + size - 1; j >= 0; k--) {
+      sparse[k] = (i >= 0 && sparse[i] > entries[j]) ? sparse[i--] : entries[j--];
+    }
+    // keep the last, and so highest, entry of each index
+    int newSize = 0;
+    for (int k = 0; k < sparseSize + size; k++) {
+      if (k + 1 < sparseSize + size && (sparse[k] >>> RHO_BITS) == (sparse[k + 1] >>> RHO_BITS)) {
+        continue;
+      }
+      sparse[newSize++] = sparse[k];
+    }
+    sparseSize = newSize;
+  }
+
+  /** Returns the number of sparse entries beyond which the dense encoding is smaller. */
+  private int maxSparseSize() {
+    return (1 << precision) / 4;
+  }
+
+  private void convertToDense() {
+    byte[] registers = new byte[1 << precision];
+    int extraBits = SPARSE_PRECISION - precision;
+    for (int k = 0; k < sparseSize; k++) {
+      int sparseIndex = sparse[k] >>> RHO_BITS;
+      int index = sparseIndex >>> extraBits;
+      // the extra bits of the sparse index are the first bits of the dense register's value
+      int extra = sparseIndex & ((1 << extraBits) - 1);
+      int rho = (extra != 0)
+          ? Integer.numberOfLeadingZeros(extra) - (Integer.SIZE - extraBits) + 1
+          : extraBits + (sparse[k] & RHO_MASK);
+      if (rho > registers[index]) {
+        registers[index] = (byte) rho;
+      }
+    }
+    this.registers = registers;
+    this.sparse = null;
+    this.sparseSize = 0;
+    this.buffer = null;
+    this.bufferSize = 0;
+  }
+
+  @VisibleForTesting boolean isSparse() {
+    return registers == null;
+  }
+
+  /**
+   * Returns an estimate of the number of distinct elements put into this sketch, or into the
+   * sketches merged into it.
+   */
+  public long cardinality() {
+    if (registers == null) {
+      flushBuffer();
+    }
+    if (registers == null) {
+      // linear counting over the sparse registers, which is exact until their indexes collide
+      double m = 1 << SPARSE_PRECISION;
+      return Math.round(m * Math.log(m / (m - sparseSize)));
+    }
+    return Math.round(estimate(registers, Long.SIZE - precision));
+  }
+
+  /**
+   * The improved raw estimator of Ertl, from the histogram of the register values, which are
+   * between 0 and {@code q + 1}.
+   */
+  private static double estimate(byte[] registers, int q) {
+    int m = registers.length;
+    int[] histogram = new int[q + 2];
+    for (byte register : registers) {
+      histogram[register]++;
+    }
+    double z = m * tau(1.0 - (double) histogram[q + 1] / m);
+    for (int k = q; k >= 1; k--) {
+      z += histogram[k];
+      z *= 0.5;
+    }
+    z += m * sigma((double) histogram[0] / m);
+    return m / (2 * Math.log(2)) * m / z;
+  }
+
+  private static double sigma(double x) {
+    if (x == 1.0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double y = 1.0;
+    double z = x;
+    double zPrevious;
+    do {
+      x *= x;
+      zPrevious = z;
+      z += x * y;
+      y += y;
+    } while (z != zPrevious);
+    return z;
+  }
+
+  private static double tau(double x) {
+    if (x == 0.0 || x == 1.0) {
+      return 0.0;
+    }
+    double y = 1.0;
+    double z = 1 - x;
+    double zPrevious;
+    do {
+      x = Math.sqrt(x);
+      zPrevious = z;
+      y *= 0.5;
+      z -= (1 - x) * (1 - x) * y;
+    } while (z != zPrevious);
+    return z / 3;
+  }
+
+  /**
+   * Determines whether a given sketch is compatible with this one. For two sketches to be
+   * compatible, they must:
+   *
+   * <ul>
+   * <li>not be the same instance
+   * <li>have the same precision
+   * <li>have equal funnels
+   * </ul>
+   */
+  public boolean isCompatible(HyperLogLog<T> that) {
+    checkNotNull(that);
+    return this != that
+        && this.precision == that.precision
+        && this.funnel.equals(that.funnel);
+  }
+
+  /**
+   * Merges another sketch into this one, so that this sketch estimates the number of distinct
+   * elements put into either. The mutations happen to <b>this</b> instance.
+   *
+   * @param that the sketch to merge into this one. It is not mutated.
+   * @throws IllegalArgumentException if {@code isCompatible(that) == false}
+   */
+  public void merge(HyperLogLog<T> that) {
+    checkNotNull(that);
+    checkArgument(this != that, "Cannot merge a HyperLogLog with itself.");
+    checkArgument(this.precision == that.precision,
+        "HyperLogLogs must have the same precision (%s != %s)", this.precision, that.precision);
+    checkArgument(this.funnel.equals(that.funnel),
+        "HyperLogLogs must have equal funnels (%s != %s)", this.funnel, that.funnel);
+
+    if (that.registers == null) {
+      that.flushBuffer();
+    }
+    if (this.registers == null) {
+      flushBuffer();
+    }
+    if (that.registers == null && this.registers == null) {
+      mergeSparse(that.sparse, that.sparseSize);
+      if (sparseSize > maxSparseSize()) {
+        convertToDense();
+      }
+      return;
+    }
+    if (this.registers == null) {
+      convertToDense();
+    }
+    if (that.registers == null) {
+      HyperLogLog<T> thatDense = that.copy();
+      thatDense.convertToDense();
+      that = thatDense;
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (that.registers[i] > registers[i]) {
+        registers[i] = that.registers[i];
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (object instanceof HyperLogLog) {
+      // compares flushed views, as equals must not modify either sketch
+      HyperLogLog<?> left = this.flushed();
+      HyperLogLog<?> right = ((HyperLogLog<?>) object).flushed();
+      return left.precision == right.precision
+          && left.funnel.equals(right.funnel)
+          && Arrays.equals(left.registers, right.registers)
+          && left.sparseSize == right.sparseSize
+          && (left.sparse == null || sparseEquals(left.sparse, right.sparse, left.sparseSize));
+    }
+    return false;
+  }
+
+  private static boolean sparseEquals(int[] a, @Nullable int[] b, int size) {
+    if (b == null) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (a[i] != b[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(precision, funnel, flushed().cardinality());
+  }
+
+  /**
+   * Writes this {@code HyperLogLog} to an output stream, with a custom format (not Java
+   * serialization). The format is stable: it will be readable by future versions of this library.
+   * A sparse sketch is written as the differences between its sorted entries, in a variable
+   * number of bytes each; a dense one as its registers, 6 bits each.
+   *
+   * <p>Use {@linkplain #readFrom(InputStream, Funnel)} to reconstruct the written sketch.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    /*
+     * Serial form:
+     * 1 byte for the encoding: 0 for sparse, 1 for dense
+     * 1 byte for the precision
+     * if sparse:
+     *   1 big endian int, the number of entries
+     *   N varints, the first entry and then the differences between consecutive entries
+     * if dense:
+     *   2^precision * 6 bits for the registers, packed big endian, padded to a whole byte
+     */
+    DataOutputStream dout = new DataOutputStream(out);
+    if (registers == null) {
+      flushBuffer();
+    }
+    if (registers == null) {
+      dout.writeByte(SPARSE_ENCODING);
+      dout.writeByte(precision);
+      dout.writeInt(sparseSize);
+      int previous = 0;
+      for (int i = 0; i < sparseSize; i++) {
+        writeVarInt(dout, sparse[i] - previous);
+        previous = sparse[i];
+      }
+    } else {
+      dout.writeByte(DENSE_ENCODING);
+      dout.writeByte(precision);
+      int bits = 0;
+      int bitCount = 0;
+      for (byte register : registers) {
+        bits = (bits << RHO_BITS) | register;
+        bitCount += RHO_BITS;
+        while (bitCount >= Byte.SIZE) {
+          bitCount -= Byte.SIZE;
+          dout.writeByte(bits >>> bitCount);
+        }
+      }
+      if (bitCount > 0) {
+        dout.writeByte(bits << (Byte.SIZE - bitCount));
+      }
+    }
+    dout.flush();
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      byte b = in.readByte();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  /**
+   * Reads a byte stream, which was written by {@linkplain #writeTo(OutputStream)}, into a {@code
+   * HyperLogLog<T>}.
+   *
+   * <p>The {@code Funnel} to be used is not encoded in the stream, so it must be provided here.
+   * <b>Warning:</b> the funnel provided <b>must</b> behave identically to the one used to populate
+   * the original sketch!
+   *
+   * @throws IOException if the InputStream throws an {@code IOException}, or if its data does not
+   *     appear to be a HyperLogLog serialized using the {@linkplain #writeTo(OutputStream)} method.
+   */
+  public static <T> HyperLogLog<T> readFrom(InputStream in, Funnel<? super T> funnel)
+      throws IOException {
+    checkNotNull(in, "InputStream");
+    checkNotNull(funnel, "Funnel");
+    int encoding = -1;
+    int precision = -1;
+    try {
+      DataInputStream din = new DataInputStream(in);
+      encoding = din.readByte();
+      precision = din.readByte();
+      checkPrecision(precision);
+      if (encoding == SPARSE_ENCODING) {
+        int size = din.readInt();
+        checkArgument(size >= 0 && size <= (1 << precision) / 4,
+            "sparse size (%s) out of range", size);
+        int[] sparse = new int[Math.max(size, BUFFER_SIZE)];
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+          sparse[i] = previous + readVarInt(din);
+          checkArgument(i == 0 || (sparse[i] >>> RHO_BITS) > (previous >>> RHO_BITS),
+              "sparse entries must be sorted");
+          previous = sparse[i];
+        }
+        return new HyperLogLog<T>(funnel, precision, null, sparse, size);
+      }
+      checkArgument(encoding == DENSE_ENCODING, "unknown encoding");
+      byte[] registers = new byte[1 << precision];
+      int bits = 0;
+      int bitCount = 0;
+      for (int i = 0; i < registers.length; i++) {
+        while (bitCount < RHO_BITS) {
+          bits = (bits << Byte.SIZE) | (din.readByte() & 0xFF);
+          bitCount += Byte.SIZE;
+        }
+        bitCount -= RHO_BITS;
+        registers[i] = (byte) ((bits >>> bitCount) & RHO_MASK);
+        checkArgument(registers[i] <= Long.SIZE - precision + 1, "register out of range");
+      }
+      return new HyperLogLog<T>(funnel, precision, registers, null, 0);
+    } catch (RuntimeException e) {
+      IOException ioException = new IOException(
+          "Unable to deserialize HyperLogLog from InputStream."
+          + " encoding: " + encoding
+          + " precision: " + precision);
+      ioException.initCause(e);
+      throw ioException;
+    }
+  }
+
+  private Object writeReplace() throws IOException {
+    return new SerialForm<T>(this);
+  }
+
+  private static class SerialForm<T> implements Serializable {
+    final Funnel<? super T> funnel;
+    final byte[] bytes;
+
+    SerialForm(HyperLogLog<T> hll) throws IOException {
+      this.funnel = hll.funnel;
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      hll.writeTo(out);
+      this.bytes = out.toByteArray();
+    }
+    Object readResolve() throws IOException {
+      return readFrom(new ByteArrayInputStream(bytes), funnel);
+    }
+    private static final long serialVersionUID = 1;
+  }
+}
@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -143,10 +144,23 @@ final class MessageDigestHashFunction extends AbstractStreamingHashFunction
       digest.update(b, off, len);
     }
 
+    @Override
+    protected void update(ByteBuffer bytes) {
+      checkNotDone();
+      digest.update(bytes);
+    }
+
     private void checkNotDone() {
       checkState(!done, "Cannot re-use a Hasher after calling hash() on it");
     }
 
+    @Override
+    public Hasher reset() {
+      digest.reset();
+      done = false;
+      return this;
+    }
+
     @Override
     public HashCode hash() {
       checkNotDone();
@@ -25,8 +25,13 @@
 
 package com.google.common.hash;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.primitives.UnsignedBytes.toInt;
 
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedInts;
+
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -75,21 +80,65 @@ final class Murmur3_128HashFunction extends AbstractStreamingHashFunction implem
     return getClass().hashCode() ^ seed;
   }
 
+  @Override public void hashInts(int[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hashToLong(UnsignedInts.toLong(input[i]), Ints.BYTES);
+    }
+  }
+
+  @Override public void hashLongs(long[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hashToLong(input[i], Longs.BYTES);
+    }
+  }
+
+  /**
+   * Returns the first 64 bits of the hash code of the {@code length <= 8} low bytes of {@code k1},
+   * in little-endian order: the steps of the hasher for a single, partial chunk.
+   */
+  private long hashToLong(long k1, int length) {
+    long h1 = seed;
+    long h2 = seed;
+    h1 ^= Murmur3_128Hasher.mixK1(k1);
+
+    h1 ^= length;
+    h2 ^= length;
+
+    h1 += h2;
+    h2 += h1;
+
+    return Murmur3_128Hasher.fmix64(h1) + Murmur3_128Hasher.fmix64(h2);
+  }
+
   private static final class Murmur3_128Hasher extends AbstractStreamingHasher {
     private static final int CHUNK_SIZE = 16;
     private static final long C1 = 0x87c37b91114253d5L;
     private static final long C2 = 0x4cf5ad432745937fL;
+    private final int seed;
     private long h1;
     private long h2;
     private int length;
 
     Murmur3_128Hasher(int seed) {
       super(CHUNK_SIZE);
+      this.seed = seed;
       this.h1 = seed;
       this.h2 = seed;
       this.length = 0;
     }
 
+    @Override public Hasher reset() {
+      clearBuffer();
+      h1 = seed;
+      h2 = seed;
+      length = 0;
+      return this;
+    }
+
     @Override protected void process(ByteBuffer bb) {
       long k1 = bb.getLong();
       long k2 = bb.getLong();
@@ -156,6 +205,21 @@ final class Murmur3_128HashFunction extends AbstractStreamingHashFunction implem
     }
 
     @Override public HashCode makeHash() {
+      finish();
+      return HashCode.fromBytesNoCopy(ByteBuffer
+          .wrap(new byte[CHUNK_SIZE])
+          .order(ByteOrder.LITTLE_ENDIAN)
+          .putLong(h1)
+          .putLong(h2)
+          .array());
+    }
+
+    @Override long makeHashToLong() {
+      finish();
+      return h1;
+    }
+
+    private void finish() {
       h1 ^= length;
       h2 ^= length;
 
@@ -167,13 +231,6 @@ final class Murmur3_128HashFunction extends AbstractStreamingHashFunction implem
 
       h1 += h2;
       h2 += h1;
-
-      return HashCode.fromBytesNoCopy(ByteBuffer
-          .wrap(new byte[CHUNK_SIZE])
-          .order(ByteOrder.LITTLE_ENDIAN)
-          .putLong(h1)
-          .putLong(h2)
-          .array());
     }
 
     private static long fmix64(long k) {
@@ -25,11 +25,13 @@
 
 package com.google.common.hash;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.primitives.UnsignedBytes.toInt;
 
 import com.google.common.primitives.Chars;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedInts;
 
 import java.io.Serializable;
 import java.nio.ByteBuffer;
@@ -82,13 +84,37 @@ final class Murmur3_32HashFunction extends AbstractStreamingHashFunction impleme
   }
 
   @Override public HashCode hashInt(int input) {
+    return HashCode.fromInt(hash(input));
+  }
+
+  @Override public HashCode hashLong(long input) {
+    return HashCode.fromInt(hash(input));
+  }
+
+  @Override public void hashInts(int[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = UnsignedInts.toLong(hash(input[i]));
+    }
+  }
+
+  @Override public void hashLongs(long[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = UnsignedInts.toLong(hash(input[i]));
+    }
+  }
+
+  private int hash(int input) {
     int k1 = mixK1(input);
     int h1 = mixH1(seed, k1);
 
-    return fmix(h1, Ints.BYTES);
+    return fmixInt(h1, Ints.BYTES);
   }
 
-  @Override public HashCode hashLong(long input) {
+  private int hash(long input) {
     int low = (int) input;
     int high = (int) (input >>> 32);
 
@@ -98,7 +124,7 @@ final class Murmur3_32HashFunction extends AbstractStreamingHashFunction impleme
     k1 = mixK1(high);
     h1 = mixH1(h1, k1);
 
-    return fmix(h1, Longs.BYTES);
+    return fmixInt(h1, Longs.BYTES);
   }
 
   // TODO(user): Maybe implement #hashBytes instead?
@@ -138,26 +164,39 @@ final class Murmur3_32HashFunction extends AbstractStreamingHashFunction impleme
 
   // Finalization mix - force all bits of a hash block to avalanche
   private static HashCode fmix(int h1, int length) {
+    return HashCode.fromInt(fmixInt(h1, length));
+  }
+
+  private static int fmixInt(int h1, int length) {
     h1 ^= length;
     h1 ^= h1 >>> 16;
     h1 *= 0x85ebca6b;
     h1 ^= h1 >>> 13;
     h1 *= 0xc2b2ae35;
     h1 ^= h1 >>> 16;
-    return HashCode.fromInt(h1);
+    return h1;
   }
 
   private static final class Murmur3_32Hasher extends AbstractStreamingHasher {
     private static final int CHUNK_SIZE = 4;
+    private final int seed;
     private int h1;
     private int length;
 
     Murmur3_32Hasher(int seed) {
       super(CHUNK_SIZE);
+      this.seed = seed;
       this.h1 = seed;
       this.length = 0;
     }
 
+    @Override public Hasher reset() {
+      clearBuffer();
+      h1 = seed;
+      length = 0;
+      return this;
+    }
+
     @Override protected void process(ByteBuffer bb) {
       int k1 = Murmur3_32HashFunction.mixK1(bb.getInt());
       h1 = Murmur3_32HashFunction.mixH1(h1, k1);
@@ -176,6 +215,10 @@ final class Murmur3_32HashFunction extends AbstractStreamingHashFunction impleme
     @Override public HashCode makeHash() {
       return Murmur3_32HashFunction.fmix(h1, length);
     }
+
+    @Override long makeHashToLong() {
+      return UnsignedInts.toLong(fmixInt(h1, length));
+    }
   }
 
   private static final long serialVersionUID = 0L;
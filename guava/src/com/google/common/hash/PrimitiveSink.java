@@ -16,6 +16,7 @@ package com.google.common.hash;
 
 import com.google.common.annotations.Beta;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -55,6 +56,23 @@ public interface PrimitiveSink {
    */
   PrimitiveSink putBytes(byte[] bytes, int off, int len);
 
+  /**
+   * Puts the remaining bytes of a byte buffer into this sink. {@code bytes.position()} is the first
+   * byte written, {@code bytes.limit() - 1} is the last. The position of the buffer will be equal
+   * to its limit when this method returns; its byte order is not relevant, and is preserved.
+   *
+   * <p>Whether the bytes are copied depends on the sink. The hashers of streaming functions such
+   * as {@link Hashing#murmur3_128} read heap and direct buffers in place. The checksum hashers
+   * copy the bytes of direct buffers into an array, in bounded chunks, and the hashers of
+   * functions that hash whole arrays, such as {@link Hashing#farmHashFingerprint64}, buffer all
+   * the bytes they are given.
+   *
+   * @param bytes a byte buffer
+   * @return this instance
+   * @since 19.0
+   */
+  PrimitiveSink putBytes(ByteBuffer bytes);
+
   /**
    * Puts a short into this sink.
    */
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.Beta;
+import com.google.common.math.LongMath;
+
+/**
+ * A 64-bit hash of the last {@link #windowSize} bytes of a stream, which is updated in constant
+ * time as the window slides forward by one byte. Rolling hashes are used to find matching
+ * substrings, and to cut a stream into chunks at positions that depend only on the bytes nearby,
+ * so that an insertion or deletion only changes the chunks around it.
+ *
+ * <p>A rolling hash is filled by {@linkplain #append appending} the first {@code windowSize} bytes,
+ * and then {@linkplain #roll rolled} by passing each following byte together with the byte
+ * leaving the window, which the caller keeps track of. The hash of a window is fully determined by
+ * its contents, so it is the same whether the window was filled directly or rolled into place, and
+ * it will not change between releases.
+ *
+ * <p>Rolling hashes are not cryptographically secure, nor as well mixed as the other hash functions
+ * in this package; they should only be used where the rolling update is needed. Instances are not
+ * thread-safe.
+ *
+ * @since 19.0
+ */
+@Beta
+public abstract class RollingHash {
+  /**
+   * The random values the bytes are mapped to before being hashed, so that every bit of the hash
+   * depends on every byte of the window. They are generated by the finalization mix of murmur3.
+   */
+  private static final long[] BYTE_VALUES = new long[256];
+
+  static {
+    for (int i = 0; i < BYTE_VALUES.length; i++) {
+      long k = i + 1;
+      k ^= k >>> 33;
+      k *= 0xff51afd7ed558ccdL;
+      k ^= k >>> 33;
+      k *= 0xc4ceb9fe1a85ec53L;
+      k ^= k >>> 33;
+      BYTE_VALUES[i] = k;
+    }
+  }
+
+  /**
+   * Returns a rolling hash of a window of {@code windowSize} bytes that implements buzhash, a
+   * cyclic polynomial hash: the hash of the bytes {@code b[0], ..., b[n-1]} is the exclusive or of
+   * {@code Long.rotateLeft(T(b[i]), n - 1 - i)}, where {@code T} maps each byte to a fixed random
+   * value. Every bit of the result is equally well distributed.
+   *
+   * <p>The window holds at most 64 bytes: beyond that, the rotations would wrap around, and two
+   * equal bytes 64 positions apart would cancel out.
+   *
+   * @throws IllegalArgumentException if {@code windowSize} is not positive, or is greater than 64
+   */
+  public static RollingHash buzhash(int windowSize) {
+    return new Buzhash(windowSize);
+  }
+
+  /**
+   * Returns a rolling hash of a window of {@code windowSize} bytes that implements the Rabin-Karp
+   * polynomial hash: the hash of the bytes {@code b[0], ..., b[n-1]} is the sum of {@code
+   * T(b[i]) * P^(n-1-i)}, modulo 2<sup>64</sup>, where {@code T} maps each byte to a fixed random
+   * value and {@code P} is a fixed odd multiplier. The lower bits of the result only depend on the
+   * lower bits of the byte values, so the upper bits should be preferred.
+   *
+   * <p>Unlike Rabin's fingerprints, which compute the remainder of a division by an irreducible
+   * polynomial over GF(2), this hash works modulo 2<sup>64</sup>, where rolling only takes one
+   * multiplication per byte.
+   *
+   * @throws IllegalArgumentException if {@code windowSize} is not positive
+   */
+  public static RollingHash rabinKarp(int windowSize) {
+    return new RabinKarp(windowSize);
+  }
+
+  final int windowSize;
+  long hash;
+
+  RollingHash(int windowSize) {
+    checkArgument(windowSize > 0, "windowSize (%s) must be positive", windowSize);
+    this.windowSize = windowSize;
+  }
+
+  /** Returns the number of bytes in a full window. */
+  public final int windowSize() {
+    return windowSize;
+  }
+
+  /**
+   * Adds {@code in} to the end of the window, which must not be full yet, and returns the updated
+   * hash. The result is unspecified if more than {@link #windowSize} bytes are appended before
+   * rolling.
+   */
+  public abstract long append(byte in);
+
+  /**
+   * Slides the full window forward by one byte, removing {@code out}, which must be the byte that
+   * was added {@link #windowSize} bytes ago, and adding {@code in}. Returns the updated hash.
+   */
+  public abstract long roll(byte out, byte in);
+
+  /** Returns the hash of the bytes currently in the window. */
+  public final long hash() {
+    return hash;
+  }
+
+  /** Empties the window, so that the hash can be reused for another stream. */
+  public final void reset() {
+    hash = 0;
+  }
+
+  private static final class Buzhash extends RollingHash {
+    Buzhash(int windowSize) {
+      super(windowSize);
+      checkArgument(windowSize <= Long.SIZE, "windowSize (%s) must be at most 64", windowSize);
+    }
+
+    @Override public long append(byte in) {
+      return hash = Long.rotateLeft(hash, 1) ^ BYTE_VALUES[in & 0xFF];
+    }
+
+    @Override public long roll(byte out, byte in) {
+      // Long.rotateLeft only uses the lower 6 bits of the distance, so a window of 64 rotates by 0
+      return hash = Long.rotateLeft(hash, 1)
+          ^ Long.rotateLeft(BYTE_VALUES[out & 0xFF], windowSize)
+          ^ BYTE_VALUES[in & 0xFF];
+    }
+
+    @Override public String toString() {
+      return "RollingHash.buzhash(" + windowSize + ")";
+    }
+  }
+
+  private static final class RabinKarp extends RollingHash {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** {@code MULTIPLIER^windowSize}, the factor of the byte leaving the window. */
+    private final long outFactor;
+
+    RabinKarp(int windowSize) {
+      super(windowSize);
+      this.outFactor = LongMath.pow(MULTIPLIER, windowSize);
+    }
+
+    @Override public long append(byte in) {
+      return hash = hash * MULTIPLIER + BYTE_VALUES[in & 0xFF];
+    }
+
+    @Override public long roll(byte out, byte in) {
+      return hash = hash * MULTIPLIER
+          + BYTE_VALUES[in & 0xFF]
+          - BYTE_VALUES[out & 0xFF] * outFactor;
+    }
+
+    @Override public String toString() {
+      return "RollingHash.rabinKarp(" + windowSize + ")";
+    }
+  }
+}
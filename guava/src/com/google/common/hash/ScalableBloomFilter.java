@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.UnsignedBytes;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * A Bloom filter that grows as elements are added to it, so that its false positive probability
+ * stays below the requested one however many elements it ends up holding. It is a chain of {@link
+ * BloomFilter}s, as described in "Scalable Bloom Filters" by Paulo S&eacute;rgio Almeida, Carlos
+ * Baquero, Nuno Pregui&ccedil;a and David Hutchison. Elements are added to the newest filter of the
+ * chain; once that filter holds the number of elements it was sized for, a new filter is added,
+ * which is {@code growthFactor} times larger and whose false positive probability is {@code
+ * tighteningRatio} times lower. The false positive probabilities of the filters thus form a
+ * geometric series, whose sum is the requested probability.
+ *
+ * <p>The false positive probability of a filter is never set below {@code 1e-12}, so that every
+ * filter of the chain can be created, and the chain stops growing once its newest filter is sized
+ * for {@link Integer#MAX_VALUE} elements; past that point, which is only reached after billions of
+ * insertions or with a {@code tighteningRatio} that tightens the filters extremely fast, the false
+ * positive probability may exceed the requested one. {@link #put} never fails.
+ *
+ * <p>Because the filters grow geometrically, the length of the chain, and hence the cost of a
+ * query, is logarithmic in the number of elements. Queries look at the newest, largest filters
+ * first.
+ *
+ * <p>Use {@link BloomFilter} instead if the number of elements is known in advance: it is smaller
+ * and faster for the same false positive probability.
+ *
+ * <p>Scalable Bloom filters are thread-safe: {@link #mightContain} never blocks, while concurrent
+ * calls to {@link #put} are serialized.
+ *
+ * <p>Scalable Bloom filters are serializable. They also support a more compact serial
+ * representation via the {@link #writeTo} and {@link #readFrom} methods.
+ *
+ * @param <T> the type of instances that the {@code ScalableBloomFilter} accepts
+ * @since 19.0
+ */
+@Beta
+public final class ScalableBloomFilter<T> implements Predicate<T>, Serializable {
+  private static final int DEFAULT_GROWTH_FACTOR = 2;
+  private static final double DEFAULT_TIGHTENING_RATIO = 0.8;
+
+  /**
+   * The lowest false positive probability of a filter of the chain. Even a filter sized for {@link
+   * Integer#MAX_VALUE} elements then fits in a {@link BloomFilter}, with 40 hash functions.
+   */
+  private static final double MIN_FILTER_FPP = 1e-12;
+
+  /** The funnel to translate Ts to bytes */
+  private final Funnel<? super T> funnel;
+
+  /** The false positive probability of the whole chain */
+  private final double fpp;
+
+  /** How much larger each filter of the chain is than the previous one */
+  private final int growthFactor;
+
+  /** How much lower the false positive probability of each filter is than the previous one's */
+  private final double tighteningRatio;
+
+  /** The number of elements the first filter of the chain is sized for */
+  private final int initialExpectedInsertions;
+
+  /** The filters of the chain, oldest first. Replaced, under the lock, when a filter is added. */
+  private volatile ImmutableList<BloomFilter<T>> filters;
+
+  /** The number of elements added to the newest filter. Guarded by this. */
+  private long insertionsIntoNewest;
+
+  private ScalableBloomFilter(Funnel<? super T> funnel, double fpp, int growthFactor,
+      double tighteningRatio, int initialExpectedInsertions, List<BloomFilter<T>> filters,
+      long insertionsIntoNewest) {
+    this.funnel = funnel;
+    this.fpp = fpp;
+    this.growthFactor = growthFactor;
+    this.tighteningRatio = tighteningRatio;
+    this.initialExpectedInsertions = initialExpectedInsertions;
+    this.filters = ImmutableList.copyOf(filters);
+    this.insertionsIntoNewest = insertionsIntoNewest;
+  }
+
+  /**
+   * Creates a {@link ScalableBloomFilter ScalableBloomFilter<T>} with the given initial expected
+   * number of insertions and overall false positive probability. Each new filter of the chain is
+   * twice as large as the previous one, and its false positive probability is 0.8 times the
+   * previous one's.
+   *
+   * <p>The constructed {@code ScalableBloomFilter<T>} will be serializable if the provided {@code
+   * Funnel<T>} is.
+   *
+   * @param funnel the funnel of T's that the constructed {@code ScalableBloomFilter<T>} will use
+   * @param initialExpectedInsertions the number of insertions the first filter of the chain is
+   *     sized for; must be positive
+   * @param fpp the desired false positive probability (must be positive and less than 1.0)
+   */
+  public static <T> ScalableBloomFilter<T> create(
+      Funnel<? super T> funnel, int initialExpectedInsertions, double fpp) {
+    return create(funnel, initialExpectedInsertions, fpp, DEFAULT_GROWTH_FACTOR,
+        DEFAULT_TIGHTENING_RATIO);
+  }
+
+  /**
+   * Creates a {@link ScalableBloomFilter ScalableBloomFilter<T>} with the given initial expected
+   * number of insertions, overall false positive probability and growth parameters.
+   *
+   * <p>A higher {@code growthFactor} keeps the chain shorter, and so queries faster, at the cost of
+   * more memory. A {@code tighteningRatio} close to 1.0 makes each new filter smaller, but makes
+   * the first filters larger, because they get a smaller share of {@code fpp}.
+   *
+   * @param funnel the funnel of T's that the constructed {@code ScalableBloomFilter<T>} will use
+   * @param initialExpectedInsertions the number of insertions the first filter of the chain is
+   *     sized for; must be positive
+   * @param fpp the desired false positive probability (must be positive and less than 1.0)
+   * @param growthFactor how many times more insertions each new filter is sized for than the
+   *     previous one; must be at least 2 and at most 255
+   * @param tighteningRatio the ratio between the false positive probabilities of each new filter
+   *     and the previous one (must be positive and less than 1.0)
+   */
+  public static <T> ScalableBloomFilter<T> create(Funnel<? super T> funnel,
+      int initialExpectedInsertions, double fpp, int growthFactor, double tighteningRatio) {
+    checkNotNull(funnel);
+    checkParameters(initialExpectedInsertions, fpp, growthFactor, tighteningRatio);
+    ScalableBloomFilter<T> filter = new ScalableBloomFilter<T>(funnel, fpp, growthFactor,
+        tighteningRatio, initialExpectedInsertions, ImmutableList.<BloomFilter<T>>of(), 0);
+    filter.filters = ImmutableList.of(filter.newFilter(0));
+    return filter;
+  }
+
+  private static void checkParameters(
+      int initialExpectedInsertions, double fpp, int growthFactor, double tighteningRatio) {
+    checkArgument(initialExpectedInsertions > 0,
+        "Initial expected insertions (%s) must be > 0", initialExpectedInsertions);
+    checkArgument(fpp > 0.0, "False positive probability (%s) must be > 0.0", fpp);
+    checkArgument(fpp < 1.0, "False positive probability (%s) must be < 1.0", fpp);
+    checkArgument(growthFactor >= 2, "Growth factor (%s) must be >= 2", growthFactor);
+    checkArgument(growthFactor <= 255, "Growth factor (%s) must be <= 255", growthFactor);
+    checkArgument(tighteningRatio > 0.0, "Tightening ratio (%s) must be > 0.0", tighteningRatio);
+    checkArgument(tighteningRatio < 1.0, "Tightening ratio (%s) must be < 1.0", tighteningRatio);
+  }
+
+  /** Creates the filter at position {@code index} of the chain. */
+  private BloomFilter<T> newFilter(int index) {
+    return BloomFilter.create(funnel, expectedInsertions(index), filterFpp(index));
+  }
+
+  /** Returns the number of elements the filter at position {@code index} is sized for. */
+  private int expectedInsertions(int index) {
+    return Ints.saturatedCast(
+        (long) (initialExpectedInsertions * Math.pow(growthFactor, index)));
+  }
+
+  /**
+   * Returns the false positive probability of the filter at position {@code index}, so that the
+   * probabilities of the whole (infinite) chain add up to {@link #fpp}, but no lower than {@link
+   * #MIN_FILTER_FPP}.
+   */
+  private double filterFpp(int index) {
+    return Math.max(fpp * (1 - tighteningRatio) * Math.pow(tighteningRatio, index), MIN_FILTER_FPP);
+  }
+
+  /**
+   * Creates a new {@code ScalableBloomFilter} that's a copy of this instance. The new instance is
+   * equal to this instance but shares no mutable state.
+   */
+  public synchronized ScalableBloomFilter<T> copy() {
+    ImmutableList.Builder<BloomFilter<T>> copies = ImmutableList.builder();
+    for (BloomFilter<T> filter : filters) {
+      copies.add(filter.copy());
+    }
+    return new ScalableBloomFilter<T>(funnel, fpp, growthFactor, tighteningRatio,
+        initialExpectedInsertions, copies.build(), insertionsIntoNewest);
+  }
+
+  /**
+   * Returns {@code true} if the element <i>might</i> have been put in this filter, {@code false}
+   * if this is <i>definitely</i> not the case.
+   */
+  public boolean mightContain(T object) {
+    List<BloomFilter<T>> filters = this.filters;
+    // most elements are in the newest filters, which are the largest
+    for (int i = filters.size() - 1; i >= 0; i--) {
+      if (filters.get(i).mightContain(object)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @deprecated Provided only to satisfy the {@link Predicate} interface; use {@link #mightContain}
+   *     instead.
+   */
+  @Deprecated
+  @Override
+  public boolean apply(T input) {
+    return mightContain(input);
+  }
+
+  /**
+   * Puts an element into this filter. Ensures that subsequent invocations of {@link
+   * #mightContain(Object)} with the same element will always return {@code true}.
+   *
+   * @return true if the filter changed as a result of this operation. If it changed, this is
+   *     <i>definitely</i> the first time {@code object} has been added to the filter. If it hasn't
+   *     changed, this <i>might</i> be the first time {@code object} has been added to the filter.
+   *     Note that {@code put(t)} always returns the <i>opposite</i> result to what {@code
+   *     mightContain(t)} would have returned at the time it is called.
+   */
+  public synchronized boolean put(T object) {
+    if (mightContain(object)) {
+      // already counted; adding it to the newest filter would only saturate it faster
+      return false;
+    }
+    ImmutableList<BloomFilter<T>> filters = this.filters;
+    int newest = filters.size() - 1;
+    int newestExpectedInsertions = expectedInsertions(newest);
+    if (insertionsIntoNewest >= newestExpectedInsertions
+        && newestExpectedInsertions < Integer.MAX_VALUE) {
+      BloomFilter<T> next = newFilter(newest + 1);
+      this.filters = filters = ImmutableList.<BloomFilter<T>>builder()
+          .addAll(filters)
+          .add(next)
+          .build();
+      insertionsIntoNewest = 0;
+      newest++;
+    }
+    filters.get(newest).put(object);
+    insertionsIntoNewest++;
+    return true;
+  }
+
+  /**
+   * Returns the probability that {@link #mightContain(Object)} will erroneously return {@code
+   * true} for an object that has not actually been put in this filter. This stays below the {@code
+   * fpp} passed to {@link #create(Funnel, int, double)}, however many elements have been added.
+   */
+  public double expectedFpp() {
+    double trueNegativeProbability = 1.0;
+    for (BloomFilter<T> filter : filters) {
+      trueNegativeProbability *= 1.0 - filter.expectedFpp();
+    }
+    return 1.0 - trueNegativeProbability;
+  }
+
+  /** Returns the number of filters in the chain. */
+  @VisibleForTesting int filterCount() {
+    return filters.size();
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (object instanceof ScalableBloomFilter) {
+      ScalableBloomFilter<?> that = (ScalableBloomFilter<?>) object;
+      long thisInsertions;
+      synchronized (this) {
+        thisInsertions = this.insertionsIntoNewest;
+      }
+      long thatInsertions;
+      synchronized (that) {
+        thatInsertions = that.insertionsIntoNewest;
+      }
+      return this.funnel.equals(that.funnel)
+          && this.fpp == that.fpp
+          && this.growthFactor == that.growthFactor
+          && this.tighteningRatio == that.tighteningRatio
+          && this.initialExpectedInsertions == that.initialExpectedInsertions
+          && thisInsertions == thatInsertions
+          && this.filters.equals(that.filters);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(funnel, fpp, growthFactor, tighteningRatio, filters);
+  }
+
+  private Object writeReplace() {
+    return new SerialForm<T>(this);
+  }
+
+  private static class SerialForm<T> implements Serializable {
+    final Funnel<? super T> funnel;
+    final double fpp;
+    final int growthFactor;
+    final double tighteningRatio;
+    final int initialExpectedInsertions;
+    final List<BloomFilter<T>> filters;
+    final long insertionsIntoNewest;
+
+    SerialForm(ScalableBloomFilter<T> sbf) {
+      this.funnel = sbf.funnel;
+      this.fpp = sbf.fpp;
+      this.growthFactor = sbf.growthFactor;
+      this.tighteningRatio = sbf.tighteningRatio;
+      this.initialExpectedInsertions = sbf.initialExpectedInsertions;
+      synchronized (sbf) {
+        this.filters = sbf.filters;
+        this.insertionsIntoNewest = sbf.insertionsIntoNewest;
+      }
+    }
+    Object readResolve() {
+      return new ScalableBloomFilter<T>(funnel, fpp, growthFactor, tighteningRatio,
+          initialExpectedInsertions, filters, insertionsIntoNewest);
+    }
+    private static final long serialVersionUID = 1;
+  }
+
+  /**
+   * Writes this {@code ScalableBloomFilter} to an output stream, with a custom format (not Java
+   * serialization). Each filter of the chain is written in the format of {@link
+   * BloomFilter#writeTo}.
+   *
+   * <p>Use {@linkplain #readFrom(InputStream, Funnel)} to reconstruct the written filter.
+   */
+  public synchronized void writeTo(OutputStream out) throws IOException {
+    /*
+     * Serial form:
+     * 1 big endian double, the false positive probability
+     * 1 unsigned byte for the growth factor
+     * 1 big endian double, the tightening ratio
+     * 1 big endian int, the initial expected insertions
+     * 1 big endian long, the number of insertions into the newest filter
+     * 1 big endian int, the number of filters
+     * N BloomFilters, oldest first
+     */
+    DataOutputStream dout = new DataOutputStream(out);
+    dout.writeDouble(fpp);
+    dout.writeByte(UnsignedBytes.checkedCast(growthFactor)); // note: checked at creation
+    dout.writeDouble(tighteningRatio);
+    dout.writeInt(initialExpectedInsertions);
+    dout.writeLong(insertionsIntoNewest);
+    dout.writeInt(filters.size());
+    for (BloomFilter<T> filter : filters) {
+      filter.writeTo(dout);
+    }
+    dout.flush();
+  }
+
+  /**
+   * Reads a byte stream, which was written by {@linkplain #writeTo(OutputStream)}, into a {@code
+   * ScalableBloomFilter<T>}.
+   *
+   * <p>The {@code Funnel} to be used is not encoded in the stream, so it must be provided here.
+   * <b>Warning:</b> the funnel provided <b>must</b> behave identically to the one used to populate
+   * the original filter!
+   *
+   * @throws IOException if the InputStream throws an {@code IOException}, or if its data does not
+   *     appear to be a ScalableBloomFilter serialized using the {@linkplain #writeTo(OutputStream)}
+   *     method.
+   */
+  public static <T> ScalableBloomFilter<T> readFrom(InputStream in, Funnel<T> funnel)
+      throws IOException {
+    checkNotNull(in, "InputStream");
+    checkNotNull(funnel, "Funnel");
+    int filterCount = -1;
+    try {
+      DataInputStream din = new DataInputStream(in);
+      double fpp = din.readDouble();
+      int growthFactor = UnsignedBytes.toInt(din.readByte());
+      double tighteningRatio = din.readDouble();
+      int initialExpectedInsertions = din.readInt();
+      long insertionsIntoNewest = din.readLong();
+      filterCount = din.readInt();
+      checkParameters(initialExpectedInsertions, fpp, growthFactor, tighteningRatio);
+      checkArgument(filterCount > 0, "filterCount (%s) must be > 0", filterCount);
+      checkArgument(insertionsIntoNewest >= 0,
+          "insertionsIntoNewest (%s) must be >= 0", insertionsIntoNewest);
+
+      ImmutableList.Builder<BloomFilter<T>> filters = ImmutableList.builder();
+      for (int i = 0; i < filterCount; i++) {
+        filters.add(BloomFilter.readFrom(din, funnel));
+      }
+      return new ScalableBloomFilter<T>(funnel, fpp, growthFactor, tighteningRatio,
+          initialExpectedInsertions, filters.build(), insertionsIntoNewest);
+    } catch (RuntimeException e) {
+      IOException ioException = new IOException(
+          "Unable to deserialize ScalableBloomFilter from InputStream."
+          + " filterCount: " + filterCount);
+      ioException.initCause(e);
+      throw ioException;
+    }
+  }
+}
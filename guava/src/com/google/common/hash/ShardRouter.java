@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedBytes;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes keys to a fixed set of named nodes, such as the shards of a distributed store, so that
+ * each node receives a share of the keys proportional to its weight.
+ *
+ * <p>Unlike {@link Hashing#consistentHash(long, int)}, which maps keys to the numbered buckets
+ * {@code [0, n)} and can only add or remove the last bucket, a router identifies its nodes by
+ * their contents, as funneled by a node {@link Funnel}. To remove any node, or add a new one,
+ * create a new router with the new set of nodes: only the keys routed to the removed node, or
+ * about the share of keys the new node should receive, are routed differently. The other nodes
+ * don't need to be renumbered.
+ *
+ * <p>Two strategies are available:
+ *
+ * <ul>
+ * <li>{@link #rendezvous} implements rendezvous, or highest random weight, hashing: each key is
+ *     routed to the node scoring the highest for it. Changing the set of nodes moves the minimal
+ *     number of keys, but a lookup takes time linear in the number of nodes.
+ * <li>{@link #maglev} implements the consistent hashing scheme of Google's Maglev load balancer:
+ *     each node fills slots of a lookup table in an order derived from its own hash, and each key
+ *     is routed to the node in its slot, in constant time. Changing the set of nodes moves
+ *     slightly more keys than the minimum, unless the table has to be resized, which reroutes
+ *     nearly all the keys: this happens when the number of nodes crosses 655 or 6553. A maglev
+ *     router supports up to 65536 nodes.
+ * </ul>
+ *
+ * <p>The routes computed for a given set of nodes, strategy, weights and funnels are stable
+ * across processes, and won't change in future releases. A router is immutable and thread-safe.
+ *
+ * @param <K> the type of the keys routed
+ * @param <N> the type of the nodes keys are routed to
+ * @since 19.0
+ */
+@Beta
+public abstract class ShardRouter<K, N> {
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  /**
+   * The minimum number of slots in a maglev lookup table per node. Nodes receive the same share of
+   * keys within about the inverse of this ratio.
+   */
+  @VisibleForTesting static final int MIN_MAGLEV_SLOTS_PER_NODE = 100;
+
+  /**
+   * The possible sizes of a maglev lookup table, primes about 10 times larger than each other. The
+   * size only depends on the number of nodes through these few steps, since changing it reroutes
+   * nearly all the keys.
+   */
+  @VisibleForTesting static final int[] MAGLEV_TABLE_SIZES = {65537, 655373, 6553621};
+
+  final Funnel<? super K> keyFunnel;
+  private final ImmutableMap<N, Double> nodeWeights;
+
+  /**
+   * The nodes, ordered by their hashes rather than in the order they were given, so that the
+   * routes only depend on the set of nodes.
+   */
+  final ImmutableList<N> nodes;
+  final double[] weights;
+
+  /** The 64-bit hashes of the nodes, from which their scores or slots are derived. */
+  final long[] nodeHashes;
+
+  ShardRouter(Funnel<? super K> keyFunnel, Funnel<? super N> nodeFunnel,
+      Map<? extends N, Double> nodeWeights) {
+    this.keyFunnel = checkNotNull(keyFunnel);
+    checkNotNull(nodeFunnel);
+    this.nodeWeights = ImmutableMap.copyOf(nodeWeights);
+    checkArgument(!nodeWeights.isEmpty(), "nodeWeights is empty");
+    List<N> givenNodes = this.nodeWeights.keySet().asList();
+    final HashCode[] hashes = new HashCode[givenNodes.size()];
+    Integer[] order = new Integer[hashes.length];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] = HASH_FUNCTION.hashObject(givenNodes.get(i), nodeFunnel);
+      order[i] = i;
+    }
+    // Nodes with the same 128-bit hash funnel the same bytes, and can't be told apart anyway
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare(Integer left, Integer right) {
+        int result = Longs.compare(hashes[left].asLong(), hashes[right].asLong());
+        return (result != 0) ? result : UnsignedBytes.lexicographicalComparator()
+            .compare(hashes[left].asBytes(), hashes[right].asBytes());
+      }
+    });
+    ImmutableList.Builder<N> nodesBuilder = ImmutableList.builder();
+    this.weights = new double[hashes.length];
+    this.nodeHashes = new long[hashes.length];
+    for (int i = 0; i < hashes.length; i++) {
+      N node = givenNodes.get(order[i]);
+      double weight = this.nodeWeights.get(node);
+      checkArgument(weight > 0 && !Double.isInfinite(weight),
+          "weight (%s) must be positive and finite", weight);
+      nodesBuilder.add(node);
+      weights[i] = weight;
+      nodeHashes[i] = hashes[order[i]].asLong();
+    }
+    this.nodes = nodesBuilder.build();
+  }
+
+  /**
+   * Creates a router that routes keys to equally weighted nodes with rendezvous hashing.
+   *
+   * @throws IllegalArgumentException if {@code nodes} is empty or contains duplicates
+   */
+  public static <K, N> ShardRouter<K, N> rendezvous(
+      Funnel<? super K> keyFunnel, Funnel<? super N> nodeFunnel, Iterable<? extends N> nodes) {
+    return new RendezvousRouter<K, N>(keyFunnel, nodeFunnel, equalWeights(nodes));
+  }
+
+  /**
+   * Creates a router that routes keys to the keys of {@code nodeWeights} with rendezvous hashing.
+   * The probability of a key being routed to a node is its weight divided by the sum of the
+   * weights.
+   *
+   * @throws IllegalArgumentException if {@code nodeWeights} is empty, or if a weight is not positive
+   *     and finite
+   */
+  public static <K, N> ShardRouter<K, N> rendezvous(Funnel<? super K> keyFunnel,
+      Funnel<? super N> nodeFunnel, Map<? extends N, Double> nodeWeights) {
+    return new RendezvousRouter<K, N>(keyFunnel, nodeFunnel, nodeWeights);
+  }
+
+  /**
+   * Creates a router that routes keys to equally weighted nodes with a maglev lookup table.
+   *
+   * @throws IllegalArgumentException if {@code nodes} is empty, contains duplicates, or has more
+   *     than 65536 elements
+   */
+  public static <K, N> ShardRouter<K, N> maglev(
+      Funnel<? super K> keyFunnel, Funnel<? super N> nodeFunnel, Iterable<? extends N> nodes) {
+    return new MaglevRouter<K, N>(keyFunnel, nodeFunnel, equalWeights(nodes));
+  }
+
+  /**
+   * Creates a router that routes keys to the keys of {@code nodeWeights} with a maglev lookup
+   * table, in which each node fills a number of slots proportional to its weight.
+   *
+   * @throws IllegalArgumentException if {@code nodeWeights} is empty or has more than 65536 keys, or
+   *     if a weight is not positive and finite
+   */
+  public static <K, N> ShardRouter<K, N> maglev(Funnel<? super K> keyFunnel,
+      Funnel<? super N> nodeFunnel, Map<? extends N, Double> nodeWeights) {
+    return new MaglevRouter<K, N>(keyFunnel, nodeFunnel, nodeWeights);
+  }
+
+  private static <N> ImmutableMap<N, Double> equalWeights(Iterable<? extends N> nodes) {
+    ImmutableMap.Builder<N, Double> builder = ImmutableMap.builder();
+    for (N node : nodes) {
+      builder.put(node, 1.0);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the node {@code key} is routed to.
+   */
+  public abstract N route(K key);
+
+  /**
+   * Returns the nodes of this router, mapped to their weights, in the order they were given.
+   */
+  public ImmutableMap<N, Double> nodeWeights() {
+    return nodeWeights;
+  }
+
+  final long hashKey(K key) {
+    return HASH_FUNCTION.hashObject(key, keyFunnel).asLong();
+  }
+
+  private static final class RendezvousRouter<K, N> extends ShardRouter<K, N> {
+    private final boolean weighted;
+
+    RendezvousRouter(Funnel<? super K> keyFunnel, Funnel<? super N> nodeFunnel,
+        Map<? extends N, Double> nodeWeights) {
+      super(keyFunnel, nodeFunnel, nodeWeights);
+      boolean weighted = false;
+      for (double weight : weights) {
+        weighted |= weight != weights[0];
+      }
+      this.weighted = weighted;
+    }
+
+    @Override public N route(K key) {
+      long keyHash = hashKey(key);
+      int best = 0;
+      if (weighted) {
+        double bestScore = score(keyHash, 0);
+        for (int i = 1; i < nodeHashes.length; i++) {
+          double score = score(keyHash, i);
+          if (score > bestScore) {
+            best = i;
+            bestScore = score;
+          }
+        }
+      } else {
+        // with equal weights, the scores are ordered like the random values they're derived from
+        long bestValue = mix(keyHash ^ nodeHashes[0]) ^ Long.MIN_VALUE;
+        for (int i = 1; i < nodeHashes.length; i++) {
+          long value = mix(keyHash ^ nodeHashes[i]) ^ Long.MIN_VALUE;
+          if (value > bestValue) {
+            best = i;
+            bestValue = value;
+          }
+        }
+      }
+      return nodes.get(best);
+    }
+
+    /**
+     * Returns the weighted score of node {@code i} for the key, {@code -weight / ln(u)} where
+     * {@code u} is uniformly distributed in {@code (0, 1)}, so that the probability of the node
+     * scoring the highest is proportional to its weight. {@link StrictMath#log} gives the same
+     * scores on every JVM.
+     */
+    private double score(long keyHash, int i) {
+      long value = mix(keyHash ^ nodeHashes[i]);
+      double u = ((value >>> 11) + 0.5) / (1L << 53);
+      return -weights[i] / StrictMath.log(u);
+    }
+
+    @Override public String toString() {
+      return "ShardRouter.rendezvous(" + keyFunnel + ", " + nodeWeights() + ")";
+    }
+  }
+
+  private static final class MaglevRouter<K, N> extends ShardRouter<K, N> {
+    /** The index in {@code nodes} of the node each slot routes to. */
+    private final int[] table;
+
+    MaglevRouter(Funnel<? super K> keyFunnel, Funnel<? super N> nodeFunnel,
+        Map<? extends N, Double> nodeWeights) {
+      super(keyFunnel, nodeFunnel, nodeWeights);
+      this.table = populate(nodeHashes, weights, maglevTableSize(nodes.size()));
+    }
+
+    /**
+     * Fills the lookup table. Each node has its own permutation of the slots, derived from its
+     * hash, and the nodes take turns, in the order of their hashes, claiming their next preferred
+     * slot that is still free. A node of lower weight than the heaviest one skips some of its
+     * turns.
+     */
+    private static int[] populate(long[] nodeHashes, double[] weights, int tableSize) {
+      int[] table = new int[tableSize];
+      Arrays.fill(table, -1);
+      double maxWeight = 0;
+      for (double weight : weights) {
+        maxWeight = Math.max(maxWeight, weight);
+      }
+      long[] offsets = new long[nodeHashes.length];
+      long[] skips = new long[nodeHashes.length];
+      long[] next = new long[nodeHashes.length];
+      double[] credits = new double[nodeHashes.length];
+      for (int i = 0; i < nodeHashes.length; i++) {
+        offsets[i] = (nodeHashes[i] >>> 32) % tableSize;
+        skips[i] = (nodeHashes[i] & 0xFFFFFFFFL) % (tableSize - 1) + 1;
+      }
+      int filled = 0;
+      while (true) {
+        for (int i = 0; i < nodeHashes.length; i++) {
+          credits[i] += weights[i] / maxWeight;
+          if (credits[i] < 1) {
+            continue;
+          }
+          credits[i] -= 1;
+          int slot;
+          do {
+            slot = (int) ((offsets[i] + next[i]++ * skips[i]) % tableSize);
+          } while (table[slot] >= 0);
+          table[slot] = i;
+          if (++filled == tableSize) {
+            return table;
+          }
+        }
+      }
+    }
+
+    @Override public N route(K key) {
+      long keyHash = hashKey(key);
+      return nodes.get(table[(int) ((keyHash & Long.MAX_VALUE) % table.length)]);
+    }
+
+    @Override public String toString() {
+      return "ShardRouter.maglev(" + keyFunnel + ", " + nodeWeights() + ")";
+    }
+  }
+
+  /**
+   * Returns the size of the maglev lookup table for {@code nodeCount} nodes: the smallest of {@link
+   * #MAGLEV_TABLE_SIZES} that has at least {@link #MIN_MAGLEV_SLOTS_PER_NODE} slots per node.
+   */
+  @VisibleForTesting static int maglevTableSize(int nodeCount) {
+    for (int size : MAGLEV_TABLE_SIZES) {
+      if (size / MIN_MAGLEV_SLOTS_PER_NODE >= nodeCount) {
+        return size;
+      }
+    }
+    throw new IllegalArgumentException("Too many nodes for a maglev router: " + nodeCount);
+  }
+
+  // Finalization mix of murmur3, spreading the combined key and node hashes
+  private static long mix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+}
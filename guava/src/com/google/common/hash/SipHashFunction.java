@@ -99,30 +99,48 @@ final class SipHashFunction extends AbstractStreamingHashFunction implements Ser
     // The number of finalization rounds.
     private final int d;
 
+    // The key.
+    private final long k0;
+    private final long k1;
+
     // Four 64-bit words of internal state.
-    // The initial state corresponds to the ASCII string "somepseudorandomlygeneratedbytes",
-    // big-endian encoded. There is nothing special about this value; the only requirement
-    // was some asymmetry so that the initial v0 and v1 differ from v2 and v3.
-    private long v0 = 0x736f6d6570736575L;
-    private long v1 = 0x646f72616e646f6dL;
-    private long v2 = 0x6c7967656e657261L;
-    private long v3 = 0x7465646279746573L;
+    private long v0;
+    private long v1;
+    private long v2;
+    private long v3;
 
     // The number of bytes in the input.
-    private long b = 0;
+    private long b;
 
     // The final 64-bit chunk includes the last 0 through 7 bytes of m followed by null bytes
     // and ending with a byte encoding the positive integer b mod 256.
-    private long finalM = 0;
+    private long finalM;
 
     SipHasher(int c, int d, long k0, long k1) {
       super(CHUNK_SIZE);
       this.c = c;
       this.d = d;
-      this.v0 ^= k0;
-      this.v1 ^= k1;
-      this.v2 ^= k0;
-      this.v3 ^= k1;
+      this.k0 = k0;
+      this.k1 = k1;
+      initState();
+    }
+
+    private void initState() {
+      // The initial state corresponds to the ASCII string "somepseudorandomlygeneratedbytes",
+      // big-endian encoded. There is nothing special about this value; the only requirement
+      // was some asymmetry so that the initial v0 and v1 differ from v2 and v3.
+      v0 = 0x736f6d6570736575L ^ k0;
+      v1 = 0x646f72616e646f6dL ^ k1;
+      v2 = 0x6c7967656e657261L ^ k0;
+      v3 = 0x7465646279746573L ^ k1;
+      b = 0;
+      finalM = 0;
+    }
+
+    @Override public Hasher reset() {
+      clearBuffer();
+      initState();
+      return this;
     }
 
     @Override protected void process(ByteBuffer buffer) {
@@ -138,6 +156,10 @@ final class SipHashFunction extends AbstractStreamingHashFunction implements Ser
     }
 
     @Override public HashCode makeHash() {
+      return HashCode.fromLong(makeHashToLong());
+    }
+
+    @Override long makeHashToLong() {
       // End with a byte encoding the positive integer b mod 256.
       finalM ^= b << 56;
       processM(finalM);
@@ -145,7 +167,7 @@ final class SipHashFunction extends AbstractStreamingHashFunction implements Ser
       // Finalization
       v2 ^= 0xFFL;
       sipRound(d);
-      return HashCode.fromLong(v0 ^ v1 ^ v2 ^ v3);
+      return v0 ^ v1 ^ v2 ^ v3;
     }
 
     private void processM(long m) {
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+/*
+ * xxHash was designed by Yann Collet, and is described at https://github.com/Cyan4973/xxHash.
+ */
+
+package com.google.common.hash;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link HashFunction} implementation of the 64-bit xxHash algorithm, XXH64.
+ *
+ * <p>The exact C equivalent is the {@code XXH64} function of the reference implementation.
+ */
+final class XxHash64HashFunction extends AbstractStreamingHashFunction implements Serializable {
+  private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME64_3 = 0x165667B19E3779F9L;
+  private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+  /** The number of bytes consumed by each round of the four accumulators. */
+  private static final int STRIPE_SIZE = 32;
+
+  private final long seed;
+
+  XxHash64HashFunction(long seed) {
+    this.seed = seed;
+  }
+
+  @Override public int bits() {
+    return 64;
+  }
+
+  @Override public Hasher newHasher() {
+    return new XxHash64Hasher(seed);
+  }
+
+  @Override public HashCode hashInt(int input) {
+    return HashCode.fromLong(hash(input));
+  }
+
+  @Override public HashCode hashLong(long input) {
+    return HashCode.fromLong(hash(input));
+  }
+
+  @Override public void hashInts(int[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hash(input[i]);
+    }
+  }
+
+  @Override public void hashLongs(long[] input, long[] output) {
+    checkArgument(output.length >= input.length,
+        "output length (%s) is less than input length (%s)", output.length, input.length);
+    for (int i = 0; i < input.length; i++) {
+      output[i] = hash(input[i]);
+    }
+  }
+
+  private long hash(int input) {
+    long h = seed + PRIME64_5 + 4;
+    h = mixTailInt(h, input);
+    return avalanche(h);
+  }
+
+  private long hash(long input) {
+    long h = seed + PRIME64_5 + 8;
+    h = mixTailLong(h, input);
+    return avalanche(h);
+  }
+
+  @Override public HashCode hashBytes(byte[] input, int off, int len) {
+    return HashCode.fromLong(hashBytesToLong(input, off, len));
+  }
+
+  @Override public long hashBytesToLong(byte[] input, int off, int len) {
+    checkPositionIndexes(off, off + len, input.length);
+    int end = off + len;
+    long h;
+    if (len >= STRIPE_SIZE) {
+      long v1 = seed + PRIME64_1 + PRIME64_2;
+      long v2 = seed + PRIME64_2;
+      long v3 = seed;
+      long v4 = seed - PRIME64_1;
+      for (; off <= end - STRIPE_SIZE; off += STRIPE_SIZE) {
+        v1 = round(v1, load64(input, off));
+        v2 = round(v2, load64(input, off + 8));
+        v3 = round(v3, load64(input, off + 16));
+        v4 = round(v4, load64(input, off + 24));
+      }
+      h = mergeAccumulators(v1, v2, v3, v4);
+    } else {
+      h = seed + PRIME64_5;
+    }
+    h += len;
+    for (; off <= end - 8; off += 8) {
+      h = mixTailLong(h, load64(input, off));
+    }
+    if (off <= end - 4) {
+      h = mixTailInt(h, load32(input, off));
+      off += 4;
+    }
+    for (; off < end; off++) {
+      h = mixTailByte(h, input[off]);
+    }
+    return avalanche(h);
+  }
+
+  @Override
+  public String toString() {
+    return "Hashing.xxHash64(" + seed + ")";
+  }
+
+  @Override
+  public boolean equals(@Nullable Object object) {
+    if (object instanceof XxHash64HashFunction) {
+      XxHash64HashFunction other = (XxHash64HashFunction) object;
+      return seed == other.seed;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return getClass().hashCode() ^ (int) (seed ^ (seed >>> 32));
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * PRIME64_2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME64_1;
+  }
+
+  private static long mergeRound(long acc, long value) {
+    acc ^= round(0, value);
+    return acc * PRIME64_1 + PRIME64_4;
+  }
+
+  private static long mergeAccumulators(long v1, long v2, long v3, long v4) {
+    long h = Long.rotateLeft(v1, 1)
+        + Long.rotateLeft(v2, 7)
+        + Long.rotateLeft(v3, 12)
+        + Long.rotateLeft(v4, 18);
+    h = mergeRound(h, v1);
+    h = mergeRound(h, v2);
+    h = mergeRound(h, v3);
+    return mergeRound(h, v4);
+  }
+
+  private static long mixTailLong(long h, long k) {
+    h ^= round(0, k);
+    return Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+  }
+
+  private static long mixTailInt(long h, int k) {
+    h ^= (k & 0xFFFFFFFFL) * PRIME64_1;
+    return Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+  }
+
+  private static long mixTailByte(long h, byte b) {
+    h ^= (b & 0xFFL) * PRIME64_5;
+    return Long.rotateLeft(h, 11) * PRIME64_1;
+  }
+
+  // Finalization mix - force all bits of the hash to avalanche
+  private static long avalanche(long h) {
+    h ^= h >>> 33;
+    h *= PRIME64_2;
+    h ^= h >>> 29;
+    h *= PRIME64_3;
+    h ^= h >>> 32;
+    return h;
+  }
+
+  private static long load64(byte[] input, int off) {
+    return (input[off] & 0xFFL)
+        | (input[off + 1] & 0xFFL) << 8
+        | (input[off + 2] & 0xFFL) << 16
+        | (input[off + 3] & 0xFFL) << 24
+        | (input[off + 4] & 0xFFL) << 32
+        | (input[off + 5] & 0xFFL) << 40
+        | (input[off + 6] & 0xFFL) << 48
+        | (input[off + 7] & 0xFFL) << 56;
+  }
+
+  private static int load32(byte[] input, int off) {
+    return (input[off] & 0xFF)
+        | (input[off + 1] & 0xFF) << 8
+        | (input[off + 2] & 0xFF) << 16
+        | (input[off + 3] & 0xFF) << 24;
+  }
+
+  private static final class XxHash64Hasher extends AbstractStreamingHasher {
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private final long seed;
+    private long length;
+
+    /** The last bytes of the input, shorter than a stripe, as passed to processRemaining. */
+    @Nullable private ByteBuffer tail;
+
+    XxHash64Hasher(long seed) {
+      super(STRIPE_SIZE);
+      this.seed = seed;
+      reset();
+    }
+
+    @Override public Hasher reset() {
+      clearBuffer();
+      v1 = seed + PRIME64_1 + PRIME64_2;
+      v2 = seed + PRIME64_2;
+      v3 = seed;
+      v4 = seed - PRIME64_1;
+      length = 0;
+      tail = null;
+      return this;
+    }
+
+    @Override protected void process(ByteBuffer bb) {
+      v1 = round(v1, bb.getLong());
+      v2 = round(v2, bb.getLong());
+      v3 = round(v3, bb.getLong());
+      v4 = round(v4, bb.getLong());
+      length += STRIPE_SIZE;
+    }
+
+    @Override protected void processRemaining(ByteBuffer bb) {
+      // the tail is mixed in after the accumulators are merged, by makeHash
+      length += bb.remaining();
+      tail = bb;
+    }
+
+    @Override public HashCode makeHash() {
+      return HashCode.fromLong(makeHashToLong());
+    }
+
+    @Override long makeHashToLong() {
+      long h = (length >= STRIPE_SIZE) ? mergeAccumulators(v1, v2, v3, v4) : seed + PRIME64_5;
+      h += length;
+      if (tail != null) {
+        while (tail.remaining() >= 8) {
+          h = mixTailLong(h, tail.getLong());
+        }
+        if (tail.remaining() >= 4) {
+          h = mixTailInt(h, tail.getInt());
+        }
+        while (tail.hasRemaining()) {
+          h = mixTailByte(h, tail.get());
+        }
+      }
+      return avalanche(h);
+    }
+  }
+
+  private static final long serialVersionUID = 0L;
+}
@@ -16,13 +16,13 @@ package com.google.common.io;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.io.GwtWorkarounds.asCharInput;
 import static com.google.common.io.GwtWorkarounds.asCharOutput;
 import static com.google.common.io.GwtWorkarounds.asInputStream;
 import static com.google.common.io.GwtWorkarounds.asOutputStream;
-import static com.google.common.io.GwtWorkarounds.stringBuilderOutput;
 import static com.google.common.math.IntMath.divide;
 import static com.google.common.math.IntMath.log2;
 import static java.math.RoundingMode.CEILING;
@@ -44,6 +44,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
 import java.util.Arrays;
 
 import javax.annotation.CheckReturnValue;
@@ -131,8 +135,6 @@ import javax.annotation.Nullable;
 @Beta
 @GwtCompatible(emulated = true)
 public abstract class BaseEncoding {
-  // TODO(user): consider adding encodeTo(Appendable, byte[], [int, int])
-
   BaseEncoding() {}
 
   /**
@@ -165,19 +167,41 @@ public abstract class BaseEncoding {
   public final String encode(byte[] bytes, int off, int len) {
     checkNotNull(bytes);
     checkPositionIndexes(off, off + len, bytes.length);
-    CharOutput result = stringBuilderOutput(maxEncodedSize(len));
-    ByteOutput byteOutput = encodingStream(result);
+    StringBuilder result = new StringBuilder(maxEncodedSize(len));
     try {
-      for (int i = 0; i < len; i++) {
-        byteOutput.write(bytes[off + i]);
-      }
-      byteOutput.close();
+      encodeTo(result, bytes, off, len);
     } catch (IOException impossible) {
       throw new AssertionError("impossible");
     }
     return result.toString();
   }
 
+  /**
+   * Encodes the specified byte array, and appends the encoded characters to {@code target}.
+   *
+   * @throws IOException if an I/O error occurs in the process of appending to {@code target}
+   * @since 19.0
+   */
+  public final void encodeTo(byte[] bytes, Appendable target) throws IOException {
+    encodeTo(checkNotNull(bytes), 0, bytes.length, target);
+  }
+
+  /**
+   * Encodes the specified range of the specified byte array, and appends the encoded characters
+   * to {@code target}. Unlike {@link #encode(byte[], int, int)}, no intermediate {@code String} is
+   * created, so large arrays can be encoded straight into a {@code StringBuilder} or a
+   * {@code Writer}.
+   *
+   * @throws IOException if an I/O error occurs in the process of appending to {@code target}
+   * @since 19.0
+   */
+  public final void encodeTo(byte[] bytes, int off, int len, Appendable target)
+      throws IOException {
+    checkNotNull(bytes);
+    checkPositionIndexes(off, off + len, bytes.length);
+    encodeTo(checkNotNull(target), bytes, off, len);
+  }
+
   /**
    * Returns an {@code OutputStream} that encodes bytes using this encoding into the specified
    * {@code Writer}.  When the returned {@code OutputStream} is closed, so is the backing
@@ -238,6 +262,42 @@ public abstract class BaseEncoding {
    */
   final byte[] decodeChecked(CharSequence chars) throws DecodingException {
     chars = padding().trimTrailingFrom(chars);
+    byte[] tmp = new byte[maxDecodedSize(chars.length())];
+    int len = decodeTo(tmp, 0, chars);
+    return extract(tmp, len);
+  }
+
+  /**
+   * Decodes the specified character sequence into {@code target}, starting at {@code
+   * target[off]}, and returns the number of bytes written. No intermediate array is created, so
+   * this is the cheapest way to decode into a reused buffer. If the input is invalid, the contents
+   * of {@code target} after {@code off} are unspecified.
+   *
+   * @throws IllegalArgumentException if the input is not a valid encoded string according to this
+   *         encoding.
+   * @throws IndexOutOfBoundsException if the decoded bytes don't fit in {@code target} after
+   *         {@code off}
+   * @since 19.0
+   */
+  public final int decodeTo(CharSequence chars, byte[] target, int off) {
+    checkNotNull(target);
+    checkPositionIndex(off, target.length);
+    chars = padding().trimTrailingFrom(chars);
+    try {
+      return decodeTo(target, off, chars);
+    } catch (DecodingException badInput) {
+      throw new IllegalArgumentException(badInput);
+    }
+  }
+
+  /**
+   * Decodes the specified character sequence one character at a time, through {@link
+   * #decodingStream(CharInput)}, into {@code target}, and returns the number of bytes written. The
+   * block-based implementations fall back to this to report invalid input with the same messages
+   * as the decoding streams.
+   */
+  final int decodeStreamingTo(byte[] target, int off, CharSequence chars)
+      throws DecodingException {
     ByteInput decodedInput = decodingStream(asCharInput(chars));
     byte[] tmp = new byte[maxDecodedSize(chars.length())];
     int index = 0;
@@ -250,7 +310,9 @@ public abstract class BaseEncoding {
     } catch (IOException impossible) {
       throw new AssertionError(impossible);
     }
-    return extract(tmp, index);
+    checkPositionIndexes(off, off + index, target.length);
+    System.arraycopy(tmp, 0, target, off, index);
+    return index;
   }
 
   /**
@@ -278,18 +340,68 @@ public abstract class BaseEncoding {
     };
   }
 
+  /**
+   * Returns a new encoder, which encodes bytes from {@code ByteBuffer}s into {@code CharBuffer}s,
+   * or into {@code ByteBuffer}s of ASCII characters, a buffer at a time. The output is the same as
+   * that of {@link #encode(byte[])} on the concatenation of the input.
+   *
+   * @since 19.0
+   */
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public final Encoder newEncoder() {
+    return new Encoder(this);
+  }
+
+  /**
+   * Returns a new decoder, which decodes {@code CharBuffer}s, or {@code ByteBuffer}s of ASCII
+   * characters, into {@code ByteBuffer}s a buffer at a time. The decoder accepts exactly the input
+   * accepted by {@link #decodingStream(Reader)}, and throws the same exceptions for invalid input.
+   *
+   * @since 19.0
+   */
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public final Decoder newDecoder() {
+    return new Decoder(this);
+  }
+
   // Implementations for encoding/decoding
 
   abstract int maxEncodedSize(int bytes);
 
   abstract ByteOutput encodingStream(CharOutput charOutput);
 
+  /**
+   * Encodes the specified range of {@code bytes}, whose bounds have been checked, straight into
+   * {@code target}.
+   */
+  abstract void encodeTo(Appendable target, byte[] bytes, int off, int len) throws IOException;
+
   abstract int maxDecodedSize(int chars);
 
   abstract ByteInput decodingStream(CharInput charInput);
 
+  /**
+   * Decodes {@code chars}, from which the trailing padding has been trimmed, straight into {@code
+   * target}, starting at {@code target[off]}, and returns the number of bytes written.
+   *
+   * @throws IndexOutOfBoundsException if the decoded bytes don't fit in {@code target}
+   */
+  abstract int decodeTo(byte[] target, int off, CharSequence chars) throws DecodingException;
+
   abstract CharMatcher padding();
 
+  /** Returns the encoding that encodes chunks of bytes for this encoding, without separators. */
+  abstract StandardBaseEncoding unseparated();
+
+  /** Returns the characters of the separator of this encoding, which decoding skips over. */
+  abstract CharMatcher separators();
+
+  /**
+   * Returns an {@code Appendable} that adds the separators of this encoding between the chars
+   * appended to it, and appends them all to {@code target}.
+   */
+  abstract Appendable separating(Appendable target);
+
   // Modified encoding generators
 
   /**
@@ -498,7 +610,7 @@ public abstract class BaseEncoding {
       return validPadding[index % charsPerChunk];
     }
 
-    int decode(char ch) throws IOException {
+    int decode(char ch) throws DecodingException {
       if (ch > Ascii.MAX || decodabet[ch] == -1) {
         throw new DecodingException("Unrecognized character: " + ch);
       }
@@ -583,6 +695,21 @@ public abstract class BaseEncoding {
       return (paddingChar == null) ? CharMatcher.NONE : CharMatcher.is(paddingChar.charValue());
     }
 
+    @Override
+    StandardBaseEncoding unseparated() {
+      return this;
+    }
+
+    @Override
+    CharMatcher separators() {
+      return CharMatcher.NONE;
+    }
+
+    @Override
+    Appendable separating(Appendable target) {
+      return target;
+    }
+
     @Override
     int maxEncodedSize(int bytes) {
       return alphabet.charsPerChunk * divide(bytes, alphabet.bytesPerChunk, CEILING);
@@ -634,11 +761,261 @@ public abstract class BaseEncoding {
       };
     }
 
+    /** The maximum number of chars encoded before they're appended to the target. */
+    private static final int ENCODING_BUFFER_SIZE = 8192;
+
+    /*
+     * The block-based methods below convert whole chunks of bytesPerChunk bytes to and from
+     * charsPerChunk chars at a time (3 and 4 for base64, 5 and 8 for base32, 1 and 2 for base16)
+     * between arrays, which is much faster than going through the streams one char at a time.
+     * The chunks of the standard alphabets are unrolled by hand.
+     */
+
+    @Override
+    void encodeTo(Appendable target, byte[] bytes, int off, int len) throws IOException {
+      int bytesPerChunk = alphabet.bytesPerChunk;
+      int chunksPerBuffer = ENCODING_BUFFER_SIZE / alphabet.charsPerChunk;
+      char[] buffer =
+          new char[Math.min(maxEncodedSize(len), chunksPerBuffer * alphabet.charsPerChunk)];
+      int end = off + len;
+      int chunksEnd = end - len % bytesPerChunk;
+      for (int i = off; i < chunksEnd; ) {
+        int bufferEnd = i + Math.min(chunksEnd - i, chunksPerBuffer * bytesPerChunk);
+        append(target, buffer, encodeChunks(buffer, bytes, i, bufferEnd));
+        i = bufferEnd;
+      }
+      if (chunksEnd < end) {
+        append(target, buffer, encodeTail(buffer, bytes, chunksEnd, end - chunksEnd));
+      }
+    }
+
+    /**
+     * Encodes the whole chunks from {@code bytes[off]} to {@code bytes[end]} into {@code buffer},
+     * and returns the number of chars written.
+     */
+    private int encodeChunks(char[] buffer, byte[] bytes, int off, int end) {
+      char[] chars = alphabet.chars;
+      int written = 0;
+      switch (alphabet.bitsPerChar) {
+        case 6:
+          for (int i = off; i < end; i += 3) {
+            int chunk = (bytes[i] & 0xFF) << 16
+                | (bytes[i + 1] & 0xFF) << 8
+                | (bytes[i + 2] & 0xFF);
+            buffer[written] = chars[chunk >>> 18];
+            buffer[written + 1] = chars[(chunk >>> 12) & 0x3F];
+            buffer[written + 2] = chars[(chunk >>> 6) & 0x3F];
+            buffer[written + 3] = chars[chunk & 0x3F];
+            written += 4;
+          }
+          return written;
+        case 5:
+          for (int i = off; i < end; i += 5) {
+            long chunk = (bytes[i] & 0xFFL) << 32
+                | (bytes[i + 1] & 0xFFL) << 24
+                | (bytes[i + 2] & 0xFFL) << 16
+                | (bytes[i + 3] & 0xFFL) << 8
+                | (bytes[i + 4] & 0xFFL);
+            buffer[written] = chars[(int) (chunk >>> 35)];
+            buffer[written + 1] = chars[(int) (chunk >>> 30) & 0x1F];
+            buffer[written + 2] = chars[(int) (chunk >>> 25) & 0x1F];
+            buffer[written + 3] = chars[(int) (chunk >>> 20) & 0x1F];
+            buffer[written + 4] = chars[(int) (chunk >>> 15) & 0x1F];
+            buffer[written + 5] = chars[(int) (chunk >>> 10) & 0x1F];
+            buffer[written + 6] = chars[(int) (chunk >>> 5) & 0x1F];
+            buffer[written + 7] = chars[(int) chunk & 0x1F];
+            written += 8;
+          }
+          return written;
+        case 4:
+          for (int i = off; i < end; i++) {
+            int b = bytes[i] & 0xFF;
+            buffer[written] = chars[b >>> 4];
+            buffer[written + 1] = chars[b & 0xF];
+            written += 2;
+          }
+          return written;
+        default:
+          int bitsPerChar = alphabet.bitsPerChar;
+          int firstShift = (alphabet.charsPerChunk - 1) * bitsPerChar;
+          for (int i = off; i < end; ) {
+            long chunk = 0;
+            for (int j = 0; j < alphabet.bytesPerChunk; j++) {
+              chunk = (chunk << 8) | (bytes[i++] & 0xFF);
+            }
+            for (int shift = firstShift; shift >= 0; shift -= bitsPerChar) {
+              buffer[written++] = chars[(int) (chunk >>> shift) & alphabet.mask];
+            }
+          }
+          return written;
+      }
+    }
+
+    /**
+     * Encodes the last {@code len < bytesPerChunk} bytes, followed by the padding, into {@code
+     * buffer}, and returns the number of chars written.
+     */
+    private int encodeTail(char[] buffer, byte[] bytes, int off, int len) {
+      int bitsPerChar = alphabet.bitsPerChar;
+      long bitBuffer = 0;
+      for (int i = 0; i < len; i++) {
+        bitBuffer = (bitBuffer << 8) | (bytes[off + i] & 0xFF);
+      }
+      int written = 0;
+      // the last char is filled with zero bits
+      for (int bitOffset = len * 8; bitOffset > 0; bitOffset -= bitsPerChar) {
+        int charIndex = (bitOffset >= bitsPerChar)
+            ? (int) (bitBuffer >>> (bitOffset - bitsPerChar))
+            : (int) (bitBuffer << (bitsPerChar - bitOffset));
+        buffer[written++] = alphabet.encode(charIndex & alphabet.mask);
+      }
+      if (paddingChar != null) {
+        while (written < alphabet.charsPerChunk) {
+          buffer[written++] = paddingChar.charValue();
+        }
+      }
+      return written;
+    }
+
     @Override
     int maxDecodedSize(int chars) {
       return (int) ((alphabet.bitsPerChar * (long) chars + 7L) / 8L);
     }
 
+    @Override
+    int decodeTo(byte[] target, int off, CharSequence chars) throws DecodingException {
+      int len = chars.length();
+      int bitsPerChar = alphabet.bitsPerChar;
+      int decodedLength = (int) ((bitsPerChar * (long) len) / 8L);
+      if (!alphabet.isValidPaddingStartPosition(len) || decodedLength > target.length - off) {
+        // invalid input is reported before a target that's too small
+        return decodeStreamingTo(target, off, chars);
+      }
+      int chunksEnd = len - len % alphabet.charsPerChunk;
+      int written = decodeChunks(target, off, chars, chunksEnd);
+      if (written == -1) {
+        return decodeStreamingTo(target, off, chars);
+      }
+      byte[] decodabet = alphabet.decodabet;
+      long bitBuffer = 0;
+      int bitBufferLength = 0;
+      for (int i = chunksEnd; i < len; i++) {
+        char c = chars.charAt(i);
+        int bits = (c <= Ascii.MAX) ? decodabet[c] : -1;
+        if (bits == -1) {
+          return decodeStreamingTo(target, off, chars);
+        }
+        bitBuffer = (bitBuffer << bitsPerChar) | bits;
+        bitBufferLength += bitsPerChar;
+        if (bitBufferLength >= 8) {
+          bitBufferLength -= 8;
+          target[off + written++] = (byte) (bitBuffer >>> bitBufferLength);
+        }
+      }
+      return written;
+    }
+
+    /**
+     * Decodes the whole chunks of the first {@code end} chars into {@code target}, starting at
+     * {@code target[off]}, and returns the number of bytes written, or -1 if a char isn't in the
+     * alphabet.
+     *
+     * <p>The chars are looked up in the decodabet once it's known that they're ASCII, and since
+     * unrecognized chars decode to -1, the bits of a chunk are negative if any of its chars is
+     * unrecognized, which is only checked once per chunk.
+     */
+    private int decodeChunks(byte[] target, int off, CharSequence chars, int end) {
+      byte[] decodabet = alphabet.decodabet;
+      int o = off;
+      switch (alphabet.bitsPerChar) {
+        case 6:
+          for (int i = 0; i < end; i += 4) {
+            char c0 = chars.charAt(i);
+            char c1 = chars.charAt(i + 1);
+            char c2 = chars.charAt(i + 2);
+            char c3 = chars.charAt(i + 3);
+            if ((c0 | c1 | c2 | c3) > Ascii.MAX) {
+              return -1;
+            }
+            int chunk = decodabet[c0] << 18
+                | decodabet[c1] << 12
+                | decodabet[c2] << 6
+                | decodabet[c3];
+            if (chunk < 0) {
+              return -1;
+            }
+            target[o] = (byte) (chunk >>> 16);
+            target[o + 1] = (byte) (chunk >>> 8);
+            target[o + 2] = (byte) chunk;
+            o += 3;
+          }
+          return o - off;
+        case 5:
+          for (int i = 0; i < end; i += 8) {
+            char c0 = chars.charAt(i);
+            char c1 = chars.charAt(i + 1);
+            char c2 = chars.charAt(i + 2);
+            char c3 = chars.charAt(i + 3);
+            char c4 = chars.charAt(i + 4);
+            char c5 = chars.charAt(i + 5);
+            char c6 = chars.charAt(i + 6);
+            char c7 = chars.charAt(i + 7);
+            if ((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) > Ascii.MAX) {
+              return -1;
+            }
+            long chunk = (long) decodabet[c0] << 35
+                | (long) decodabet[c1] << 30
+                | (long) decodabet[c2] << 25
+                | (long) decodabet[c3] << 20
+                | (long) decodabet[c4] << 15
+                | (long) decodabet[c5] << 10
+                | (long) decodabet[c6] << 5
+                | decodabet[c7];
+            if (chunk < 0) {
+              return -1;
+            }
+            target[o] = (byte) (chunk >>> 32);
+            target[o + 1] = (byte) (chunk >>> 24);
+            target[o + 2] = (byte) (chunk >>> 16);
+            target[o + 3] = (byte) (chunk >>> 8);
+            target[o + 4] = (byte) chunk;
+            o += 5;
+          }
+          return o - off;
+        case 4:
+          for (int i = 0; i < end; i += 2) {
+            char c0 = chars.charAt(i);
+            char c1 = chars.charAt(i + 1);
+            if ((c0 | c1) > Ascii.MAX) {
+              return -1;
+            }
+            int chunk = decodabet[c0] << 4 | decodabet[c1];
+            if (chunk < 0) {
+              return -1;
+            }
+            target[o++] = (byte) chunk;
+          }
+          return o - off;
+        default:
+          int bitsPerChar = alphabet.bitsPerChar;
+          int firstShift = (alphabet.bytesPerChunk - 1) * 8;
+          for (int i = 0; i < end; ) {
+            long chunk = 0;
+            for (int j = 0; j < alphabet.charsPerChunk; j++) {
+              char c = chars.charAt(i++);
+              if (c > Ascii.MAX || decodabet[c] == -1) {
+                return -1;
+              }
+              chunk = (chunk << bitsPerChar) | decodabet[c];
+            }
+            for (int shift = firstShift; shift >= 0; shift -= 8) {
+              target[o++] = (byte) (chunk >>> shift);
+            }
+          }
+          return o - off;
+      }
+    }
+
     @Override
     ByteInput decodingStream(final CharInput reader) {
       checkNotNull(reader);
@@ -805,6 +1182,90 @@ public abstract class BaseEncoding {
     };
   }
 
+  /**
+   * Appends the first {@code len} chars of {@code buffer} to {@code target}, without copying them
+   * into a {@code String} when {@code target} can take a {@code char[]}.
+   */
+  static void append(Appendable target, char[] buffer, int len) throws IOException {
+    if (target instanceof SeparatingAppendable) {
+      ((SeparatingAppendable) target).append(buffer, len);
+    } else if (target instanceof StringBuilder) {
+      ((StringBuilder) target).append(buffer, 0, len);
+    } else if (target instanceof Writer) {
+      ((Writer) target).write(buffer, 0, len);
+    } else {
+      target.append(new String(buffer, 0, len));
+    }
+  }
+
+  /**
+   * An {@code Appendable} that adds a separator after every {@code afterEveryChars} chars appended
+   * to it. Blocks of chars passed to {@link BaseEncoding#append(Appendable, char[], int)} get their
+   * separators inserted in a buffer, which is then appended to the delegate at once.
+   */
+  static final class SeparatingAppendable implements Appendable {
+    private final Appendable delegate;
+    private final String separator;
+    private final int afterEveryChars;
+    private int charsUntilSeparator;
+    @Nullable private char[] buffer;
+
+    SeparatingAppendable(Appendable delegate, String separator, int afterEveryChars) {
+      this.delegate = checkNotNull(delegate);
+      this.separator = checkNotNull(separator);
+      checkArgument(afterEveryChars > 0);
+      this.afterEveryChars = afterEveryChars;
+      this.charsUntilSeparator = afterEveryChars;
+    }
+
+    void append(char[] chars, int len) throws IOException {
+      int separatorLength = separator.length();
+      // a separator precedes each run of at most afterEveryChars chars
+      int maxSeparated = len + separatorLength * (len / afterEveryChars + 1);
+      if (buffer == null || buffer.length < maxSeparated) {
+        buffer = new char[maxSeparated];
+      }
+      int written = 0;
+      for (int i = 0; i < len; ) {
+        if (charsUntilSeparator == 0) {
+          separator.getChars(0, separatorLength, buffer, written);
+          written += separatorLength;
+          charsUntilSeparator = afterEveryChars;
+        }
+        int n = Math.min(len - i, charsUntilSeparator);
+        System.arraycopy(chars, i, buffer, written, n);
+        written += n;
+        i += n;
+        charsUntilSeparator -= n;
+      }
+      BaseEncoding.append(delegate, buffer, written);
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      if (charsUntilSeparator == 0) {
+        delegate.append(separator);
+        charsUntilSeparator = afterEveryChars;
+      }
+      delegate.append(c);
+      charsUntilSeparator--;
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence chars, int start, int end) throws IOException {
+      for (int i = start; i < end; i++) {
+        append(chars.charAt(i));
+      }
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence chars) throws IOException {
+      return append(chars, 0, chars.length());
+    }
+  }
+
   static final class SeparatedBaseEncoding extends BaseEncoding {
     private final BaseEncoding delegate;
     private final String separator;
@@ -825,6 +1286,21 @@ public abstract class BaseEncoding {
       return delegate.padding();
     }
 
+    @Override
+    StandardBaseEncoding unseparated() {
+      return delegate.unseparated();
+    }
+
+    @Override
+    CharMatcher separators() {
+      return separatorChars;
+    }
+
+    @Override
+    Appendable separating(Appendable target) {
+      return new SeparatingAppendable(target, separator, afterEveryChars);
+    }
+
     @Override
     int maxEncodedSize(int bytes) {
       int unseparatedSize = delegate.maxEncodedSize(bytes);
@@ -837,6 +1313,11 @@ public abstract class BaseEncoding {
       return delegate.encodingStream(separatingOutput(output, separator, afterEveryChars));
     }
 
+    @Override
+    void encodeTo(Appendable target, byte[] bytes, int off, int len) throws IOException {
+      delegate.encodeTo(separating(target), bytes, off, len);
+    }
+
     @Override
     int maxDecodedSize(int chars) {
       return delegate.maxDecodedSize(chars);
@@ -847,6 +1328,17 @@ public abstract class BaseEncoding {
       return delegate.decodingStream(ignoringInput(input, separatorChars));
     }
 
+    @Override
+    int decodeTo(byte[] target, int off, CharSequence chars) throws DecodingException {
+      String unseparated = separatorChars.removeFrom(chars);
+      if (!unseparated.isEmpty()
+          && padding().matches(unseparated.charAt(unseparated.length() - 1))) {
+        // the padding is followed by separators, so it wasn't trimmed
+        return delegate.decodeStreamingTo(target, off, unseparated);
+      }
+      return delegate.decodeTo(target, off, unseparated);
+    }
+
     @Override
     public BaseEncoding omitPadding() {
       return delegate.omitPadding().withSeparator(separator, afterEveryChars);
@@ -878,4 +1370,295 @@ public abstract class BaseEncoding {
           ".withSeparator(\"" + separator + "\", " + afterEveryChars + ")";
     }
   }
+
+  /**
+   * An encoder that converts bytes to their encoding incrementally, in the style of {@link
+   * java.nio.charset.CharsetEncoder}, so that large inputs can be encoded a buffer at a time with a
+   * fixed amount of memory. Separators and padding are added exactly as by the encoding that
+   * created the encoder.
+   *
+   * <p>Each call to {@code encode} consumes as much input as possible and writes as much output as
+   * fits in the output buffer. Input bytes that don't form a whole chunk yet, and encoded chars
+   * that didn't fit in the output buffer, are held by the encoder until the next call. The last
+   * call must pass {@code endOfInput == true}, and be repeated until it returns {@link
+   * CoderResult#UNDERFLOW}, so that the last chunk and its padding are written. The encoder must
+   * then be {@linkplain #reset reset} before it encodes another input.
+   *
+   * <p>Instances are not thread-safe.
+   *
+   * @see BaseEncoding#newEncoder()
+   * @since 19.0
+   */
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public static final class Encoder {
+    /** The number of chunks encoded at a time. */
+    private static final int CHUNKS_PER_BATCH = 1024;
+
+    /** The maximum number of chars written to the output buffer at a time. */
+    private static final int TRANSFER_SIZE = 4096;
+
+    private final BaseEncoding encoding;
+    private final StandardBaseEncoding unseparated;
+
+    /** The input bytes that have been consumed but not encoded yet. */
+    private final byte[] input;
+    private int inputLength;
+
+    /** The encoded chars, of which the ones from {@code outputStart} haven't been written yet. */
+    private final StringBuilder output = new StringBuilder();
+    private int outputStart;
+    private Appendable separatingOutput;
+
+    private final char[] transfer = new char[TRANSFER_SIZE];
+    @Nullable private byte[] asciiTransfer;
+
+    Encoder(BaseEncoding encoding) {
+      this.encoding = encoding;
+      this.unseparated = encoding.unseparated();
+      this.input = new byte[CHUNKS_PER_BATCH * unseparated.alphabet.bytesPerChunk];
+      this.separatingOutput = encoding.separating(output);
+    }
+
+    /**
+     * Encodes bytes from {@code in} into chars in {@code out}.
+     *
+     * @param endOfInput whether {@code in} holds the end of the input
+     * @return {@link CoderResult#UNDERFLOW} if all of {@code in} was consumed, and all the chars
+     *     that could be encoded from it were written, or {@link CoderResult#OVERFLOW} if {@code
+     *     out} is full and the encoder holds chars to write
+     */
+    public CoderResult encode(ByteBuffer in, CharBuffer out, boolean endOfInput) {
+      return encodeTo(in, checkNotNull(out), endOfInput);
+    }
+
+    /**
+     * Encodes bytes from {@code in} into ASCII characters in {@code out}, one byte per character.
+     *
+     * @param endOfInput whether {@code in} holds the end of the input
+     * @return {@link CoderResult#UNDERFLOW} if all of {@code in} was consumed, and all the chars
+     *     that could be encoded from it were written, or {@link CoderResult#OVERFLOW} if {@code
+     *     out} is full and the encoder holds chars to write
+     */
+    public CoderResult encode(ByteBuffer in, ByteBuffer out, boolean endOfInput) {
+      return encodeTo(in, checkNotNull(out), endOfInput);
+    }
+
+    private CoderResult encodeTo(ByteBuffer in, Buffer out, boolean endOfInput) {
+      int bytesPerChunk = unseparated.alphabet.bytesPerChunk;
+      while (true) {
+        if (!flush(out)) {
+          return CoderResult.OVERFLOW;
+        }
+        int n = Math.min(in.remaining(), input.length - inputLength);
+        in.get(input, inputLength, n);
+        inputLength += n;
+        // the last chunk may only be encoded, and padded, at the end of the input
+        int encodable = (endOfInput && !in.hasRemaining())
+            ? inputLength
+            : inputLength - inputLength % bytesPerChunk;
+        if (encodable == 0) {
+          return CoderResult.UNDERFLOW;
+        }
+        try {
+          unseparated.encodeTo(separatingOutput, input, 0, encodable);
+        } catch (IOException impossible) {
+          throw new AssertionError(impossible);
+        }
+        inputLength -= encodable;
+        System.arraycopy(input, encodable, input, 0, inputLength);
+      }
+    }
+
+    /** Writes as many pending chars as fit in {@code out}, and returns whether none is left. */
+    private boolean flush(Buffer out) {
+      while (outputStart < output.length() && out.hasRemaining()) {
+        int n = Math.min(Math.min(out.remaining(), output.length() - outputStart), transfer.length);
+        output.getChars(outputStart, outputStart + n, transfer, 0);
+        if (out instanceof CharBuffer) {
+          ((CharBuffer) out).put(transfer, 0, n);
+        } else {
+          if (asciiTransfer == null) {
+            asciiTransfer = new byte[transfer.length];
+          }
+          for (int i = 0; i < n; i++) {
+            asciiTransfer[i] = (byte) transfer[i];
+          }
+          ((ByteBuffer) out).put(asciiTransfer, 0, n);
+        }
+        outputStart += n;
+      }
+      if (outputStart < output.length()) {
+        return false;
+      }
+      output.setLength(0);
+      outputStart = 0;
+      return true;
+    }
+
+    /** Discards the pending input and output, so that the encoder can encode a new input. */
+    public Encoder reset() {
+      inputLength = 0;
+      output.setLength(0);
+      outputStart = 0;
+      separatingOutput = encoding.separating(output);
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      return encoding + ".newEncoder()";
+    }
+  }
+
+  /**
+   * A decoder that converts encoded chars to bytes incrementally, in the style of {@link
+   * java.nio.charset.CharsetDecoder}, so that large inputs can be decoded a buffer at a time with a
+   * fixed amount of memory. Separators and padding are handled exactly as by {@link
+   * BaseEncoding#decodingStream(Reader)}.
+   *
+   * <p>Each call to {@code decode} consumes as much input as possible and writes as much output
+   * as fits in the output buffer. Input chars that don't form a whole chunk yet, and decoded bytes
+   * that didn't fit in the output buffer, are held by the decoder until the next call. The last
+   * call must pass {@code endOfInput == true}, and be repeated until it returns {@link
+   * CoderResult#UNDERFLOW}, so that the last chunk is written and the length of the input is
+   * checked. The decoder must then be {@linkplain #reset reset} before it decodes another input,
+   * as it must after it throws a {@link DecodingException}.
+   *
+   * <p>Instances are not thread-safe.
+   *
+   * @see BaseEncoding#newDecoder()
+   * @since 19.0
+   */
+  @GwtIncompatible("ByteBuffer,CharBuffer")
+  public static final class Decoder {
+    /** The number of chunks decoded at a time. */
+    private static final int CHUNKS_PER_BATCH = 1024;
+
+    private final BaseEncoding encoding;
+    private final StandardBaseEncoding unseparated;
+    private final CharMatcher separators;
+    private final CharMatcher padding;
+
+    /** The input chars that have been consumed but not decoded yet, without separators. */
+    private final char[] input;
+    private int inputLength;
+
+    /** The number of chars consumed so far, not counting separators. */
+    private int readChars;
+    private boolean hitPadding;
+
+    /** The decoded bytes, of which the ones from {@code outputStart} haven't been written yet. */
+    private final byte[] output;
+    private int outputStart;
+    private int outputLength;
+
+    Decoder(BaseEncoding encoding) {
+      this.encoding = encoding;
+      this.unseparated = encoding.unseparated();
+      this.separators = encoding.separators();
+      this.padding = encoding.padding();
+      this.input = new char[CHUNKS_PER_BATCH * unseparated.alphabet.charsPerChunk];
+      this.output = new byte[CHUNKS_PER_BATCH * unseparated.alphabet.bytesPerChunk];
+    }
+
+    /**
+     * Decodes chars from {@code in} into bytes in {@code out}.
+     *
+     * @param endOfInput whether {@code in} holds the end of the input
+     * @return {@link CoderResult#UNDERFLOW} if all of {@code in} was consumed, and all the bytes
+     *     that could be decoded from it were written, or {@link CoderResult#OVERFLOW} if {@code
+     *     out} is full and the decoder holds bytes to write
+     * @throws DecodingException if the input is not valid according to this encoding
+     */
+    public CoderResult decode(CharBuffer in, ByteBuffer out, boolean endOfInput)
+        throws DecodingException {
+      return decodeFrom(checkNotNull(in), out, endOfInput);
+    }
+
+    /**
+     * Decodes ASCII characters from {@code in}, one byte per character, into bytes in {@code
+     * out}.
+     *
+     * @param endOfInput whether {@code in} holds the end of the input
+     * @return {@link CoderResult#UNDERFLOW} if all of {@code in} was consumed, and all the bytes
+     *     that could be decoded from it were written, or {@link CoderResult#OVERFLOW} if {@code
+     *     out} is full and the decoder holds bytes to write
+     * @throws DecodingException if the input is not valid according to this encoding
+     */
+    public CoderResult decode(ByteBuffer in, ByteBuffer out, boolean endOfInput)
+        throws DecodingException {
+      return decodeFrom(checkNotNull(in), out, endOfInput);
+    }
+
+    private CoderResult decodeFrom(Buffer in, ByteBuffer out, boolean endOfInput)
+        throws DecodingException {
+      Alphabet alphabet = unseparated.alphabet;
+      while (true) {
+        if (!flush(out)) {
+          return CoderResult.OVERFLOW;
+        }
+        // the padding and the chars after it are checked like decodingStream does
+        while (inputLength < input.length && in.hasRemaining()) {
+          char c = (in instanceof CharBuffer)
+              ? ((CharBuffer) in).get()
+              : (char) (((ByteBuffer) in).get() & 0xFF);
+          if (separators.matches(c)) {
+            continue;
+          }
+          readChars++;
+          if (padding.matches(c)) {
+            if (!hitPadding
+                && (readChars == 1 || !alphabet.isValidPaddingStartPosition(readChars - 1))) {
+              throw new DecodingException("Padding cannot start at index " + readChars);
+            }
+            hitPadding = true;
+          } else if (hitPadding) {
+            throw new DecodingException(
+                "Expected padding character but found '" + c + "' at index " + readChars);
+          } else {
+            alphabet.decode(c); // rejects the chars the stream would, before the length check
+            input[inputLength++] = c;
+          }
+        }
+        boolean atEnd = endOfInput && !in.hasRemaining();
+        if (atEnd && !hitPadding && !alphabet.isValidPaddingStartPosition(readChars)) {
+          throw new DecodingException("Invalid input length " + readChars);
+        }
+        // the last chunk may only be decoded once no more chars can follow it
+        int decodable = (atEnd || hitPadding)
+            ? inputLength
+            : inputLength - inputLength % alphabet.charsPerChunk;
+        if (decodable == 0) {
+          return CoderResult.UNDERFLOW;
+        }
+        outputStart = 0;
+        outputLength = unseparated.decodeTo(output, 0, CharBuffer.wrap(input, 0, decodable));
+        inputLength -= decodable;
+        System.arraycopy(input, decodable, input, 0, inputLength);
+      }
+    }
+
+    /** Writes as many pending bytes as fit in {@code out}, and returns whether none is left. */
+    private boolean flush(ByteBuffer out) {
+      int n = Math.min(out.remaining(), outputLength - outputStart);
+      out.put(output, outputStart, n);
+      outputStart += n;
+      return outputStart == outputLength;
+    }
+
+    /** Discards the pending input and output, so that the decoder can decode a new input. */
+    public Decoder reset() {
+      inputLength = 0;
+      readChars = 0;
+      hitPadding = false;
+      outputStart = 0;
+      outputLength = 0;
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      return encoding + ".newDecoder()";
+    }
+  }
 }
@@ -20,22 +20,34 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.hash.Funnels;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
  * A readable source of bytes, such as a file. Unlike an {@link InputStream}, a
@@ -225,7 +237,10 @@ public abstract class ByteSource {
   }
 
   /**
-   * Copies the contents of this byte source to the given {@code ByteSink}.
+   * Copies the contents of this byte source to the given {@code ByteSink}. When both are files,
+   * such as those returned by {@link Files#asByteSource} and {@link Files#asByteSink}, the
+   * operating system copies the bytes directly, as by {@link ByteStreams#copy(InputStream,
+   * OutputStream)}.
    *
    * @throws IOException if an I/O error occurs in the process of reading from this source or
    *     writing to {@code sink}
@@ -297,6 +312,163 @@ public abstract class ByteSource {
     return hasher.hash();
   }
 
+  /**
+   * Hashes the contents of this byte source in chunks, which are hashed concurrently on the given
+   * executor. This computes a two-level tree hash, which is defined as follows:
+   *
+   * <ul>
+   *   <li>The contents are split into consecutive chunks of {@code chunkSize} bytes; the last chunk
+   *   holds the remaining bytes, and may be shorter. An empty source has one empty chunk.
+   *   <li>Each chunk is hashed with {@code hashFunction}, as {@link #hash} would hash it.
+   *   <li>The hash codes of the chunks are combined, in order, with {@link
+   *   Hashing#combineOrdered}.
+   * </ul>
+   *
+   * <p>The result depends on {@code chunkSize}, and differs from {@link #hash} for sources of more
+   * than {@code chunkSize} bytes, so it should be persisted along with the chunk size used. Note
+   * that {@code combineOrdered} is not a cryptographic combination: even if {@code hashFunction}
+   * is collision-resistant, the tree hash is only meant to detect accidental corruption.
+   *
+   * <p>Each chunk is read from a {@linkplain #slice slice} of this source, which has to skip to the
+   * start of the chunk; file sources map their chunks into memory instead. The chunks are planned
+   * from the {@link #size} of the source, but as the size may be under-reported, the chunks from
+   * the last one planned on are hashed one at a time until one of them is short. If the size was
+   * over-reported, the empty chunks past the end are dropped; if a chunk before the last is short
+   * for any other reason, the chunks are hashed again, one at a time. This method blocks until all
+   * the chunks are hashed.
+   *
+   * @param hashFunction the hash function to hash each chunk with
+   * @param chunkSize the number of bytes in each chunk but the last
+   * @param executor the executor to hash the chunks on
+   * @throws IllegalArgumentException if {@code chunkSize} is not positive
+   * @throws IOException if an I/O error occurs in the process of reading from this source, or if
+   *     the thread is interrupted while waiting for the chunks to be hashed
+   * @since 19.0
+   */
+  @Beta
+  public HashCode chunkedHash(
+      final HashFunction hashFunction, long chunkSize, Executor executor) throws IOException {
+    checkNotNull(hashFunction);
+    checkArgument(chunkSize > 0, "chunkSize (%s) must be positive", chunkSize);
+    checkNotNull(executor);
+    long size = size();
+    List<ChunkHash> chunks = new ArrayList<ChunkHash>();
+    List<ListenableFuture<HashCode>> chunkHashes = new ArrayList<ListenableFuture<HashCode>>();
+    long offset = 0;
+    for (; size - offset > chunkSize; offset += chunkSize) {
+      ChunkHash chunkHash = new ChunkHash(slice(offset, chunkSize), hashFunction);
+      chunks.add(chunkHash);
+      chunkHashes.add(submit(executor, chunkHash));
+    }
+    while (true) {
+      ChunkHash chunkHash = new ChunkHash(slice(offset, chunkSize), hashFunction);
+      ListenableFuture<HashCode> future = submit(executor, chunkHash);
+      chunks.add(chunkHash);
+      chunkHashes.add(future);
+      waitFor(future, chunkHashes);
+      if (chunkHash.length < chunkSize) {
+        break;
+      }
+      offset += chunkSize;
+    }
+
+    List<HashCode> hashes =
+        new ArrayList<HashCode>(waitFor(Futures.allAsList(chunkHashes), chunkHashes));
+    // drop the empty chunks past the end, which there are if the last chunk was full, or if the
+    // size was over-reported
+    int count = hashes.size();
+    while (count > 1 && chunks.get(count - 1).length == 0) {
+      count--;
+    }
+    for (int i = 0; i < count - 1; i++) {
+      if (chunks.get(i).length != chunkSize) {
+        return serialChunkedHash(hashFunction, chunkSize);
+      }
+    }
+    return Hashing.combineOrdered(hashes.subList(0, count));
+  }
+
+  /** Computes a {@link #chunkedHash} on the calling thread, reading one chunk after the other. */
+  private HashCode serialChunkedHash(HashFunction hashFunction, long chunkSize)
+      throws IOException {
+    List<HashCode> hashes = new ArrayList<HashCode>();
+    for (long offset = 0; ; offset += chunkSize) {
+      ChunkHash chunkHash = new ChunkHash(slice(offset, chunkSize), hashFunction);
+      HashCode hash = chunkHash.call();
+      if (chunkHash.length > 0 || hashes.isEmpty()) {
+        hashes.add(hash);
+      }
+      if (chunkHash.length < chunkSize) {
+        return Hashing.combineOrdered(hashes);
+      }
+    }
+  }
+
+  /** Hashes a chunk of a {@link #chunkedHash}, and counts its bytes. */
+  private static final class ChunkHash implements Callable<HashCode> {
+    private final ByteSource chunk;
+    private final HashFunction hashFunction;
+    long length; // read once the hash is done
+
+    ChunkHash(ByteSource chunk, HashFunction hashFunction) {
+      this.chunk = chunk;
+      this.hashFunction = hashFunction;
+    }
+
+    @Override
+    public HashCode call() throws IOException {
+      Hasher hasher = hashFunction.newHasher();
+      try {
+        length = chunk.copyTo(Funnels.asOutputStream(hasher));
+      } catch (EOFException e) {
+        // the chunk starts past the end of the source, whose size was over-reported
+        length = 0;
+        return hashFunction.newHasher().hash();
+      }
+      return hasher.hash();
+    }
+  }
+
+  static ListenableFuture<HashCode> submit(Executor executor, Callable<HashCode> task) {
+    ListenableFutureTask<HashCode> future = ListenableFutureTask.create(task);
+    executor.execute(future);
+    return future;
+  }
+
+  /**
+   * Waits for the hash codes of the chunks of a {@link #chunkedHash}, and combines them. If a chunk
+   * fails to be hashed, the chunks not hashed yet are cancelled.
+   */
+  static HashCode combineChunkHashes(List<ListenableFuture<HashCode>> chunkHashes)
+      throws IOException {
+    return Hashing.combineOrdered(waitFor(Futures.allAsList(chunkHashes), chunkHashes));
+  }
+
+  /**
+   * Waits for {@code future}, which depends on the chunks of a {@link #chunkedHash}, and returns its
+   * result. If it fails, the chunks not hashed yet are cancelled.
+   */
+  private static <V> V waitFor(ListenableFuture<V> future,
+      List<ListenableFuture<HashCode>> chunkHashes) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      cancelAll(chunkHashes);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while hashing chunks");
+    } catch (ExecutionException e) {
+      cancelAll(chunkHashes);
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static void cancelAll(List<ListenableFuture<HashCode>> futures) {
+    for (ListenableFuture<HashCode> future : futures) {
+      future.cancel(false);
+    }
+  }
+
   /**
    * Checks that the contents of this byte source are equal to the contents of the given byte
    * source.
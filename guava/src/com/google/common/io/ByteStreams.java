@@ -29,11 +29,14 @@ import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
@@ -49,12 +52,25 @@ import java.util.Arrays;
 public final class ByteStreams {
   private static final int BUF_SIZE = 0x1000; // 4K
 
+  /** The size of the buffers of the copy methods, which halves their calls to read and write. */
+  private static final int COPY_BUF_SIZE = 0x2000; // 8K
+
+  /**
+   * The largest number of bytes transferred by each call to {@link FileChannel#transferTo}, as
+   * some platforms fail to transfer more than 2 GB at once.
+   */
+  private static final long ZERO_COPY_CHUNK_SIZE = 512 * 1024;
+
   private ByteStreams() {}
 
   /**
    * Copies all bytes from the input stream to the output stream.
    * Does not close or flush either stream.
    *
+   * <p>If {@code from} is a {@link FileInputStream} and {@code to} is a {@link FileOutputStream},
+   * the bytes are copied between their channels, as by {@link #copy(ReadableByteChannel,
+   * WritableByteChannel)}, which lets the operating system copy them directly.
+   *
    * @param from the input stream to read from
    * @param to the output stream to write to
    * @return the number of bytes copied
@@ -64,7 +80,11 @@ public final class ByteStreams {
       throws IOException {
     checkNotNull(from);
     checkNotNull(to);
-    byte[] buf = new byte[BUF_SIZE];
+    // subclasses may override read or write, which the channels would bypass
+    if (from.getClass() == FileInputStream.class && to.getClass() == FileOutputStream.class) {
+      return copy(((FileInputStream) from).getChannel(), ((FileOutputStream) to).getChannel());
+    }
+    byte[] buf = new byte[COPY_BUF_SIZE];
     long total = 0;
     while (true) {
       int r = from.read(buf);
@@ -81,6 +101,10 @@ public final class ByteStreams {
    * Copies all bytes from the readable channel to the writable channel.
    * Does not close or flush either channel.
    *
+   * <p>If {@code from} is a {@link FileChannel}, the bytes of the file are copied with {@link
+   * FileChannel#transferTo}, which can copy them without reading them into memory, for example to
+   * another file or to a socket.
+   *
    * @param from the readable channel to read from
    * @param to the writable channel to write to
    * @return the number of bytes copied
@@ -90,8 +114,12 @@ public final class ByteStreams {
       WritableByteChannel to) throws IOException {
     checkNotNull(from);
     checkNotNull(to);
-    ByteBuffer buf = ByteBuffer.allocate(BUF_SIZE);
     long total = 0;
+    if (from instanceof FileChannel) {
+      total = transferTo((FileChannel) from, to);
+    }
+    // the heap buffer is copied through a temporary direct buffer that the JDK caches per thread
+    ByteBuffer buf = ByteBuffer.allocate(COPY_BUF_SIZE);
     while (from.read(buf) != -1) {
       buf.flip();
       while (buf.hasRemaining()) {
@@ -102,6 +130,32 @@ public final class ByteStreams {
     return total;
   }
 
+  /**
+   * Copies the bytes of {@code from}, from its position up to its current size, with {@link
+   * FileChannel#transferTo}, and moves its position past them. Returns the number of bytes copied,
+   * which may stop short if {@code to} doesn't accept any more bytes. Pipes and special files,
+   * whose size is reported as zero, are left to be read by the caller, as is anything appended to
+   * the file in the meantime.
+   */
+  private static long transferTo(FileChannel from, WritableByteChannel to) throws IOException {
+    long size = from.size();
+    if (size == 0) {
+      return 0;
+    }
+    long start = from.position();
+    long position = start;
+    while (position < size) {
+      long copied =
+          from.transferTo(position, Math.min(size - position, ZERO_COPY_CHUNK_SIZE), to);
+      if (copied == 0) {
+        break;
+      }
+      position += copied;
+      from.position(position);
+    }
+    return position - start;
+  }
+
   /**
    * Reads all bytes from an input stream into a byte array.
    * Does not close the stream.
@@ -230,6 +230,35 @@ public abstract class CharSource {
     }
   }
 
+  /**
+   * Splits the contents of this source with the given {@code splitter}, reading them as they are
+   * needed, and passes the bounds of each component to the given {@link Splitter.RangeProcessor
+   * processor}. Stops when all components have been processed or the processor returns {@code
+   * false} and returns the result produced by the processor.
+   *
+   * <p>Unlike {@link #read()}, this method doesn't hold the whole contents of this source in
+   * memory. See {@link Splitter#split(Readable, Splitter.RangeProcessor)} for the restrictions on
+   * the sequence passed to the processor.
+   *
+   * @throws IOException if an I/O error occurs in the process of reading from this source
+   * @since 19.0
+   */
+  @Beta
+  public <T> T split(Splitter splitter, Splitter.RangeProcessor<T> processor) throws IOException {
+    checkNotNull(splitter);
+    checkNotNull(processor);
+
+    Closer closer = Closer.create();
+    try {
+      Reader reader = closer.register(openStream());
+      return splitter.split(reader, processor);
+    } catch (Throwable e) {
+      throw closer.rethrow(e);
+    } finally {
+      closer.close();
+    }
+  }
+
   /**
    * Returns whether the source has zero chars. The default implementation is to open a stream and
    * check for EOF.
@@ -397,6 +426,11 @@ public abstract class CharSource {
       return processor.getResult();
     }
 
+    @Override
+    public <T> T split(Splitter splitter, Splitter.RangeProcessor<T> processor) {
+      return splitter.split(seq, processor);
+    }
+
     @Override
     public String toString() {
       return "CharSource.wrap(" + truncate(seq, 30, "...") + ")";
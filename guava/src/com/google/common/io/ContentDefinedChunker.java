@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.hash.RollingHash;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Cuts the contents of byte sources into chunks whose boundaries are chosen by a {@link
+ * RollingHash#buzhash buzhash} of the last {@value #WINDOW_SIZE} bytes. Because each boundary only
+ * depends on the bytes just before it, inserting or deleting bytes only changes the chunks around
+ * the edit, and the following chunks are cut exactly as before, which makes these chunks suitable
+ * for deduplicating storage and for incremental transfers.
+ *
+ * <p>The source is read as a stream, and at most {@code maxChunkSize} bytes of it are held in
+ * memory at any time. Instances are immutable and thread-safe.
+ *
+ * @since 19.0
+ */
+@Beta
+public final class ContentDefinedChunker {
+  /** The number of bytes the boundaries depend on. */
+  static final int WINDOW_SIZE = 48;
+
+  /**
+   * Returns a chunker that cuts chunks of at least {@code minChunkSize} and at most {@code
+   * maxChunkSize} bytes, except for the last chunk, which may be shorter. A boundary may be placed
+   * after any byte past the minimum size, with a probability chosen so that chunks are about
+   * {@code averageChunkSize} bytes long on average, ignoring the effect of the maximum size.
+   *
+   * @throws IllegalArgumentException if {@code minChunkSize} is not positive, or if {@code
+   *     minChunkSize < averageChunkSize <= maxChunkSize} does not hold
+   */
+  public static ContentDefinedChunker create(
+      int minChunkSize, int averageChunkSize, int maxChunkSize) {
+    checkArgument(minChunkSize > 0, "minChunkSize (%s) must be positive", minChunkSize);
+    checkArgument(minChunkSize < averageChunkSize,
+        "averageChunkSize (%s) must be greater than minChunkSize (%s)",
+        averageChunkSize, minChunkSize);
+    checkArgument(averageChunkSize <= maxChunkSize,
+        "maxChunkSize (%s) must be at least averageChunkSize (%s)", maxChunkSize, averageChunkSize);
+    return new ContentDefinedChunker(minChunkSize, averageChunkSize, maxChunkSize);
+  }
+
+  private final int minChunkSize;
+  private final int averageChunkSize;
+  private final int maxChunkSize;
+
+  /**
+   * The bound under which the upper 63 bits of the hash place a boundary, so that one is placed
+   * after every {@code averageChunkSize - minChunkSize} bytes past the minimum size on average. The
+   * upper bits are used as they are the best distributed bits of any rolling hash.
+   */
+  private final long boundaryThreshold;
+
+  private ContentDefinedChunker(int minChunkSize, int averageChunkSize, int maxChunkSize) {
+    this.minChunkSize = minChunkSize;
+    this.averageChunkSize = averageChunkSize;
+    this.maxChunkSize = maxChunkSize;
+    this.boundaryThreshold = Long.MAX_VALUE / (averageChunkSize - minChunkSize);
+  }
+
+  /**
+   * Reads the contents of {@code source} and passes each chunk, in order, to a separate call to
+   * {@link ByteProcessor#processBytes}, until the end of the source or until the processor returns
+   * {@code false}. The array passed to the processor is reused for the following chunks, so it
+   * must not be kept after the call returns.
+   *
+   * @return the result of the processor
+   * @throws IOException if an I/O error occurs in the process of reading from {@code source}, or if
+   *     {@code processor} throws an {@code IOException}
+   */
+  public <T> T read(ByteSource source, ByteProcessor<T> processor) throws IOException {
+    checkNotNull(processor);
+    Closer closer = Closer.create();
+    try {
+      InputStream in = closer.register(source.openStream());
+      return read(in, processor);
+    } catch (Throwable e) {
+      throw closer.rethrow(e);
+    } finally {
+      closer.close();
+    }
+  }
+
+  private <T> T read(InputStream in, ByteProcessor<T> processor) throws IOException {
+    RollingHash hash = RollingHash.buzhash(WINDOW_SIZE);
+    // the bytes of the current chunk, of which the first scanned have no boundary after them
+    byte[] buf = new byte[maxChunkSize];
+    int length = 0;
+    int scanned = 0;
+    while (true) {
+      if (scanned == length) {
+        // the current chunk is shorter than maxChunkSize, or it would have been cut
+        int read = in.read(buf, length, buf.length - length);
+        if (read == -1) {
+          if (length > 0) {
+            processor.processBytes(buf, 0, length);
+          }
+          return processor.getResult();
+        }
+        length += read;
+      }
+      int boundary = findBoundary(hash, buf, scanned, length);
+      if (boundary == -1) {
+        scanned = length;
+        continue;
+      }
+      if (!processor.processBytes(buf, 0, boundary)) {
+        return processor.getResult();
+      }
+      length -= boundary;
+      System.arraycopy(buf, boundary, buf, 0, length);
+      scanned = 0;
+      hash.reset();
+    }
+  }
+
+  /**
+   * Returns the length of the chunk starting at {@code buf[0]} if it ends before {@code
+   * buf[length]}, or -1 if it doesn't. The bytes before {@code buf[start]} must have been scanned
+   * already, with the same {@code hash}.
+   */
+  private int findBoundary(RollingHash hash, byte[] buf, int start, int length) {
+    // only the window ending at each possible boundary needs to be hashed
+    int hashStart = Math.max(minChunkSize - WINDOW_SIZE, 0);
+    int filled = hashStart + WINDOW_SIZE;
+    for (int i = Math.max(start, hashStart); i < length; i++) {
+      long h = (i < filled) ? hash.append(buf[i]) : hash.roll(buf[i - WINDOW_SIZE], buf[i]);
+      if (i + 1 >= minChunkSize && ((h >>> 1) < boundaryThreshold || i + 1 == maxChunkSize)) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  @Override public String toString() {
+    return "ContentDefinedChunker.create("
+        + minChunkSize + ", " + averageChunkSize + ", " + maxChunkSize + ")";
+  }
+}
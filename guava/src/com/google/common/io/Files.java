@@ -30,6 +30,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.TreeTraverser;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -51,6 +52,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * Provides utility methods for working with files.
@@ -146,12 +149,68 @@ public final class Files {
       }
     }
 
+    @Override
+    public HashCode chunkedHash(
+        final HashFunction hashFunction, final long chunkSize, Executor executor)
+        throws IOException {
+      checkNotNull(hashFunction);
+      checkArgument(chunkSize > 0, "chunkSize (%s) must be positive", chunkSize);
+      checkNotNull(executor);
+      Closer closer = Closer.create();
+      try {
+        final FileChannel channel = closer.register(new RandomAccessFile(file, "r")).getChannel();
+        final long size = channel.size();
+        if (size == 0 || chunkSize > Integer.MAX_VALUE) {
+          // special files may have content but a size of 0, which the streamed chunks read until
+          // one is short, and larger chunks can't be mapped
+          return super.chunkedHash(hashFunction, chunkSize, executor);
+        }
+        List<ListenableFuture<HashCode>> chunkHashes = Lists.newArrayList();
+        long offset = 0;
+        do {
+          final long chunkOffset = offset;
+          chunkHashes.add(submit(executor, new Callable<HashCode>() {
+            @Override
+            public HashCode call() throws IOException {
+              long length = Math.min(chunkSize, size - chunkOffset);
+              return hashFunction.hashBytes(channel.map(MapMode.READ_ONLY, chunkOffset, length));
+            }
+          }));
+          offset += chunkSize;
+        } while (offset < size);
+        return combineChunkHashes(chunkHashes);
+      } catch (Throwable e) {
+        throw closer.rethrow(e);
+      } finally {
+        closer.close();
+      }
+    }
+
     @Override
     public String toString() {
       return "Files.asByteSource(" + file + ")";
     }
   }
 
+  /**
+   * Returns a new {@link ByteSource} for reading bytes from the given file through read-only memory
+   * mappings. The file is mapped in windows of up to 1 GB, each the first time one of its bytes is
+   * read, and the mappings are shared with the {@linkplain ByteSource#slice slices} of the source,
+   * so that reading a range of the file, hashing it or comparing it takes no system call once it's
+   * mapped, and streams and slices don't need to skip over the bytes before them.
+   *
+   * <p>The size of the file is read the first time it's needed, and later changes to the size of
+   * the file aren't seen by the source. The file must not be truncated while it's in use, as
+   * reading a mapped region past its end may crash the virtual machine. Special files, such as
+   * pipes, can't be mapped; use {@link #asByteSource} to read them.
+   *
+   * @since 19.0
+   */
+  @Beta
+  public static ByteSource asMappedByteSource(File file) {
+    return new MappedFileByteSource(file);
+  }
+
   /**
    * Reads a file of the given expected size from the given input stream, if
    * it will fit into a byte array. This method handles the case where the file
@@ -294,6 +353,9 @@ public final class Files {
    * {@code from} refer to the <i>same</i> file, the contents of that file
    * will be deleted.
    *
+   * <p>The bytes are copied with {@link java.nio.channels.FileChannel#transferTo}, which lets the
+   * operating system copy them without reading them into memory.
+   *
    * @param from the source file
    * @param to the destination file
    * @throws IOException if an I/O error occurs
@@ -581,7 +643,8 @@ public final class Files {
   }
 
   /**
-   * Computes the hash code of the {@code file} using {@code hashFunction}.
+   * Computes the hash code of the {@code file} using {@code hashFunction}. To hash a large file on
+   * several threads, see {@link ByteSource#chunkedHash}.
    *
    * @param file the file to read
    * @param hashFunction the hash function to use to hash the data
@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2015 The Guava Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.common.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import javax.annotation.Nullable;
+
+/**
+ * A byte source reading a range of a file through read-only memory mappings, which are shared by
+ * its slices. The file is mapped in windows of up to 1 GB, each the first time one of its bytes is
+ * read, and the mappings are kept until the source and its slices are garbage collected.
+ *
+ * <p>The size of the file is read once, when it's first needed.
+ *
+ * @see Files#asMappedByteSource(File)
+ */
+final class MappedFileByteSource extends ByteSource {
+  /** The size of the windows the file is mapped in, as a mapping can't exceed 2 GB. */
+  private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  private final MappedFile mappedFile;
+  private final long offset;
+  private final long length;
+
+  MappedFileByteSource(File file) {
+    this(file, DEFAULT_WINDOW_SIZE);
+  }
+
+  @VisibleForTesting
+  MappedFileByteSource(File file, int windowSize) {
+    this(new MappedFile(file, windowSize), 0, Long.MAX_VALUE);
+  }
+
+  private MappedFileByteSource(MappedFile mappedFile, long offset, long length) {
+    this.mappedFile = mappedFile;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /** Returns the position in the file of the first byte of this source. */
+  private long start() throws IOException {
+    return Math.min(offset, mappedFile.size());
+  }
+
+  /** Returns the position in the file just past the last byte of this source. */
+  private long end() throws IOException {
+    long start = start();
+    return start + Math.min(length, mappedFile.size() - start);
+  }
+
+  @Override
+  public InputStream openStream() throws IOException {
+    return new MappedInputStream(start(), end());
+  }
+
+  @Override
+  public InputStream openBufferedStream() throws IOException {
+    return openStream();
+  }
+
+  @Override
+  public ByteSource slice(long offset, long length) {
+    checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+    checkArgument(length >= 0, "length (%s) may not be negative", length);
+    long maxLength = this.length - offset;
+    return (maxLength <= 0)
+        ? ByteSource.empty()
+        : new MappedFileByteSource(mappedFile, this.offset + offset, Math.min(length, maxLength));
+  }
+
+  @Override
+  public boolean isEmpty() throws IOException {
+    return size() == 0;
+  }
+
+  @Override
+  public long size() throws IOException {
+    return end() - start();
+  }
+
+  @Override
+  public byte[] read() throws IOException {
+    long start = start();
+    long end = end();
+    if (end - start > Integer.MAX_VALUE) {
+      throw new OutOfMemoryError("file is too large to fit in a byte array: "
+          + (end - start) + " bytes");
+    }
+    byte[] bytes = new byte[(int) (end - start)];
+    for (long position = start; position < end; ) {
+      ByteBuffer segment = mappedFile.segment(position, end);
+      int n = segment.remaining();
+      segment.get(bytes, (int) (position - start), n);
+      position += n;
+    }
+    return bytes;
+  }
+
+  @Override
+  public HashCode hash(HashFunction hashFunction) throws IOException {
+    checkNotNull(hashFunction);
+    long start = start();
+    long end = end();
+    if (start == end) {
+      return hashFunction.hashBytes(new byte[0]);
+    }
+    ByteBuffer segment = mappedFile.segment(start, end);
+    if (segment.remaining() == end - start) {
+      return hashFunction.hashBytes(segment);
+    }
+    Hasher hasher = hashFunction.newHasher();
+    for (long position = start; position < end; ) {
+      segment = mappedFile.segment(position, end);
+      position += segment.remaining();
+      hasher.putBytes(segment);
+    }
+    return hasher.hash();
+  }
+
+  @Override
+  public boolean contentEquals(ByteSource other) throws IOException {
+    if (!(other instanceof MappedFileByteSource)) {
+      return super.contentEquals(other);
+    }
+    MappedFileByteSource that = (MappedFileByteSource) other;
+    long position1 = start();
+    long end1 = end();
+    long position2 = that.start();
+    long end2 = that.end();
+    if (end1 - position1 != end2 - position2) {
+      return false;
+    }
+    // compares the common prefix of the segments of both sources at a time
+    while (position1 < end1) {
+      ByteBuffer segment1 = mappedFile.segment(position1, end1);
+      ByteBuffer segment2 = that.mappedFile.segment(position2, end2);
+      int n = Math.min(segment1.remaining(), segment2.remaining());
+      segment1.limit(segment1.position() + n);
+      segment2.limit(segment2.position() + n);
+      if (!segment1.equals(segment2)) {
+        return false;
+      }
+      position1 += n;
+      position2 += n;
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    String file = "Files.asMappedByteSource(" + mappedFile.file + ")";
+    return (offset == 0 && length == Long.MAX_VALUE)
+        ? file
+        : file + ".slice(" + offset + ", " + length + ")";
+  }
+
+  /** The lazily mapped windows of a file. */
+  private static final class MappedFile {
+    final File file;
+    final int windowSize;
+
+    private long size = -1; // guarded by this
+    @Nullable private MappedByteBuffer[] windows; // guarded by this
+
+    MappedFile(File file, int windowSize) {
+      this.file = checkNotNull(file);
+      checkArgument(windowSize > 0);
+      this.windowSize = windowSize;
+    }
+
+    synchronized long size() throws IOException {
+      if (size == -1) {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+          size = raf.length();
+        } finally {
+          raf.close();
+        }
+        windows = new MappedByteBuffer[(int) ((size + windowSize - 1) / windowSize)];
+      }
+      return size;
+    }
+
+    /**
+     * Returns a new buffer whose remaining bytes are those of the file from {@code position} to
+     * {@code end} or to the end of the window containing {@code position}, whichever comes first.
+     */
+    ByteBuffer segment(long position, long end) throws IOException {
+      int index = (int) (position / windowSize);
+      long windowStart = (long) index * windowSize;
+      ByteBuffer segment = window(index).duplicate();
+      segment.limit((int) Math.min(segment.capacity(), end - windowStart));
+      segment.position((int) (position - windowStart));
+      return segment;
+    }
+
+    private synchronized MappedByteBuffer window(int index) throws IOException {
+      size();
+      if (windows[index] == null) {
+        long windowStart = (long) index * windowSize;
+        long windowLength = Math.min(windowSize, size - windowStart);
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+          // the mapping remains valid after the file is closed
+          windows[index] = raf.getChannel().map(MapMode.READ_ONLY, windowStart, windowLength);
+        } finally {
+          raf.close();
+        }
+      }
+      return windows[index];
+    }
+  }
+
+  /** An input stream over the bytes of the file from {@code position} to {@code end}. */
+  private final class MappedInputStream extends InputStream {
+    private long position;
+    private final long end;
+    private long mark;
+
+    /** The segment containing {@code position}, if it has been looked up since it last moved. */
+    @Nullable private ByteBuffer segment;
+
+    MappedInputStream(long position, long end) {
+      this.position = position;
+      this.end = end;
+      this.mark = position;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (position >= end) {
+        return -1;
+      }
+      currentSegment();
+      position++;
+      return segment.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      checkPositionIndexes(off, off + len, b.length);
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= end) {
+        return -1;
+      }
+      currentSegment();
+      int n = Math.min(len, segment.remaining());
+      segment.get(b, off, n);
+      position += n;
+      return n;
+    }
+
+    private void currentSegment() throws IOException {
+      if (segment == null || !segment.hasRemaining()) {
+        segment = mappedFile.segment(position, end);
+      }
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(Math.min(n, end - position), 0);
+      position += skipped;
+      segment = null;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(end - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+      mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+      position = mark;
+      segment = null;
+    }
+  }
+}
@@ -18,12 +18,17 @@ package com.google.common.util.concurrent;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.annotation.Nullable;
 
@@ -42,18 +47,21 @@ import javax.annotation.Nullable;
  * #interruptTask()}, which will be invoked automatically if a call to {@link
  * #cancel(boolean) cancel(true)} succeeds in canceling the future.
  *
- * <p>{@code AbstractFuture} uses an {@link AbstractQueuedSynchronizer} to deal
- * with concurrency issues and guarantee thread safety.
+ * <p>{@code AbstractFuture} is lock-free: its entire state is held in a
+ * single volatile field that is transitioned exactly once with a
+ * compare-and-set, and blocked threads and listeners are kept in two
+ * compare-and-set managed stacks threaded through this object. No locks are
+ * taken when the future is completed and no helper objects are allocated
+ * unless a thread blocks or a listener is added before completion.
  *
  * <p>The state changing methods all return a boolean indicating success or
  * failure in changing the future's state.  Valid states are running,
  * completed, failed, or cancelled.
  *
- * <p>This class uses an {@link ExecutionList} to guarantee that all registered
- * listeners will be executed, either when the future finishes or, for listeners
- * that are added after the future completes, immediately.
- * {@code Runnable}-{@code Executor} pairs are stored in the execution list but
- * are not necessarily executed in the order in which they were added.  (If a
+ * <p>This class guarantees that all registered listeners will be executed,
+ * either when the future finishes or, for listeners that are added after the
+ * future completes, immediately. {@code Runnable}-{@code Executor} pairs are
+ * not necessarily executed in the order in which they were added.  (If a
  * listener is added after the Future is complete, it will be executed
  * immediately, even if earlier listeners have not been executed. Additionally,
  * executors need not guarantee FIFO execution, or different listeners may run
@@ -63,12 +71,50 @@ import javax.annotation.Nullable;
  * @since 1.0
  */
 public abstract class AbstractFuture<V> implements ListenableFuture<V> {
+  // Logger to log exceptions caught when running listeners.
+  @VisibleForTesting static final Logger log = Logger.getLogger(AbstractFuture.class.getName());
 
-  /** Synchronization control for AbstractFutures. */
-  private final Sync<V> sync = new Sync<V>();
+  /**
+   * Timed waits shorter than this are handled by spinning rather than parking,
+   * since the cost of parking and unparking would exceed the wait itself.
+   */
+  private static final long SPIN_THRESHOLD_NANOS = 1000L;
+
+  private static final AtomicHelper ATOMIC_HELPER;
+
+  static {
+    AtomicHelper helper;
+    try {
+      helper = new UnsafeAtomicHelper();
+    } catch (Throwable unsafeFailure) {
+      // Unsafe is unavailable (e.g. under a security manager), so fall back to the slower but
+      // portable field updaters.
+      helper = new SafeAtomicHelper();
+    }
+    ATOMIC_HELPER = helper;
+  }
+
+  /** Stored in {@link #value} to represent a successful completion with {@code null}. */
+  private static final Object NULL = new Object();
 
-  // The execution list to hold our executors.
-  private final ExecutionList executionList = new ExecutionList();
+  /**
+   * The result of the computation, or {@code null} while the future is running. Once set, this
+   * field never changes again. Besides a plain value it may hold {@link #NULL}, a {@link Failure}
+   * or a {@link Cancellation}.
+   */
+  private volatile Object value;
+
+  /**
+   * Threads blocked in {@code get()}, as a stack threaded through {@link Waiter#next}. Set to
+   * {@link Waiter#TOMBSTONE} once the waiters have been released.
+   */
+  private volatile Waiter waiters;
+
+  /**
+   * Listeners that have not run yet, as a stack threaded through {@link Listener#next}. Set to
+   * {@link Listener#TOMBSTONE} once the listeners have been handed to their executors.
+   */
+  private volatile Listener listeners;
 
   /**
    * Constructor for use by subclasses.
@@ -93,7 +139,58 @@ public abstract class AbstractFuture<V> implements ListenableFuture<V> {
   @Override
   public V get(long timeout, TimeUnit unit) throws InterruptedException,
       TimeoutException, ExecutionException {
-    return sync.get(unit.toNanos(timeout));
+    long remainingNanos = unit.toNanos(timeout);
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    Object localValue = value;
+    if (localValue != null) {
+      return getDoneValue(localValue);
+    }
+    long endNanos = remainingNanos > 0 ? System.nanoTime() + remainingNanos : 0;
+    longWait:
+    if (remainingNanos >= SPIN_THRESHOLD_NANOS) {
+      Waiter oldHead = waiters;
+      if (oldHead != Waiter.TOMBSTONE) {
+        Waiter node = new Waiter();
+        do {
+          node.next = oldHead;
+          if (ATOMIC_HELPER.casWaiters(this, oldHead, node)) {
+            while (true) {
+              LockSupport.parkNanos(this, remainingNanos);
+              if (Thread.interrupted()) {
+                removeWaiter(node);
+                throw new InterruptedException();
+              }
+              localValue = value;
+              if (localValue != null) {
+                return getDoneValue(localValue);
+              }
+              remainingNanos = endNanos - System.nanoTime();
+              if (remainingNanos < SPIN_THRESHOLD_NANOS) {
+                // Too little time left to park again; finish off in the spin loop below.
+                removeWaiter(node);
+                break longWait;
+              }
+            }
+          }
+          oldHead = waiters;
+        } while (oldHead != Waiter.TOMBSTONE);
+      }
+      // The waiters were released while we were trying to enqueue, so the value must be set.
+      return getDoneValue(value);
+    }
+    while (remainingNanos > 0) {
+      localValue = value;
+      if (localValue != null) {
+        return getDoneValue(localValue);
+      }
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      remainingNanos = endNanos - System.nanoTime();
+    }
+    throw new TimeoutException("Timeout waiting for task.");
   }
 
   /*
@@ -113,25 +210,77 @@ public abstract class AbstractFuture<V> implements ListenableFuture<V> {
    */
   @Override
   public V get() throws InterruptedException, ExecutionException {
-    return sync.get();
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    Object localValue = value;
+    if (localValue != null) {
+      return getDoneValue(localValue);
+    }
+    Waiter oldHead = waiters;
+    if (oldHead != Waiter.TOMBSTONE) {
+      Waiter node = new Waiter();
+      do {
+        node.next = oldHead;
+        if (ATOMIC_HELPER.casWaiters(this, oldHead, node)) {
+          // We are on the stack; wait until complete() unparks us.
+          while (true) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+              removeWaiter(node);
+              throw new InterruptedException();
+            }
+            localValue = value;
+            if (localValue != null) {
+              return getDoneValue(localValue);
+            }
+          }
+        }
+        oldHead = waiters;
+      } while (oldHead != Waiter.TOMBSTONE);
+    }
+    // The waiters were released while we were trying to enqueue, so the value must be set.
+    return getDoneValue(value);
+  }
+
+  /**
+   * Unboxes {@code obj}, which must have been read from {@link #value} after it was set.
+   */
+  private V getDoneValue(Object obj) throws ExecutionException {
+    if (obj instanceof Cancellation) {
+      throw cancellationExceptionWithCause("Task was cancelled.", ((Cancellation) obj).cause);
+    } else if (obj instanceof Failure) {
+      throw new ExecutionException(((Failure) obj).exception);
+    } else if (obj == NULL) {
+      return null;
+    } else {
+      @SuppressWarnings("unchecked") // this is the only other option
+      V asV = (V) obj;
+      return asV;
+    }
   }
 
   @Override
   public boolean isDone() {
-    return sync.isDone();
+    return value != null;
   }
 
   @Override
   public boolean isCancelled() {
-    return sync.isCancelled();
+    return value instanceof Cancellation;
   }
 
   @Override
   public boolean cancel(boolean mayInterruptIfRunning) {
-    if (!sync.cancel(mayInterruptIfRunning)) {
+    if (value != null) {
+      return false;
+    }
+    // Don't construct the CancellationException unless we might actually win the race.
+    Cancellation cancellation = new Cancellation(mayInterruptIfRunning,
+        new CancellationException("Future.cancel() was called."));
+    if (!complete(cancellation)) {
       return false;
     }
-    executionList.execute();
     if (mayInterruptIfRunning) {
       interruptTask();
     }
@@ -157,7 +306,8 @@ public abstract class AbstractFuture<V> implements ListenableFuture<V> {
    * @since 14.0
    */
   protected final boolean wasInterrupted() {
-    return sync.wasInterrupted();
+    Object localValue = value;
+    return (localValue instanceof Cancellation) && ((Cancellation) localValue).wasInterrupted;
   }
 
   /**
@@ -167,223 +317,296 @@ public abstract class AbstractFuture<V> implements ListenableFuture<V> {
    */
   @Override
   public void addListener(Runnable listener, Executor exec) {
-    executionList.add(listener, exec);
+    // Fail fast on a null, as ExecutionList does.
+    checkNotNull(listener, "Runnable was null.");
+    checkNotNull(exec, "Executor was null.");
+    Listener oldHead = listeners;
+    if (oldHead != Listener.TOMBSTONE) {
+      Listener newNode = new Listener(listener, exec);
+      do {
+        newNode.next = oldHead;
+        if (ATOMIC_HELPER.casListeners(this, oldHead, newNode)) {
+          return;
+        }
+        oldHead = listeners;
+      } while (oldHead != Listener.TOMBSTONE);
+    }
+    // The listeners have already been run, so run this one immediately.
+    executeListener(listener, exec);
   }
 
   /**
    * Subclasses should invoke this method to set the result of the computation
-   * to {@code value}.  This will set the state of the future to
-   * {@link AbstractFuture.Sync#COMPLETED} and invoke the listeners if the
-   * state was successfully changed.
+   * to {@code value}.  This will set the state of the future to completed and
+   * invoke the listeners if the state was successfully changed.
    *
    * @param value the value that was the result of the task.
    * @return true if the state was successfully changed.
    */
   protected boolean set(@Nullable V value) {
-    boolean result = sync.set(value);
-    if (result) {
-      executionList.execute();
-    }
-    return result;
+    return complete(value == null ? NULL : value);
   }
 
   /**
    * Subclasses should invoke this method to set the result of the computation
    * to an error, {@code throwable}.  This will set the state of the future to
-   * {@link AbstractFuture.Sync#COMPLETED} and invoke the listeners if the
-   * state was successfully changed.
+   * completed and invoke the listeners if the state was successfully changed.
    *
    * @param throwable the exception that the task failed with.
    * @return true if the state was successfully changed.
    */
   protected boolean setException(Throwable throwable) {
-    boolean result = sync.setException(checkNotNull(throwable));
-    if (result) {
-      executionList.execute();
-    }
-    return result;
+    return complete(new Failure(checkNotNull(throwable)));
   }
 
   /**
-   * <p>Following the contract of {@link AbstractQueuedSynchronizer} we create a
-   * private subclass to hold the synchronizer.  This synchronizer is used to
-   * implement the blocking and waiting calls as well as to handle state changes
-   * in a thread-safe manner.  The current state of the future is held in the
-   * Sync state, and the lock is released whenever the state changes to
-   * {@link #COMPLETED}, {@link #CANCELLED}, or {@link #INTERRUPTED}
-   *
-   * <p>To avoid races between threads doing release and acquire, we transition
-   * to the final state in two steps.  One thread will successfully CAS from
-   * RUNNING to COMPLETING, that thread will then set the result of the
-   * computation, and only then transition to COMPLETED, CANCELLED, or
-   * INTERRUPTED.
-   *
-   * <p>We don't use the integer argument passed between acquire methods so we
-   * pass around a -1 everywhere.
+   * Transitions this future from running to done with the given (already boxed) value. Only the
+   * single thread that wins the compare-and-set releases the waiters and runs the listeners; every
+   * caller observes {@link #isDone} as {@code true} on return.
    */
-  static final class Sync<V> extends AbstractQueuedSynchronizer {
-
-    private static final long serialVersionUID = 0L;
+  private boolean complete(Object newValue) {
+    if (!ATOMIC_HELPER.casValue(this, null, newValue)) {
+      return false;
+    }
+    releaseWaiters();
+    runListeners();
+    return true;
+  }
 
-    /* Valid states. */
-    static final int RUNNING = 0;
-    static final int COMPLETING = 1;
-    static final int COMPLETED = 2;
-    static final int CANCELLED = 4;
-    static final int INTERRUPTED = 8;
+  /** Unparks every thread blocked in {@code get()}, and prevents further threads from blocking. */
+  private void releaseWaiters() {
+    Waiter head;
+    do {
+      head = waiters;
+    } while (!ATOMIC_HELPER.casWaiters(this, head, Waiter.TOMBSTONE));
+    for (Waiter current = head; current != null; current = current.next) {
+      Thread thread = current.thread;
+      if (thread != null) {
+        current.thread = null;
+        LockSupport.unpark(thread);
+      }
+    }
+  }
 
-    private V value;
-    private Throwable exception;
+  /**
+   * Runs all pending listeners in the order they were added, and causes listeners added from now
+   * on to be executed immediately.
+   */
+  private void runListeners() {
+    Listener list;
+    do {
+      list = listeners;
+    } while (!ATOMIC_HELPER.casListeners(this, list, Listener.TOMBSTONE));
+    // The stack holds the listeners in reverse order; flip it so that they run in the order they
+    // were added, as ExecutionList does.
+    Listener reversedList = null;
+    while (list != null) {
+      Listener tmp = list;
+      list = list.next;
+      tmp.next = reversedList;
+      reversedList = tmp;
+    }
+    while (reversedList != null) {
+      executeListener(reversedList.task, reversedList.executor);
+      reversedList = reversedList.next;
+    }
+  }
 
-    /*
-     * Acquisition succeeds if the future is done, otherwise it fails.
-     */
-    @Override
-    protected int tryAcquireShared(int ignored) {
-      if (isDone()) {
-        return 1;
+  /**
+   * Marks {@code node} as abandoned and unlinks every abandoned node from the waiter stack. This
+   * is only called by a thread that gave up waiting (interrupt or timeout); if the waiters are
+   * being released concurrently we simply let the releasing thread discard the stack.
+   */
+  private void removeWaiter(Waiter node) {
+    node.thread = null;
+    restart:
+    while (true) {
+      Waiter pred = null;
+      Waiter curr = waiters;
+      if (curr == Waiter.TOMBSTONE) {
+        return;
       }
-      return -1;
+      while (curr != null) {
+        Waiter succ = curr.next;
+        if (curr.thread != null) {
+          pred = curr;
+        } else if (pred != null) {
+          pred.next = succ;
+          if (pred.thread == null) {
+            // We raced with another thread that is unlinking pred.
+            continue restart;
+          }
+        } else if (!ATOMIC_HELPER.casWaiters(this, curr, succ)) {
+          // We raced with a push, a removal at the head, or the release of all waiters.
+          continue restart;
+        }
+        curr = succ;
+      }
+      return;
     }
+  }
 
-    /*
-     * We always allow a release to go through, this means the state has been
-     * successfully changed and the result is available.
-     */
-    @Override
-    protected boolean tryReleaseShared(int finalState) {
-      setState(finalState);
-      return true;
+  /**
+   * Submits the given runnable to the given {@link Executor} catching and logging all
+   * {@linkplain RuntimeException runtime exceptions} thrown by the executor.
+   */
+  private static void executeListener(Runnable runnable, Executor executor) {
+    try {
+      executor.execute(runnable);
+    } catch (RuntimeException e) {
+      // Log it and keep going, bad runnable and/or executor.  Don't
+      // punish the other runnables if we're given a bad one.  We only
+      // catch RuntimeException because we want Errors to propagate up.
+      log.log(Level.SEVERE, "RuntimeException while executing runnable "
+          + runnable + " with executor " + executor, e);
     }
+  }
 
-    /**
-     * Blocks until the task is complete or the timeout expires.  Throws a
-     * {@link TimeoutException} if the timer expires, otherwise behaves like
-     * {@link #get()}.
-     */
-    V get(long nanos) throws TimeoutException, CancellationException,
-        ExecutionException, InterruptedException {
+  /** A thread blocked in {@code get()}; a node of the {@link #waiters} stack. */
+  private static final class Waiter {
+    static final Waiter TOMBSTONE = new Waiter(false);
 
-      // Attempt to acquire the shared lock with a timeout.
-      if (!tryAcquireSharedNanos(-1, nanos)) {
-        throw new TimeoutException("Timeout waiting for task.");
-      }
+    // Cleared by the releasing thread, or by the owning thread when it gives up.
+    @Nullable volatile Thread thread;
+    @Nullable volatile Waiter next;
 
-      return getValue();
+    /** Constructs the {@link #TOMBSTONE}, which is never associated with a thread. */
+    Waiter(boolean unused) {}
+
+    Waiter() {
+      thread = Thread.currentThread();
     }
+  }
 
-    /**
-     * Blocks until {@link #complete(Object, Throwable, int)} has been
-     * successfully called.  Throws a {@link CancellationException} if the task
-     * was cancelled, or a {@link ExecutionException} if the task completed with
-     * an error.
-     */
-    V get() throws CancellationException, ExecutionException,
-        InterruptedException {
+  /** A listener that has not run yet; a node of the {@link #listeners} stack. */
+  private static final class Listener {
+    static final Listener TOMBSTONE = new Listener(null, null);
 
-      // Acquire the shared lock allowing interruption.
-      acquireSharedInterruptibly(-1);
-      return getValue();
+    final Runnable task;
+    final Executor executor;
+    // Only written before the node is published or after it has been removed from the stack.
+    @Nullable Listener next;
+
+    Listener(Runnable task, Executor executor) {
+      this.task = task;
+      this.executor = executor;
     }
+  }
 
-    /**
-     * Implementation of the actual value retrieval.  Will return the value
-     * on success, an exception on failure, a cancellation on cancellation, or
-     * an illegal state if the synchronizer is in an invalid state.
-     */
-    private V getValue() throws CancellationException, ExecutionException {
-      int state = getState();
-      switch (state) {
-        case COMPLETED:
-          if (exception != null) {
-            throw new ExecutionException(exception);
-          } else {
-            return value;
-          }
+  /** Stored in {@link #value} when the future failed. */
+  private static final class Failure {
+    final Throwable exception;
+
+    Failure(Throwable exception) {
+      this.exception = exception;
+    }
+  }
 
-        case CANCELLED:
-        case INTERRUPTED:
-          throw cancellationExceptionWithCause(
-              "Task was cancelled.", exception);
+  /** Stored in {@link #value} when the future was cancelled. */
+  private static final class Cancellation {
+    final boolean wasInterrupted;
+    final Throwable cause;
 
-        default:
-          throw new IllegalStateException(
-              "Error, synchronizer in invalid state: " + state);
+    Cancellation(boolean wasInterrupted, Throwable cause) {
+      this.wasInterrupted = wasInterrupted;
+      this.cause = cause;
+    }
+  }
+
+  private abstract static class AtomicHelper {
+    abstract boolean casWaiters(AbstractFuture<?> future, Waiter expect, Waiter update);
+
+    abstract boolean casListeners(AbstractFuture<?> future, Listener expect, Listener update);
+
+    abstract boolean casValue(AbstractFuture<?> future, Object expect, Object update);
+  }
+
+  /**
+   * {@link AtomicHelper} based on {@link sun.misc.Unsafe}. Unlike the field updaters, this does
+   * not check the runtime class of the future or the value on every operation.
+   */
+  private static final class UnsafeAtomicHelper extends AtomicHelper {
+    static final sun.misc.Unsafe UNSAFE;
+    static final long VALUE_OFFSET;
+    static final long WAITERS_OFFSET;
+    static final long LISTENERS_OFFSET;
+
+    static {
+      try {
+        UNSAFE = getUnsafe();
+        Class<?> k = AbstractFuture.class;
+        VALUE_OFFSET = UNSAFE.objectFieldOffset(k.getDeclaredField("value"));
+        WAITERS_OFFSET = UNSAFE.objectFieldOffset(k.getDeclaredField("waiters"));
+        LISTENERS_OFFSET = UNSAFE.objectFieldOffset(k.getDeclaredField("listeners"));
+      } catch (Exception e) {
+        throw new Error(e);
       }
     }
 
-    /**
-     * Checks if the state is {@link #COMPLETED}, {@link #CANCELLED}, or {@link
-     * INTERRUPTED}.
-     */
-    boolean isDone() {
-      return (getState() & (COMPLETED | CANCELLED | INTERRUPTED)) != 0;
+    @Override boolean casWaiters(AbstractFuture<?> future, Waiter expect, Waiter update) {
+      return UNSAFE.compareAndSwapObject(future, WAITERS_OFFSET, expect, update);
     }
 
-    /**
-     * Checks if the state is {@link #CANCELLED} or {@link #INTERRUPTED}.
-     */
-    boolean isCancelled() {
-      return (getState() & (CANCELLED | INTERRUPTED)) != 0;
+    @Override boolean casListeners(AbstractFuture<?> future, Listener expect, Listener update) {
+      return UNSAFE.compareAndSwapObject(future, LISTENERS_OFFSET, expect, update);
     }
 
-    /**
-     * Checks if the state is {@link #INTERRUPTED}.
-     */
-    boolean wasInterrupted() {
-      return getState() == INTERRUPTED;
+    @Override boolean casValue(AbstractFuture<?> future, Object expect, Object update) {
+      return UNSAFE.compareAndSwapObject(future, VALUE_OFFSET, expect, update);
     }
 
     /**
-     * Transition to the COMPLETED state and set the value.
+     * Returns a sun.misc.Unsafe.  Suitable for use in a 3rd party package.
+     * Replace with a simple call to Unsafe.getUnsafe when integrating
+     * into a jdk.
+     *
+     * @return a sun.misc.Unsafe
      */
-    boolean set(@Nullable V v) {
-      return complete(v, null, COMPLETED);
+    private static sun.misc.Unsafe getUnsafe() {
+      try {
+        return sun.misc.Unsafe.getUnsafe();
+      } catch (SecurityException tryReflectionInstead) {}
+      try {
+        return java.security.AccessController.doPrivileged(
+            new java.security.PrivilegedExceptionAction<sun.misc.Unsafe>() {
+              @Override public sun.misc.Unsafe run() throws Exception {
+                Class<sun.misc.Unsafe> k = sun.misc.Unsafe.class;
+                for (java.lang.reflect.Field f : k.getDeclaredFields()) {
+                  f.setAccessible(true);
+                  Object x = f.get(null);
+                  if (k.isInstance(x)) {
+                    return k.cast(x);
+                  }
+                }
+                throw new NoSuchFieldError("the Unsafe");
+              }
+            });
+      } catch (java.security.PrivilegedActionException e) {
+        throw new RuntimeException("Could not initialize intrinsics", e.getCause());
+      }
     }
+  }
 
-    /**
-     * Transition to the COMPLETED state and set the exception.
-     */
-    boolean setException(Throwable t) {
-      return complete(null, t, COMPLETED);
+  /** {@link AtomicHelper} based on {@link AtomicReferenceFieldUpdater}. */
+  @SuppressWarnings("rawtypes") // no way to express AbstractFuture<?> as a class literal
+  private static final class SafeAtomicHelper extends AtomicHelper {
+    static final AtomicReferenceFieldUpdater<AbstractFuture, Waiter> WAITERS_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(AbstractFuture.class, Waiter.class, "waiters");
+    static final AtomicReferenceFieldUpdater<AbstractFuture, Listener> LISTENERS_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(AbstractFuture.class, Listener.class, "listeners");
+    static final AtomicReferenceFieldUpdater<AbstractFuture, Object> VALUE_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(AbstractFuture.class, Object.class, "value");
+
+    @Override boolean casWaiters(AbstractFuture<?> future, Waiter expect, Waiter update) {
+      return WAITERS_UPDATER.compareAndSet(future, expect, update);
     }
 
-    /**
-     * Transition to the CANCELLED or INTERRUPTED state.
-     */
-    boolean cancel(boolean interrupt) {
-      return complete(null, null, interrupt ? INTERRUPTED : CANCELLED);
+    @Override boolean casListeners(AbstractFuture<?> future, Listener expect, Listener update) {
+      return LISTENERS_UPDATER.compareAndSet(future, expect, update);
     }
 
-    /**
-     * Implementation of completing a task.  Either {@code v} or {@code t} will
-     * be set but not both.  The {@code finalState} is the state to change to
-     * from {@link #RUNNING}.  If the state is not in the RUNNING state we
-     * return {@code false} after waiting for the state to be set to a valid
-     * final state ({@link #COMPLETED}, {@link #CANCELLED}, or {@link
-     * #INTERRUPTED}).
-     *
-     * @param v the value to set as the result of the computation.
-     * @param t the exception to set as the result of the computation.
-     * @param finalState the state to transition to.
-     */
-    private boolean complete(@Nullable V v, @Nullable Throwable t,
-        int finalState) {
-      boolean doCompletion = compareAndSetState(RUNNING, COMPLETING);
-      if (doCompletion) {
-        // If this thread successfully transitioned to COMPLETING, set the value
-        // and exception and then release to the final state.
-        this.value = v;
-        // Don't actually construct a CancellationException until necessary.
-        this.exception = ((finalState & (CANCELLED | INTERRUPTED)) != 0)
-            ? new CancellationException("Future.cancel() was called.") : t;
-        releaseShared(finalState);
-      } else if (getState() == COMPLETING) {
-        // If some other thread is currently completing the future, block until
-        // they are done so we can guarantee completion.
-        acquireShared(-1);
-      }
-      return doCompletion;
+    @Override boolean casValue(AbstractFuture<?> future, Object expect, Object update) {
+      return VALUE_UPDATER.compareAndSet(future, expect, update);
     }
   }
 